@@ -0,0 +1,197 @@
+package com.countjoy.data.local
+
+import android.content.Context
+import androidx.room.Room
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.countjoy.data.local.migration.DatabaseMigrations
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.time.LocalDate
+
+/**
+ * Creates a version 4 database from plain SQL, opens it through Room so
+ * every migration runs in turn, and checks that the rows written at the
+ * start survive. Room validates the migrated tables, indices and foreign
+ * keys against the schema it generates for the current entities, and fails
+ * the open if they differ.
+ */
+@RunWith(AndroidJUnit4::class)
+class MigrationTest {
+
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    @Before
+    fun setUp() {
+        context.deleteDatabase(TEST_DB)
+    }
+
+    @After
+    fun tearDown() {
+        context.deleteDatabase(TEST_DB)
+    }
+
+    @Test
+    fun migratesThroughEveryVersion() {
+        createVersion4Database().use { helper ->
+            val db = helper.writableDatabase
+            insertEvent(db, 1, "Trip to Lisbon")
+            insertEvent(db, 2, "alpha")
+            insertEvent(db, 3, "Deleted")
+            db.execSQL("DELETE FROM countdown_events WHERE id = 3")
+            db.execSQL(
+                "INSERT INTO recurrence_rules (id, eventId, pattern, intervalValue, daysOfWeek, endType, " +
+                    "exceptions, skipWeekends, skipHolidays) " +
+                    "VALUES ('rule', '1', 'WEEKLY', 1, 'MONDAY,FRIDAY', 'NEVER', '2030-01-07', 0, 0)"
+            )
+        }
+
+        val database = Room.databaseBuilder(context, CountJoyDatabase::class.java, TEST_DB)
+            .addMigrations(*DatabaseMigrations.getAllMigrations())
+            .build()
+        try {
+            val db = database.openHelper.writableDatabase
+            assertEquals(LATEST_VERSION, db.version)
+
+            assertEquals(listOf("alpha", "Trip to Lisbon"), strings(db, "SELECT title FROM countdown_events ORDER BY title"))
+            assertEquals(
+                listOf(1L),
+                longs(db, "SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH 'lisbon'")
+            )
+            assertEquals(listOf(0b10001L), longs(db, "SELECT daysOfWeekMask FROM recurrence_rules WHERE id = 'rule'"))
+            assertEquals(
+                listOf(LocalDate.of(2030, 1, 7).toEpochDay()),
+                longs(db, "SELECT epoch_day FROM recurrence_exceptions WHERE rule_id = 'rule' AND is_cancelled = 1")
+            )
+            assertEquals(
+                listOf(4102444800000L, 4102444800000L),
+                longs(db, "SELECT next_occurrence FROM countdown_events ORDER BY id")
+            )
+
+            // The AUTOINCREMENT counter survives the table rebuild, so a deleted id is not handed out again
+            db.execSQL(
+                "INSERT INTO countdown_events (title, category, target_date_time, reminder_enabled, created_at, " +
+                    "updated_at, is_active, priority) VALUES ('New', 'General', 0, 0, 0, 0, 1, 0)"
+            )
+            assertEquals(listOf(4L), longs(db, "SELECT id FROM countdown_events WHERE title = 'New'"))
+        } finally {
+            database.close()
+        }
+    }
+
+    /**
+     * Opens [TEST_DB] at version 4, its tables as migrations 1 to 4 left them.
+     */
+    private fun createVersion4Database(): SupportSQLiteOpenHelper {
+        val configuration = SupportSQLiteOpenHelper.Configuration.builder(context)
+            .name(TEST_DB)
+            .callback(object : SupportSQLiteOpenHelper.Callback(FIRST_VERSION) {
+                override fun onCreate(db: SupportSQLiteDatabase) {
+                    VERSION_4_STATEMENTS.forEach { db.execSQL(it) }
+                }
+
+                override fun onUpgrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) = Unit
+            })
+            .build()
+        return FrameworkSQLiteOpenHelperFactory().create(configuration)
+    }
+
+    private fun insertEvent(db: SupportSQLiteDatabase, id: Long, title: String) {
+        db.execSQL(
+            "INSERT INTO countdown_events (id, title, category, target_date_time, reminder_enabled, created_at, " +
+                "updated_at, is_active, priority) VALUES ($id, '$title', 'General', 4102444800000, 0, 0, 0, 1, 0)"
+        )
+    }
+
+    private fun strings(db: SupportSQLiteDatabase, sql: String): List<String> {
+        return db.query(sql).use { cursor ->
+            buildList {
+                while (cursor.moveToNext()) add(cursor.getString(0))
+            }
+        }
+    }
+
+    private fun longs(db: SupportSQLiteDatabase, sql: String): List<Long> {
+        return db.query(sql).use { cursor ->
+            buildList {
+                while (cursor.moveToNext()) add(cursor.getLong(0))
+            }
+        }
+    }
+
+    private companion object {
+        const val TEST_DB = "migration-test"
+
+        /** Oldest version tested; its tables are those every later migration starts from. */
+        const val FIRST_VERSION = 4
+        const val LATEST_VERSION = 13
+
+        val VERSION_4_STATEMENTS = listOf(
+            """
+            CREATE TABLE countdown_events (
+                id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,
+                title TEXT NOT NULL,
+                description TEXT,
+                category TEXT NOT NULL DEFAULT 'General',
+                target_date_time INTEGER NOT NULL,
+                reminder_enabled INTEGER NOT NULL DEFAULT 0,
+                reminder_time INTEGER,
+                color INTEGER,
+                icon TEXT,
+                created_at INTEGER NOT NULL,
+                updated_at INTEGER NOT NULL,
+                is_active INTEGER NOT NULL DEFAULT 1,
+                priority INTEGER NOT NULL DEFAULT 0
+            )
+            """.trimIndent(),
+            "CREATE INDEX index_countdown_events_category ON countdown_events (category)",
+            "CREATE INDEX index_countdown_events_target_date_time ON countdown_events (target_date_time)",
+            "CREATE INDEX index_countdown_events_is_active ON countdown_events (is_active)",
+            """
+            CREATE TABLE milestones (
+                id TEXT PRIMARY KEY NOT NULL,
+                eventId TEXT NOT NULL,
+                type TEXT NOT NULL,
+                value REAL NOT NULL,
+                title TEXT NOT NULL,
+                message TEXT NOT NULL,
+                isNotificationEnabled INTEGER NOT NULL,
+                isAchieved INTEGER NOT NULL,
+                achievedAt INTEGER,
+                celebrationEffect TEXT NOT NULL,
+                FOREIGN KEY(eventId) REFERENCES countdown_events(id) ON DELETE CASCADE
+            )
+            """.trimIndent(),
+            "CREATE INDEX index_milestones_eventId ON milestones (eventId)",
+            """
+            CREATE TABLE recurrence_rules (
+                id TEXT PRIMARY KEY NOT NULL,
+                eventId TEXT NOT NULL,
+                pattern TEXT NOT NULL,
+                intervalValue INTEGER NOT NULL,
+                daysOfWeek TEXT,
+                dayOfMonth INTEGER,
+                weekOfMonth INTEGER,
+                monthOfYear INTEGER,
+                endType TEXT NOT NULL,
+                endDate INTEGER,
+                occurrenceCount INTEGER,
+                exceptions TEXT,
+                skipWeekends INTEGER NOT NULL,
+                skipHolidays INTEGER NOT NULL,
+                lastOccurrenceDate INTEGER,
+                nextOccurrenceDate INTEGER,
+                FOREIGN KEY(eventId) REFERENCES countdown_events(id) ON DELETE CASCADE
+            )
+            """.trimIndent(),
+            "CREATE INDEX index_recurrence_rules_eventId ON recurrence_rules (eventId)",
+            "CREATE INDEX index_recurrence_rules_nextOccurrenceDate ON recurrence_rules (nextOccurrenceDate)"
+        )
+    }
+}
@@ -3,17 +3,46 @@ package com.countjoy
 import android.app.Application
 import android.content.Context
 import android.content.res.Configuration
+import androidx.hilt.work.HiltWorkerFactory
+import androidx.work.Configuration as WorkConfiguration
 import com.countjoy.core.locale.LocaleManager
 import com.countjoy.data.local.preferences.SharedPreferencesManager
+import com.countjoy.domain.repository.AnalyticsRepository
+import com.countjoy.service.ExpiryAlarmScheduler
+import com.countjoy.service.MilestoneAlarmScheduler
+import com.countjoy.worker.AnalyticsRollupWorker
+import com.countjoy.worker.EventWorkScheduler
+import com.countjoy.worker.RecurrenceCatchUpWorker
 import dagger.hilt.android.HiltAndroidApp
 import javax.inject.Inject
 
 @HiltAndroidApp
-class CountJoyApplication : Application() {
+class CountJoyApplication : Application(), WorkConfiguration.Provider {
     
     @Inject
     lateinit var localeManager: LocaleManager
     
+    @Inject
+    lateinit var workerFactory: HiltWorkerFactory
+    
+    @Inject
+    lateinit var milestoneAlarmScheduler: MilestoneAlarmScheduler
+    
+    @Inject
+    lateinit var eventWorkScheduler: EventWorkScheduler
+    
+    @Inject
+    lateinit var expiryAlarmScheduler: ExpiryAlarmScheduler
+    
+    @Inject
+    lateinit var analyticsRepository: AnalyticsRepository
+    
+    // Lets WorkManager create @HiltWorker workers with their dependencies
+    override val workManagerConfiguration: WorkConfiguration
+        get() = WorkConfiguration.Builder()
+            .setWorkerFactory(workerFactory)
+            .build()
+    
     override fun attachBaseContext(base: Context) {
         // Apply the saved locale before the application is created
         val preferencesManager = SharedPreferencesManager(base)
@@ -23,6 +52,13 @@ class CountJoyApplication : Application() {
     
     override fun onCreate() {
         super.onCreate()
+        milestoneAlarmScheduler.start()
+        eventWorkScheduler.start()
+        expiryAlarmScheduler.start()
+        RecurrenceCatchUpWorker.enqueue(this)
+        if (analyticsRepository.isRollupStale()) {
+            AnalyticsRollupWorker.enqueue(this)
+        }
     }
     
     override fun onConfigurationChanged(newConfig: Configuration) {
@@ -0,0 +1,149 @@
+package com.countjoy.data.local
+
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Triggers that keep analytics_daily_rollup in step with the events and
+ * milestones tables.
+ *
+ * Each rollup row counts, for one local day, category and priority, the
+ * events created that day and how many of those are completed (deactivated),
+ * the completed events whose target falls on that day, and the milestones
+ * achieved that day. Every write,
+ * whichever DAO or cascade it comes from, retracts the old row's counts and
+ * applies the new row's, so the rollup never needs a scan to stay current.
+ *
+ * Days are local to the timezone in effect at write time; after a timezone
+ * change the rollup is rebuilt from scratch.
+ */
+object AnalyticsRollupSchema {
+
+    const val TABLE = "analytics_daily_rollup"
+
+    /** Mirrors what Room generates for AnalyticsDailyRollupEntity. */
+    internal const val CREATE_TABLE_STATEMENT =
+        "CREATE TABLE IF NOT EXISTS `analytics_daily_rollup` (" +
+            "`day` TEXT NOT NULL, `category` TEXT NOT NULL, `priority` INTEGER NOT NULL, " +
+            "`created_count` INTEGER NOT NULL DEFAULT 0, `completed_count` INTEGER NOT NULL DEFAULT 0, " +
+            "`completed_duration_millis` INTEGER NOT NULL DEFAULT 0, `completed_on_count` INTEGER NOT NULL DEFAULT 0, " +
+            "`achieved_count` INTEGER NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY(`day`, `category`, `priority`))"
+
+    private const val EVENT_COLUMNS_CHANGED =
+        "OLD.created_at IS NOT NEW.created_at OR OLD.category IS NOT NEW.category " +
+            "OR OLD.priority IS NOT NEW.priority OR OLD.is_active IS NOT NEW.is_active " +
+            "OR OLD.target_date_time IS NOT NEW.target_date_time"
+
+    private const val EVENT_KEY_CHANGED = "(OLD.category IS NOT NEW.category OR OLD.priority IS NOT NEW.priority)"
+
+    private const val MILESTONE_COLUMNS_CHANGED =
+        "OLD.isAchieved IS NOT NEW.isAchieved OR OLD.achievedAt IS NOT NEW.achievedAt OR OLD.eventId IS NOT NEW.eventId"
+
+    internal val TRIGGER_STATEMENTS = listOf(
+        trigger(
+            "analytics_rollup_event_insert", "AFTER INSERT ON countdown_events",
+            eventCounts("NEW", +1)
+        ),
+        trigger(
+            "analytics_rollup_event_update",
+            "AFTER UPDATE OF created_at, category, priority, is_active, target_date_time ON countdown_events " +
+                "WHEN $EVENT_COLUMNS_CHANGED",
+            eventCounts("OLD", -1) + eventCounts("NEW", +1) +
+                achievedCounts("OLD", -1, EVENT_KEY_CHANGED) + achievedCounts("NEW", +1, EVENT_KEY_CHANGED)
+        ),
+        // Before the delete, while the milestones the cascade removes are still there
+        trigger(
+            "analytics_rollup_event_delete", "BEFORE DELETE ON countdown_events",
+            eventCounts("OLD", -1) + achievedCounts("OLD", -1)
+        ),
+        trigger(
+            "analytics_rollup_milestone_insert", "AFTER INSERT ON milestones",
+            milestoneCounts("NEW", +1)
+        ),
+        trigger(
+            "analytics_rollup_milestone_update",
+            "AFTER UPDATE OF isAchieved, achievedAt, eventId ON milestones WHEN $MILESTONE_COLUMNS_CHANGED",
+            milestoneCounts("OLD", -1) + milestoneCounts("NEW", +1)
+        ),
+        // A cascade from an event delete finds no event here; the event's trigger retracted it
+        trigger(
+            "analytics_rollup_milestone_delete", "AFTER DELETE ON milestones",
+            milestoneCounts("OLD", -1)
+        )
+    )
+
+    /**
+     * Creates the triggers on a fresh install; Room only creates the table.
+     */
+    val callback = object : RoomDatabase.Callback() {
+        override fun onCreate(db: SupportSQLiteDatabase) {
+            TRIGGER_STATEMENTS.forEach { db.execSQL(it) }
+        }
+    }
+
+    private fun localDay(millis: String) = "date($millis / 1000, 'unixepoch', 'localtime')"
+
+    private fun trigger(name: String, timing: String, statements: List<String>): String {
+        return "CREATE TRIGGER IF NOT EXISTS $name $timing BEGIN ${statements.joinToString(" ") { "$it;" }} END"
+    }
+
+    /**
+     * Adds [sign] times the counts of event [row] to its created day and, if
+     * it is completed, to its target day.
+     * Retracting never inserts, so a row missing before a rebuild stays missing.
+     */
+    private fun eventCounts(row: String, sign: Int): List<String> {
+        val createdDay = localDay("$row.created_at")
+        val targetDay = localDay("$row.target_date_time")
+        val completed = "$row.is_active = 0"
+        return listOfNotNull(
+            ensureRow("VALUES ($createdDay, $row.category, $row.priority)").takeIf { sign > 0 },
+            "UPDATE $TABLE SET created_count = created_count + $sign, " +
+                "completed_count = completed_count + $sign * ($completed), " +
+                "completed_duration_millis = completed_duration_millis + " +
+                "$sign * ($completed) * ($row.target_date_time - $row.created_at) " +
+                "WHERE day = $createdDay AND category = $row.category AND priority = $row.priority",
+            ensureRow("SELECT $targetDay, $row.category, $row.priority WHERE $completed").takeIf { sign > 0 },
+            "UPDATE $TABLE SET completed_on_count = completed_on_count + $sign " +
+                "WHERE day = $targetDay AND category = $row.category AND priority = $row.priority AND $completed"
+        )
+    }
+
+    /**
+     * Adds [sign] times the achieved milestones of event [row], filed under
+     * the event's category and priority, when [condition] holds.
+     */
+    private fun achievedCounts(row: String, sign: Int, condition: String = "1"): List<String> {
+        val achievedOfEvent = "FROM milestones WHERE eventId = CAST($row.id AS TEXT) AND isAchieved = 1 AND achievedAt IS NOT NULL"
+        val achievedDay = localDay("achievedAt")
+        return listOfNotNull(
+            ensureRow("SELECT DISTINCT $achievedDay, $row.category, $row.priority $achievedOfEvent AND $condition")
+                .takeIf { sign > 0 },
+            "UPDATE $TABLE SET achieved_count = achieved_count + $sign * " +
+                "(SELECT COUNT(*) $achievedOfEvent AND $achievedDay = $TABLE.day) " +
+                "WHERE category = $row.category AND priority = $row.priority AND $condition " +
+                "AND day IN (SELECT $achievedDay $achievedOfEvent)"
+        )
+    }
+
+    /**
+     * Adds [sign] times milestone [row] to the day it was achieved, filed
+     * under its event's category and priority.
+     */
+    private fun milestoneCounts(row: String, sign: Int): List<String> {
+        val achievedDay = localDay("$row.achievedAt")
+        val achieved = "$row.isAchieved = 1 AND $row.achievedAt IS NOT NULL"
+        val event = "FROM countdown_events WHERE id = CAST($row.eventId AS INTEGER)"
+        return listOfNotNull(
+            ensureRow("SELECT $achievedDay, category, priority $event AND $achieved").takeIf { sign > 0 },
+            "UPDATE $TABLE SET achieved_count = achieved_count + $sign " +
+                "WHERE day = $achievedDay AND $achieved " +
+                "AND category = (SELECT category $event) AND priority = (SELECT priority $event)"
+        )
+    }
+
+    private fun ensureRow(select: String): String {
+        return "INSERT OR IGNORE INTO $TABLE (day, category, priority) $select"
+    }
+}
@@ -4,21 +4,37 @@ import androidx.room.Database
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
 import com.countjoy.data.local.converter.DateTimeConverter
+import com.countjoy.data.local.dao.AnalyticsRollupDao
 import com.countjoy.data.local.dao.CountdownEventDao
+import com.countjoy.data.local.dao.ExpiryDao
 import com.countjoy.data.local.dao.MilestoneDao
 import com.countjoy.data.local.dao.RecurrenceRuleDao
+import com.countjoy.data.local.entity.AnalyticsDailyRollupEntity
 import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.entity.CountdownEventFtsEntity
+import com.countjoy.data.local.entity.DeliveredExpiryEntity
 import com.countjoy.data.local.entity.MilestoneEntity
+import com.countjoy.data.local.entity.RecurrenceExceptionEntity
 import com.countjoy.data.local.entity.RecurrenceRuleEntity
 
 @Database(
-    entities = [CountdownEventEntity::class, MilestoneEntity::class, RecurrenceRuleEntity::class],
-    version = 4,
-    exportSchema = false
+    entities = [
+        CountdownEventEntity::class,
+        CountdownEventFtsEntity::class,
+        MilestoneEntity::class,
+        RecurrenceRuleEntity::class,
+        DeliveredExpiryEntity::class,
+        AnalyticsDailyRollupEntity::class,
+        RecurrenceExceptionEntity::class
+    ],
+    version = 13,
+    exportSchema = true
 )
 @TypeConverters(DateTimeConverter::class)
 abstract class CountJoyDatabase : RoomDatabase() {
     abstract fun countdownEventDao(): CountdownEventDao
     abstract fun milestoneDao(): MilestoneDao
     abstract fun recurrenceRuleDao(): RecurrenceRuleDao
+    abstract fun expiryDao(): ExpiryDao
+    abstract fun analyticsRollupDao(): AnalyticsRollupDao
 }
\ No newline at end of file
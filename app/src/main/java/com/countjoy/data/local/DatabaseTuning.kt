@@ -0,0 +1,75 @@
+package com.countjoy.data.local
+
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Storage configuration for CountJoyDatabase.
+ *
+ * The database runs in WAL mode so list and analytics reads never wait for a
+ * worker that is writing. Reads go through a dedicated pool sized to the WAL
+ * connection pool instead of sharing the app-wide IO executor.
+ */
+object DatabaseTuning {
+
+    /**
+     * Number of query threads; matches the reader connections SQLite keeps
+     * open in WAL mode, so extra threads would only queue for a connection.
+     */
+    const val QUERY_THREADS = 4
+
+    /** Page cache of the write connection, in KiB (negative values are KiB for SQLite). */
+    const val CACHE_SIZE_KIB = 8 * 1024
+
+    /**
+     * Pragmas applied to the connection Room opens the database with.
+     *
+     * These are per-connection settings, and the framework opens the WAL
+     * reader connections itself without a hook to configure them, so they
+     * reach only this connection. It is the one every write and every
+     * transaction goes through, which is what each setting is for:
+     * synchronous=NORMAL is durable across app crashes in WAL mode and only
+     * risks the last commits on power loss, which is acceptable for countdowns.
+     * The larger page cache holds the index pages the FTS and rollup triggers
+     * touch on each write. recursive_triggers makes the rows an INSERT OR
+     * REPLACE removes fire their delete triggers, which keep the FTS index and
+     * the analytics rollup in step.
+     */
+    internal val PRAGMA_STATEMENTS = listOf(
+        "PRAGMA synchronous = NORMAL",
+        "PRAGMA cache_size = -$CACHE_SIZE_KIB",
+        "PRAGMA recursive_triggers = ON"
+    )
+
+    /**
+     * Applies [PRAGMA_STATEMENTS] to the connection Room opens the database
+     * with, which is also the connection every write goes through.
+     */
+    val callback = object : RoomDatabase.Callback() {
+        override fun onOpen(db: SupportSQLiteDatabase) {
+            // Some pragmas return a row, so run them as queries rather than execSQL
+            PRAGMA_STATEMENTS.forEach { pragma -> db.query(pragma).close() }
+        }
+    }
+
+    /**
+     * Creates the executor Room runs queries on.
+     */
+    fun createQueryExecutor(): ExecutorService {
+        return Executors.newFixedThreadPool(QUERY_THREADS, QueryThreadFactory())
+    }
+
+    private class QueryThreadFactory : ThreadFactory {
+        private val count = AtomicInteger()
+
+        override fun newThread(runnable: Runnable): Thread {
+            return Thread(runnable, "countjoy-db-query-${count.incrementAndGet()}").apply {
+                isDaemon = true
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.countjoy.data.local.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import androidx.room.Transaction
+import com.countjoy.data.local.entity.CategoryCountRow
+import com.countjoy.data.local.entity.PriorityCountRow
+import com.countjoy.data.local.entity.RollupDayRow
+import com.countjoy.data.local.entity.RollupTotalsRow
+
+/**
+ * Reads analytics_daily_rollup. Every query sums the rows of the days from
+ * :fromDay (yyyy-MM-dd) on, so its cost grows with the number of days and
+ * categories in range, not with the number of events.
+ */
+@Dao
+interface AnalyticsRollupDao {
+
+    @Query("""
+        SELECT COALESCE(SUM(created_count), 0) AS created,
+            COALESCE(SUM(completed_count), 0) AS completed,
+            COALESCE(SUM(completed_duration_millis), 0) AS completed_duration_millis,
+            MIN(CASE WHEN created_count > 0 THEN day END) AS earliest_created_day
+        FROM analytics_daily_rollup
+        WHERE day >= :fromDay
+    """)
+    suspend fun getTotals(fromDay: String): RollupTotalsRow
+
+    @Query("""
+        SELECT category, SUM(created_count) AS count
+        FROM analytics_daily_rollup
+        WHERE day >= :fromDay
+        GROUP BY category
+        HAVING count > 0
+    """)
+    suspend fun getCategoryCounts(fromDay: String): List<CategoryCountRow>
+
+    @Query("""
+        SELECT priority, SUM(created_count) AS count
+        FROM analytics_daily_rollup
+        WHERE day >= :fromDay
+        GROUP BY priority
+        HAVING count > 0
+    """)
+    suspend fun getPriorityCounts(fromDay: String): List<PriorityCountRow>
+
+    // Retracted counts leave rows of zeros behind, so empty days are skipped
+    @Query("""
+        SELECT day, SUM(created_count) AS created, SUM(completed_on_count) AS completed, SUM(achieved_count) AS achieved
+        FROM analytics_daily_rollup
+        WHERE day >= :fromDay
+        GROUP BY day
+        HAVING created > 0 OR completed > 0 OR achieved > 0
+        ORDER BY day
+    """)
+    suspend fun getDays(fromDay: String): List<RollupDayRow>
+
+    @Query("DELETE FROM analytics_daily_rollup")
+    suspend fun clearRollup()
+
+    /**
+     * Recomputes every rollup row from the events and milestones, bucketing
+     * by the current local timezone, as the triggers do row by row.
+     */
+    @Query("""
+        INSERT INTO analytics_daily_rollup (day, category, priority, created_count, completed_count, completed_duration_millis, completed_on_count, achieved_count)
+        SELECT day, category, priority, SUM(created), SUM(completed), SUM(duration), SUM(completed_on), SUM(achieved)
+        FROM (
+            SELECT date(created_at / 1000, 'unixepoch', 'localtime') AS day, category, priority,
+                1 AS created, is_active = 0 AS completed,
+                CASE WHEN is_active = 0 THEN target_date_time - created_at ELSE 0 END AS duration,
+                0 AS completed_on, 0 AS achieved
+            FROM countdown_events
+            UNION ALL
+            SELECT date(target_date_time / 1000, 'unixepoch', 'localtime'), category, priority,
+                0, 0, 0, 1, 0
+            FROM countdown_events
+            WHERE is_active = 0
+            UNION ALL
+            SELECT date(milestones.achievedAt / 1000, 'unixepoch', 'localtime'), countdown_events.category, countdown_events.priority,
+                0, 0, 0, 0, 1
+            FROM milestones
+            INNER JOIN countdown_events ON countdown_events.id = CAST(milestones.eventId AS INTEGER)
+            WHERE milestones.isAchieved = 1 AND milestones.achievedAt IS NOT NULL
+        )
+        GROUP BY day, category, priority
+    """)
+    suspend fun insertRollup()
+
+    /**
+     * Replaces the rollup with one computed from scratch, in one transaction
+     * so readers never see it half built.
+     */
+    @Transaction
+    suspend fun rebuildRollup() {
+        clearRollup()
+        insertRollup()
+    }
+}
@@ -1,13 +1,16 @@
 package com.countjoy.data.local.dao
 
+import androidx.paging.PagingSource
 import androidx.room.*
 import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.entity.DurationBinCountRow
+import com.countjoy.data.local.entity.WeekdayHourCountRow
 import kotlinx.coroutines.flow.Flow
 
 @Dao
 interface CountdownEventDao {
     
-    @Query("SELECT * FROM countdown_events WHERE is_active = 1 ORDER BY target_date_time ASC")
+    @Query("SELECT * FROM countdown_events WHERE is_active = 1 ORDER BY next_occurrence ASC")
     fun getAllActiveEvents(): Flow<List<CountdownEventEntity>>
     
     @Query("SELECT * FROM countdown_events ORDER BY target_date_time ASC")
@@ -16,6 +19,16 @@ interface CountdownEventDao {
     @Query("SELECT * FROM countdown_events WHERE id = :id")
     suspend fun getEventById(id: Long): CountdownEventEntity?
     
+    @Query("SELECT updated_at FROM countdown_events WHERE id = :id")
+    suspend fun getEventUpdatedAt(id: Long): Long?
+    
+    /**
+     * Gets the next [limit] events after [afterId] in id order, for reading
+     * the table in chunks.
+     */
+    @Query("SELECT * FROM countdown_events WHERE id > :afterId AND created_at > :createdAfter ORDER BY id LIMIT :limit")
+    suspend fun getEventsCreatedAfterChunk(createdAfter: Long, afterId: Long, limit: Int): List<CountdownEventEntity>
+    
     @Query("SELECT * FROM countdown_events WHERE id = :id")
     fun observeEventById(id: Long): Flow<CountdownEventEntity?>
     
@@ -23,7 +36,23 @@ interface CountdownEventDao {
     suspend fun insertEvent(event: CountdownEventEntity): Long
     
     @Update
-    suspend fun updateEvent(event: CountdownEventEntity)
+    suspend fun updateEvent(event: CountdownEventEntity): Int
+    
+    /**
+     * Updates an event, keeping the occurrence a recurring event is at
+     * unless its target moved
+     * @return The number of rows updated
+     */
+    @Transaction
+    suspend fun updateEventKeepingOccurrence(event: CountdownEventEntity): Int {
+        val stored = getEventById(event.id) ?: return 0
+        val nextOccurrence = if (event.targetDateTime == stored.targetDateTime) {
+            stored.nextOccurrence
+        } else {
+            event.targetDateTime
+        }
+        return updateEvent(event.copy(nextOccurrence = nextOccurrence))
+    }
     
     @Delete
     suspend fun deleteEvent(event: CountdownEventEntity)
@@ -31,52 +60,257 @@ interface CountdownEventDao {
     @Query("DELETE FROM countdown_events WHERE id = :id")
     suspend fun deleteEventById(id: Long)
     
-    @Query("UPDATE countdown_events SET is_active = :isActive WHERE id = :id")
-    suspend fun updateEventActiveStatus(id: Long, isActive: Boolean)
+    @Query("UPDATE countdown_events SET is_active = :isActive, updated_at = :updatedAt WHERE id = :id")
+    suspend fun updateEventActiveStatus(id: Long, isActive: Boolean, updatedAt: Long)
     
     // Multi-event support queries
+    /*
+     * Search and list queries come in one variant per sort key rather than
+     * an ORDER BY chosen by a bind parameter, which SQLite cannot serve from
+     * an index. Each order matches an index on CountdownEventEntity, so pages
+     * are read in index order and stop at the page limit.
+     */
+    
+    /**
+     * @param matchQuery FTS MATCH expression, see EventSearchQuery
+     * @param sortBy "priority", "name" or "date"; anything else sorts by date
+     */
+    fun searchAndFilterEvents(
+        matchQuery: String? = null,
+        category: String? = null,
+        priority: Int? = null,
+        sortBy: String = "date"
+    ): Flow<List<CountdownEventEntity>> {
+        return when (sortBy) {
+            "priority" -> searchEventsByPriority(matchQuery, category, priority)
+            "name" -> searchEventsByName(matchQuery, category, priority)
+            else -> searchEventsByDate(matchQuery, category, priority)
+        }
+    }
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND is_active = 1
+        ORDER BY next_occurrence ASC, id ASC
+    """)
+    fun searchEventsByDate(matchQuery: String?, category: String?, priority: Int?): Flow<List<CountdownEventEntity>>
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND is_active = 1
+        ORDER BY priority DESC, next_occurrence ASC, id ASC
+    """)
+    fun searchEventsByPriority(matchQuery: String?, category: String?, priority: Int?): Flow<List<CountdownEventEntity>>
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND is_active = 1
+        ORDER BY title COLLATE NOCASE ASC, next_occurrence ASC, id ASC
+    """)
+    fun searchEventsByName(matchQuery: String?, category: String?, priority: Int?): Flow<List<CountdownEventEntity>>
+    
+    /**
+     * Paged variant of [searchAndFilterEvents] that keeps filtering, past/future
+     * selection and ordering in SQL, so only the visible pages are loaded.
+     * Relevance ordering ranks title hits above description-only hits and
+     * falls back to date order without a search.
+     */
+    fun pagingSearchAndFilterEvents(
+        matchQuery: String?,
+        titleMatchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long,
+        sortBy: String
+    ): PagingSource<Int, CountdownEventEntity> {
+        return when {
+            sortBy == "relevance" && matchQuery != null && titleMatchQuery != null ->
+                pagingSearchEventsByRelevance(matchQuery, titleMatchQuery, category, priority, showPast, currentTime)
+            sortBy == "priority" -> pagingSearchEventsByPriority(matchQuery, category, priority, showPast, currentTime)
+            sortBy == "name" -> pagingSearchEventsByName(matchQuery, category, priority, showPast, currentTime)
+            sortBy == "category" -> pagingSearchEventsByCategory(matchQuery, category, priority, showPast, currentTime)
+            else -> pagingSearchEventsByDate(matchQuery, category, priority, showPast, currentTime)
+        }
+    }
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND (:showPast = 1 OR next_occurrence >= :currentTime)
+        AND is_active = 1
+        ORDER BY next_occurrence ASC, id ASC
+    """)
+    fun pagingSearchEventsByDate(
+        matchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long
+    ): PagingSource<Int, CountdownEventEntity>
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND (:showPast = 1 OR next_occurrence >= :currentTime)
+        AND is_active = 1
+        ORDER BY priority DESC, next_occurrence ASC, id ASC
+    """)
+    fun pagingSearchEventsByPriority(
+        matchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long
+    ): PagingSource<Int, CountdownEventEntity>
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND (:showPast = 1 OR next_occurrence >= :currentTime)
+        AND is_active = 1
+        ORDER BY title COLLATE NOCASE ASC, next_occurrence ASC, id ASC
+    """)
+    fun pagingSearchEventsByName(
+        matchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long
+    ): PagingSource<Int, CountdownEventEntity>
+    
+    @Query("""
+        SELECT * FROM countdown_events 
+        WHERE (:matchQuery IS NULL OR id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery))
+        AND (:category IS NULL OR category = :category)
+        AND (:priority IS NULL OR priority = :priority)
+        AND (:showPast = 1 OR next_occurrence >= :currentTime)
+        AND is_active = 1
+        ORDER BY category ASC, next_occurrence ASC, id ASC
+    """)
+    fun pagingSearchEventsByCategory(
+        matchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long
+    ): PagingSource<Int, CountdownEventEntity>
+    
+    /**
+     * Ranks by a second full-text match, so only the rows matching the search
+     * are sorted, never the whole table.
+     */
     @Query("""
         SELECT * FROM countdown_events 
-        WHERE (:searchQuery IS NULL OR title LIKE '%' || :searchQuery || '%' OR description LIKE '%' || :searchQuery || '%')
+        WHERE id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :matchQuery)
         AND (:category IS NULL OR category = :category)
         AND (:priority IS NULL OR priority = :priority)
+        AND (:showPast = 1 OR next_occurrence >= :currentTime)
         AND is_active = 1
         ORDER BY 
-            CASE WHEN :sortBy = 'priority' THEN priority END DESC,
-            CASE WHEN :sortBy = 'date' THEN target_date_time END ASC,
-            CASE WHEN :sortBy = 'name' THEN title END ASC,
-            target_date_time ASC
+            id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH :titleMatchQuery) DESC,
+            next_occurrence ASC,
+            id ASC
     """)
-    fun searchAndFilterEvents(
-        searchQuery: String? = null,
-        category: String? = null,
-        priority: Int? = null,
-        sortBy: String = "date"
-    ): Flow<List<CountdownEventEntity>>
+    fun pagingSearchEventsByRelevance(
+        matchQuery: String,
+        titleMatchQuery: String,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        currentTime: Long
+    ): PagingSource<Int, CountdownEventEntity>
     
     @Query("SELECT DISTINCT category FROM countdown_events WHERE is_active = 1")
     fun getAllCategories(): Flow<List<String>>
     
-    @Query("SELECT * FROM countdown_events WHERE category = :category AND is_active = 1 ORDER BY target_date_time ASC")
+    @Query("SELECT * FROM countdown_events WHERE category = :category AND is_active = 1 ORDER BY next_occurrence ASC")
     fun getEventsByCategory(category: String): Flow<List<CountdownEventEntity>>
     
-    @Query("SELECT * FROM countdown_events WHERE priority = :priority AND is_active = 1 ORDER BY target_date_time ASC")
+    @Query("SELECT * FROM countdown_events WHERE priority = :priority AND is_active = 1 ORDER BY next_occurrence ASC")
     fun getEventsByPriority(priority: Int): Flow<List<CountdownEventEntity>>
     
     @Query("""
         SELECT * FROM countdown_events 
-        WHERE target_date_time >= :startDate AND target_date_time <= :endDate 
+        WHERE next_occurrence >= :startDate AND next_occurrence <= :endDate 
         AND is_active = 1 
-        ORDER BY target_date_time ASC
+        ORDER BY next_occurrence ASC
     """)
     fun getEventsByDateRange(startDate: Long, endDate: Long): Flow<List<CountdownEventEntity>>
     
-    @Query("SELECT * FROM countdown_events WHERE target_date_time < :currentTime AND is_active = 1 ORDER BY target_date_time DESC")
+    @Query("SELECT * FROM countdown_events WHERE next_occurrence < :currentTime AND is_active = 1 ORDER BY next_occurrence DESC")
     fun getPastEvents(currentTime: Long): Flow<List<CountdownEventEntity>>
     
-    @Query("SELECT * FROM countdown_events WHERE target_date_time >= :currentTime AND is_active = 1 ORDER BY target_date_time ASC LIMIT :limit")
+    @Query("SELECT * FROM countdown_events WHERE next_occurrence >= :currentTime AND is_active = 1 ORDER BY next_occurrence ASC LIMIT :limit")
     fun getUpcomingEvents(currentTime: Long, limit: Int = 10): Flow<List<CountdownEventEntity>>
     
+    // Analytics over the events created after :createdAfter that the daily
+    // rollup cannot answer. Each returns one row per bucket or top event, so
+    // its cost to the caller does not grow with the number of events.
+    
+    @Query("""
+        SELECT CAST(strftime('%w', created_at / 1000, 'unixepoch', 'localtime') AS INTEGER) AS day_of_week,
+            CAST(strftime('%H', created_at / 1000, 'unixepoch', 'localtime') AS INTEGER) AS hour,
+            COUNT(*) AS count
+        FROM countdown_events
+        WHERE created_at > :createdAfter
+        GROUP BY day_of_week, hour
+    """)
+    suspend fun getCreationCountsByWeekdayHour(createdAfter: Long): List<WeekdayHourCountRow>
+    
+    // Bins double in width: under a day, then [2^(k-1), 2^k) days for bin k,
+    // 256 days and more in the last; ActivityHistogram.durationBin is the same
+    @Query("""
+        SELECT CASE
+                WHEN target_date_time - created_at < 86400000 THEN 0
+                WHEN target_date_time - created_at < 172800000 THEN 1
+                WHEN target_date_time - created_at < 345600000 THEN 2
+                WHEN target_date_time - created_at < 691200000 THEN 3
+                WHEN target_date_time - created_at < 1382400000 THEN 4
+                WHEN target_date_time - created_at < 2764800000 THEN 5
+                WHEN target_date_time - created_at < 5529600000 THEN 6
+                WHEN target_date_time - created_at < 11059200000 THEN 7
+                WHEN target_date_time - created_at < 22118400000 THEN 8
+                ELSE 9
+            END AS bin,
+            COUNT(*) AS count
+        FROM countdown_events
+        WHERE created_at > :createdAfter
+        GROUP BY bin
+    """)
+    suspend fun getDurationBinCounts(createdAfter: Long): List<DurationBinCountRow>
+    
+    @Query("""
+        SELECT * FROM countdown_events
+        WHERE is_active = 1 AND next_occurrence > :currentTime AND created_at > :createdAfter
+        ORDER BY next_occurrence ASC
+        LIMIT :limit
+    """)
+    suspend fun getUpcomingEventsCreatedAfter(createdAfter: Long, currentTime: Long, limit: Int): List<CountdownEventEntity>
+    
+    @Query("""
+        SELECT * FROM countdown_events
+        WHERE is_active = 0 AND created_at > :createdAfter
+        ORDER BY next_occurrence DESC
+        LIMIT :limit
+    """)
+    suspend fun getRecentlyCompletedEventsCreatedAfter(createdAfter: Long, limit: Int): List<CountdownEventEntity>
+    
     @Query("SELECT COUNT(*) FROM countdown_events WHERE is_active = 1")
     suspend fun getActiveEventCount(): Int
     
@@ -86,8 +320,8 @@ interface CountdownEventDao {
     @Insert
     suspend fun insertEvents(events: List<CountdownEventEntity>): List<Long>
     
-    @Query("UPDATE countdown_events SET priority = :priority WHERE id = :id")
-    suspend fun updateEventPriority(id: Long, priority: Int)
+    @Query("UPDATE countdown_events SET priority = :priority, updated_at = :updatedAt WHERE id = :id")
+    suspend fun updateEventPriority(id: Long, priority: Int, updatedAt: Long)
     
     @Transaction
     suspend fun duplicateEvent(eventId: Long): Long {
@@ -95,6 +329,8 @@ interface CountdownEventDao {
         val duplicatedEvent = originalEvent.copy(
             id = 0,
             title = "${originalEvent.title} (Copy)",
+            // The copy has no rule, so it counts down to its own target
+            nextOccurrence = originalEvent.targetDateTime,
             createdAt = System.currentTimeMillis(),
             updatedAt = System.currentTimeMillis()
         )
@@ -0,0 +1,65 @@
+package com.countjoy.data.local.dao
+
+import androidx.room.*
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.entity.DeliveredExpiryEntity
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface ExpiryDao {
+    /**
+     * Gets the active event whose expiry at its next occurrence is the
+     * soonest not delivered yet.
+     */
+    @Query("""
+        SELECT * FROM countdown_events
+        WHERE is_active = 1
+        AND NOT EXISTS (
+            SELECT 1 FROM delivered_expiries
+            WHERE delivered_expiries.event_id = countdown_events.id
+            AND delivered_expiries.target_date_time = countdown_events.next_occurrence
+        )
+        ORDER BY next_occurrence ASC
+        LIMIT 1
+    """)
+    fun observeNextPendingExpiry(): Flow<CountdownEventEntity?>
+    
+    /**
+     * Gets the active event whose expiry at its next occurrence is the
+     * soonest not delivered yet.
+     */
+    @Query("""
+        SELECT * FROM countdown_events
+        WHERE is_active = 1
+        AND NOT EXISTS (
+            SELECT 1 FROM delivered_expiries
+            WHERE delivered_expiries.event_id = countdown_events.id
+            AND delivered_expiries.target_date_time = countdown_events.next_occurrence
+        )
+        ORDER BY next_occurrence ASC
+        LIMIT 1
+    """)
+    suspend fun getNextPendingExpiry(): CountdownEventEntity?
+    
+    /**
+     * Gets the event if it is active and the expiry at its next occurrence
+     * is undelivered.
+     */
+    @Query("""
+        SELECT * FROM countdown_events
+        WHERE id = :eventId AND is_active = 1
+        AND NOT EXISTS (
+            SELECT 1 FROM delivered_expiries
+            WHERE delivered_expiries.event_id = countdown_events.id
+            AND delivered_expiries.target_date_time = countdown_events.next_occurrence
+        )
+    """)
+    suspend fun getPendingExpiry(eventId: Long): CountdownEventEntity?
+    
+    /**
+     * Records a delivered expiry.
+     * @return The new row id, or -1 if this expiry was already recorded
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertDeliveredExpiry(deliveredExpiry: DeliveredExpiryEntity): Long
+}
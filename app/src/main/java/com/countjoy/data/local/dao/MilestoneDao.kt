@@ -2,6 +2,7 @@ package com.countjoy.data.local.dao
 
 import androidx.room.*
 import com.countjoy.data.local.entity.MilestoneEntity
+import com.countjoy.data.local.entity.MilestoneWithEventEntity
 import kotlinx.coroutines.flow.Flow
 
 @Dao
@@ -27,6 +28,59 @@ interface MilestoneDao {
     @Query("UPDATE milestones SET isAchieved = 1, achievedAt = :achievedAt WHERE id = :milestoneId")
     suspend fun markMilestoneAsAchieved(milestoneId: String, achievedAt: Long)
     
+    /**
+     * Gets every unachieved milestone together with its event in one query.
+     * @param eventId Restricts the result to one event, or null for all events
+     * @param minPriority Skips events below this priority
+     */
+    @Query("""
+        SELECT m.*,
+            e.id AS event_id, e.title AS event_title, e.description AS event_description,
+            e.category AS event_category, e.target_date_time AS event_target_date_time,
+            e.reminder_enabled AS event_reminder_enabled, e.reminder_time AS event_reminder_time,
+            e.color AS event_color, e.icon AS event_icon, e.created_at AS event_created_at,
+            e.updated_at AS event_updated_at, e.is_active AS event_is_active, e.priority AS event_priority,
+            e.next_occurrence AS event_next_occurrence
+        FROM milestones AS m
+        INNER JOIN countdown_events AS e ON e.id = m.eventId
+        WHERE m.isAchieved = 0
+        AND e.priority >= :minPriority
+        AND (:eventId IS NULL OR m.eventId = :eventId)
+    """)
+    suspend fun getPendingMilestones(eventId: String? = null, minPriority: Int = 0): List<MilestoneWithEventEntity>
+    
+    /**
+     * Observes every unachieved milestone together with its event; emits again
+     * whenever milestones or events change.
+     */
+    @Query("""
+        SELECT m.*,
+            e.id AS event_id, e.title AS event_title, e.description AS event_description,
+            e.category AS event_category, e.target_date_time AS event_target_date_time,
+            e.reminder_enabled AS event_reminder_enabled, e.reminder_time AS event_reminder_time,
+            e.color AS event_color, e.icon AS event_icon, e.created_at AS event_created_at,
+            e.updated_at AS event_updated_at, e.is_active AS event_is_active, e.priority AS event_priority,
+            e.next_occurrence AS event_next_occurrence
+        FROM milestones AS m
+        INNER JOIN countdown_events AS e ON e.id = m.eventId
+        WHERE m.isAchieved = 0
+    """)
+    fun observePendingMilestones(): Flow<List<MilestoneWithEventEntity>>
+    
+    @Query("UPDATE milestones SET isAchieved = 1, achievedAt = :achievedAt WHERE id IN (:milestoneIds)")
+    suspend fun markMilestoneIdsAsAchieved(milestoneIds: List<String>, achievedAt: Long)
+    
+    /**
+     * Marks all given milestones as achieved in a single transaction.
+     * Ids are chunked to stay below SQLite's bind parameter limit.
+     */
+    @Transaction
+    suspend fun markMilestonesAsAchieved(milestoneIds: List<String>, achievedAt: Long) {
+        milestoneIds.chunked(MAX_BIND_PARAMETERS).forEach { chunk ->
+            markMilestoneIdsAsAchieved(chunk, achievedAt)
+        }
+    }
+    
     @Delete
     suspend fun deleteMilestone(milestone: MilestoneEntity)
     
@@ -35,4 +89,9 @@ interface MilestoneDao {
     
     @Query("SELECT * FROM milestones WHERE isAchieved = 1 ORDER BY achievedAt DESC")
     fun getAchievementHistory(): Flow<List<MilestoneEntity>>
+    
+    companion object {
+        // SQLite before 3.32 allows at most 999 bind parameters per statement
+        const val MAX_BIND_PARAMETERS = 900
+    }
 }
\ No newline at end of file
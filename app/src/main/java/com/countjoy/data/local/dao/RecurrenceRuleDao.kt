@@ -1,23 +1,36 @@
 package com.countjoy.data.local.dao
 
 import androidx.room.*
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.entity.EventNextOccurrence
+import com.countjoy.data.local.entity.RecurrenceExceptionEntity
+import com.countjoy.data.local.entity.RecurrenceOccurrenceDates
 import com.countjoy.data.local.entity.RecurrenceRuleEntity
+import com.countjoy.data.local.entity.RecurrenceRuleWithExceptions
 import kotlinx.coroutines.flow.Flow
 import java.time.LocalDate
 
 @Dao
 interface RecurrenceRuleDao {
+    @Transaction
     @Query("SELECT * FROM recurrence_rules WHERE eventId = :eventId")
-    suspend fun getRecurrenceRuleByEventId(eventId: String): RecurrenceRuleEntity?
+    suspend fun getRecurrenceRuleByEventId(eventId: String): RecurrenceRuleWithExceptions?
     
+    @Transaction
     @Query("SELECT * FROM recurrence_rules WHERE eventId = :eventId")
-    fun observeRecurrenceRuleByEventId(eventId: String): Flow<RecurrenceRuleEntity?>
+    fun observeRecurrenceRuleByEventId(eventId: String): Flow<RecurrenceRuleWithExceptions?>
     
+    @Transaction
     @Query("SELECT * FROM recurrence_rules")
-    suspend fun getAllRecurrenceRules(): List<RecurrenceRuleEntity>
+    suspend fun getAllRecurrenceRules(): List<RecurrenceRuleWithExceptions>
     
+    @Transaction
+    @Query("SELECT * FROM recurrence_rules")
+    fun observeAllRecurrenceRules(): Flow<List<RecurrenceRuleWithExceptions>>
+    
+    @Transaction
     @Query("SELECT * FROM recurrence_rules WHERE nextOccurrenceDate <= :date")
-    suspend fun getRecurrenceRulesDueBy(date: LocalDate): List<RecurrenceRuleEntity>
+    suspend fun getRecurrenceRulesDueBy(date: LocalDate): List<RecurrenceRuleWithExceptions>
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertRecurrenceRule(rule: RecurrenceRuleEntity)
@@ -25,12 +38,89 @@ interface RecurrenceRuleDao {
     @Update
     suspend fun updateRecurrenceRule(rule: RecurrenceRuleEntity)
     
-    @Query("UPDATE recurrence_rules SET lastOccurrenceDate = :lastDate, nextOccurrenceDate = :nextDate WHERE id = :ruleId")
-    suspend fun updateOccurrenceDates(ruleId: String, lastDate: LocalDate, nextDate: LocalDate)
+    @Update(entity = RecurrenceRuleEntity::class)
+    suspend fun updateOccurrenceDates(dates: List<RecurrenceOccurrenceDates>)
+    
+    @Update(entity = CountdownEventEntity::class)
+    suspend fun updateNextOccurrences(occurrences: List<EventNextOccurrence>)
+    
+    /**
+     * Moves many series on in one transaction: the dates of each rule and
+     * the occurrence its master event is at
+     */
+    @Transaction
+    suspend fun advanceSeries(dates: List<RecurrenceOccurrenceDates>, occurrences: List<EventNextOccurrence>) {
+        updateOccurrenceDates(dates)
+        updateNextOccurrences(occurrences)
+    }
+    
+    /**
+     * Puts an event back on its own target, once it no longer recurs
+     */
+    @Query("UPDATE countdown_events SET next_occurrence = target_date_time WHERE id = :eventId")
+    suspend fun resetNextOccurrence(eventId: String)
+    
+    /**
+     * Inserts a rule along with the dates cancelled from it
+     */
+    @Transaction
+    suspend fun insertRuleWithCancellations(rule: RecurrenceRuleEntity, cancelled: List<RecurrenceExceptionEntity>) {
+        insertRecurrenceRule(rule)
+        replaceCancellations(rule.id, cancelled)
+    }
+    
+    /**
+     * Updates a rule along with the dates cancelled from it, which replace
+     * the ones stored before. Changed occurrences are kept.
+     */
+    @Transaction
+    suspend fun updateRuleWithCancellations(rule: RecurrenceRuleEntity, cancelled: List<RecurrenceExceptionEntity>) {
+        updateRecurrenceRule(rule)
+        replaceCancellations(rule.id, cancelled)
+    }
     
     @Delete
     suspend fun deleteRecurrenceRule(rule: RecurrenceRuleEntity)
     
     @Query("DELETE FROM recurrence_rules WHERE eventId = :eventId")
     suspend fun deleteRecurrenceRuleByEventId(eventId: String)
-}
\ No newline at end of file
+    
+    /**
+     * Deletes a rule and puts its event back on its own target
+     */
+    @Transaction
+    suspend fun deleteSeries(rule: RecurrenceRuleEntity) {
+        deleteRecurrenceRule(rule)
+        resetNextOccurrence(rule.eventId)
+    }
+    
+    /**
+     * Deletes the rule of an event and puts the event back on its own target
+     */
+    @Transaction
+    suspend fun deleteSeriesByEventId(eventId: String) {
+        deleteRecurrenceRuleByEventId(eventId)
+        resetNextOccurrence(eventId)
+    }
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertException(exception: RecurrenceExceptionEntity)
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun upsertExceptions(exceptions: List<RecurrenceExceptionEntity>)
+    
+    @Query("DELETE FROM recurrence_exceptions WHERE rule_id = :ruleId AND is_cancelled = 1")
+    suspend fun deleteCancellations(ruleId: String)
+    
+    @Transaction
+    suspend fun replaceCancellations(ruleId: String, cancelled: List<RecurrenceExceptionEntity>) {
+        deleteCancellations(ruleId)
+        upsertExceptions(cancelled)
+    }
+    
+    @Query("DELETE FROM recurrence_exceptions WHERE rule_id = :ruleId AND epoch_day = :epochDay")
+    suspend fun deleteException(ruleId: String, epochDay: Long)
+    
+    @Query("DELETE FROM recurrence_exceptions WHERE rule_id = :ruleId AND epoch_day >= :fromEpochDay")
+    suspend fun deleteExceptionsFrom(ruleId: String, fromEpochDay: Long)
+}
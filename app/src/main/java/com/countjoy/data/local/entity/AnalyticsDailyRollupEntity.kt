@@ -0,0 +1,40 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+
+/**
+ * Event and milestone counts for one local day, category and priority.
+ * Maintained by the triggers in AnalyticsRollupSchema, never written by DAOs
+ * except to rebuild it.
+ */
+@Entity(
+    tableName = "analytics_daily_rollup",
+    primaryKeys = ["day", "category", "priority"]
+)
+data class AnalyticsDailyRollupEntity(
+    /** Local calendar day, formatted as yyyy-MM-dd. */
+    val day: String,
+
+    val category: String,
+
+    val priority: Int,
+
+    @ColumnInfo(name = "created_count", defaultValue = "0")
+    val createdCount: Int = 0,
+
+    /** Events created on [day] that are completed (deactivated). */
+    @ColumnInfo(name = "completed_count", defaultValue = "0")
+    val completedCount: Int = 0,
+
+    /** Time from creation to target of the events in [completedCount]. */
+    @ColumnInfo(name = "completed_duration_millis", defaultValue = "0")
+    val completedDurationMillis: Long = 0,
+
+    /** Completed events whose target falls on [day]. */
+    @ColumnInfo(name = "completed_on_count", defaultValue = "0")
+    val completedOnCount: Int = 0,
+
+    @ColumnInfo(name = "achieved_count", defaultValue = "0")
+    val achievedCount: Int = 0
+)
@@ -5,19 +5,29 @@ import androidx.room.Entity
 import androidx.room.Index
 import androidx.room.PrimaryKey
 
+/**
+ * Each user-selectable list order has an index leading with is_active and
+ * ending in next_occurrence, so sorted pages are read in index order.
+ */
 @Entity(
     tableName = "countdown_events",
     indices = [
-        Index(value = ["category"]),
         Index(value = ["target_date_time"]),
-        Index(value = ["is_active"])
+        Index(value = ["is_active", "next_occurrence"]),
+        Index(value = ["is_active", "category", "next_occurrence"]),
+        Index(
+            value = ["is_active", "priority", "next_occurrence"],
+            orders = [Index.Order.ASC, Index.Order.DESC, Index.Order.ASC]
+        ),
+        Index(value = ["is_active", "title", "next_occurrence"]),
+        Index(value = ["created_at", "is_active", "target_date_time", "category", "priority"])
     ]
 )
 data class CountdownEventEntity(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
     
-    @ColumnInfo(name = "title")
+    @ColumnInfo(name = "title", collate = ColumnInfo.NOCASE)
     val title: String,
     
     @ColumnInfo(name = "description")
@@ -29,6 +39,10 @@ data class CountdownEventEntity(
     @ColumnInfo(name = "target_date_time")
     val targetDateTime: Long,
     
+    // What the event counts down to now: its target, or the occurrence a recurring event is at
+    @ColumnInfo(name = "next_occurrence")
+    val nextOccurrence: Long = targetDateTime,
+    
     @ColumnInfo(name = "reminder_enabled")
     val reminderEnabled: Boolean = false,
     
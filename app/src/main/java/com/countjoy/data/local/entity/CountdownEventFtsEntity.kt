@@ -0,0 +1,24 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+/**
+ * External-content FTS4 index over event titles and descriptions.
+ * Rows are kept in sync with countdown_events by triggers; the FTS docid
+ * equals the event id.
+ */
+@Fts4(
+    contentEntity = CountdownEventEntity::class,
+    tokenizer = FtsOptions.TOKENIZER_UNICODE61
+)
+@Entity(tableName = "countdown_events_fts")
+data class CountdownEventFtsEntity(
+    @ColumnInfo(name = "title")
+    val title: String,
+    
+    @ColumnInfo(name = "description")
+    val description: String?
+)
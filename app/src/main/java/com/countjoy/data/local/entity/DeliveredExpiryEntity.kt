@@ -0,0 +1,33 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+
+/**
+ * Records that the expiry notification of an event was delivered for a given
+ * target instant. Keyed by target as well as event, so moving an event to a
+ * new target arms its expiry again.
+ */
+@Entity(
+    tableName = "delivered_expiries",
+    primaryKeys = ["event_id", "target_date_time"],
+    foreignKeys = [
+        ForeignKey(
+            entity = CountdownEventEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["event_id"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+data class DeliveredExpiryEntity(
+    @ColumnInfo(name = "event_id")
+    val eventId: Long,
+    
+    @ColumnInfo(name = "target_date_time")
+    val targetDateTime: Long,
+    
+    @ColumnInfo(name = "delivered_at")
+    val deliveredAt: Long
+)
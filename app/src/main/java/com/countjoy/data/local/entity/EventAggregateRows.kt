@@ -0,0 +1,61 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+
+/*
+ * Projection rows of the analytics aggregate queries: one row per bucket,
+ * however many events fall into it.
+ */
+
+data class CategoryCountRow(
+    val category: String,
+    val count: Int
+)
+
+data class PriorityCountRow(
+    val priority: Int,
+    val count: Int
+)
+
+/**
+ * Count of events per local day of week and hour; [dayOfWeek] is 0 for
+ * Sunday through 6 for Saturday, as SQLite's strftime('%w').
+ */
+data class WeekdayHourCountRow(
+    @ColumnInfo(name = "day_of_week")
+    val dayOfWeek: Int,
+    val hour: Int,
+    val count: Int
+)
+
+/**
+ * Count of events per countdown length bin, as ActivityHistogram.durationBin.
+ */
+data class DurationBinCountRow(
+    val bin: Int,
+    val count: Int
+)
+
+/**
+ * Sums of the rollup rows of a range of days; [earliestCreatedDay] is the
+ * first of those days with an event created, formatted as yyyy-MM-dd.
+ */
+data class RollupTotalsRow(
+    val created: Int,
+    val completed: Int,
+    @ColumnInfo(name = "completed_duration_millis")
+    val completedDurationMillis: Long,
+    @ColumnInfo(name = "earliest_created_day")
+    val earliestCreatedDay: String?
+)
+
+/**
+ * Counts of one local calendar day, [day] formatted as yyyy-MM-dd: events
+ * created, completed events targeted, and milestones achieved that day.
+ */
+data class RollupDayRow(
+    val day: String,
+    val created: Int,
+    val completed: Int,
+    val achieved: Int
+)
@@ -0,0 +1,13 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+
+/**
+ * The occurrence an event is at, for updating only that column of
+ * countdown_events
+ */
+data class EventNextOccurrence(
+    val id: Long,
+    @ColumnInfo(name = "next_occurrence")
+    val nextOccurrence: Long
+)
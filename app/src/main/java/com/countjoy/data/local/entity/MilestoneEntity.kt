@@ -16,7 +16,10 @@ import java.time.Instant
             onDelete = ForeignKey.CASCADE
         )
     ],
-    indices = [Index("eventId")]
+    indices = [
+        Index(value = ["eventId", "isAchieved"]),
+        Index(value = ["isAchieved", "achievedAt"])
+    ]
 )
 data class MilestoneEntity(
     @PrimaryKey
@@ -0,0 +1,16 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.Embedded
+
+/**
+ * A milestone row joined with the event it belongs to.
+ * Event columns are selected with an "event_" prefix to avoid clashing with
+ * the milestone's own id and title.
+ */
+data class MilestoneWithEventEntity(
+    @Embedded
+    val milestone: MilestoneEntity,
+    
+    @Embedded(prefix = "event_")
+    val event: CountdownEventEntity
+)
@@ -0,0 +1,44 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import java.time.LocalDateTime
+
+/**
+ * An occurrence of a recurring series that was cancelled or changed on its
+ * own. Occurrences are computed from the rule and never stored, so this is
+ * the only row one of them can have. Keyed by the date the rule puts the
+ * occurrence on, which stays its identity after a move.
+ */
+@Entity(
+    tableName = "recurrence_exceptions",
+    primaryKeys = ["rule_id", "epoch_day"],
+    foreignKeys = [
+        ForeignKey(
+            entity = RecurrenceRuleEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["rule_id"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+data class RecurrenceExceptionEntity(
+    @ColumnInfo(name = "rule_id")
+    val ruleId: String,
+    
+    @ColumnInfo(name = "epoch_day")
+    val epochDay: Long,
+    
+    @ColumnInfo(name = "is_cancelled")
+    val isCancelled: Boolean,
+    
+    @ColumnInfo(name = "target_date_time")
+    val targetDateTime: LocalDateTime?,
+    
+    @ColumnInfo(name = "title")
+    val title: String?,
+    
+    @ColumnInfo(name = "description")
+    val description: String?
+)
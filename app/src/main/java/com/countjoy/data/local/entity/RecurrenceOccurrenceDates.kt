@@ -0,0 +1,13 @@
+package com.countjoy.data.local.entity
+
+import java.time.LocalDate
+
+/**
+ * The occurrence dates of a recurrence rule, for updating only those
+ * columns of recurrence_rules
+ */
+data class RecurrenceOccurrenceDates(
+    val id: String,
+    val lastOccurrenceDate: LocalDate?,
+    val nextOccurrenceDate: LocalDate?
+)
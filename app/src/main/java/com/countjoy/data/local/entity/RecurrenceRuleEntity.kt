@@ -16,7 +16,10 @@ import java.time.LocalDate
             onDelete = ForeignKey.CASCADE
         )
     ],
-    indices = [Index("eventId")]
+    indices = [
+        Index("eventId"),
+        Index("nextOccurrenceDate")
+    ]
 )
 data class RecurrenceRuleEntity(
     @PrimaryKey
@@ -24,14 +27,13 @@ data class RecurrenceRuleEntity(
     val eventId: String,
     val pattern: String, // RecurrencePattern enum as string
     val intervalValue: Int,
-    val daysOfWeek: String?, // Comma-separated day names
+    val daysOfWeekMask: Int, // Bit n set for DayOfWeek.of(n + 1)
     val dayOfMonth: Int?,
     val weekOfMonth: Int?,
     val monthOfYear: Int?,
     val endType: String, // RecurrenceEndType enum as string
     val endDate: LocalDate?,
     val occurrenceCount: Int?,
-    val exceptions: String?, // Comma-separated dates
     val skipWeekends: Boolean,
     val skipHolidays: Boolean,
     val lastOccurrenceDate: LocalDate?, // Track last generated occurrence
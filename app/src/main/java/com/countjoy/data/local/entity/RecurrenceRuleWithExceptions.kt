@@ -0,0 +1,15 @@
+package com.countjoy.data.local.entity
+
+import androidx.room.Embedded
+import androidx.room.Relation
+
+/**
+ * A recurrence rule with the occurrences cancelled or changed on their own
+ */
+data class RecurrenceRuleWithExceptions(
+    @Embedded
+    val rule: RecurrenceRuleEntity,
+    
+    @Relation(parentColumn = "id", entityColumn = "rule_id")
+    val exceptions: List<RecurrenceExceptionEntity>
+)
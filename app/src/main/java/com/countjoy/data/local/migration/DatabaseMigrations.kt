@@ -2,12 +2,16 @@ package com.countjoy.data.local.migration
 
 import androidx.room.migration.Migration
 import androidx.sqlite.db.SupportSQLiteDatabase
+import com.countjoy.data.local.AnalyticsRollupSchema
+import java.time.DayOfWeek
 
 /**
  * Database migrations for CountJoy database
  */
 object DatabaseMigrations {
     
+    private const val CREATE_TRIGGER = "CREATE TRIGGER IF NOT EXISTS "
+    
     /**
      * Migration from version 1 to version 2
      * Adds new fields: category, reminder_enabled, reminder_time, color, icon, updated_at, priority
@@ -134,10 +138,347 @@ object DatabaseMigrations {
         }
     }
     
+    /**
+     * Statements creating the countdown_events_fts index and the triggers that
+     * keep it in sync with countdown_events. Mirrors what Room generates for
+     * CountdownEventFtsEntity.
+     */
+    internal val EVENT_FTS_STATEMENTS = listOf(
+        "CREATE VIRTUAL TABLE IF NOT EXISTS `countdown_events_fts` USING FTS4(`title` TEXT NOT NULL, `description` TEXT, tokenize=unicode61, content=`countdown_events`)",
+        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_countdown_events_fts_BEFORE_UPDATE BEFORE UPDATE ON `countdown_events` BEGIN DELETE FROM `countdown_events_fts` WHERE `docid`=OLD.`rowid`; END",
+        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_countdown_events_fts_BEFORE_DELETE BEFORE DELETE ON `countdown_events` BEGIN DELETE FROM `countdown_events_fts` WHERE `docid`=OLD.`rowid`; END",
+        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_countdown_events_fts_AFTER_UPDATE AFTER UPDATE ON `countdown_events` BEGIN INSERT INTO `countdown_events_fts`(`docid`, `title`, `description`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END",
+        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_countdown_events_fts_AFTER_INSERT AFTER INSERT ON `countdown_events` BEGIN INSERT INTO `countdown_events_fts`(`docid`, `title`, `description`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END"
+    )
+    
+    /**
+     * Migration from version 4 to version 5
+     * Adds an FTS4 index over event titles and descriptions for search
+     */
+    val MIGRATION_4_5 = object : Migration(4, 5) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            EVENT_FTS_STATEMENTS.forEach { database.execSQL(it) }
+            
+            // Index the existing events
+            database.execSQL("INSERT INTO countdown_events_fts(countdown_events_fts) VALUES ('rebuild')")
+        }
+    }
+    
+    /**
+     * Statements replacing the single-column event and milestone indices with
+     * composite indices that serve both the filter and the ORDER BY of the DAO
+     * queries. Mirrors the indices declared on the entities.
+     */
+    internal val QUERY_INDEX_STATEMENTS = listOf(
+        "DROP INDEX IF EXISTS index_countdown_events_category",
+        "DROP INDEX IF EXISTS index_countdown_events_is_active",
+        "DROP INDEX IF EXISTS index_milestones_eventId",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_target_date_time ON countdown_events (is_active, target_date_time)",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_category_target_date_time ON countdown_events (is_active, category, target_date_time)",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_priority_target_date_time ON countdown_events (is_active, priority, target_date_time)",
+        "CREATE INDEX IF NOT EXISTS index_milestones_eventId_isAchieved ON milestones (eventId, isAchieved)",
+        "CREATE INDEX IF NOT EXISTS index_milestones_isAchieved_achievedAt ON milestones (isAchieved, achievedAt)",
+        "CREATE INDEX IF NOT EXISTS index_recurrence_rules_nextOccurrenceDate ON recurrence_rules (nextOccurrenceDate)"
+    )
+    
+    /**
+     * Migration from version 5 to version 6
+     * Adds composite indices so list, filter and history queries avoid full
+     * scans and temporary sort trees
+     */
+    val MIGRATION_5_6 = object : Migration(5, 6) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            QUERY_INDEX_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    /**
+     * Statements creating the delivered_expiries table. Mirrors what Room
+     * generates for DeliveredExpiryEntity.
+     */
+    internal val DELIVERED_EXPIRY_STATEMENTS = listOf(
+        """
+            CREATE TABLE IF NOT EXISTS delivered_expiries (
+                event_id INTEGER NOT NULL,
+                target_date_time INTEGER NOT NULL,
+                delivered_at INTEGER NOT NULL,
+                PRIMARY KEY(event_id, target_date_time),
+                FOREIGN KEY(event_id) REFERENCES countdown_events(id) ON DELETE CASCADE
+            )
+        """.trimIndent()
+    )
+    
+    /**
+     * Migration from version 6 to version 7
+     * Adds delivered_expiries so each event's expiry is notified exactly once
+     */
+    val MIGRATION_6_7 = object : Migration(6, 7) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            DELIVERED_EXPIRY_STATEMENTS.forEach { database.execSQL(it) }
+            
+            // Events that expired before upgrading were already notified by the old service loop
+            database.execSQL("""
+                INSERT INTO delivered_expiries (event_id, target_date_time, delivered_at)
+                SELECT id, target_date_time, target_date_time
+                FROM countdown_events
+                WHERE target_date_time <= CAST(strftime('%s', 'now') AS INTEGER) * 1000
+            """.trimIndent())
+        }
+    }
+    
+    /**
+     * Statements creating the index the analytics aggregates search by
+     * creation time. It covers every column they read, so they never touch
+     * the table rows. Mirrors the index declared on CountdownEventEntity.
+     */
+    internal val ANALYTICS_INDEX_STATEMENTS = listOf(
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_created_at_is_active_target_date_time_category_priority ON countdown_events (created_at, is_active, target_date_time, category, priority)"
+    )
+    
+    /**
+     * Migration from version 7 to version 8
+     * Adds a covering index for the analytics aggregate queries
+     */
+    val MIGRATION_7_8 = object : Migration(7, 8) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            ANALYTICS_INDEX_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    internal val ANALYTICS_ROLLUP_STATEMENTS =
+        listOf(AnalyticsRollupSchema.CREATE_TABLE_STATEMENT) + AnalyticsRollupSchema.TRIGGER_STATEMENTS
+    
+    /**
+     * Migration from version 8 to version 9
+     * Adds the analytics daily rollup and the triggers maintaining it; the
+     * rollup starts empty and is backfilled by AnalyticsRollupWorker
+     */
+    val MIGRATION_8_9 = object : Migration(8, 9) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            ANALYTICS_ROLLUP_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    /**
+     * Statements creating the recurrence_exceptions table. Mirrors what Room
+     * generates for RecurrenceExceptionEntity.
+     */
+    internal val RECURRENCE_EXCEPTION_STATEMENTS = listOf(
+        """
+            CREATE TABLE IF NOT EXISTS recurrence_exceptions (
+                rule_id TEXT NOT NULL,
+                epoch_day INTEGER NOT NULL,
+                is_cancelled INTEGER NOT NULL,
+                target_date_time INTEGER,
+                title TEXT,
+                description TEXT,
+                PRIMARY KEY(rule_id, epoch_day),
+                FOREIGN KEY(rule_id) REFERENCES recurrence_rules(id) ON DELETE CASCADE
+            )
+        """.trimIndent()
+    )
+    
+    /**
+     * Migration from version 9 to version 10
+     * Adds recurrence_exceptions, so a recurring series is stored as its
+     * master event and rule plus only the occurrences changed on their own.
+     * Copies made by the old occurrence generator are ordinary events and
+     * are left as they are.
+     */
+    val MIGRATION_9_10 = object : Migration(9, 10) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            RECURRENCE_EXCEPTION_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    /**
+     * SQL computing a weekday bitmask from a comma-separated daysOfWeek list
+     * of DayOfWeek names, bit n standing for DayOfWeek.of(n + 1)
+     */
+    private val DAYS_OF_WEEK_MASK_SQL = DayOfWeek.values().joinToString(" | ") { day ->
+        "(CASE WHEN ',' || REPLACE(daysOfWeek, ' ', '') || ',' LIKE '%,${day.name},%' THEN ${1 shl day.ordinal} ELSE 0 END)"
+    }
+    
+    /**
+     * Statements moving the comma-joined exception dates of recurrence_rules
+     * into recurrence_exceptions as cancelled occurrences, and rebuilding the
+     * table with its weekdays as a bitmask and without the exceptions column.
+     * Mirrors what Room generates for RecurrenceRuleEntity.
+     */
+    internal val RECURRENCE_RULE_COMPACT_STATEMENTS = listOf(
+        // A date the old list cancelled was already left out of the series, changed or not
+        """
+            INSERT OR REPLACE INTO recurrence_exceptions (rule_id, epoch_day, is_cancelled, target_date_time, title, description)
+            WITH RECURSIVE split(rule_id, date, rest) AS (
+                SELECT id, NULL, exceptions || ',' FROM recurrence_rules WHERE exceptions IS NOT NULL
+                UNION ALL
+                SELECT rule_id, TRIM(SUBSTR(rest, 1, INSTR(rest, ',') - 1)), SUBSTR(rest, INSTR(rest, ',') + 1)
+                FROM split
+                WHERE rest != ''
+            )
+            SELECT rule_id, CAST(julianday(date) - 2440587.5 AS INTEGER), 1, NULL, NULL, NULL
+            FROM split
+            WHERE julianday(date) IS NOT NULL
+        """.trimIndent(),
+        """
+            CREATE TABLE IF NOT EXISTS recurrence_rules_new (
+                id TEXT PRIMARY KEY NOT NULL,
+                eventId TEXT NOT NULL,
+                pattern TEXT NOT NULL,
+                intervalValue INTEGER NOT NULL,
+                daysOfWeekMask INTEGER NOT NULL,
+                dayOfMonth INTEGER,
+                weekOfMonth INTEGER,
+                monthOfYear INTEGER,
+                endType TEXT NOT NULL,
+                endDate INTEGER,
+                occurrenceCount INTEGER,
+                skipWeekends INTEGER NOT NULL,
+                skipHolidays INTEGER NOT NULL,
+                lastOccurrenceDate INTEGER,
+                nextOccurrenceDate INTEGER,
+                FOREIGN KEY(eventId) REFERENCES countdown_events(id) ON DELETE CASCADE
+            )
+        """.trimIndent(),
+        """
+            INSERT INTO recurrence_rules_new (
+                id, eventId, pattern, intervalValue, daysOfWeekMask, dayOfMonth, weekOfMonth, monthOfYear,
+                endType, endDate, occurrenceCount, skipWeekends, skipHolidays, lastOccurrenceDate, nextOccurrenceDate
+            )
+            SELECT
+                id, eventId, pattern, intervalValue, $DAYS_OF_WEEK_MASK_SQL, dayOfMonth, weekOfMonth, monthOfYear,
+                endType, endDate, occurrenceCount, skipWeekends, skipHolidays, lastOccurrenceDate, nextOccurrenceDate
+            FROM recurrence_rules
+        """.trimIndent(),
+        "DROP TABLE recurrence_rules",
+        "ALTER TABLE recurrence_rules_new RENAME TO recurrence_rules",
+        "CREATE INDEX IF NOT EXISTS index_recurrence_rules_eventId ON recurrence_rules (eventId)",
+        "CREATE INDEX IF NOT EXISTS index_recurrence_rules_nextOccurrenceDate ON recurrence_rules (nextOccurrenceDate)"
+    )
+    
+    /**
+     * Migration from version 10 to version 11
+     * Stores exception dates as rows keyed by epoch day and weekdays as a
+     * bitmask, so reading a rule parses no strings
+     */
+    val MIGRATION_10_11 = object : Migration(10, 11) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            RECURRENCE_RULE_COMPACT_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    /** Triggers on or reading countdown_events: FTS sync and the analytics rollup. */
+    private val EVENT_TRIGGER_STATEMENTS =
+        EVENT_FTS_STATEMENTS.filter { it.startsWith(CREATE_TRIGGER) } + AnalyticsRollupSchema.TRIGGER_STATEMENTS
+    
+    /**
+     * Statements rebuilding countdown_events with a case-insensitive title
+     * and an index for every list order: priority descending, and title,
+     * each followed by the target date. The FTS and rollup triggers are
+     * dropped first, since renaming the new table checks every trigger
+     * against the schema, and recreated on the new table; row ids, the
+     * AUTOINCREMENT counter and so the FTS docids are kept. Column
+     * definitions are those of the existing table; the indices mirror
+     * CountdownEventEntity.
+     */
+    internal val EVENT_SORT_INDEX_STATEMENTS: List<String> =
+        listOf(
+            """
+                CREATE TABLE IF NOT EXISTS countdown_events_new (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,
+                    title TEXT NOT NULL COLLATE NOCASE,
+                    description TEXT,
+                    category TEXT NOT NULL DEFAULT 'General',
+                    target_date_time INTEGER NOT NULL,
+                    reminder_enabled INTEGER NOT NULL DEFAULT 0,
+                    reminder_time INTEGER,
+                    color INTEGER,
+                    icon TEXT,
+                    created_at INTEGER NOT NULL,
+                    updated_at INTEGER NOT NULL,
+                    is_active INTEGER NOT NULL DEFAULT 1,
+                    priority INTEGER NOT NULL DEFAULT 0
+                )
+            """.trimIndent(),
+            """
+                INSERT INTO countdown_events_new (
+                    id, title, description, category, target_date_time, reminder_enabled, reminder_time,
+                    color, icon, created_at, updated_at, is_active, priority
+                )
+                SELECT
+                    id, title, description, category, target_date_time, reminder_enabled, reminder_time,
+                    color, icon, created_at, updated_at, is_active, priority
+                FROM countdown_events
+            """.trimIndent(),
+            "DELETE FROM sqlite_sequence WHERE name = 'countdown_events_new'",
+            "INSERT INTO sqlite_sequence (name, seq) SELECT 'countdown_events_new', seq FROM sqlite_sequence WHERE name = 'countdown_events'"
+        ) + EVENT_TRIGGER_STATEMENTS.map { "DROP TRIGGER IF EXISTS " + it.removePrefix(CREATE_TRIGGER).substringBefore(' ') } + listOf(
+            "DROP TABLE countdown_events",
+            "ALTER TABLE countdown_events_new RENAME TO countdown_events",
+            "CREATE INDEX IF NOT EXISTS index_countdown_events_target_date_time ON countdown_events (target_date_time)",
+            "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_target_date_time ON countdown_events (is_active, target_date_time)",
+            "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_category_target_date_time ON countdown_events (is_active, category, target_date_time)",
+            "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_priority_target_date_time ON countdown_events (is_active ASC, priority DESC, target_date_time ASC)",
+            "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_title_target_date_time ON countdown_events (is_active, title, target_date_time)"
+        ) + ANALYTICS_INDEX_STATEMENTS + EVENT_TRIGGER_STATEMENTS
+    
+    /**
+     * Migration from version 11 to version 12
+     * Lets every list order of the event list and search be read in index
+     * order instead of sorting the matching rows
+     */
+    val MIGRATION_11_12 = object : Migration(11, 12) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            EVENT_SORT_INDEX_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
+    /**
+     * Statements adding next_occurrence, the instant an event counts down to
+     * now, and moving the list order indices onto it. It starts at the
+     * target; each rule's next date is reset to its first occurrence, so the
+     * first catch-up moves every recurring event to its current occurrence.
+     * The indices mirror CountdownEventEntity.
+     */
+    internal val NEXT_OCCURRENCE_STATEMENTS = listOf(
+        "ALTER TABLE countdown_events ADD COLUMN next_occurrence INTEGER NOT NULL DEFAULT 0",
+        "UPDATE countdown_events SET next_occurrence = target_date_time",
+        """
+            UPDATE recurrence_rules SET nextOccurrenceDate = (
+                SELECT CAST(julianday(target_date_time / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)
+                FROM countdown_events
+                WHERE countdown_events.id = recurrence_rules.eventId
+            )
+        """.trimIndent(),
+        "DROP INDEX IF EXISTS index_countdown_events_is_active_target_date_time",
+        "DROP INDEX IF EXISTS index_countdown_events_is_active_category_target_date_time",
+        "DROP INDEX IF EXISTS index_countdown_events_is_active_priority_target_date_time",
+        "DROP INDEX IF EXISTS index_countdown_events_is_active_title_target_date_time",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_next_occurrence ON countdown_events (is_active, next_occurrence)",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_category_next_occurrence ON countdown_events (is_active, category, next_occurrence)",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_priority_next_occurrence ON countdown_events (is_active ASC, priority DESC, next_occurrence ASC)",
+        "CREATE INDEX IF NOT EXISTS index_countdown_events_is_active_title_next_occurrence ON countdown_events (is_active, title, next_occurrence)"
+    )
+    
+    /**
+     * Migration from version 12 to version 13
+     * Stores the occurrence a recurring event is at on its master row, so the
+     * event list, expiry alarm and milestones follow the series past its
+     * first date
+     */
+    val MIGRATION_12_13 = object : Migration(12, 13) {
+        override fun migrate(database: SupportSQLiteDatabase) {
+            NEXT_OCCURRENCE_STATEMENTS.forEach { database.execSQL(it) }
+        }
+    }
+    
     /**
      * Get all migrations as an array
      */
     fun getAllMigrations(): Array<Migration> {
-        return arrayOf(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+        return arrayOf(
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+            MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13
+        )
     }
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ class SharedPreferencesManager @Inject constructor(
         const val KEY_DATE_FORMAT = "date_format"
         const val KEY_AUTO_DELETE_EXPIRED = "auto_delete_expired"
         const val KEY_COUNTDOWN_UPDATE_INTERVAL = "countdown_update_interval"
+        const val KEY_ANALYTICS_ROLLUP_ZONE = "analytics_rollup_zone"
         const val KEY_USER_ID = "user_id" // Encrypted
         const val KEY_USER_TOKEN = "user_token" // Encrypted
         
@@ -124,6 +125,10 @@ class SharedPreferencesManager @Inject constructor(
     fun getCountdownUpdateInterval(): Long = prefs.getLong(KEY_COUNTDOWN_UPDATE_INTERVAL, 1000L) // Default 1 second
     fun setCountdownUpdateInterval(millis: Long) = prefs.edit().putLong(KEY_COUNTDOWN_UPDATE_INTERVAL, millis).apply()
     
+    // Timezone the analytics rollup was last rebuilt in, null until the first rebuild
+    fun getAnalyticsRollupZone(): String? = prefs.getString(KEY_ANALYTICS_ROLLUP_ZONE, null)
+    fun setAnalyticsRollupZone(zoneId: String) = prefs.edit().putString(KEY_ANALYTICS_ROLLUP_ZONE, zoneId).apply()
+    
     // Encrypted preferences for sensitive data
     fun getUserId(): String? = encryptedPrefs.getString(KEY_USER_ID, null)
     fun setUserId(userId: String?) = encryptedPrefs.edit().putString(KEY_USER_ID, userId).apply()
@@ -0,0 +1,42 @@
+package com.countjoy.data.local.search
+
+import java.util.Locale
+
+/**
+ * Builds FTS4 MATCH expressions from free-form search input.
+ *
+ * Input is split into letter/digit tokens, so user text can never inject FTS
+ * operators, and every token becomes a prefix term: "bir par" matches
+ * "Birthday party". Terms are AND-ed together.
+ */
+object EventSearchQuery {
+    
+    private val TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+    
+    /**
+     * @return MATCH expression over all indexed columns, or null for blank input
+     */
+    fun match(rawQuery: String?): String? {
+        return build(rawQuery, columnPrefix = "")
+    }
+    
+    /**
+     * @return MATCH expression restricted to the title column, used to rank
+     * title hits above description-only hits, or null for blank input
+     */
+    fun titleMatch(rawQuery: String?): String? {
+        return build(rawQuery, columnPrefix = "title:")
+    }
+    
+    private fun build(rawQuery: String?, columnPrefix: String): String? {
+        if (rawQuery.isNullOrBlank()) return null
+        
+        val tokens = rawQuery
+            .lowercase(Locale.ROOT)
+            .split(TOKEN_SEPARATOR)
+            .filter { it.isNotEmpty() }
+        if (tokens.isEmpty()) return null
+        
+        return tokens.joinToString(" ") { "$columnPrefix$it*" }
+    }
+}
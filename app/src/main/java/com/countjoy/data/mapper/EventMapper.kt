@@ -2,9 +2,6 @@ package com.countjoy.data.mapper
 
 import com.countjoy.data.local.entity.CountdownEventEntity
 import com.countjoy.domain.model.CountdownEvent
-import java.time.Instant
-import java.time.LocalDateTime
-import java.time.ZoneId
 
 /**
  * Maps between domain models and data entities
@@ -19,27 +16,26 @@ fun CountdownEventEntity.toDomain(): CountdownEvent {
         title = title,
         description = description,
         category = category,
-        targetDateTime = LocalDateTime.ofInstant(
-            Instant.ofEpochMilli(targetDateTime),
-            ZoneId.systemDefault()
-        ),
+        targetEpochMillis = targetDateTime,
         reminderEnabled = reminderEnabled,
         reminderTime = reminderTime,
         color = color,
         icon = icon,
-        createdAt = LocalDateTime.ofInstant(
-            Instant.ofEpochMilli(createdAt),
-            ZoneId.systemDefault()
-        ),
-        updatedAt = LocalDateTime.ofInstant(
-            Instant.ofEpochMilli(updatedAt),
-            ZoneId.systemDefault()
-        ),
+        createdAtEpochMillis = createdAt,
+        updatedAtEpochMillis = updatedAt,
         isActive = isActive,
         priority = priority
     )
 }
 
+/**
+ * Convert Entity to Domain model counting down to the occurrence the event
+ * is at, which for a recurring event moves on from its target
+ */
+fun CountdownEventEntity.toDomainAtOccurrence(): CountdownEvent {
+    return toDomain().copy(targetEpochMillis = nextOccurrence)
+}
+
 /**
  * Convert Domain model to Entity
  */
@@ -49,13 +45,13 @@ fun CountdownEvent.toEntity(): CountdownEventEntity {
         title = title,
         description = description,
         category = category,
-        targetDateTime = targetDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+        targetDateTime = targetEpochMillis,
         reminderEnabled = reminderEnabled,
         reminderTime = reminderTime,
         color = color,
         icon = icon,
-        createdAt = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
-        updatedAt = updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+        createdAt = createdAtEpochMillis,
+        updatedAt = updatedAtEpochMillis,
         isActive = isActive,
         priority = priority
     )
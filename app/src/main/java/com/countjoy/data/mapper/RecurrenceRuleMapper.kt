@@ -1,39 +1,34 @@
 package com.countjoy.data.mapper
 
+import com.countjoy.data.local.entity.RecurrenceExceptionEntity
 import com.countjoy.data.local.entity.RecurrenceRuleEntity
+import com.countjoy.data.local.entity.RecurrenceRuleWithExceptions
 import com.countjoy.domain.model.RecurrenceEndType
+import com.countjoy.domain.model.RecurrenceException
 import com.countjoy.domain.model.RecurrencePattern
 import com.countjoy.domain.model.RecurrenceRule
 import java.time.DayOfWeek
 import java.time.LocalDate
-import java.time.format.DateTimeFormatter
+import java.util.EnumSet
 
 object RecurrenceRuleMapper {
-    private val DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE
-    
     fun RecurrenceRuleEntity.toDomain(): RecurrenceRule {
         return RecurrenceRule(
             id = id,
             eventId = eventId,
             pattern = RecurrencePattern.valueOf(pattern),
             interval = intervalValue,
-            daysOfWeek = daysOfWeek?.split(",")
-                ?.mapNotNull { day -> 
-                    try { DayOfWeek.valueOf(day.trim()) } catch (e: Exception) { null }
-                }
-                ?.toSet() ?: emptySet(),
+            daysOfWeek = daysOfWeekMask.toDaysOfWeek(),
             dayOfMonth = dayOfMonth,
             weekOfMonth = weekOfMonth,
             monthOfYear = monthOfYear,
             endType = RecurrenceEndType.valueOf(endType),
             endDate = endDate,
             occurrenceCount = occurrenceCount,
-            exceptions = exceptions?.split(",")
-                ?.mapNotNull { date ->
-                    try { LocalDate.parse(date.trim(), DATE_FORMATTER) } catch (e: Exception) { null }
-                } ?: emptyList(),
             skipWeekends = skipWeekends,
-            skipHolidays = skipHolidays
+            skipHolidays = skipHolidays,
+            lastOccurrenceDate = lastOccurrenceDate,
+            nextOccurrenceDate = nextOccurrenceDate
         )
     }
     
@@ -43,22 +38,65 @@ object RecurrenceRuleMapper {
             eventId = eventId,
             pattern = pattern.name,
             intervalValue = interval,
-            daysOfWeek = if (daysOfWeek.isNotEmpty()) {
-                daysOfWeek.joinToString(",") { it.name }
-            } else null,
+            daysOfWeekMask = daysOfWeek.toMask(),
             dayOfMonth = dayOfMonth,
             weekOfMonth = weekOfMonth,
             monthOfYear = monthOfYear,
             endType = endType.name,
             endDate = endDate,
             occurrenceCount = occurrenceCount,
-            exceptions = if (exceptions.isNotEmpty()) {
-                exceptions.joinToString(",") { it.format(DATE_FORMATTER) }
-            } else null,
             skipWeekends = skipWeekends,
             skipHolidays = skipHolidays,
-            lastOccurrenceDate = null,
-            nextOccurrenceDate = null
+            lastOccurrenceDate = lastOccurrenceDate,
+            nextOccurrenceDate = nextOccurrenceDate
         )
     }
-}
\ No newline at end of file
+    
+    /**
+     * Cancelled dates are rows of their own, read back into [RecurrenceRule.exceptions]
+     */
+    fun RecurrenceRule.toCancellationEntities(): List<RecurrenceExceptionEntity> {
+        return exceptions.distinct().map { date ->
+            RecurrenceException(originalDate = date, isCancelled = true).toEntity(id)
+        }
+    }
+    
+    fun RecurrenceRuleWithExceptions.toDomain(): RecurrenceRule {
+        val (cancelled, changed) = exceptions.partition { it.isCancelled }
+        return rule.toDomain().copy(
+            exceptions = cancelled.map { LocalDate.ofEpochDay(it.epochDay) },
+            occurrenceExceptions = changed.map { it.toDomain() }
+        )
+    }
+    
+    fun RecurrenceExceptionEntity.toDomain(): RecurrenceException {
+        return RecurrenceException(
+            originalDate = LocalDate.ofEpochDay(epochDay),
+            isCancelled = isCancelled,
+            targetDateTime = targetDateTime,
+            title = title,
+            description = description
+        )
+    }
+    
+    fun RecurrenceException.toEntity(ruleId: String): RecurrenceExceptionEntity {
+        return RecurrenceExceptionEntity(
+            ruleId = ruleId,
+            epochDay = originalDate.toEpochDay(),
+            isCancelled = isCancelled,
+            targetDateTime = targetDateTime,
+            title = title,
+            description = description
+        )
+    }
+    
+    private fun Set<DayOfWeek>.toMask(): Int {
+        return fold(0) { mask, day -> mask or (1 shl day.ordinal) }
+    }
+    
+    private fun Int.toDaysOfWeek(): Set<DayOfWeek> {
+        return DayOfWeek.values().filterTo(EnumSet.noneOf(DayOfWeek::class.java)) { day ->
+            (this and (1 shl day.ordinal)) != 0
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.countjoy.data.repository
+
+import com.countjoy.data.local.dao.AnalyticsRollupDao
+import com.countjoy.data.local.dao.CountdownEventDao
+import com.countjoy.data.local.entity.RollupDayRow
+import com.countjoy.data.local.preferences.SharedPreferencesManager
+import com.countjoy.data.mapper.toDomainAtOccurrence
+import com.countjoy.domain.model.DateCount
+import com.countjoy.domain.model.EventAggregates
+import com.countjoy.domain.model.WeekdayHourCount
+import com.countjoy.domain.repository.AnalyticsRepository
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.time.DayOfWeek
+import java.time.Instant
+import java.time.LocalDate
+import java.time.ZoneId
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Implementation of AnalyticsRepository over analytics_daily_rollup.
+ *
+ * Totals, categories, priorities and day trends sum at most one row per day,
+ * category and priority in range. The weekday by hour and duration counts
+ * and the top lists need the event times, so they still read the events
+ * table, through its analytics index.
+ *
+ * The rollup buckets days in the timezone it was built in; the zone of the
+ * last rebuild is kept in preferences, so a rollup that was never built or
+ * was built in another zone is rebuilt before it is read.
+ */
+@Singleton
+class AnalyticsRepositoryImpl @Inject constructor(
+    private val eventDao: CountdownEventDao,
+    private val rollupDao: AnalyticsRollupDao,
+    private val preferencesManager: SharedPreferencesManager
+) : AnalyticsRepository {
+
+    private val rebuildMutex = Mutex()
+
+    override suspend fun getEventAggregates(createdAfter: Long, nowMillis: Long, topCount: Int): EventAggregates {
+        rebuildRollupIfStale()
+
+        val zone = ZoneId.systemDefault()
+        val fromDate = Instant.ofEpochMilli(createdAfter).atZone(zone).toLocalDate()
+        val fromDay = fromDate.toString()
+        // The rollup can only start at a whole day, so the event queries start
+        // there too; their bound is exclusive
+        val createdSince = fromDate.atStartOfDay(zone).toInstant().toEpochMilli() - 1
+        val totals = rollupDao.getTotals(fromDay)
+        val days = rollupDao.getDays(fromDay)
+
+        return EventAggregates(
+            totalEvents = totals.created,
+            completedEvents = totals.completed,
+            completedDurationMillis = totals.completedDurationMillis,
+            earliestCreatedMillis = totals.earliestCreatedDay?.let {
+                LocalDate.parse(it).atStartOfDay(zone).toInstant().toEpochMilli()
+            },
+            eventsByCategory = rollupDao.getCategoryCounts(fromDay).associate { it.category to it.count },
+            eventsByPriority = rollupDao.getPriorityCounts(fromDay).associate { it.priority to it.count },
+            creationTrend = days.trend { it.created },
+            completionTrend = days.trend { it.completed },
+            achievementTrend = days.trend { it.achieved },
+            creationByWeekdayHour = eventDao.getCreationCountsByWeekdayHour(createdSince).map {
+                WeekdayHourCount(
+                    // strftime('%w') counts from Sunday = 0
+                    dayOfWeek = DayOfWeek.of(if (it.dayOfWeek == 0) 7 else it.dayOfWeek),
+                    hour = it.hour,
+                    count = it.count
+                )
+            },
+            durationBins = eventDao.getDurationBinCounts(createdSince).associate { it.bin to it.count },
+            upcomingEvents = eventDao.getUpcomingEventsCreatedAfter(createdSince, nowMillis, topCount)
+                .map { it.toDomainAtOccurrence() },
+            recentlyCompleted = eventDao.getRecentlyCompletedEventsCreatedAfter(createdSince, topCount)
+                .map { it.toDomainAtOccurrence() }
+        )
+    }
+
+    override fun isRollupStale(): Boolean {
+        return preferencesManager.getAnalyticsRollupZone() != ZoneId.systemDefault().id
+    }
+
+    override suspend fun rebuildRollupIfStale(): Boolean {
+        // The backfill worker and a dashboard load may both find it stale
+        return rebuildMutex.withLock {
+            val zoneId = ZoneId.systemDefault().id
+            if (preferencesManager.getAnalyticsRollupZone() == zoneId) {
+                return@withLock false
+            }
+            rollupDao.rebuildRollup()
+            preferencesManager.setAnalyticsRollupZone(zoneId)
+            true
+        }
+    }
+
+    private fun List<RollupDayRow>.trend(count: (RollupDayRow) -> Int): List<DateCount> {
+        return mapNotNull { row ->
+            count(row).takeIf { it > 0 }?.let { DateCount(date = LocalDate.parse(row.day), count = it) }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.countjoy.data.repository
+
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.mapper.toDomain
+import com.countjoy.domain.model.CountdownEvent
+import java.time.ZoneId
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Reuses mapped [CountdownEvent]s across Room emissions.
+ *
+ * Rows are keyed by id and versioned by updated_at, which every write through
+ * [EventRepositoryImpl] bumps. An unchanged row maps to the very same
+ * instance, so re-emitted lists compare equal by identity and consumers can
+ * skip them. Mapped wall-clock times depend on the system timezone, so a
+ * timezone change drops every entry.
+ */
+internal class EventMappingCache {
+
+    private class Entry(val updatedAt: Long, val event: CountdownEvent)
+
+    private val entries = ConcurrentHashMap<Long, Entry>()
+
+    @Volatile
+    private var zone: ZoneId = ZoneId.systemDefault()
+
+    fun map(entities: List<CountdownEventEntity>): List<CountdownEvent> {
+        checkZone()
+        return entities.map { mapEntity(it) }
+    }
+
+    fun map(entity: CountdownEventEntity): CountdownEvent {
+        checkZone()
+        return mapEntity(entity)
+    }
+
+    fun evict(id: Long) {
+        entries.remove(id)
+    }
+
+    private fun mapEntity(entity: CountdownEventEntity): CountdownEvent {
+        val cached = entries[entity.id]
+        if (cached != null && cached.updatedAt == entity.updatedAt) {
+            return cached.event
+        }
+        return entity.toDomain().also { entries[entity.id] = Entry(entity.updatedAt, it) }
+    }
+
+    private fun checkZone() {
+        val current = ZoneId.systemDefault()
+        if (current != zone) {
+            entries.clear()
+            zone = current
+        }
+    }
+}
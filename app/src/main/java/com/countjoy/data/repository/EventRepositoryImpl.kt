@@ -1,57 +1,132 @@
 package com.countjoy.data.repository
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
 import com.countjoy.data.local.dao.CountdownEventDao
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.search.EventSearchQuery
 import com.countjoy.data.mapper.toDomain
 import com.countjoy.data.mapper.toEntity
 import com.countjoy.domain.model.CountdownEvent
 import com.countjoy.domain.repository.EventRepository
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.shareIn
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
- * Implementation of EventRepository using Room database
+ * Implementation of EventRepository using Room database.
+ *
+ * Rows are mapped through [EventMappingCache], so a Room invalidation only
+ * maps the rows that actually changed, and flows skip emissions whose events
+ * are all unchanged. The full event list is queried and mapped once and
+ * shared by every collector; active events are derived from it.
+ *
+ * Single events are served from [EventSnapshotCache], which every write here
+ * goes through.
+ *
+ * All events, active events and single events carry the master target, which
+ * the recurrence code expands from. Filtered, searched and paged lists carry
+ * the occurrence a recurring event is at, so write those back only through
+ * the targeted updates such as [updateEventPriority].
  */
 @Singleton
 class EventRepositoryImpl @Inject constructor(
-    private val eventDao: CountdownEventDao
+    private val eventDao: CountdownEventDao,
+    private val snapshotCache: EventSnapshotCache
 ) : EventRepository {
     
+    private val mappingCache = EventMappingCache()
+    private val coroutineScope = CoroutineScope(Dispatchers.Default + SupervisorJob())
+    
+    private val sharedEvents: Flow<List<CountdownEvent>> by lazy {
+        eventDao.getAllEvents()
+            .map { entities -> mappingCache.map(entities) }
+            .distinctUntilChanged()
+            .shareIn(
+                scope = coroutineScope,
+                started = SharingStarted.WhileSubscribed(
+                    stopTimeoutMillis = SHARE_STOP_TIMEOUT_MILLIS,
+                    // A late subscriber must not see a list from before it stopped
+                    replayExpirationMillis = 0
+                ),
+                replay = 1
+            )
+    }
+    
+    private val sharedActiveEvents: Flow<List<CountdownEvent>> by lazy {
+        sharedEvents
+            .map { events -> events.filter { it.isActive } }
+            .distinctUntilChanged()
+    }
+    
     override fun getAllEvents(): Flow<List<CountdownEvent>> {
-        return eventDao.getAllEvents().map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return sharedEvents
     }
     
     override fun getActiveEvents(): Flow<List<CountdownEvent>> {
-        return eventDao.getAllActiveEvents().map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return sharedActiveEvents
     }
     
     override suspend fun getEventById(id: Long): CountdownEvent? {
-        return eventDao.getEventById(id)?.toDomain()
+        return snapshotCache.getOrLoad(
+            id = id,
+            loadVersion = { eventDao.getEventUpdatedAt(id) },
+            load = { eventDao.getEventById(id) },
+            map = { mappingCache.map(it) }
+        )
+    }
+    
+    override suspend fun scanEvents(createdAfter: Long, chunkSize: Int, consume: (CountdownEvent) -> Unit) {
+        var afterId = 0L
+        do {
+            val chunk = eventDao.getEventsCreatedAfterChunk(createdAfter, afterId, chunkSize)
+            // Mapped directly: a scan of the whole table must not fill the caches
+            chunk.forEach { consume(it.toDomain()) }
+            afterId = chunk.lastOrNull()?.id ?: afterId
+        } while (chunk.size == chunkSize)
     }
     
     override suspend fun createEvent(event: CountdownEvent): Long {
-        return eventDao.insertEvent(event.toEntity())
+        val entity = event.toEntity()
+        val id = eventDao.insertEvent(entity)
+        // Inserts replace on conflict, so a restored row may reuse an old version
+        mappingCache.evict(id)
+        writeThrough(entity.copy(id = id))
+        return id
     }
     
     override suspend fun updateEvent(event: CountdownEvent) {
-        eventDao.updateEvent(event.toEntity())
+        // updated_at versions both caches, so every write must move it
+        val entity = event.toEntity().copy(updatedAt = System.currentTimeMillis())
+        if (eventDao.updateEventKeepingOccurrence(entity) > 0) {
+            writeThrough(entity)
+        } else {
+            snapshotCache.evict(entity.id)
+        }
     }
     
     override suspend fun deleteEvent(event: CountdownEvent) {
         eventDao.deleteEvent(event.toEntity())
+        evict(event.id)
     }
     
     override suspend fun deleteEvent(id: Long) {
         eventDao.deleteEventById(id)
+        evict(id)
     }
     
     override suspend fun updateEventActiveStatus(id: Long, isActive: Boolean) {
-        eventDao.updateEventActiveStatus(id, isActive)
+        eventDao.updateEventActiveStatus(id, isActive, System.currentTimeMillis())
+        snapshotCache.evict(id)
     }
     
     override suspend fun getEvent(id: String): CountdownEvent? {
@@ -68,15 +143,15 @@ class EventRepositoryImpl @Inject constructor(
     }
     
     override fun getEventsByCategory(category: String): Flow<List<CountdownEvent>> {
-        return eventDao.getEventsByCategory(category).map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return eventDao.getEventsByCategory(category)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
     }
     
     override fun getEventsByPriority(priority: Int): Flow<List<CountdownEvent>> {
-        return eventDao.getEventsByPriority(priority).map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return eventDao.getEventsByPriority(priority)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
     }
     
     override fun searchAndFilterEvents(
@@ -85,28 +160,56 @@ class EventRepositoryImpl @Inject constructor(
         priority: Int?,
         sortBy: String
     ): Flow<List<CountdownEvent>> {
-        return eventDao.searchAndFilterEvents(searchQuery, category, priority, sortBy)
-            .map { entities ->
-                entities.map { it.toDomain() }
+        return eventDao.searchAndFilterEvents(EventSearchQuery.match(searchQuery), category, priority, sortBy)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
+    }
+    
+    override fun getPagedEvents(
+        searchQuery: String?,
+        category: String?,
+        priority: Int?,
+        showPast: Boolean,
+        sortBy: String
+    ): Flow<PagingData<CountdownEvent>> {
+        val currentTime = System.currentTimeMillis()
+        return Pager(
+            config = PagingConfig(
+                pageSize = PAGE_SIZE,
+                enablePlaceholders = false
+            ),
+            pagingSourceFactory = {
+                eventDao.pagingSearchAndFilterEvents(
+                    matchQuery = EventSearchQuery.match(searchQuery),
+                    titleMatchQuery = EventSearchQuery.titleMatch(searchQuery),
+                    category = category,
+                    priority = priority,
+                    showPast = showPast,
+                    currentTime = currentTime,
+                    sortBy = sortBy
+                )
             }
+        ).flow.map { pagingData ->
+            pagingData.map { mapAtOccurrence(it) }
+        }
     }
     
     override fun getEventsByDateRange(startDate: Long, endDate: Long): Flow<List<CountdownEvent>> {
-        return eventDao.getEventsByDateRange(startDate, endDate).map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return eventDao.getEventsByDateRange(startDate, endDate)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
     }
     
     override fun getPastEvents(currentTime: Long): Flow<List<CountdownEvent>> {
-        return eventDao.getPastEvents(currentTime).map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return eventDao.getPastEvents(currentTime)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
     }
     
     override fun getUpcomingEvents(currentTime: Long, limit: Int): Flow<List<CountdownEvent>> {
-        return eventDao.getUpcomingEvents(currentTime, limit).map { entities ->
-            entities.map { it.toDomain() }
-        }
+        return eventDao.getUpcomingEvents(currentTime, limit)
+            .map { entities -> entities.map { mapAtOccurrence(it) } }
+            .distinctUntilChanged()
     }
     
     override suspend fun getActiveEventCount(): Int {
@@ -122,6 +225,34 @@ class EventRepositoryImpl @Inject constructor(
     }
     
     override suspend fun updateEventPriority(id: Long, priority: Int) {
-        eventDao.updateEventPriority(id, priority)
+        eventDao.updateEventPriority(id, priority, System.currentTimeMillis())
+        snapshotCache.evict(id)
+    }
+    
+    /**
+     * Maps a row as it is listed: a recurring event counts down to the
+     * occurrence it is at rather than its first date
+     */
+    private fun mapAtOccurrence(entity: CountdownEventEntity): CountdownEvent {
+        val event = mappingCache.map(entity)
+        return if (entity.nextOccurrence == entity.targetDateTime) {
+            event
+        } else {
+            event.copy(targetEpochMillis = entity.nextOccurrence)
+        }
+    }
+    
+    private fun writeThrough(entity: CountdownEventEntity) {
+        snapshotCache.put(mappingCache.map(entity), entity.updatedAt)
+    }
+    
+    private fun evict(id: Long) {
+        mappingCache.evict(id)
+        snapshotCache.evict(id)
+    }
+    
+    companion object {
+        private const val PAGE_SIZE = 30
+        private const val SHARE_STOP_TIMEOUT_MILLIS = 5_000L
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.countjoy.data.repository
+
+import androidx.room.InvalidationTracker
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.repository.EventCacheMetrics
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Process-wide, least-recently-used cache of single events looked up by id.
+ *
+ * [EventRepositoryImpl] writes through it on create, update and delete. Any
+ * other change to the events table reaches it through [invalidationObserver],
+ * which only marks the cached events as unconfirmed: Room reports tables, not
+ * rows, so the next lookup of each checks the row's updated_at, which every
+ * write bumps, and keeps the cached event if it still matches.
+ */
+@Singleton
+class EventSnapshotCache internal constructor(
+    private val maxSize: Int
+) : EventCacheMetrics {
+
+    @Inject
+    constructor() : this(DEFAULT_MAX_SIZE)
+
+    companion object {
+        private const val DEFAULT_MAX_SIZE = 256
+        private const val EVENTS_TABLE = "countdown_events"
+    }
+
+    private class Entry(
+        val event: CountdownEvent,
+        val version: Long,
+        var generation: Long
+    )
+
+    private val entries = object : LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Long, Entry>): Boolean {
+            return size > maxSize
+        }
+    }
+
+    /**
+     * Bumped on every change to the events table; entries cached in an
+     * earlier generation have to be confirmed before they are served.
+     */
+    private val generation = AtomicLong()
+
+    private val hits = AtomicLong()
+    private val revalidations = AtomicLong()
+    private val misses = AtomicLong()
+
+    val invalidationObserver: InvalidationTracker.Observer =
+        object : InvalidationTracker.Observer(EVENTS_TABLE) {
+            override fun onInvalidated(tables: Set<String>) {
+                invalidate()
+            }
+        }
+
+    /**
+     * Gets event [id], from memory if it is cached and still current.
+     *
+     * @param loadVersion reads the row's updated_at, or null if it is gone
+     * @param load reads the row, or null if it is gone
+     * @param map maps a loaded row
+     */
+    suspend fun getOrLoad(
+        id: Long,
+        loadVersion: suspend () -> Long?,
+        load: suspend () -> CountdownEventEntity?,
+        map: (CountdownEventEntity) -> CountdownEvent
+    ): CountdownEvent? {
+        // Read before the database, so a change racing the load leaves it unconfirmed
+        val current = generation.get()
+        val entry = synchronized(entries) { entries[id] }
+
+        if (entry != null) {
+            if (entry.generation == current) {
+                hits.incrementAndGet()
+                return entry.event
+            }
+            if (loadVersion() == entry.version) {
+                synchronized(entries) { entry.generation = maxOf(entry.generation, current) }
+                revalidations.incrementAndGet()
+                return entry.event
+            }
+        }
+
+        misses.incrementAndGet()
+        val entity = load()
+        if (entity == null) {
+            evict(id)
+            return null
+        }
+        return map(entity).also { put(it, entity.updatedAt, current) }
+    }
+
+    /**
+     * Caches [event] as just written with updated_at [version].
+     */
+    fun put(event: CountdownEvent, version: Long) {
+        put(event, version, generation.get())
+    }
+
+    fun evict(id: Long) {
+        synchronized(entries) { entries.remove(id) }
+    }
+
+    /**
+     * Marks every cached event as unconfirmed.
+     */
+    fun invalidate() {
+        generation.incrementAndGet()
+    }
+
+    override fun snapshot(): EventCacheMetrics.Snapshot {
+        return EventCacheMetrics.Snapshot(
+            hits = hits.get(),
+            revalidations = revalidations.get(),
+            misses = misses.get(),
+            size = synchronized(entries) { entries.size },
+            maxSize = maxSize
+        )
+    }
+
+    private fun put(event: CountdownEvent, version: Long, generation: Long) {
+        synchronized(entries) { entries[event.id] = Entry(event, version, generation) }
+    }
+}
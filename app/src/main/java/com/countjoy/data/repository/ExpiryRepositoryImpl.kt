@@ -0,0 +1,45 @@
+package com.countjoy.data.repository
+
+import com.countjoy.data.local.dao.ExpiryDao
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.local.entity.DeliveredExpiryEntity
+import com.countjoy.data.mapper.toDomainAtOccurrence
+import com.countjoy.domain.model.PendingExpiry
+import com.countjoy.domain.repository.ExpiryRepository
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import javax.inject.Inject
+
+class ExpiryRepositoryImpl @Inject constructor(
+    private val expiryDao: ExpiryDao
+) : ExpiryRepository {
+    
+    override fun observeNextPendingExpiry(): Flow<PendingExpiry?> {
+        return expiryDao.observeNextPendingExpiry().map { entity ->
+            entity?.toPendingExpiry()
+        }
+    }
+    
+    override suspend fun getNextPendingExpiry(): PendingExpiry? {
+        return expiryDao.getNextPendingExpiry()?.toPendingExpiry()
+    }
+    
+    override suspend fun getPendingExpiry(eventId: Long): PendingExpiry? {
+        return expiryDao.getPendingExpiry(eventId)?.toPendingExpiry()
+    }
+    
+    override suspend fun markExpiryDelivered(eventId: Long, targetEpochMillis: Long): Boolean {
+        val rowId = expiryDao.insertDeliveredExpiry(
+            DeliveredExpiryEntity(
+                eventId = eventId,
+                targetDateTime = targetEpochMillis,
+                deliveredAt = System.currentTimeMillis()
+            )
+        )
+        return rowId != -1L
+    }
+    
+    private fun CountdownEventEntity.toPendingExpiry(): PendingExpiry {
+        return PendingExpiry(event = toDomainAtOccurrence(), targetEpochMillis = nextOccurrence)
+    }
+}
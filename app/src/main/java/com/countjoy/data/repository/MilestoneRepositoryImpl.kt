@@ -1,9 +1,12 @@
 package com.countjoy.data.repository
 
 import com.countjoy.data.local.dao.MilestoneDao
+import com.countjoy.data.local.entity.MilestoneWithEventEntity
 import com.countjoy.data.mapper.MilestoneMapper.toDomain
 import com.countjoy.data.mapper.MilestoneMapper.toEntity
+import com.countjoy.data.mapper.toDomainAtOccurrence
 import com.countjoy.domain.model.Milestone
+import com.countjoy.domain.model.PendingMilestone
 import com.countjoy.domain.repository.MilestoneRepository
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.map
@@ -43,6 +46,21 @@ class MilestoneRepositoryImpl @Inject constructor(
         milestoneDao.markMilestoneAsAchieved(milestoneId, achievedAt)
     }
     
+    override suspend fun getPendingMilestones(eventId: String?, minPriority: Int): List<PendingMilestone> {
+        return milestoneDao.getPendingMilestones(eventId, minPriority).map { it.toPendingMilestone() }
+    }
+    
+    override fun observePendingMilestones(): Flow<List<PendingMilestone>> {
+        return milestoneDao.observePendingMilestones().map { rows ->
+            rows.map { it.toPendingMilestone() }
+        }
+    }
+    
+    override suspend fun markMilestonesAsAchieved(milestoneIds: List<String>, achievedAt: Long) {
+        if (milestoneIds.isEmpty()) return
+        milestoneDao.markMilestonesAsAchieved(milestoneIds, achievedAt)
+    }
+    
     override suspend fun deleteMilestone(milestone: Milestone) {
         milestoneDao.deleteMilestone(milestone.toEntity())
     }
@@ -56,4 +74,11 @@ class MilestoneRepositoryImpl @Inject constructor(
             entities.toDomain()
         }
     }
-}
\ No newline at end of file
+    
+    private fun MilestoneWithEventEntity.toPendingMilestone(): PendingMilestone {
+        return PendingMilestone(
+            milestone = milestone.toDomain(),
+            event = event.toDomainAtOccurrence()
+        )
+    }
+}
@@ -1,9 +1,14 @@
 package com.countjoy.data.repository
 
 import com.countjoy.data.local.dao.RecurrenceRuleDao
+import com.countjoy.data.local.entity.EventNextOccurrence
+import com.countjoy.data.local.entity.RecurrenceOccurrenceDates
+import com.countjoy.data.mapper.RecurrenceRuleMapper.toCancellationEntities
 import com.countjoy.data.mapper.RecurrenceRuleMapper.toDomain
 import com.countjoy.data.mapper.RecurrenceRuleMapper.toEntity
+import com.countjoy.domain.model.RecurrenceException
 import com.countjoy.domain.model.RecurrenceRule
+import com.countjoy.domain.model.SeriesAdvance
 import com.countjoy.domain.repository.RecurrenceRuleRepository
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.map
@@ -28,27 +33,48 @@ class RecurrenceRuleRepositoryImpl @Inject constructor(
         return recurrenceRuleDao.getAllRecurrenceRules().map { it.toDomain() }
     }
     
+    override fun observeAllRecurrenceRules(): Flow<List<RecurrenceRule>> {
+        return recurrenceRuleDao.observeAllRecurrenceRules().map { rules ->
+            rules.map { it.toDomain() }
+        }
+    }
+    
     override suspend fun getRecurrenceRulesDueBy(date: LocalDate): List<RecurrenceRule> {
         return recurrenceRuleDao.getRecurrenceRulesDueBy(date).map { it.toDomain() }
     }
     
     override suspend fun insertRecurrenceRule(rule: RecurrenceRule) {
-        recurrenceRuleDao.insertRecurrenceRule(rule.toEntity())
+        recurrenceRuleDao.insertRuleWithCancellations(rule.toEntity(), rule.toCancellationEntities())
     }
     
     override suspend fun updateRecurrenceRule(rule: RecurrenceRule) {
-        recurrenceRuleDao.updateRecurrenceRule(rule.toEntity())
+        recurrenceRuleDao.updateRuleWithCancellations(rule.toEntity(), rule.toCancellationEntities())
     }
     
-    override suspend fun updateOccurrenceDates(ruleId: String, lastDate: LocalDate, nextDate: LocalDate) {
-        recurrenceRuleDao.updateOccurrenceDates(ruleId, lastDate, nextDate)
+    override suspend fun advanceSeries(advances: List<SeriesAdvance>) {
+        recurrenceRuleDao.advanceSeries(
+            dates = advances.map { RecurrenceOccurrenceDates(it.ruleId, it.lastDate, it.nextDate) },
+            occurrences = advances.map { EventNextOccurrence(it.eventId, it.nextOccurrenceEpochMillis) }
+        )
     }
     
     override suspend fun deleteRecurrenceRule(rule: RecurrenceRule) {
-        recurrenceRuleDao.deleteRecurrenceRule(rule.toEntity())
+        recurrenceRuleDao.deleteSeries(rule.toEntity())
     }
     
     override suspend fun deleteRecurrenceRuleByEventId(eventId: String) {
-        recurrenceRuleDao.deleteRecurrenceRuleByEventId(eventId)
+        recurrenceRuleDao.deleteSeriesByEventId(eventId)
+    }
+    
+    override suspend fun saveOccurrenceException(ruleId: String, exception: RecurrenceException) {
+        recurrenceRuleDao.upsertException(exception.toEntity(ruleId))
+    }
+    
+    override suspend fun deleteOccurrenceException(ruleId: String, originalDate: LocalDate) {
+        recurrenceRuleDao.deleteException(ruleId, originalDate.toEpochDay())
+    }
+    
+    override suspend fun deleteOccurrenceExceptionsFrom(ruleId: String, fromDate: LocalDate) {
+        recurrenceRuleDao.deleteExceptionsFrom(ruleId, fromDate.toEpochDay())
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,17 @@ package com.countjoy.di
 
 import android.content.Context
 import androidx.room.Room
+import androidx.room.RoomDatabase
+import com.countjoy.data.local.AnalyticsRollupSchema
 import com.countjoy.data.local.CountJoyDatabase
+import com.countjoy.data.local.DatabaseTuning
+import com.countjoy.data.local.dao.AnalyticsRollupDao
 import com.countjoy.data.local.dao.CountdownEventDao
+import com.countjoy.data.local.dao.ExpiryDao
 import com.countjoy.data.local.dao.MilestoneDao
+import com.countjoy.data.local.dao.RecurrenceRuleDao
 import com.countjoy.data.local.migration.DatabaseMigrations
+import com.countjoy.data.repository.EventSnapshotCache
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -20,7 +27,8 @@ object DatabaseModule {
     @Provides
     @Singleton
     fun provideCountJoyDatabase(
-        @ApplicationContext context: Context
+        @ApplicationContext context: Context,
+        eventSnapshotCache: EventSnapshotCache
     ): CountJoyDatabase {
         return Room.databaseBuilder(
             context,
@@ -28,7 +36,12 @@ object DatabaseModule {
             "countjoy_database"
         )
         .addMigrations(*DatabaseMigrations.getAllMigrations())
+        .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+        .setQueryExecutor(DatabaseTuning.createQueryExecutor())
+        .addCallback(DatabaseTuning.callback)
+        .addCallback(AnalyticsRollupSchema.callback)
         .build()
+        .also { it.invalidationTracker.addObserver(eventSnapshotCache.invalidationObserver) }
     }
     
     @Provides
@@ -46,4 +59,28 @@ object DatabaseModule {
     ): MilestoneDao {
         return database.milestoneDao()
     }
+    
+    @Provides
+    @Singleton
+    fun provideRecurrenceRuleDao(
+        database: CountJoyDatabase
+    ): RecurrenceRuleDao {
+        return database.recurrenceRuleDao()
+    }
+    
+    @Provides
+    @Singleton
+    fun provideExpiryDao(
+        database: CountJoyDatabase
+    ): ExpiryDao {
+        return database.expiryDao()
+    }
+    
+    @Provides
+    @Singleton
+    fun provideAnalyticsRollupDao(
+        database: CountJoyDatabase
+    ): AnalyticsRollupDao {
+        return database.analyticsRollupDao()
+    }
 }
\ No newline at end of file
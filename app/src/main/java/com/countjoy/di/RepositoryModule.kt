@@ -1,9 +1,17 @@
 package com.countjoy.di
 
+import com.countjoy.data.repository.AnalyticsRepositoryImpl
 import com.countjoy.data.repository.EventRepositoryImpl
+import com.countjoy.data.repository.EventSnapshotCache
+import com.countjoy.data.repository.ExpiryRepositoryImpl
 import com.countjoy.data.repository.MilestoneRepositoryImpl
+import com.countjoy.data.repository.RecurrenceRuleRepositoryImpl
+import com.countjoy.domain.repository.AnalyticsRepository
+import com.countjoy.domain.repository.EventCacheMetrics
 import com.countjoy.domain.repository.EventRepository
+import com.countjoy.domain.repository.ExpiryRepository
 import com.countjoy.domain.repository.MilestoneRepository
+import com.countjoy.domain.repository.RecurrenceRuleRepository
 import dagger.Binds
 import dagger.Module
 import dagger.hilt.InstallIn
@@ -20,9 +28,33 @@ abstract class RepositoryModule {
         eventRepositoryImpl: EventRepositoryImpl
     ): EventRepository
     
+    @Binds
+    @Singleton
+    abstract fun bindEventCacheMetrics(
+        eventSnapshotCache: EventSnapshotCache
+    ): EventCacheMetrics
+    
     @Binds
     @Singleton
     abstract fun bindMilestoneRepository(
         milestoneRepositoryImpl: MilestoneRepositoryImpl
     ): MilestoneRepository
-}
\ No newline at end of file
+    
+    @Binds
+    @Singleton
+    abstract fun bindAnalyticsRepository(
+        analyticsRepositoryImpl: AnalyticsRepositoryImpl
+    ): AnalyticsRepository
+    
+    @Binds
+    @Singleton
+    abstract fun bindExpiryRepository(
+        expiryRepositoryImpl: ExpiryRepositoryImpl
+    ): ExpiryRepository
+    
+    @Binds
+    @Singleton
+    abstract fun bindRecurrenceRuleRepository(
+        recurrenceRuleRepositoryImpl: RecurrenceRuleRepositoryImpl
+    ): RecurrenceRuleRepository
+}
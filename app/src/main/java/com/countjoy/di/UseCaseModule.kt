@@ -1,6 +1,8 @@
 package com.countjoy.di
 
+import com.countjoy.domain.model.RecurrenceCalculator
 import com.countjoy.domain.repository.EventRepository
+import com.countjoy.domain.repository.RecurrenceRuleRepository
 import com.countjoy.domain.usecase.*
 import dagger.Module
 import dagger.Provides
@@ -15,9 +17,11 @@ object UseCaseModule {
     @Provides
     @ViewModelScoped
     fun provideGetEventUseCase(
-        repository: EventRepository
+        repository: EventRepository,
+        recurrenceRuleRepository: RecurrenceRuleRepository,
+        recurrenceCalculator: RecurrenceCalculator
     ): GetEventUseCase {
-        return GetEventUseCase(repository)
+        return GetEventUseCase(repository, recurrenceRuleRepository, recurrenceCalculator)
     }
     
     @Provides
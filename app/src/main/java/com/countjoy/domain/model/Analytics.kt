@@ -1,5 +1,6 @@
 package com.countjoy.domain.model
 
+import java.time.DayOfWeek
 import java.time.Duration
 import java.time.Instant
 import java.time.LocalDate
@@ -15,7 +16,8 @@ data class EventStatistics(
     val creationTrend: List<DateCount>,
     val completionTrend: List<DateCount>,
     val upcomingEvents: List<CountdownEvent>,
-    val recentlyCompleted: List<CountdownEvent>
+    val recentlyCompleted: List<CountdownEvent>,
+    val achievementTrend: List<DateCount> = emptyList()
 )
 
 data class DateCount(
@@ -23,6 +25,33 @@ data class DateCount(
     val count: Int
 )
 
+/**
+ * Event counts of a time range as aggregated by the database, one entry per
+ * bucket, plus the few events the top lists show.
+ */
+data class EventAggregates(
+    val totalEvents: Int,
+    val completedEvents: Int,
+    val completedDurationMillis: Long,
+    val earliestCreatedMillis: Long?,
+    val eventsByCategory: Map<String, Int>,
+    val eventsByPriority: Map<Int, Int>,
+    val creationTrend: List<DateCount>,
+    val completionTrend: List<DateCount>,
+    val creationByWeekdayHour: List<WeekdayHourCount>,
+    val upcomingEvents: List<CountdownEvent>,
+    val recentlyCompleted: List<CountdownEvent>,
+    val achievementTrend: List<DateCount> = emptyList(),
+    /** Events per countdown length bin, by bin index. */
+    val durationBins: Map<Int, Int> = emptyMap()
+)
+
+data class WeekdayHourCount(
+    val dayOfWeek: DayOfWeek,
+    val hour: Int,
+    val count: Int
+)
+
 data class CategoryDistribution(
     val category: String,
     val count: Int,
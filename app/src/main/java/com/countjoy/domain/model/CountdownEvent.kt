@@ -1,6 +1,8 @@
 package com.countjoy.domain.model
 
+import java.time.Instant
 import java.time.LocalDateTime
+import java.time.ZoneId
 import java.time.temporal.ChronoUnit
 
 /**
@@ -10,13 +12,13 @@ import java.time.temporal.ChronoUnit
  * @property title The title/name of the event
  * @property description Optional description of the event
  * @property category Event category for organization
- * @property targetDateTime The target date and time for the countdown
+ * @property targetEpochMillis UTC instant the countdown runs to
  * @property reminderEnabled Whether reminders are enabled for this event
  * @property reminderTime When to show reminder (milliseconds before target)
  * @property color Optional custom color for the event
  * @property icon Optional icon identifier for the event
- * @property createdAt When the event was created
- * @property updatedAt When the event was last updated
+ * @property createdAtEpochMillis UTC instant the event was created
+ * @property updatedAtEpochMillis UTC instant the event was last updated
  * @property isActive Whether this event is currently active
  * @property priority Priority level (0 = normal, higher = more important)
  */
@@ -25,16 +27,69 @@ data class CountdownEvent(
     val title: String,
     val description: String? = null,
     val category: String = "General",
-    val targetDateTime: LocalDateTime,
+    val targetEpochMillis: Long,
     val reminderEnabled: Boolean = false,
     val reminderTime: Long? = null,
     val color: Int? = null,
     val icon: String? = null,
-    val createdAt: LocalDateTime = LocalDateTime.now(),
-    val updatedAt: LocalDateTime = LocalDateTime.now(),
+    val createdAtEpochMillis: Long = System.currentTimeMillis(),
+    val updatedAtEpochMillis: Long = System.currentTimeMillis(),
     val isActive: Boolean = true,
     val priority: Int = 0
 ) {
+    /**
+     * Creates an event from local date-times in the system zone
+     */
+    constructor(
+        id: Long = 0,
+        title: String,
+        description: String? = null,
+        category: String = "General",
+        targetDateTime: LocalDateTime,
+        reminderEnabled: Boolean = false,
+        reminderTime: Long? = null,
+        color: Int? = null,
+        icon: String? = null,
+        createdAt: LocalDateTime = LocalDateTime.now(),
+        updatedAt: LocalDateTime = LocalDateTime.now(),
+        isActive: Boolean = true,
+        priority: Int = 0
+    ) : this(
+        id = id,
+        title = title,
+        description = description,
+        category = category,
+        targetEpochMillis = targetDateTime.toEpochMillis(),
+        reminderEnabled = reminderEnabled,
+        reminderTime = reminderTime,
+        color = color,
+        icon = icon,
+        createdAtEpochMillis = createdAt.toEpochMillis(),
+        updatedAtEpochMillis = updatedAt.toEpochMillis(),
+        isActive = isActive,
+        priority = priority
+    )
+
+    /*
+     * The instants are what the database stores, so rows map in without any
+     * zone work and an ambiguous wall-clock time in a DST overlap never
+     * replaces the instant it came from. The local views below are resolved
+     * in the current system zone on every access, so an instance that is
+     * reused across a timezone or DST change never shows stale local times.
+     */
+
+    /** The target date and time for the countdown in the system zone */
+    val targetDateTime: LocalDateTime
+        get() = targetEpochMillis.toLocalDateTime()
+
+    /** When the event was created, in the system zone */
+    val createdAt: LocalDateTime
+        get() = createdAtEpochMillis.toLocalDateTime()
+
+    /** When the event was last updated, in the system zone */
+    val updatedAt: LocalDateTime
+        get() = updatedAtEpochMillis.toLocalDateTime()
+    
     /**
      * Validates the countdown event
      * @return true if the event is valid, false otherwise
@@ -49,7 +104,16 @@ data class CountdownEvent(
      * @return true if the target date/time has passed
      */
     fun hasExpired(): Boolean {
-        return targetDateTime.isBefore(LocalDateTime.now())
+        return hasExpired(System.currentTimeMillis())
+    }
+    
+    /**
+     * Checks if the event has expired at the given instant
+     * @param nowEpochMillis Current time in epoch millis
+     * @return true if the target instant has passed
+     */
+    fun hasExpired(nowEpochMillis: Long): Boolean {
+        return targetEpochMillis < nowEpochMillis
     }
     
     /**
@@ -83,11 +147,11 @@ data class CountdownEvent(
      * @return Triple of (days, hours, minutes, seconds) remaining
      */
     fun getDetailedTimeRemaining(): DetailedTime {
-        val now = LocalDateTime.now()
-        return if (now.isAfter(targetDateTime) || now.isEqual(targetDateTime)) {
+        val remainingMillis = targetEpochMillis - System.currentTimeMillis()
+        return if (remainingMillis <= 0) {
             DetailedTime(0, 0, 0, 0, true)
         } else {
-            val totalSeconds = ChronoUnit.SECONDS.between(now, targetDateTime)
+            val totalSeconds = remainingMillis / 1000
             val days = totalSeconds / 86400
             val hours = ((totalSeconds % 86400) / 3600).toInt()
             val minutes = ((totalSeconds % 3600) / 60).toInt()
@@ -141,4 +205,15 @@ data class DetailedTime(
     val seconds: Int,
     val isExpired: Boolean
 )
-}
\ No newline at end of file
+}
+
+/**
+ * Resolves a local date-time to its UTC instant in the system zone
+ */
+fun LocalDateTime.toEpochMillis(): Long {
+    return atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+}
+
+private fun Long.toLocalDateTime(): LocalDateTime {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(this), ZoneId.systemDefault())
+}
@@ -24,30 +24,8 @@ data class CountdownTime(
      * @return Formatted countdown string
      */
     fun toFormattedString(includeSeconds: Boolean = true): String {
-        return when {
-            isExpired -> "Expired"
-            days > 0 -> {
-                if (includeSeconds) {
-                    String.format("%dd %02dh %02dm %02ds", days, hours, minutes, seconds)
-                } else {
-                    String.format("%dd %02dh %02dm", days, hours, minutes)
-                }
-            }
-            hours > 0 -> {
-                if (includeSeconds) {
-                    String.format("%02dh %02dm %02ds", hours, minutes, seconds)
-                } else {
-                    String.format("%02dh %02dm", hours, minutes)
-                }
-            }
-            minutes > 0 -> {
-                if (includeSeconds) {
-                    String.format("%02dm %02ds", minutes, seconds)
-                } else {
-                    String.format("%dm", minutes)
-                }
-            }
-            else -> String.format("%ds", seconds)
+        return buildString {
+            appendCountdown(isExpired, days, hours, minutes, seconds, includeSeconds)
         }
     }
     
@@ -91,4 +69,55 @@ data class CountdownTime(
             )
         }
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Appends a countdown in the "1d 02h 03m 04s" format without going through
+ * String.format, so callers can reuse a single buffer on the tick hot path.
+ */
+internal fun StringBuilder.appendCountdown(
+    isExpired: Boolean,
+    days: Long,
+    hours: Int,
+    minutes: Int,
+    seconds: Int,
+    includeSeconds: Boolean
+): StringBuilder {
+    when {
+        isExpired -> append("Expired")
+        days > 0 -> {
+            append(days).append("d ")
+            appendTwoDigits(hours).append("h ")
+            appendTwoDigits(minutes).append('m')
+            if (includeSeconds) {
+                append(' ')
+                appendTwoDigits(seconds).append('s')
+            }
+        }
+        hours > 0 -> {
+            appendTwoDigits(hours).append("h ")
+            appendTwoDigits(minutes).append('m')
+            if (includeSeconds) {
+                append(' ')
+                appendTwoDigits(seconds).append('s')
+            }
+        }
+        minutes > 0 -> {
+            if (includeSeconds) {
+                appendTwoDigits(minutes).append("m ")
+                appendTwoDigits(seconds).append('s')
+            } else {
+                append(minutes).append('m')
+            }
+        }
+        else -> append(seconds).append('s')
+    }
+    return this
+}
+
+private fun StringBuilder.appendTwoDigits(value: Int): StringBuilder {
+    if (value in 0..9) {
+        append('0')
+    }
+    return append(value)
+}
@@ -0,0 +1,36 @@
+package com.countjoy.domain.model
+
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+/**
+ * A recurring event: its master event, whose target is the first
+ * occurrence, and the rule it repeats by.
+ */
+data class RecurringSeries(
+    val event: CountdownEvent,
+    val rule: RecurrenceRule
+)
+
+/**
+ * One occurrence of a recurring event, as listed by calendar, agenda,
+ * widget and analytics code. Computed from the series, never stored.
+ *
+ * @property event Master event of the series, with the occurrence's own
+ * title and description if it was changed
+ * @property dateTime When this occurrence is due
+ * @property originalDate Date the rule puts it on; with the master's id, it
+ * identifies the occurrence even after a move
+ * @property isModified Whether it was changed on its own
+ */
+data class EventOccurrence(
+    val event: CountdownEvent,
+    val dateTime: LocalDateTime,
+    val originalDate: LocalDate = dateTime.toLocalDate(),
+    val isModified: Boolean = false
+) {
+    /**
+     * The occurrence as an event counting down to it, keeping the master's id
+     */
+    fun toEvent(): CountdownEvent = event.copy(targetEpochMillis = dateTime.toEpochMillis())
+}
@@ -7,7 +7,7 @@ data class Milestone(
     val id: String = UUID.randomUUID().toString(),
     val eventId: String,
     val type: MilestoneType,
-    val value: Float, // Percentage (0-100) or days
+    val value: Float, // Percentage (0-100), days or hours
     val title: String,
     val message: String,
     val isNotificationEnabled: Boolean = true,
@@ -16,9 +16,18 @@ data class Milestone(
     val celebrationEffect: CelebrationEffect = CelebrationEffect.CONFETTI
 )
 
+/**
+ * An unachieved milestone together with the event it tracks
+ */
+data class PendingMilestone(
+    val milestone: Milestone,
+    val event: CountdownEvent
+)
+
 enum class MilestoneType {
     PERCENTAGE_BASED,
     TIME_BASED,
+    HOUR_BASED,
     CUSTOM
 }
 
@@ -97,6 +106,39 @@ object MilestoneTemplates {
             message = "Just 1 day left!"
         )
     )
+    
+    val hourTemplates = listOf(
+        MilestoneTemplate(
+            type = MilestoneType.HOUR_BASED,
+            value = 24f,
+            title = "24 Hours Remaining!",
+            message = "One day to go"
+        ),
+        MilestoneTemplate(
+            type = MilestoneType.HOUR_BASED,
+            value = 12f,
+            title = "12 Hours to Go!",
+            message = "Half a day to go"
+        ),
+        MilestoneTemplate(
+            type = MilestoneType.HOUR_BASED,
+            value = 6f,
+            title = "6 Hours Left!",
+            message = "Almost here"
+        ),
+        MilestoneTemplate(
+            type = MilestoneType.HOUR_BASED,
+            value = 3f,
+            title = "3 Hour Warning!",
+            message = "Get ready"
+        ),
+        MilestoneTemplate(
+            type = MilestoneType.HOUR_BASED,
+            value = 1f,
+            title = "Final Hour!",
+            message = "Starts in 1 hour"
+        )
+    )
 }
 
 data class MilestoneTemplate(
@@ -0,0 +1,57 @@
+package com.countjoy.domain.model
+
+/**
+ * Allocation-free countdown representation for the tick hot path.
+ *
+ * Inlined to a single Long holding the remaining whole seconds; every time unit
+ * is derived arithmetically, so computing a countdown for each event on every
+ * tick does not allocate.
+ *
+ * @property totalSeconds Total number of seconds remaining, 0 when expired
+ */
+@JvmInline
+value class PackedCountdownTime(val totalSeconds: Long) {
+    
+    val isExpired: Boolean
+        get() = totalSeconds <= 0
+    
+    val days: Long
+        get() = if (isExpired) 0 else totalSeconds / 86400
+    
+    val hours: Int
+        get() = if (isExpired) 0 else ((totalSeconds % 86400) / 3600).toInt()
+    
+    val minutes: Int
+        get() = if (isExpired) 0 else ((totalSeconds % 3600) / 60).toInt()
+    
+    val seconds: Int
+        get() = if (isExpired) 0 else (totalSeconds % 60).toInt()
+    
+    /**
+     * Appends the same text as [CountdownTime.toFormattedString] to a caller-owned buffer
+     * @param out Buffer to append to, typically cleared and reused on every tick
+     * @param includeSeconds Whether to include seconds in the format
+     * @return The given buffer
+     */
+    fun formatTo(out: StringBuilder, includeSeconds: Boolean = true): StringBuilder {
+        return out.appendCountdown(isExpired, days, hours, minutes, seconds, includeSeconds)
+    }
+    
+    /**
+     * Expands into the regular domain model, e.g. for UI state
+     */
+    fun toCountdownTime(): CountdownTime = CountdownTime.fromSeconds(totalSeconds)
+    
+    companion object {
+        /**
+         * Computes the countdown between two epoch-millis instants
+         * @param targetEpochMillis Target instant
+         * @param nowEpochMillis Current instant, read once per tick
+         * @return Remaining time, expired if the target is not in the future
+         */
+        fun between(targetEpochMillis: Long, nowEpochMillis: Long): PackedCountdownTime {
+            val remainingMillis = targetEpochMillis - nowEpochMillis
+            return PackedCountdownTime(if (remainingMillis > 0) remainingMillis / 1000 else 0)
+        }
+    }
+}
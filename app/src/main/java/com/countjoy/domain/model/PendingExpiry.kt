@@ -0,0 +1,12 @@
+package com.countjoy.domain.model
+
+/**
+ * An active event whose expiry notification has not been delivered yet
+ *
+ * @property event The event
+ * @property targetEpochMillis Target instant as stored, which identifies this expiry
+ */
+data class PendingExpiry(
+    val event: CountdownEvent,
+    val targetEpochMillis: Long
+)
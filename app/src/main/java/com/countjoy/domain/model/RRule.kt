@@ -0,0 +1,133 @@
+package com.countjoy.domain.model
+
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.format.DateTimeFormatter
+
+/**
+ * Recurrence rule in the RFC 5545 RRULE subset CountJoy understands: FREQ,
+ * INTERVAL, BYDAY (with ordinals for monthly and yearly rules), BYMONTHDAY,
+ * BYMONTH, COUNT and UNTIL. Weeks start on Monday.
+ *
+ * Parts the rule leaves out, such as the day of a monthly rule, default to the
+ * series start when the rule is expanded by a [RecurrenceSet].
+ *
+ * @property frequency Period the rule repeats in
+ * @property interval Every how many periods the rule repeats
+ * @property byDay Weekdays, an ordinal picking e.g. the 2nd or last one
+ * @property byMonthDay Days of the month, negative ones counted from its end
+ * @property byMonth Months of the year, 1 to 12
+ * @property count Number of occurrences, the series start included
+ * @property until Last day an occurrence may fall on
+ */
+data class RRule(
+    val frequency: Frequency,
+    val interval: Int = 1,
+    val byDay: List<WeekdayNum> = emptyList(),
+    val byMonthDay: List<Int> = emptyList(),
+    val byMonth: List<Int> = emptyList(),
+    val count: Int? = null,
+    val until: LocalDate? = null
+) {
+
+    init {
+        require(interval >= 1) { "INTERVAL must be positive: $interval" }
+        require(count == null || count >= 0) { "COUNT must not be negative: $count" }
+        require(count == null || until == null) { "COUNT and UNTIL are exclusive" }
+        require(byMonthDay.all { it != 0 && it in -31..31 }) { "BYMONTHDAY out of range: $byMonthDay" }
+        require(byMonth.all { it in 1..12 }) { "BYMONTH out of range: $byMonth" }
+        require(byDay.all { it.nth in -53..53 }) { "BYDAY ordinal out of range: $byDay" }
+        if (frequency == Frequency.DAILY || frequency == Frequency.WEEKLY) {
+            require(byDay.all { it.nth == 0 }) { "BYDAY ordinals need a MONTHLY or YEARLY rule" }
+        }
+        require(frequency != Frequency.WEEKLY || byMonthDay.isEmpty()) { "BYMONTHDAY does not apply to WEEKLY rules" }
+    }
+
+    enum class Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY,
+        YEARLY
+    }
+
+    /**
+     * A BYDAY entry: every [dayOfWeek] of the period when [nth] is 0, else
+     * the nth one, counted from the end when negative.
+     */
+    data class WeekdayNum(val nth: Int, val dayOfWeek: DayOfWeek) {
+        override fun toString(): String {
+            val code = DAY_CODES[dayOfWeek.ordinal]
+            return if (nth == 0) code else "$nth$code"
+        }
+    }
+
+    /**
+     * Formats the rule as an RRULE value, e.g. "FREQ=MONTHLY;BYDAY=2TU;COUNT=10"
+     */
+    override fun toString(): String = buildString {
+        append("FREQ=").append(frequency.name)
+        if (interval != 1) append(";INTERVAL=").append(interval)
+        if (byDay.isNotEmpty()) append(";BYDAY=").append(byDay.joinToString(","))
+        if (byMonthDay.isNotEmpty()) append(";BYMONTHDAY=").append(byMonthDay.joinToString(","))
+        if (byMonth.isNotEmpty()) append(";BYMONTH=").append(byMonth.joinToString(","))
+        count?.let { append(";COUNT=").append(it) }
+        until?.let { append(";UNTIL=").append(it.format(UNTIL_FORMATTER)) }
+    }
+
+    companion object {
+        private val DAY_CODES = listOf("MO", "TU", "WE", "TH", "FR", "SA", "SU")
+        private val UNTIL_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE
+        private val SUPPORTED_PARTS = setOf("FREQ", "INTERVAL", "BYDAY", "BYMONTHDAY", "BYMONTH", "COUNT", "UNTIL", "WKST")
+        private val BYDAY_PATTERN = Regex("([+-]?\\d{1,2})?(MO|TU|WE|TH|FR|SA|SU)")
+
+        /**
+         * Parses an RRULE value, with or without the "RRULE:" prefix. An
+         * UNTIL date-time is cut to its date.
+         * @throws IllegalArgumentException on a malformed or unsupported rule
+         */
+        fun parse(text: String): RRule {
+            val parts = text.trim().removePrefix("RRULE:").split(';')
+                .filter { it.isNotBlank() }
+                .associate { part ->
+                    val key = part.substringBefore('=', "")
+                    require(key.isNotEmpty()) { "Malformed RRULE part: $part" }
+                    key.uppercase() to part.substringAfter('=')
+                }
+
+            val unsupported = parts.keys - SUPPORTED_PARTS
+            require(unsupported.isEmpty()) { "Unsupported RRULE parts: $unsupported" }
+            require(parts["WKST"]?.equals("MO", ignoreCase = true) ?: true) { "Only WKST=MO is supported" }
+
+            val frequency = parts["FREQ"]?.let { value ->
+                Frequency.values().firstOrNull { it.name == value.uppercase() }
+                    ?: throw IllegalArgumentException("Unsupported FREQ: $value")
+            } ?: throw IllegalArgumentException("RRULE has no FREQ")
+
+            return RRule(
+                frequency = frequency,
+                interval = parts["INTERVAL"]?.let(::parseInt) ?: 1,
+                byDay = parts["BYDAY"]?.split(',')?.map(::parseWeekdayNum) ?: emptyList(),
+                byMonthDay = parts["BYMONTHDAY"]?.split(',')?.map(::parseInt) ?: emptyList(),
+                byMonth = parts["BYMONTH"]?.split(',')?.map(::parseInt) ?: emptyList(),
+                count = parts["COUNT"]?.let(::parseInt),
+                until = parts["UNTIL"]?.let { value ->
+                    runCatching { LocalDate.parse(value.take(8), UNTIL_FORMATTER) }
+                        .getOrElse { throw IllegalArgumentException("Malformed UNTIL: $value") }
+                }
+            )
+        }
+
+        private fun parseInt(value: String): Int {
+            return value.trim().removePrefix("+").toIntOrNull()
+                ?: throw IllegalArgumentException("Not a number: $value")
+        }
+
+        private fun parseWeekdayNum(value: String): WeekdayNum {
+            val match = BYDAY_PATTERN.matchEntire(value.trim().uppercase())
+                ?: throw IllegalArgumentException("Malformed BYDAY: $value")
+            val nth = match.groupValues[1].takeIf { it.isNotEmpty() }?.let(::parseInt) ?: 0
+            require(match.groupValues[1].isEmpty() || nth != 0) { "BYDAY ordinal must not be 0: $value" }
+            return WeekdayNum(nth, DayOfWeek.of(DAY_CODES.indexOf(match.groupValues[2]) + 1))
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.countjoy.domain.model
+
+import java.time.LocalDate
+
+/**
+ * The dates a recurring series is stored with once advanced
+ *
+ * @property ruleId Rule of the series
+ * @property eventId Master event of the series
+ * @property lastDate When the series was advanced
+ * @property nextDate Date of its next occurrence, null once it has ended
+ * @property nextOccurrenceEpochMillis Instant of its next occurrence, the
+ * master event's target once it has ended
+ */
+data class SeriesAdvance(
+    val ruleId: String,
+    val eventId: Long,
+    val lastDate: LocalDate,
+    val nextDate: LocalDate?,
+    val nextOccurrenceEpochMillis: Long
+)
+
+/**
+ * What catching up on the recurring series that fell due did
+ *
+ * @property advanced Series moved on to an occurrence still to come
+ * @property ended Series whose last occurrence has passed
+ * @property skippedOccurrences Occurrences that passed while a series waited
+ * to be advanced, by rule id; series that passed none are left out
+ * @property skippedRules Rules left as they were, their event deleted or inactive
+ */
+data class RecurrenceCatchUpReport(
+    val advanced: Int = 0,
+    val ended: Int = 0,
+    val skippedOccurrences: Map<String, Long> = emptyMap(),
+    val skippedRules: List<String> = emptyList()
+)
@@ -3,7 +3,9 @@ package com.countjoy.domain.model
 import java.time.DayOfWeek
 import java.time.LocalDate
 import java.time.LocalDateTime
+import java.util.PriorityQueue
 import java.util.UUID
+import javax.inject.Inject
 
 data class RecurrenceRule(
     val id: String = UUID.randomUUID().toString(),
@@ -17,9 +19,31 @@ data class RecurrenceRule(
     val endType: RecurrenceEndType = RecurrenceEndType.NEVER,
     val endDate: LocalDate? = null,
     val occurrenceCount: Int? = null,
-    val exceptions: List<LocalDate> = emptyList(),
+    val exceptions: List<LocalDate> = emptyList(), // Cancelled occurrences
     val skipWeekends: Boolean = false,
-    val skipHolidays: Boolean = false
+    val skipHolidays: Boolean = false,
+    val occurrenceExceptions: List<RecurrenceException> = emptyList(), // Single occurrences changed
+    val lastOccurrenceDate: LocalDate? = null, // When the series was last advanced
+    val nextOccurrenceDate: LocalDate? = null // Date of the occurrence the series is next due on
+)
+
+/**
+ * A single occurrence of a recurring series that differs from what its rule
+ * and master event say. Occurrences are computed, not stored; only these
+ * differences are.
+ *
+ * @property originalDate Date the rule puts the occurrence on, which identifies it
+ * @property isCancelled Whether the occurrence is removed from the series
+ * @property targetDateTime Date and time it was moved to, null to keep the rule's
+ * @property title Its own title, null to keep the master's
+ * @property description Its own description, null to keep the master's
+ */
+data class RecurrenceException(
+    val originalDate: LocalDate,
+    val isCancelled: Boolean = false,
+    val targetDateTime: LocalDateTime? = null,
+    val title: String? = null,
+    val description: String? = null
 )
 
 enum class RecurrencePattern {
@@ -117,97 +141,250 @@ data class RecurrenceTemplate(
     val rule: RecurrenceRule
 )
 
-class RecurrenceCalculator {
+/**
+ * Expresses the rule as an RRULE for a series starting on [start].
+ *
+ * Skipping weekends narrows BYDAY to Monday to Friday; a weekly or monthly
+ * by day rule left with no weekday at all gets COUNT=0, as it never occurs.
+ */
+fun RecurrenceRule.toRRule(start: LocalDate): RRule {
+    val workdays = DayOfWeek.values().filter { it != DayOfWeek.SATURDAY && it != DayOfWeek.SUNDAY }
+    val workdaysLimit = if (skipWeekends) workdays.map { RRule.WeekdayNum(0, it) } else emptyList()
+    val count = if (endType == RecurrenceEndType.AFTER_OCCURRENCES) occurrenceCount else null
+    val until = if (endType == RecurrenceEndType.BY_DATE) endDate else null
+
+    fun weekdays(): List<DayOfWeek> {
+        val days = daysOfWeek.ifEmpty { setOf(start.dayOfWeek) }.sorted()
+        return if (skipWeekends) days.filter { it in workdays } else days
+    }
+
+    return when (pattern) {
+        RecurrencePattern.DAILY -> RRule(
+            frequency = RRule.Frequency.DAILY,
+            interval = interval,
+            byDay = workdaysLimit,
+            count = count,
+            until = until
+        )
+        RecurrencePattern.WEEKLY -> weekdays().let { days ->
+            RRule(
+                frequency = RRule.Frequency.WEEKLY,
+                interval = interval,
+                byDay = days.map { RRule.WeekdayNum(0, it) },
+                count = if (days.isEmpty()) 0 else count,
+                until = if (days.isEmpty()) null else until
+            )
+        }
+        RecurrencePattern.MONTHLY_BY_DATE -> RRule(
+            frequency = RRule.Frequency.MONTHLY,
+            interval = interval,
+            byDay = workdaysLimit,
+            byMonthDay = listOf(dayOfMonth ?: start.dayOfMonth),
+            count = count,
+            until = until
+        )
+        RecurrencePattern.MONTHLY_BY_DAY -> weekdays().let { days ->
+            // The week of the month the series starts in, unless given
+            val nth = weekOfMonth ?: ((start.dayOfMonth - 1) / 7 + 1)
+            RRule(
+                frequency = RRule.Frequency.MONTHLY,
+                interval = interval,
+                byDay = days.map { RRule.WeekdayNum(nth, it) },
+                count = if (days.isEmpty()) 0 else count,
+                until = if (days.isEmpty()) null else until
+            )
+        }
+        RecurrencePattern.YEARLY -> if (weekOfMonth != null && daysOfWeek.isNotEmpty()) {
+            weekdays().let { days ->
+                RRule(
+                    frequency = RRule.Frequency.YEARLY,
+                    interval = interval,
+                    byDay = days.map { RRule.WeekdayNum(weekOfMonth, it) },
+                    byMonth = listOf(monthOfYear ?: start.monthValue),
+                    count = if (days.isEmpty()) 0 else count,
+                    until = if (days.isEmpty()) null else until
+                )
+            }
+        } else {
+            RRule(
+                frequency = RRule.Frequency.YEARLY,
+                interval = interval,
+                byDay = workdaysLimit,
+                byMonthDay = listOf(dayOfMonth ?: start.dayOfMonth),
+                byMonth = listOf(monthOfYear ?: start.monthValue),
+                count = count,
+                until = until
+            )
+        }
+    }
+}
+
+/**
+ * Computes occurrences of a [RecurrenceRule] through its [RecurrenceSet], so a
+ * lookup costs the same however long ago the series started.
+ */
+class RecurrenceCalculator @Inject constructor() {
     
+    /**
+     * Gets up to [count] occurrences after [startDate], for the series that
+     * starts on it. As in RFC 5545, the start is the first of the rule's
+     * occurrences, and exceptions still count towards its end.
+     */
     fun calculateNextOccurrences(
         rule: RecurrenceRule,
         startDate: LocalDateTime,
         count: Int = 10
     ): List<LocalDateTime> {
-        val occurrences = mutableListOf<LocalDateTime>()
-        var currentDate = startDate
-        var occurrenceCount = 0
-        
-        while (occurrences.size < count && !shouldStop(rule, currentDate.toLocalDate(), occurrenceCount)) {
-            currentDate = calculateNextOccurrence(rule, currentDate)
-            
-            if (!isException(rule, currentDate.toLocalDate()) && 
-                !shouldSkip(rule, currentDate.toLocalDate())) {
-                occurrences.add(currentDate)
-                occurrenceCount++
-            }
-        }
-        
-        return occurrences
+        return occurrences(rule, startDate)
+            .filter { it > startDate }
+            .take(count)
+            .toList()
     }
     
-    private fun calculateNextOccurrence(
+    /**
+     * Lazily lists the occurrences at or after [from] of the series that
+     * started on [seriesStart]
+     */
+    fun occurrences(
         rule: RecurrenceRule,
-        currentDate: LocalDateTime
-    ): LocalDateTime {
-        return when (rule.pattern) {
-            RecurrencePattern.DAILY -> currentDate.plusDays(rule.interval.toLong())
-            RecurrencePattern.WEEKLY -> calculateNextWeeklyOccurrence(rule, currentDate)
-            RecurrencePattern.MONTHLY_BY_DATE -> currentDate.plusMonths(rule.interval.toLong())
-            RecurrencePattern.MONTHLY_BY_DAY -> calculateNextMonthlyByDayOccurrence(rule, currentDate)
-            RecurrencePattern.YEARLY -> currentDate.plusYears(rule.interval.toLong())
-        }
+        seriesStart: LocalDateTime,
+        from: LocalDateTime = seriesStart
+    ): Sequence<LocalDateTime> {
+        return recurrenceSet(rule, seriesStart).occurrences(from)
     }
     
-    private fun calculateNextWeeklyOccurrence(
-        rule: RecurrenceRule,
-        currentDate: LocalDateTime
-    ): LocalDateTime {
-        if (rule.daysOfWeek.isEmpty()) {
-            return currentDate.plusWeeks(rule.interval.toLong())
+    /**
+     * Lazily lists the occurrences of every series in [from, to), in order.
+     *
+     * A k-way merge: each series contributes only its next occurrence to a
+     * priority queue at a time, so memory stays proportional to the number
+     * of series and nothing past what the caller takes is computed.
+     * Simultaneous occurrences come in the order of [series].
+     */
+    fun expandWindow(
+        series: Collection<RecurringSeries>,
+        from: LocalDateTime,
+        to: LocalDateTime
+    ): Sequence<EventOccurrence> = sequence {
+        val heads = PriorityQueue(
+            maxOf(series.size, 1),
+            compareBy<SeriesHead>({ it.occurrence.dateTime }, { it.order })
+        )
+        var order = 0
+        for (recurring in series) {
+            for (occurrences in seriesOccurrences(recurring, from, to)) {
+                if (occurrences.hasNext()) {
+                    heads.add(SeriesHead(order++, occurrences, occurrences.next()))
+                }
+            }
         }
-        
-        var nextDate = currentDate.plusDays(1)
-        while (true) {
-            if (nextDate.dayOfWeek in rule.daysOfWeek) {
-                return nextDate
+        while (heads.isNotEmpty()) {
+            val head = heads.poll()
+            yield(head.occurrence)
+            if (head.occurrences.hasNext()) {
+                head.occurrence = head.occurrences.next()
+                heads.add(head)
             }
-            nextDate = nextDate.plusDays(1)
         }
     }
     
-    private fun calculateNextMonthlyByDayOccurrence(
-        rule: RecurrenceRule,
-        currentDate: LocalDateTime
-    ): LocalDateTime {
-        // Implementation for "2nd Tuesday" type recurrence
-        // This is simplified - full implementation would be more complex
-        return currentDate.plusMonths(rule.interval.toLong())
+    /**
+     * Gets the occurrence of a series a countdown should show at [now]: the
+     * first one at or after it, null once the series has ended
+     */
+    fun currentInstance(series: RecurringSeries, now: LocalDateTime): EventOccurrence? {
+        return expandWindow(listOf(series), now, LocalDateTime.MAX).firstOrNull()
     }
     
-    private fun shouldStop(
-        rule: RecurrenceRule,
-        currentDate: LocalDate,
-        occurrenceCount: Int
-    ): Boolean {
-        return when (rule.endType) {
-            RecurrenceEndType.NEVER -> false
-            RecurrenceEndType.BY_DATE -> rule.endDate?.let { currentDate.isAfter(it) } ?: false
-            RecurrenceEndType.AFTER_OCCURRENCES -> 
-                rule.occurrenceCount?.let { occurrenceCount >= it } ?: false
-        }
+    /**
+     * Counts the occurrences of a series in [from, to) without listing them,
+     * so the cost does not grow with the length of the range
+     */
+    fun countBetween(series: RecurringSeries, from: LocalDateTime, to: LocalDateTime): Long {
+        val regular = recurrenceSet(series.rule, series.event.targetDateTime, keepChanged = false).countBetween(from, to)
+        return regular + changedOccurrences(series, from, to).size
     }
     
-    private fun isException(rule: RecurrenceRule, date: LocalDate): Boolean {
-        return date in rule.exceptions
+    /**
+     * The sorted streams of one series in [from, to): the occurrences its
+     * rule generates, less cancelled and changed ones, then each changed
+     * occurrence on its own, as a move may take it out of order.
+     */
+    private fun seriesOccurrences(
+        series: RecurringSeries,
+        from: LocalDateTime,
+        to: LocalDateTime
+    ): List<Iterator<EventOccurrence>> {
+        val master = series.event
+        val regular = recurrenceSet(series.rule, master.targetDateTime, keepChanged = false)
+            .occurrencesBetween(from, to)
+            .map { EventOccurrence(master, it) }
+            .iterator()
+        return listOf(regular) + changedOccurrences(series, from, to).map { listOf(it).iterator() }
     }
     
-    private fun shouldSkip(rule: RecurrenceRule, date: LocalDate): Boolean {
-        if (rule.skipWeekends) {
-            val dayOfWeek = date.dayOfWeek
-            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
-                return true
-            }
-        }
+    /**
+     * The changed occurrences of a series that fall in [from, to) after
+     * their change
+     */
+    private fun changedOccurrences(
+        series: RecurringSeries,
+        from: LocalDateTime,
+        to: LocalDateTime
+    ): List<EventOccurrence> {
+        val master = series.event
+        val changed = series.rule.occurrenceExceptions.filter { !it.isCancelled }
+        if (changed.isEmpty()) return emptyList()
+        val ruleSet = recurrenceSet(series.rule, master.targetDateTime, keepChanged = true)
         
-        // Holiday checking would require a holiday calendar service
-        // if (rule.skipHolidays && isHoliday(date)) return true
-        
-        return false
+        return changed.mapNotNull { exception ->
+            val ruleDateTime = exception.originalDate.atTime(master.targetDateTime.toLocalTime())
+            // Changes to dates the rule no longer generates are dropped
+            if (ruleSet.firstAtOrAfter(ruleDateTime) != ruleDateTime) return@mapNotNull null
+            val dateTime = exception.targetDateTime ?: ruleDateTime
+            if (dateTime < from || dateTime >= to) return@mapNotNull null
+            val event = master.copy(
+                title = exception.title ?: master.title,
+                description = exception.description ?: master.description
+            )
+            EventOccurrence(event, dateTime, exception.originalDate, isModified = true)
+        }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Gets the first occurrence strictly after [after] of the series that
+     * started on [seriesStart], without stepping through earlier ones
+     */
+    fun nextOccurrenceAfter(
+        rule: RecurrenceRule,
+        seriesStart: LocalDateTime,
+        after: LocalDateTime
+    ): LocalDateTime? {
+        return recurrenceSet(rule, seriesStart).firstAfter(after)
+    }
+    
+    /**
+     * Gets the recurrence set of a series; cancelled and changed occurrences
+     * are left out of it, as changed ones are listed on their own
+     */
+    fun recurrenceSet(rule: RecurrenceRule, seriesStart: LocalDateTime): RecurrenceSet {
+        return recurrenceSet(rule, seriesStart, keepChanged = false)
+    }
+    
+    private fun recurrenceSet(rule: RecurrenceRule, seriesStart: LocalDateTime, keepChanged: Boolean): RecurrenceSet {
+        val removed = rule.occurrenceExceptions
+            .filter { it.isCancelled || !keepChanged }
+            .map { it.originalDate }
+        return RecurrenceSet(
+            start = seriesStart,
+            rule = rule.toRRule(seriesStart.toLocalDate()),
+            exceptionDates = rule.exceptions + removed
+        )
+    }
+    
+    private class SeriesHead(
+        val order: Int,
+        val occurrences: Iterator<EventOccurrence>,
+        var occurrence: EventOccurrence
+    )
+}
@@ -0,0 +1,439 @@
+package com.countjoy.domain.model
+
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.Year
+import java.time.YearMonth
+
+/**
+ * The occurrences of an [RRule] from a series start, less its EXDATEs.
+ *
+ * Occurrences fall on the start's time of day, from the start's date on.
+ * Lookups never walk the series from its start: the period (day, week, month
+ * or year) holding a date is found by arithmetic on epoch days, the next
+ * period the interval lands on is expanded on its own, and COUNT is resolved
+ * from per-period occurrence counts, which repeat with the 400 year Gregorian
+ * cycle. Finding the first occurrence at or after any instant so costs a few
+ * period expansions however far it lies from the start, and a COUNT-ed end a
+ * binary search over one cycle, computed once.
+ *
+ * As in RFC 5545, EXDATEs remove occurrences but still count towards COUNT.
+ * BYDAY ordinals count within the month, except for a yearly rule without
+ * BYMONTH and BYMONTHDAY, where they count within the year.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+class RecurrenceSet(
+    val start: LocalDateTime,
+    val rule: RRule,
+    exceptionDates: Collection<LocalDate> = emptyList()
+) {
+
+    private val startDay = start.toLocalDate().toEpochDay()
+    private val startTime: LocalTime = start.toLocalTime()
+    private val exceptionDays = exceptionDates.map { it.toEpochDay() }.distinct().sorted().toLongArray()
+
+    private val frequency = rule.frequency
+    private val interval = rule.interval.toLong()
+
+    // The rule with the parts it leaves out taken from the start
+    private val byDay: List<RRule.WeekdayNum> = rule.byDay.ifEmpty {
+        if (frequency == RRule.Frequency.WEEKLY) listOf(RRule.WeekdayNum(0, start.dayOfWeek)) else emptyList()
+    }
+    private val byMonthDay: List<Int> = rule.byMonthDay.ifEmpty {
+        val takesStartDay = frequency == RRule.Frequency.MONTHLY || frequency == RRule.Frequency.YEARLY
+        if (takesStartDay && rule.byDay.isEmpty()) listOf(start.dayOfMonth) else emptyList()
+    }
+    private val byMonth: List<Int> = rule.byMonth.ifEmpty {
+        val takesStartMonth = frequency == RRule.Frequency.YEARLY && rule.byDay.isEmpty() && rule.byMonthDay.isEmpty()
+        if (takesStartMonth) listOf(start.monthValue) else emptyList()
+    }
+    private val yearScopedByDay = frequency == RRule.Frequency.YEARLY && byMonth.isEmpty() && byMonthDay.isEmpty()
+
+    /** Bit n set for weekday n (Monday 0) among the BYDAY entries without an ordinal. */
+    private val weekdayMask = byDay.filter { it.nth == 0 }.fold(0) { mask, day -> mask or (1 shl day.dayOfWeek.ordinal) }
+
+    /** Bit n set for month n + 1, or every month when BYMONTH is absent. */
+    private val monthMask = if (byMonth.isEmpty()) ALL_MONTHS else byMonth.fold(0) { mask, month -> mask or (1 shl (month - 1)) }
+
+    private val firstPeriod = periodOf(startDay)
+
+    /** Most days one period expands to. */
+    private val maxPerPeriod = when (frequency) {
+        RRule.Frequency.DAILY -> 1
+        RRule.Frequency.WEEKLY -> 7
+        RRule.Frequency.MONTHLY -> 31
+        RRule.Frequency.YEARLY -> 366
+    }
+
+    /**
+     * Number of interval steps after which per-period counts repeat: the
+     * steps needed to cover whole Gregorian cycles, or the week when a daily
+     * rule only filters weekdays.
+     */
+    private val cycle: Long = run {
+        val calendarPeriods = when (frequency) {
+            RRule.Frequency.DAILY -> if (byMonth.isEmpty() && byMonthDay.isEmpty()) 7L else DAYS_PER_CYCLE
+            RRule.Frequency.WEEKLY -> if (byMonth.isEmpty()) 1L else DAYS_PER_CYCLE / 7
+            RRule.Frequency.MONTHLY -> 12L * YEARS_PER_CYCLE
+            RRule.Frequency.YEARLY -> YEARS_PER_CYCLE
+        }
+        calendarPeriods / gcd(interval, calendarPeriods)
+    }
+
+    /** Rule occurrences in the start's period falling before the start. */
+    private val skippedAtStart: Int by lazy {
+        val days = LongArray(maxPerPeriod)
+        val size = expand(firstPeriod, days)
+        (0 until size).count { days[it] < startDay }
+    }
+
+    /** prefixCounts[i] is the number of rule occurrences in the first i steps of a cycle. */
+    private val prefixCounts: IntArray by lazy {
+        val days = LongArray(maxPerPeriod)
+        val counts = IntArray(cycle.toInt() + 1)
+        for (step in 0 until cycle.toInt()) {
+            counts[step + 1] = counts[step] + expand(firstPeriod + step * interval, days)
+        }
+        counts
+    }
+
+    private val untilDay = rule.until?.toEpochDay() ?: Long.MAX_VALUE
+
+    /** Epoch day of the last day an occurrence may fall on, from UNTIL and COUNT. */
+    private val lastDay: Long by lazy {
+        val countDay = rule.count?.let { count ->
+            if (count == 0) startDay - 1 else nthRuleDay(count - 1L) ?: Long.MAX_VALUE
+        } ?: Long.MAX_VALUE
+        minOf(untilDay, countDay)
+    }
+
+    /**
+     * Whether the series has a last occurrence, through COUNT or UNTIL
+     */
+    val isFinite: Boolean
+        get() = rule.count != null || rule.until != null
+
+    /**
+     * Gets the first occurrence at or after [instant], null if the series ends before it
+     */
+    fun firstAtOrAfter(instant: LocalDateTime): LocalDateTime? = firstOnOrAfter(dayOf(instant, inclusive = true))
+
+    /**
+     * Gets the first occurrence strictly after [instant], null if the series ends before it
+     */
+    fun firstAfter(instant: LocalDateTime): LocalDateTime? = firstOnOrAfter(dayOf(instant, inclusive = false))
+
+    /**
+     * Lazily lists the occurrences at or after [from], in order. Each period
+     * is expanded once, when iteration reaches it, so taking the first few
+     * occurrences of an endless series costs only those few.
+     */
+    fun occurrences(from: LocalDateTime = start): Sequence<LocalDateTime> {
+        val fromDay = dayOf(from, inclusive = true)
+        return Sequence { OccurrenceIterator(fromDay) }
+    }
+
+    /**
+     * Lazily lists the occurrences from [from] up to, not including, [to], in order
+     */
+    fun occurrencesBetween(from: LocalDateTime, to: LocalDateTime): Sequence<LocalDateTime> {
+        return occurrences(from).takeWhile { it < to }
+    }
+
+    /**
+     * Counts the occurrences from [from] up to, not including, [to] without
+     * listing them. Rule days come from the per-period counts, as for COUNT,
+     * and only the EXDATEs in between are looked at one by one, so the cost
+     * does not grow with the length of the range.
+     */
+    fun countBetween(from: LocalDateTime, to: LocalDateTime): Long {
+        val fromDay = maxOf(dayOf(from, inclusive = true), startDay)
+        val toDay = minOf(dayOf(to, inclusive = true), lastDay.coerceAtMost(Long.MAX_VALUE - 1) + 1)
+        if (toDay <= fromDay) return 0
+        val exceptions = (exceptionIndex(fromDay) until exceptionIndex(toDay)).count { isRuleDay(exceptionDays[it]) }
+        return ruleDaysBefore(toDay) - ruleDaysBefore(fromDay) - exceptions
+    }
+
+    /** The first day an occurrence at or after (or strictly after) [instant] can fall on. */
+    private fun dayOf(instant: LocalDateTime, inclusive: Boolean): Long {
+        val day = instant.toLocalDate().toEpochDay()
+        val time = instant.toLocalTime()
+        return if (time > startTime || !inclusive && time == startTime) day + 1 else day
+    }
+
+    private fun firstOnOrAfter(day: Long): LocalDateTime? {
+        val occurrences = OccurrenceIterator(day)
+        return if (occurrences.hasNext()) occurrences.next() else null
+    }
+
+    /**
+     * Walks the occurrences from a day on, one period the interval lands on
+     * at a time. Starts with the period holding that day, found by
+     * arithmetic rather than by walking from the start; a rule that leaves
+     * every period of a whole cycle empty never occurs.
+     */
+    private inner class OccurrenceIterator(day: Long) : AbstractIterator<LocalDateTime>() {
+        private val days = LongArray(maxPerPeriod)
+        private val fromDay = maxOf(day, startDay)
+        private var step: Long
+        private var size: Int
+        private var index = 0
+
+        init {
+            val period = periodOf(fromDay)
+            step = if (period <= firstPeriod) 0L else ceilDiv(period - firstPeriod, interval)
+            size = expand(firstPeriod + step * interval, days)
+        }
+
+        override fun computeNext() {
+            while (true) {
+                if (index == size && !expandNextStep()) return done()
+                val day = days[index++]
+                if (day < fromDay) continue
+                if (day > lastDay) return done()
+                if (exceptionDays.binarySearch(day) < 0) return setNext(LocalDate.ofEpochDay(day).atTime(startTime))
+            }
+        }
+
+        /** Moves to the next step with any days, false once past UNTIL or a whole cycle came up empty. */
+        private fun expandNextStep(): Boolean {
+            var emptySteps = 0L
+            do {
+                step++
+                val period = firstPeriod + step * interval
+                if (periodFirstDay(period) > untilDay) return false
+                size = expand(period, days)
+                index = 0
+            } while (size == 0 && ++emptySteps <= cycle)
+            return size > 0
+        }
+    }
+
+    /**
+     * Gets the day of the [n]th (0-based) day the rule generates from the
+     * start, EXDATEs included, or null if it generates fewer.
+     */
+    private fun nthRuleDay(n: Long): Long? {
+        val perCycle = prefixCounts[cycle.toInt()]
+        if (perCycle == 0) return null
+        // Counted from the start of its period, which may hold earlier days
+        val index = n + skippedAtStart
+        val cycles = index / perCycle
+        val remainder = (index % perCycle).toInt()
+        // Last step whose prefix count does not exceed the remainder
+        var low = 0
+        var high = cycle.toInt() - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (prefixCounts[mid] <= remainder) low = mid else high = mid - 1
+        }
+        val days = LongArray(maxPerPeriod)
+        expand(firstPeriod + (cycles * cycle + low) * interval, days)
+        return days[remainder - prefixCounts[low]]
+    }
+
+    /**
+     * Counts the days the rule generates from the start up to, not
+     * including, [day], EXDATEs included: whole steps from the per-period
+     * counts, then the step holding [day] if the interval lands on it.
+     */
+    private fun ruleDaysBefore(day: Long): Long {
+        if (day <= startDay) return 0
+        val period = periodOf(day)
+        // The first step whose period does not end before day
+        val step = ceilDiv(period - firstPeriod, interval)
+        var count = step / cycle * prefixCounts[cycle.toInt()] + prefixCounts[(step % cycle).toInt()] - skippedAtStart
+        if (firstPeriod + step * interval == period) {
+            val days = LongArray(maxPerPeriod)
+            val size = expand(period, days)
+            count += (0 until size).count { days[it] < day }
+        }
+        return count
+    }
+
+    /** Whether the rule generates [day], EXDATEs and the series end aside. */
+    private fun isRuleDay(day: Long): Boolean {
+        val period = periodOf(day)
+        if (period < firstPeriod || (period - firstPeriod) % interval != 0L) return false
+        val days = LongArray(maxPerPeriod)
+        val size = expand(period, days)
+        return (0 until size).any { days[it] == day }
+    }
+
+    /** Index of the first EXDATE on or after [day]. */
+    private fun exceptionIndex(day: Long): Int {
+        val index = exceptionDays.binarySearch(day)
+        return if (index >= 0) index else -index - 1
+    }
+
+    private fun periodOf(epochDay: Long): Long {
+        return when (frequency) {
+            RRule.Frequency.DAILY -> epochDay
+            RRule.Frequency.WEEKLY -> Math.floorDiv(epochDay + MONDAY_OFFSET, 7L)
+            RRule.Frequency.MONTHLY -> LocalDate.ofEpochDay(epochDay).let { it.year * 12L + it.monthValue - 1 }
+            RRule.Frequency.YEARLY -> LocalDate.ofEpochDay(epochDay).year.toLong()
+        }
+    }
+
+    private fun periodFirstDay(period: Long): Long {
+        return when (frequency) {
+            RRule.Frequency.DAILY -> period
+            RRule.Frequency.WEEKLY -> period * 7 - MONDAY_OFFSET
+            RRule.Frequency.MONTHLY -> monthFirstDay(Math.floorDiv(period, 12L).toInt(), Math.floorMod(period, 12L).toInt() + 1)
+            RRule.Frequency.YEARLY -> monthFirstDay(period.toInt(), 1)
+        }
+    }
+
+    /**
+     * Writes the days the rule generates in [period], ascending, into [out]
+     * and returns how many there are.
+     */
+    private fun expand(period: Long, out: LongArray): Int {
+        return when (frequency) {
+            RRule.Frequency.DAILY -> if (matchesDay(period)) {
+                out[0] = period
+                1
+            } else {
+                0
+            }
+            RRule.Frequency.WEEKLY -> {
+                val weekStart = period * 7 - MONDAY_OFFSET
+                var size = 0
+                for (weekday in 0 until 7) {
+                    val day = weekStart + weekday
+                    if (weekdayMask and (1 shl weekday) != 0 && (byMonth.isEmpty() || monthOf(day) in byMonth)) {
+                        out[size++] = day
+                    }
+                }
+                size
+            }
+            RRule.Frequency.MONTHLY -> {
+                val month = Math.floorMod(period, 12L).toInt() + 1
+                if (monthMask and (1 shl (month - 1)) == 0) 0 else expandMonth(Math.floorDiv(period, 12L).toInt(), month, out, 0)
+            }
+            RRule.Frequency.YEARLY -> {
+                val year = period.toInt()
+                if (yearScopedByDay) {
+                    expandYear(year, out)
+                } else {
+                    var size = 0
+                    for (month in 1..12) {
+                        if (monthMask and (1 shl (month - 1)) != 0) size = expandMonth(year, month, out, size)
+                    }
+                    size
+                }
+            }
+        }
+    }
+
+    /** BYMONTH, BYMONTHDAY and BYDAY as filters on a single day, for daily rules. */
+    private fun matchesDay(epochDay: Long): Boolean {
+        if (weekdayMask != 0 && weekdayMask and (1 shl weekdayOf(epochDay)) == 0) return false
+        if (byMonth.isEmpty() && byMonthDay.isEmpty()) return true
+        val date = LocalDate.ofEpochDay(epochDay)
+        if (byMonth.isNotEmpty() && date.monthValue !in byMonth) return false
+        if (byMonthDay.isNotEmpty()) {
+            val length = date.lengthOfMonth()
+            return byMonthDay.any { it == date.dayOfMonth || it < 0 && length + it + 1 == date.dayOfMonth }
+        }
+        return true
+    }
+
+    private fun expandMonth(year: Int, month: Int, out: LongArray, offset: Int): Int {
+        val firstDay = monthFirstDay(year, month)
+        val length = YearMonth.of(year, month).lengthOfMonth()
+        var mask = if (byMonthDay.isEmpty()) {
+            byDayMask(firstDay, length)
+        } else {
+            // BYDAY narrows the BYMONTHDAY days down
+            var days = 0
+            for (monthDay in byMonthDay) {
+                val day = if (monthDay > 0) monthDay else length + monthDay + 1
+                if (day in 1..length) days = days or (1 shl (day - 1))
+            }
+            if (byDay.isEmpty()) days else days and byDayMask(firstDay, length)
+        }
+        var size = offset
+        while (mask != 0) {
+            out[size++] = firstDay + Integer.numberOfTrailingZeros(mask)
+            mask = mask and (mask - 1)
+        }
+        return size
+    }
+
+    /**
+     * Gets the days of a month of [length] days picked by BYDAY, bit n for
+     * day n + 1.
+     */
+    private fun byDayMask(firstDay: Long, length: Int): Int {
+        var mask = 0
+        for (day in byDay) {
+            forEachByDayOffset(day, firstDay, length) { mask = mask or (1 shl it) }
+        }
+        return mask
+    }
+
+    /** BYDAY over the whole year, for a yearly rule without BYMONTH and BYMONTHDAY. */
+    private fun expandYear(year: Int, out: LongArray): Int {
+        val firstDay = monthFirstDay(year, 1)
+        val length = Year.of(year).length()
+        val picked = BooleanArray(length)
+        for (day in byDay) {
+            forEachByDayOffset(day, firstDay, length) { picked[it] = true }
+        }
+        var size = 0
+        for (offset in 0 until length) {
+            if (picked[offset]) out[size++] = firstDay + offset
+        }
+        return size
+    }
+
+    /**
+     * Calls [action] with the offset from [firstDay] of every day a BYDAY
+     * entry picks in a span of [length] days.
+     */
+    private inline fun forEachByDayOffset(day: RRule.WeekdayNum, firstDay: Long, length: Int, action: (Int) -> Unit) {
+        val first = Math.floorMod(day.dayOfWeek.ordinal - weekdayOf(firstDay), 7)
+        when {
+            day.nth == 0 -> {
+                var offset = first
+                while (offset < length) {
+                    action(offset)
+                    offset += 7
+                }
+            }
+            day.nth > 0 -> {
+                val offset = first + 7 * (day.nth - 1)
+                if (offset < length) action(offset)
+            }
+            else -> {
+                val last = first + 7 * ((length - 1 - first) / 7)
+                val offset = last + 7 * (day.nth + 1)
+                if (offset >= 0) action(offset)
+            }
+        }
+    }
+
+    private companion object {
+        const val ALL_MONTHS = (1 shl 12) - 1
+
+        /** Days from the Monday before the epoch to 1970-01-01, a Thursday. */
+        const val MONDAY_OFFSET = 3L
+
+        const val YEARS_PER_CYCLE = 400L
+        const val DAYS_PER_CYCLE = 146_097L
+
+        /** Monday 0 to Sunday 6. */
+        fun weekdayOf(epochDay: Long): Int = Math.floorMod(epochDay + MONDAY_OFFSET, 7L).toInt()
+
+        fun monthOf(epochDay: Long): Int = LocalDate.ofEpochDay(epochDay).monthValue
+
+        fun monthFirstDay(year: Int, month: Int): Long = LocalDate.of(year, month, 1).toEpochDay()
+
+        fun ceilDiv(dividend: Long, divisor: Long): Long = -Math.floorDiv(-dividend, divisor)
+
+        tailrec fun gcd(a: Long, b: Long): Long = if (b == 0L) a else gcd(b, a % b)
+    }
+}
@@ -0,0 +1,31 @@
+package com.countjoy.domain.repository
+
+import com.countjoy.domain.model.EventAggregates
+
+/**
+ * Analytics counts, answered from a per-day rollup the database keeps up to
+ * date on every write instead of from the events themselves.
+ */
+interface AnalyticsRepository {
+
+    /**
+     * Aggregates the events created on the whole local days from the day of
+     * [createdAfter] on, with the first [topCount] upcoming and recently
+     * completed of them. Every count and list starts at the start of that
+     * day, not at [createdAfter] itself, since the rollup holds whole days.
+     * Rebuilds the rollup first if it is stale.
+     */
+    suspend fun getEventAggregates(createdAfter: Long, nowMillis: Long, topCount: Int): EventAggregates
+
+    /**
+     * Whether the rollup has not been built yet or was built for another
+     * timezone than the current one.
+     */
+    fun isRollupStale(): Boolean
+
+    /**
+     * Rebuilds the rollup from the events and milestones if it is stale.
+     * @return Whether a rebuild ran
+     */
+    suspend fun rebuildRollupIfStale(): Boolean
+}
@@ -0,0 +1,32 @@
+package com.countjoy.domain.repository
+
+/**
+ * Hit and miss counters of the in-memory event cache behind [EventRepository].
+ */
+interface EventCacheMetrics {
+
+    /**
+     * Counters since the process started.
+     *
+     * @property hits lookups served from memory without touching the database
+     * @property revalidations lookups served from memory after a version check,
+     * because the events table had changed since the event was cached
+     * @property misses lookups that had to load the event
+     */
+    data class Snapshot(
+        val hits: Long,
+        val revalidations: Long,
+        val misses: Long,
+        val size: Int,
+        val maxSize: Int
+    ) {
+        val lookups: Long get() = hits + revalidations + misses
+
+        /**
+         * Share of lookups served without loading the event, 0 if there were none.
+         */
+        val hitRate: Float get() = if (lookups == 0L) 0f else (hits + revalidations).toFloat() / lookups
+    }
+
+    fun snapshot(): Snapshot
+}
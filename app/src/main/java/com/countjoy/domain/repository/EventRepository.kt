@@ -1,5 +1,6 @@
 package com.countjoy.domain.repository
 
+import androidx.paging.PagingData
 import com.countjoy.domain.model.CountdownEvent
 import kotlinx.coroutines.flow.Flow
 
@@ -32,6 +33,12 @@ interface EventRepository {
      */
     suspend fun getEvent(id: String): CountdownEvent?
     
+    /**
+     * Reads every event created after [createdAfter], [chunkSize] rows at a
+     * time, without holding them all in memory or caching them
+     */
+    suspend fun scanEvents(createdAfter: Long, chunkSize: Int, consume: (CountdownEvent) -> Unit)
+    
     /**
      * Create a new event
      */
@@ -82,6 +89,18 @@ interface EventRepository {
         sortBy: String = "date"
     ): Flow<List<CountdownEvent>>
     
+    /**
+     * Search and filter active events page by page, with filtering and
+     * ordering done by the database
+     */
+    fun getPagedEvents(
+        searchQuery: String? = null,
+        category: String? = null,
+        priority: Int? = null,
+        showPast: Boolean = false,
+        sortBy: String = "date"
+    ): Flow<PagingData<CountdownEvent>>
+    
     /**
      * Get events in date range
      */
@@ -0,0 +1,16 @@
+package com.countjoy.domain.repository
+
+import com.countjoy.domain.model.PendingExpiry
+import kotlinx.coroutines.flow.Flow
+
+interface ExpiryRepository {
+    fun observeNextPendingExpiry(): Flow<PendingExpiry?>
+    suspend fun getNextPendingExpiry(): PendingExpiry?
+    suspend fun getPendingExpiry(eventId: Long): PendingExpiry?
+    
+    /**
+     * Records the expiry of [eventId] at [targetEpochMillis] as delivered.
+     * @return true if it was recorded now, false if it had been delivered before
+     */
+    suspend fun markExpiryDelivered(eventId: Long, targetEpochMillis: Long): Boolean
+}
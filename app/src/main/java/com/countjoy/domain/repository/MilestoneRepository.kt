@@ -1,6 +1,7 @@
 package com.countjoy.domain.repository
 
 import com.countjoy.domain.model.Milestone
+import com.countjoy.domain.model.PendingMilestone
 import kotlinx.coroutines.flow.Flow
 
 interface MilestoneRepository {
@@ -11,6 +12,9 @@ interface MilestoneRepository {
     suspend fun insertMilestones(milestones: List<Milestone>)
     suspend fun updateMilestone(milestone: Milestone)
     suspend fun markMilestoneAsAchieved(milestoneId: String, achievedAt: Long)
+    suspend fun getPendingMilestones(eventId: String? = null, minPriority: Int = 0): List<PendingMilestone>
+    fun observePendingMilestones(): Flow<List<PendingMilestone>>
+    suspend fun markMilestonesAsAchieved(milestoneIds: List<String>, achievedAt: Long)
     suspend fun deleteMilestone(milestone: Milestone)
     suspend fun deleteMilestonesByEventId(eventId: String)
     fun getAchievementHistory(): Flow<List<Milestone>>
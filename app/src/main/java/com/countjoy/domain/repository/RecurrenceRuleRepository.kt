@@ -1,6 +1,8 @@
 package com.countjoy.domain.repository
 
+import com.countjoy.domain.model.RecurrenceException
 import com.countjoy.domain.model.RecurrenceRule
+import com.countjoy.domain.model.SeriesAdvance
 import kotlinx.coroutines.flow.Flow
 import java.time.LocalDate
 
@@ -8,10 +10,14 @@ interface RecurrenceRuleRepository {
     suspend fun getRecurrenceRuleByEventId(eventId: String): RecurrenceRule?
     fun observeRecurrenceRuleByEventId(eventId: String): Flow<RecurrenceRule?>
     suspend fun getAllRecurrenceRules(): List<RecurrenceRule>
+    fun observeAllRecurrenceRules(): Flow<List<RecurrenceRule>>
     suspend fun getRecurrenceRulesDueBy(date: LocalDate): List<RecurrenceRule>
     suspend fun insertRecurrenceRule(rule: RecurrenceRule)
     suspend fun updateRecurrenceRule(rule: RecurrenceRule)
-    suspend fun updateOccurrenceDates(ruleId: String, lastDate: LocalDate, nextDate: LocalDate)
+    suspend fun advanceSeries(advances: List<SeriesAdvance>)
     suspend fun deleteRecurrenceRule(rule: RecurrenceRule)
     suspend fun deleteRecurrenceRuleByEventId(eventId: String)
+    suspend fun saveOccurrenceException(ruleId: String, exception: RecurrenceException)
+    suspend fun deleteOccurrenceException(ruleId: String, originalDate: LocalDate)
+    suspend fun deleteOccurrenceExceptionsFrom(ruleId: String, fromDate: LocalDate)
 }
\ No newline at end of file
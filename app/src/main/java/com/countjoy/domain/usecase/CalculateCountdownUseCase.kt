@@ -2,6 +2,7 @@ package com.countjoy.domain.usecase
 
 import com.countjoy.domain.model.CountdownEvent
 import com.countjoy.domain.model.CountdownTime
+import com.countjoy.domain.model.PackedCountdownTime
 import java.time.Duration
 import java.time.LocalDateTime
 import java.time.ZoneId
@@ -35,6 +36,19 @@ class CalculateCountdownUseCase @Inject constructor() {
         return CountdownTime.fromSeconds(totalSeconds)
     }
     
+    /**
+     * Calculates the countdown time for a given event against an epoch-millis clock
+     * @param event The countdown event
+     * @param nowEpochMillis Current time, e.g. System.currentTimeMillis()
+     * @return CountdownTime representing the time remaining
+     */
+    operator fun invoke(
+        event: CountdownEvent,
+        nowEpochMillis: Long
+    ): CountdownTime {
+        return PackedCountdownTime.between(event.targetEpochMillis, nowEpochMillis).toCountdownTime()
+    }
+    
     /**
      * Calculates countdown considering timezone changes
      * @param event The countdown event
@@ -68,9 +82,9 @@ class CalculateCountdownUseCase @Inject constructor() {
     fun calculateMultiple(
         events: List<CountdownEvent>
     ): Map<Long, CountdownTime> {
-        val currentTime = LocalDateTime.now()
+        val nowEpochMillis = System.currentTimeMillis()
         return events.associate { event ->
-            event.id to invoke(event, currentTime)
+            event.id to invoke(event, nowEpochMillis)
         }
     }
     
@@ -80,9 +94,9 @@ class CalculateCountdownUseCase @Inject constructor() {
      * @return The next upcoming event or null if all are expired
      */
     fun getNextUpcoming(events: List<CountdownEvent>): CountdownEvent? {
-        val currentTime = LocalDateTime.now()
+        val nowEpochMillis = System.currentTimeMillis()
         return events
-            .filter { it.targetDateTime.isAfter(currentTime) && it.isActive }
-            .minByOrNull { it.targetDateTime }
+            .filter { it.targetEpochMillis > nowEpochMillis && it.isActive }
+            .minByOrNull { it.targetEpochMillis }
     }
 }
\ No newline at end of file
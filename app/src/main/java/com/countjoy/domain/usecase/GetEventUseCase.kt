@@ -1,28 +1,39 @@
 package com.countjoy.domain.usecase
 
 import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.RecurrenceCalculator
+import com.countjoy.domain.model.RecurringSeries
 import com.countjoy.domain.repository.EventRepository
+import com.countjoy.domain.repository.RecurrenceRuleRepository
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.transformLatest
+import java.time.Duration
+import java.time.LocalDateTime
 import javax.inject.Inject
 
 /**
  * Use case for retrieving countdown events
  */
 class GetEventUseCase @Inject constructor(
-    private val repository: EventRepository
+    private val repository: EventRepository,
+    private val recurrenceRuleRepository: RecurrenceRuleRepository,
+    private val recurrenceCalculator: RecurrenceCalculator
 ) {
     /**
-     * Get all events
+     * Get all events, recurring ones at their current occurrence
      */
     fun getAllEvents(): Flow<List<CountdownEvent>> {
-        return repository.getAllEvents()
+        return withCurrentOccurrences(repository.getAllEvents())
     }
     
     /**
-     * Get only active events
+     * Get only active events, recurring ones at their current occurrence
      */
     fun getActiveEvents(): Flow<List<CountdownEvent>> {
-        return repository.getActiveEvents()
+        return withCurrentOccurrences(repository.getActiveEvents())
     }
     
     /**
@@ -31,4 +42,33 @@ class GetEventUseCase @Inject constructor(
     suspend fun getEventById(id: Long): CountdownEvent? {
         return repository.getEventById(id)
     }
-}
\ No newline at end of file
+    
+    /**
+     * Moves each recurring event to the occurrence it counts down to now.
+     * Only the master event, holding the first occurrence, is stored; the
+     * others are computed, and the list is emitted again each time one
+     * passes and the next takes its place. Ended series keep their master.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun withCurrentOccurrences(events: Flow<List<CountdownEvent>>): Flow<List<CountdownEvent>> {
+        return combine(events, recurrenceRuleRepository.observeAllRecurrenceRules()) { list, rules ->
+            list to rules.associateBy { it.eventId }
+        }.transformLatest { (list, rulesByEvent) ->
+            while (true) {
+                val now = LocalDateTime.now()
+                var nextRollover: LocalDateTime? = null
+                val resolved = list.map { event ->
+                    val rule = rulesByEvent[event.id.toString()] ?: return@map event
+                    val occurrence = recurrenceCalculator.currentInstance(RecurringSeries(event, rule), now)
+                        ?: return@map event
+                    nextRollover = minOf(nextRollover ?: occurrence.dateTime, occurrence.dateTime)
+                    occurrence.toEvent()
+                }
+                emit(resolved)
+                
+                val rollover = nextRollover ?: break
+                delay(Duration.between(now, rollover).toMillis() + 1)
+            }
+        }
+    }
+}
@@ -2,67 +2,70 @@ package com.countjoy.domain.usecase.milestone
 
 import com.countjoy.domain.model.CountdownEvent
 import com.countjoy.domain.model.Milestone
-import com.countjoy.domain.model.MilestoneType
-import com.countjoy.domain.repository.EventRepository
+import com.countjoy.domain.model.PendingMilestone
 import com.countjoy.domain.repository.MilestoneRepository
-import java.time.Duration
 import java.time.Instant
 import javax.inject.Inject
 
+/**
+ * Evaluates unachieved milestones in batches: pending milestones and their
+ * events are loaded with one query, evaluated in memory, and every
+ * achievement is committed with one bulk update, so the cost of a check does
+ * not grow with the number of events.
+ */
 class CheckMilestonesUseCase @Inject constructor(
-    private val milestoneRepository: MilestoneRepository,
-    private val eventRepository: EventRepository
+    private val milestoneRepository: MilestoneRepository
 ) {
-    
+
     data class AchievedMilestone(
         val milestone: Milestone,
         val event: CountdownEvent
     )
-    
+
+    /**
+     * Checks the milestones of a single event.
+     */
     suspend operator fun invoke(eventId: String): List<AchievedMilestone> {
-        val event = eventRepository.getEvent(eventId) ?: return emptyList()
-        val unachievedMilestones = milestoneRepository.getUnachievedMilestones(eventId)
-        val achievedMilestones = mutableListOf<AchievedMilestone>()
-        
+        val achieved = reached(milestoneRepository.getPendingMilestones(eventId = eventId))
+        markAchieved(achieved)
+        return achieved
+    }
+
+    /**
+     * Finds the reached milestones of every event at or above [minPriority],
+     * without recording them, so they can be notified before
+     * [markAchieved] commits them.
+     */
+    suspend fun findReached(minPriority: Int = 0): List<AchievedMilestone> {
+        return reached(milestoneRepository.getPendingMilestones(minPriority = minPriority))
+    }
+
+    /**
+     * Records [achieved] milestones, as found by [findReached], with one bulk update.
+     */
+    suspend fun markAchieved(achieved: List<AchievedMilestone>) {
+        achieved.groupBy { it.milestone.achievedAt }.forEach { (achievedAt, group) ->
+            milestoneRepository.markMilestonesAsAchieved(
+                group.map { it.milestone.id },
+                achievedAt?.toEpochMilli() ?: System.currentTimeMillis()
+            )
+        }
+    }
+
+    private fun reached(pending: List<PendingMilestone>): List<AchievedMilestone> {
         val now = Instant.now()
-        val totalDuration = Duration.between(event.createdAt, event.targetDateTime)
-        val elapsedDuration = Duration.between(event.createdAt, now)
-        
-        for (milestone in unachievedMilestones) {
-            val isAchieved = when (milestone.type) {
-                MilestoneType.PERCENTAGE_BASED -> {
-                    val progressPercentage = if (totalDuration.isZero) {
-                        100f
-                    } else {
-                        (elapsedDuration.toMillis().toFloat() / totalDuration.toMillis().toFloat()) * 100f
-                    }
-                    progressPercentage >= milestone.value
-                }
-                MilestoneType.TIME_BASED -> {
-                    val remainingDays = Duration.between(now, event.targetDateTime).toDays()
-                    remainingDays <= milestone.value.toLong() && remainingDays >= 0
-                }
-                MilestoneType.CUSTOM -> {
-                    // Custom milestones need specific logic based on the event
-                    // For now, we'll skip custom milestones
-                    false
-                }
-            }
-            
-            if (isAchieved) {
-                milestoneRepository.markMilestoneAsAchieved(milestone.id, now.toEpochMilli())
-                achievedMilestones.add(
-                    AchievedMilestone(
-                        milestone = milestone.copy(
-                            isAchieved = true,
-                            achievedAt = now
-                        ),
-                        event = event
-                    )
+        val nowMillis = now.toEpochMilli()
+
+        return pending
+            .filter { MilestoneTriggers.isReached(it.milestone, it.event, nowMillis) }
+            .map { (milestone, event) ->
+                AchievedMilestone(
+                    milestone = milestone.copy(
+                        isAchieved = true,
+                        achievedAt = now
+                    ),
+                    event = event
                 )
             }
-        }
-        
-        return achievedMilestones
     }
-}
\ No newline at end of file
+}
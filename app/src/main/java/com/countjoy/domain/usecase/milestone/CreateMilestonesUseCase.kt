@@ -14,6 +14,7 @@ class CreateMilestonesUseCase @Inject constructor(
         eventId: String,
         usePercentageTemplates: Boolean = true,
         useTimeTemplates: Boolean = false,
+        useHourTemplates: Boolean = false,
         customMilestones: List<Milestone> = emptyList()
     ) {
         val milestones = mutableListOf<Milestone>()
@@ -50,6 +51,22 @@ class CreateMilestonesUseCase @Inject constructor(
             )
         }
         
+        // Add hour-based templates
+        if (useHourTemplates) {
+            milestones.addAll(
+                MilestoneTemplates.hourTemplates.map { template ->
+                    Milestone(
+                        id = UUID.randomUUID().toString(),
+                        eventId = eventId,
+                        type = template.type,
+                        value = template.value,
+                        title = template.title,
+                        message = template.message
+                    )
+                }
+            )
+        }
+        
         // Add custom milestones
         milestones.addAll(customMilestones)
         
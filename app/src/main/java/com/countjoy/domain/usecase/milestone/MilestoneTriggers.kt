@@ -0,0 +1,84 @@
+package com.countjoy.domain.usecase.milestone
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.Milestone
+import com.countjoy.domain.model.MilestoneType
+import com.countjoy.domain.model.PendingMilestone
+import kotlin.math.ceil
+
+/**
+ * Computes the instant at which a milestone is reached, so milestones can be
+ * scheduled up front instead of being discovered by polling.
+ */
+object MilestoneTriggers {
+
+    private const val MILLIS_PER_HOUR = 3_600_000L
+    private const val MILLIS_PER_DAY = 86_400_000L
+
+    /**
+     * Gets the first instant, in epoch millis, at which [milestone] is reached
+     * for [event], or null if it can never be reached.
+     */
+    fun triggerAtMillis(milestone: Milestone, event: CountdownEvent): Long? {
+        return when (milestone.type) {
+            MilestoneType.PERCENTAGE_BASED -> {
+                val totalMillis = event.targetEpochMillis - event.createdAtEpochMillis
+                if (totalMillis <= 0L) {
+                    // Nothing to count down; treat the event as complete
+                    event.createdAtEpochMillis
+                } else {
+                    event.createdAtEpochMillis + ceil(totalMillis * milestone.value.toDouble() / 100.0).toLong()
+                }
+            }
+            MilestoneType.TIME_BASED -> {
+                // Whole days remaining drop to the milestone value one millisecond past this point
+                event.targetEpochMillis - (milestone.value.toLong() + 1) * MILLIS_PER_DAY + 1
+            }
+            MilestoneType.HOUR_BASED -> {
+                event.targetEpochMillis - (milestone.value * MILLIS_PER_HOUR).toLong()
+            }
+            MilestoneType.CUSTOM -> null
+        }
+    }
+
+    /**
+     * Gets the instant after which [milestone] can no longer be reached, or
+     * null if it stays reachable. Time based milestones lapse one day after
+     * the target, once the remaining days turn negative; hour based ones lapse
+     * at the target.
+     */
+    fun expiresAtMillis(milestone: Milestone, event: CountdownEvent): Long? {
+        return when (milestone.type) {
+            MilestoneType.TIME_BASED -> event.targetEpochMillis + MILLIS_PER_DAY
+            MilestoneType.HOUR_BASED -> event.targetEpochMillis
+            else -> null
+        }
+    }
+
+    /**
+     * Whether [milestone] has been reached for [event] at [nowMillis].
+     */
+    fun isReached(milestone: Milestone, event: CountdownEvent, nowMillis: Long): Boolean {
+        val triggerAt = triggerAtMillis(milestone, event) ?: return false
+        val expiresAt = expiresAtMillis(milestone, event)
+        return nowMillis >= triggerAt && (expiresAt == null || nowMillis < expiresAt)
+    }
+
+    /**
+     * Gets the earliest trigger among [pending] milestones that can still be
+     * reached at or after [nowMillis]. Triggers already in the past are
+     * returned as-is so they fire immediately.
+     */
+    fun nextTriggerMillis(pending: List<PendingMilestone>, nowMillis: Long): Long? {
+        var next: Long? = null
+        for ((milestone, event) in pending) {
+            val triggerAt = triggerAtMillis(milestone, event) ?: continue
+            val expiresAt = expiresAtMillis(milestone, event)
+            if (expiresAt != null && nowMillis >= expiresAt) continue
+            if (next == null || triggerAt < next) {
+                next = triggerAt
+            }
+        }
+        return next
+    }
+}
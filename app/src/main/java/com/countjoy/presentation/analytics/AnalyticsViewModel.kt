@@ -59,12 +59,13 @@ class AnalyticsViewModel @Inject constructor(
             _isLoading.value = true
             
             try {
-                val timeRange = _selectedTimeRange.value
+                // Built from database aggregates, one row per bucket
+                val report = analyticsService.getDashboard(_selectedTimeRange.value)
                 
-                _statistics.value = analyticsService.getEventStatistics(timeRange)
-                _categoryDistribution.value = analyticsService.getCategoryDistribution(timeRange)
-                _milestoneStats.value = analyticsService.getMilestoneStatistics()
-                _insights.value = analyticsService.getProductivityInsights(timeRange)
+                _statistics.value = report.statistics
+                _categoryDistribution.value = report.categoryDistribution
+                _milestoneStats.value = report.milestoneStats
+                _insights.value = report.productivityInsights
             } catch (e: Exception) {
                 e.printStackTrace()
                 // Handle error
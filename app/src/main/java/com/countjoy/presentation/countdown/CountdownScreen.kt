@@ -17,8 +17,11 @@ import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import com.countjoy.R
 import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.CountdownTime
+import kotlinx.coroutines.flow.StateFlow
 import java.time.format.DateTimeFormatter
 
 @OptIn(ExperimentalMaterial3Api::class)
@@ -29,7 +32,8 @@ fun CountdownScreen(
     onNavigateToEventList: () -> Unit = {},
     viewModel: CountdownViewModel = hiltViewModel()
 ) {
-    val uiState by viewModel.uiState.collectAsState()
+    // Stops collecting, and so ticking, while the screen is not visible
+    val uiState by viewModel.uiState.collectAsStateWithLifecycle()
     
     Scaffold(
         topBar = {
@@ -84,7 +88,7 @@ fun CountdownScreen(
                 }
                 else -> {
                     EventList(
-                        events = uiState.events.map { it.event },
+                        events = uiState.events,
                         onEventClick = { event ->
                             onNavigateToEventInput(event.id)
                         }
@@ -127,7 +131,7 @@ fun EmptyState(
 
 @Composable
 fun EventList(
-    events: List<CountdownEvent>,
+    events: List<CountdownEventWithTime>,
     onEventClick: (CountdownEvent) -> Unit
 ) {
     LazyColumn(
@@ -135,10 +139,11 @@ fun EventList(
         contentPadding = PaddingValues(16.dp),
         verticalArrangement = Arrangement.spacedBy(8.dp)
     ) {
-        items(events) { event ->
+        items(events, key = { it.event.id }) { item ->
             EventCard(
-                event = event,
-                onClick = { onEventClick(event) }
+                event = item.event,
+                countdownTime = item.countdownTime,
+                onClick = { onEventClick(item.event) }
             )
         }
     }
@@ -148,10 +153,12 @@ fun EventList(
 @Composable
 fun EventCard(
     event: CountdownEvent,
+    countdownTime: StateFlow<CountdownTime>,
     onClick: () -> Unit
 ) {
-    val detailedTime = event.getDetailedTimeRemaining()
-    val isExpired = event.hasExpired()
+    // Collected per row so a tick only recomposes the cards whose digits changed
+    val detailedTime by countdownTime.collectAsState()
+    val isExpired = detailedTime.isExpired
     
     Card(
         onClick = onClick,
@@ -221,7 +228,10 @@ fun EventCard(
                                 TimeUnit(value = detailedTime.days.toInt(), label = stringResource(id = R.string.days))
                                 TimeUnit(value = detailedTime.hours, label = stringResource(id = R.string.hours))
                                 TimeUnit(value = detailedTime.minutes, label = stringResource(id = R.string.minutes))
-                                TimeUnit(value = detailedTime.seconds, label = "Sec")
+                                // Rows more than an hour away refresh once a minute, so a seconds digit would stand still
+                                if (IncrementalCountdownEngine.displayResolution(detailedTime.totalSeconds * 1_000) == CountdownUpdateManager.SECOND) {
+                                    TimeUnit(value = detailedTime.seconds, label = "Sec")
+                                }
                             }
                         }
                     }
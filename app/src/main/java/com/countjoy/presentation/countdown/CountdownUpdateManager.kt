@@ -1,101 +1,192 @@
 package com.countjoy.presentation.countdown
 
 import kotlinx.coroutines.*
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
 import kotlinx.coroutines.flow.*
 import java.time.Duration
-import java.time.LocalDateTime
+import java.util.concurrent.atomic.AtomicLong
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
- * Manages real-time countdown updates for the UI.
- * Optimizes update frequency based on time remaining to save battery.
+ * Source of wall-clock time for the tick engine.
+ * Swapped for a virtual clock in tests.
+ */
+fun interface TickClock {
+    fun currentTimeMillis(): Long
+}
+
+/**
+ * Process-wide tick engine shared by every countdown consumer.
+ *
+ * Subscribers register the granularity they need through [ticks]. A single
+ * coroutine sleeps until the nearest wall-clock boundary among all subscribers
+ * and then notifies every subscriber whose boundary has been reached, so the
+ * device wakes once per boundary no matter how many screens, services or
+ * widgets are listening.
  */
 @Singleton
-class CountdownUpdateManager @Inject constructor() {
-    
-    private val _updateTrigger = MutableSharedFlow<Unit>()
-    val updateTrigger: SharedFlow<Unit> = _updateTrigger.asSharedFlow()
-    
-    private var updateJob: Job? = null
-    private val coroutineScope = CoroutineScope(Dispatchers.Default + SupervisorJob())
-    
-    /**
-     * Starts the countdown update timer.
-     * Updates are triggered based on the shortest time remaining among active events.
-     */
-    fun startUpdates(events: List<EventWithCountdown>) {
-        stopUpdates()
-        
-        if (events.isEmpty()) return
-        
-        updateJob = coroutineScope.launch {
-            while (isActive) {
-                // Find the event with the least time remaining
-                val shortestTimeRemaining = events
-                    .filter { !it.event.hasExpired() }
-                    .minOfOrNull { event ->
-                        Duration.between(LocalDateTime.now(), event.event.targetDateTime)
-                    }
-                
-                if (shortestTimeRemaining == null) {
-                    // All events expired
-                    break
-                }
-                
-                // Calculate update interval based on time remaining
-                val updateInterval = calculateUpdateInterval(shortestTimeRemaining)
-                
-                // Wait for the calculated interval
-                delay(updateInterval)
-                
-                // Trigger UI update
-                _updateTrigger.emit(Unit)
+class CountdownUpdateManager internal constructor(
+    private val clock: TickClock,
+    private val coroutineScope: CoroutineScope
+) {
+
+    @Inject
+    constructor() : this(
+        TickClock { System.currentTimeMillis() },
+        CoroutineScope(Dispatchers.Default + SupervisorJob())
+    )
+
+    companion object {
+        const val SECOND = 1_000L
+        const val MINUTE = 60_000L
+        const val FIVE_MINUTES = 300_000L
+        const val HOUR = 3_600_000L
+        const val SIX_HOURS = 21_600_000L
+
+        /**
+         * Calculates the optimal update interval based on time remaining.
+         * More frequent updates for imminent events, less frequent for distant events.
+         */
+        fun calculateUpdateInterval(timeRemaining: Duration): Long {
+            return when {
+                timeRemaining.toHours() < 1 -> SECOND // Update every second for last hour
+                timeRemaining.toDays() < 1 -> MINUTE // Update every minute for last day
+                timeRemaining.toDays() < 7 -> FIVE_MINUTES // Update every 5 minutes for last week
+                timeRemaining.toDays() < 30 -> HOUR // Update every hour for last month
+                else -> SIX_HOURS // Update every 6 hours for distant events
             }
         }
+
+        // Granularity of a subscriber that only wakes once
+        private const val ONCE = 0L
+
+        private fun nextBoundary(now: Long, granularity: Long): Long {
+            return (Math.floorDiv(now, granularity) + 1) * granularity
+        }
     }
-    
+
     /**
-     * Stops the countdown update timer.
+     * A subscriber to wake at [nextDue] and then every [granularity] after,
+     * or only once when [granularity] is [ONCE].
      */
-    fun stopUpdates() {
-        updateJob?.cancel()
-        updateJob = null
-    }
-    
+    private class Subscriber(
+        val granularity: Long,
+        var nextDue: Long,
+        val onTick: (Long) -> Unit
+    )
+
+    private val lock = Any()
+    private val subscribers = mutableListOf<Subscriber>()
+    private var tickJob: Job? = null
+    private val wakeups = AtomicLong()
+
     /**
-     * Calculates the optimal update interval based on time remaining.
-     * More frequent updates for imminent events, less frequent for distant events.
+     * Number of times the engine has woken up since creation.
+     * Stays proportional to elapsed boundaries, not to the number of subscribers.
      */
-    private fun calculateUpdateInterval(timeRemaining: Duration): Long {
-        return when {
-            timeRemaining.toHours() < 1 -> 1_000L // Update every second for last hour
-            timeRemaining.toDays() < 1 -> 60_000L // Update every minute for last day
-            timeRemaining.toDays() < 7 -> 300_000L // Update every 5 minutes for last week
-            timeRemaining.toDays() < 30 -> 3_600_000L // Update every hour for last month
-            else -> 21_600_000L // Update every 6 hours for distant events
-        }
+    val wakeupCount: Long
+        get() = wakeups.get()
+
+    /**
+     * Emits the current epoch millis each time a wall-clock boundary of
+     * [granularityMillis] is crossed. Collection registers the subscriber and
+     * cancellation unregisters it; slow collectors only see the latest tick.
+     */
+    fun ticks(granularityMillis: Long = SECOND): Flow<Long> {
+        require(granularityMillis > 0) { "Granularity must be positive" }
+        return callbackFlow {
+            val subscriber = Subscriber(
+                granularity = granularityMillis,
+                nextDue = nextBoundary(clock.currentTimeMillis(), granularityMillis),
+                onTick = { trySend(it) }
+            )
+            register(subscriber)
+            awaitClose { unregister(subscriber) }
+        }.buffer(Channel.CONFLATED)
     }
-    
+
     /**
-     * Lifecycle-aware start method for when app comes to foreground
+     * Emits the current epoch millis once the wall clock reaches [atMillis],
+     * then completes. For consumers whose next change is not on a wall-clock
+     * boundary; the wakeup is shared with [ticks] subscribers due by then.
      */
-    fun onResume(events: List<EventWithCountdown>) {
-        startUpdates(events)
+    fun tickAt(atMillis: Long): Flow<Long> {
+        return callbackFlow {
+            val subscriber = Subscriber(
+                granularity = ONCE,
+                nextDue = atMillis,
+                onTick = {
+                    trySend(it)
+                    channel.close()
+                }
+            )
+            register(subscriber)
+            awaitClose { unregister(subscriber) }
+        }
+    }
+
+    private fun register(subscriber: Subscriber) {
+        synchronized(lock) {
+            subscribers.add(subscriber)
+            rescheduleLocked()
+        }
     }
-    
+
+    private fun unregister(subscriber: Subscriber) {
+        synchronized(lock) {
+            subscribers.remove(subscriber)
+            rescheduleLocked()
+        }
+    }
+
     /**
-     * Lifecycle-aware stop method for when app goes to background
+     * Restarts the tick loop so it sleeps until the nearest boundary of the
+     * current subscriber set. Must be called while holding [lock].
      */
-    fun onPause() {
-        stopUpdates()
+    private fun rescheduleLocked() {
+        tickJob?.cancel()
+        tickJob = null
+        if (subscribers.isEmpty()) return
+
+        tickJob = coroutineScope.launch {
+            while (isActive) {
+                val wakeAt = synchronized(lock) {
+                    subscribers.minOfOrNull { it.nextDue }
+                } ?: break
+
+                val wait = wakeAt - clock.currentTimeMillis()
+                if (wait > 0) {
+                    delay(wait)
+                }
+
+                val now = clock.currentTimeMillis()
+                wakeups.incrementAndGet()
+
+                val due = synchronized(lock) {
+                    subscribers.filter { now >= it.nextDue }.onEach {
+                        if (it.granularity == ONCE) {
+                            subscribers.remove(it)
+                        } else {
+                            it.nextDue = nextBoundary(now, it.granularity)
+                        }
+                    }
+                }
+                due.forEach { it.onTick(now) }
+            }
+        }
     }
-    
+
     /**
-     * Clean up resources
+     * Stops ticking for all subscribers and releases the engine's scope.
      */
     fun onDestroy() {
-        stopUpdates()
+        synchronized(lock) {
+            subscribers.clear()
+            tickJob?.cancel()
+            tickJob = null
+        }
         coroutineScope.cancel()
     }
 }
@@ -106,4 +197,4 @@ class CountdownUpdateManager @Inject constructor() {
 data class EventWithCountdown(
     val event: com.countjoy.domain.model.CountdownEvent,
     val isUpdating: Boolean = true
-)
\ No newline at end of file
+)
@@ -8,6 +8,7 @@ import com.countjoy.domain.usecase.*
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.*
+import java.time.Duration
 import java.time.LocalDateTime
 import javax.inject.Inject
 
@@ -21,9 +22,14 @@ data class CountdownUiState(
     val sortOrder: SortOrder = SortOrder.NEAREST_FIRST
 )
 
+/**
+ * Event paired with its live countdown. The [countdownTime] flow is owned by
+ * [IncrementalCountdownEngine] and keeps its identity across ticks, so list
+ * diffs stay stable while individual rows update.
+ */
 data class CountdownEventWithTime(
     val event: CountdownEvent,
-    val countdownTime: CountdownTime
+    val countdownTime: StateFlow<CountdownTime>
 )
 
 enum class EventFilter {
@@ -39,20 +45,61 @@ class CountdownViewModel @Inject constructor(
     private val getEventUseCase: GetEventUseCase,
     private val deleteEventUseCase: DeleteEventUseCase,
     private val updateEventUseCase: UpdateEventUseCase,
-    private val calculateCountdownUseCase: CalculateCountdownUseCase
+    private val countdownUpdateManager: CountdownUpdateManager
 ) : ViewModel() {
     
+    companion object {
+        // Keeps ticking through configuration changes without a visible gap
+        private const val STOP_TIMEOUT_MILLIS = 5_000L
+        
+        /**
+         * Tick granularity for a list whose nearest running countdown ends at
+         * [nearestTargetMillis], from [CountdownUpdateManager.calculateUpdateInterval].
+         * Capped at a minute because no row refreshes less often; past the last
+         * hour the list wakes at each row's own change instant rather than on
+         * the wall-clock minute.
+         */
+        internal fun tickGranularity(nearestTargetMillis: Long, nowMillis: Long): Long {
+            val remaining = Duration.ofMillis((nearestTargetMillis - nowMillis).coerceAtLeast(0L))
+            return minOf(CountdownUpdateManager.calculateUpdateInterval(remaining), CountdownUpdateManager.MINUTE)
+        }
+    }
+    
     private val _uiState = MutableStateFlow(CountdownUiState())
-    val uiState: StateFlow<CountdownUiState> = _uiState.asStateFlow()
+    
+    /**
+     * UI state, ticking only while it is collected. Once the screen stops
+     * collecting, e.g. in the back stack or with the app in the background,
+     * countdowns stop after [STOP_TIMEOUT_MILLIS]; the next collector catches
+     * up immediately.
+     */
+    val uiState: StateFlow<CountdownUiState> = channelFlow {
+        launch { runCountdownTicks() }
+        _uiState.collect { send(it) }
+    }.stateIn(
+        scope = viewModelScope,
+        started = SharingStarted.WhileSubscribed(STOP_TIMEOUT_MILLIS),
+        initialValue = _uiState.value
+    )
     
     private val _uiEvent = MutableSharedFlow<CountdownUiEvent>()
     val uiEvent: SharedFlow<CountdownUiEvent> = _uiEvent.asSharedFlow()
     
-    private var countdownUpdateJob: Job? = null
+    // Rows more than an hour away are refreshed once a minute, even while the
+    // nearest countdown ticks every second
+    private val countdownEngine = IncrementalCountdownEngine()
+    
+    // Unfiltered source list; filters and sorting are derived from it
+    private var allEvents: List<CountdownEventWithTime> = emptyList()
+    
+    // Target of the nearest countdown still running, which sets the tick granularity
+    private val nearestTargetMillis = MutableStateFlow<Long?>(null)
+    
+    // Bumped whenever the tracked rows are replaced, so the tick loop re-reads their change instants
+    private val trackedGeneration = MutableStateFlow(0)
     
     init {
         loadEvents()
-        startCountdownUpdates()
     }
     
     private fun loadEvents() {
@@ -70,14 +117,10 @@ class CountdownViewModel @Inject constructor(
                         }
                     }
                     .collect { events ->
-                        val eventsWithTime = calculateCountdowns(events)
-                        val (active, expired) = eventsWithTime.partition { !it.countdownTime.isExpired }
-                        
+                        allEvents = trackCountdowns(events)
+                        rebuildLists()
                         _uiState.update {
                             it.copy(
-                                events = applyFiltersAndSort(eventsWithTime, it.selectedFilter, it.sortOrder),
-                                activeEvents = active,
-                                expiredEvents = expired,
                                 isLoading = false,
                                 error = null
                             )
@@ -94,38 +137,52 @@ class CountdownViewModel @Inject constructor(
         }
     }
     
-    private fun startCountdownUpdates() {
-        countdownUpdateJob?.cancel()
-        countdownUpdateJob = viewModelScope.launch {
-            while (isActive) {
-                delay(1000) // Update every second
-                updateCountdowns()
+    private suspend fun runCountdownTicks() {
+        combine(nearestTargetMillis, trackedGeneration) { target, _ -> target }.collectLatest { target ->
+            // Catch up at once, e.g. when returning to the foreground
+            updateCountdowns(System.currentTimeMillis())
+            if (target == null) return@collectLatest
+            
+            while (true) {
+                val granularity = tickGranularity(target, System.currentTimeMillis())
+                if (granularity == CountdownUpdateManager.SECOND) {
+                    countdownUpdateManager.ticks(granularity).collect { now -> updateCountdowns(now) }
+                } else {
+                    // Rows change on minute boundaries of their own target; waking on
+                    // the wall-clock minute would leave them up to 59 s behind
+                    val changeAt = countdownEngine.nextChangeAt() ?: return@collectLatest
+                    updateCountdowns(countdownUpdateManager.tickAt(changeAt).first())
+                }
             }
         }
     }
     
-    private suspend fun updateCountdowns() {
-        val currentState = _uiState.value
-        if (currentState.events.isNotEmpty()) {
-            val updatedEvents = calculateCountdowns(currentState.events.map { it.event })
-            val (active, expired) = updatedEvents.partition { !it.countdownTime.isExpired }
-            
-            _uiState.update {
-                it.copy(
-                    events = applyFiltersAndSort(updatedEvents, it.selectedFilter, it.sortOrder),
-                    activeEvents = active,
-                    expiredEvents = expired
-                )
+    private fun updateCountdowns(nowMillis: Long) {
+        // Only rows whose visible digits changed are touched; the lists are
+        // re-partitioned and re-sorted only when an event crosses expiry
+        if (countdownEngine.tick(nowMillis)) {
+            rebuildLists()
+        }
+    }
+    
+    private fun trackCountdowns(events: List<CountdownEvent>): List<CountdownEventWithTime> {
+        countdownEngine.setEvents(events, System.currentTimeMillis())
+        trackedGeneration.value++
+        return events.mapNotNull { event ->
+            countdownEngine.countdownFor(event.id)?.let { countdownTime ->
+                CountdownEventWithTime(event = event, countdownTime = countdownTime)
             }
         }
     }
     
-    private fun calculateCountdowns(events: List<CountdownEvent>): List<CountdownEventWithTime> {
-        val currentTime = LocalDateTime.now()
-        return events.map { event ->
-            CountdownEventWithTime(
-                event = event,
-                countdownTime = calculateCountdownUseCase(event, currentTime)
+    private fun rebuildLists() {
+        val (active, expired) = allEvents.partition { !it.countdownTime.value.isExpired }
+        nearestTargetMillis.value = active.minOfOrNull { it.event.targetEpochMillis }
+        _uiState.update {
+            it.copy(
+                events = applyFiltersAndSort(allEvents, it.selectedFilter, it.sortOrder),
+                activeEvents = active,
+                expiredEvents = expired
             )
         }
     }
@@ -137,8 +194,8 @@ class CountdownViewModel @Inject constructor(
     ): List<CountdownEventWithTime> {
         val filtered = when (filter) {
             EventFilter.ALL -> events
-            EventFilter.ACTIVE -> events.filter { !it.countdownTime.isExpired && it.event.isActive }
-            EventFilter.EXPIRED -> events.filter { it.countdownTime.isExpired }
+            EventFilter.ACTIVE -> events.filter { !it.countdownTime.value.isExpired && it.event.isActive }
+            EventFilter.EXPIRED -> events.filter { it.countdownTime.value.isExpired }
             EventFilter.TODAY -> events.filter { 
                 val now = LocalDateTime.now()
                 it.event.targetDateTime.toLocalDate() == now.toLocalDate()
@@ -156,10 +213,10 @@ class CountdownViewModel @Inject constructor(
         }
         
         return when (sortOrder) {
-            SortOrder.NEAREST_FIRST -> filtered.sortedBy { it.event.targetDateTime }
-            SortOrder.FURTHEST_FIRST -> filtered.sortedByDescending { it.event.targetDateTime }
+            SortOrder.NEAREST_FIRST -> filtered.sortedBy { it.event.targetEpochMillis }
+            SortOrder.FURTHEST_FIRST -> filtered.sortedByDescending { it.event.targetEpochMillis }
             SortOrder.ALPHABETICAL -> filtered.sortedBy { it.event.title.lowercase() }
-            SortOrder.CREATION_DATE -> filtered.sortedByDescending { it.event.createdAt }
+            SortOrder.CREATION_DATE -> filtered.sortedByDescending { it.event.createdAtEpochMillis }
         }
     }
     
@@ -194,7 +251,7 @@ class CountdownViewModel @Inject constructor(
             currentState.copy(
                 selectedFilter = filter,
                 events = applyFiltersAndSort(
-                    currentState.events,
+                    allEvents,
                     filter,
                     currentState.sortOrder
                 )
@@ -207,7 +264,7 @@ class CountdownViewModel @Inject constructor(
             currentState.copy(
                 sortOrder = sortOrder,
                 events = applyFiltersAndSort(
-                    currentState.events,
+                    allEvents,
                     currentState.selectedFilter,
                     sortOrder
                 )
@@ -218,11 +275,6 @@ class CountdownViewModel @Inject constructor(
     fun clearError() {
         _uiState.update { it.copy(error = null) }
     }
-    
-    override fun onCleared() {
-        super.onCleared()
-        countdownUpdateJob?.cancel()
-    }
 }
 
 sealed class CountdownUiEvent {
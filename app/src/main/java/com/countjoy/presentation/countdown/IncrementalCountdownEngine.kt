@@ -0,0 +1,163 @@
+package com.countjoy.presentation.countdown
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.CountdownTime
+import com.countjoy.domain.model.PackedCountdownTime
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import java.util.PriorityQueue
+
+/**
+ * Recomputes countdowns incrementally on each tick.
+ *
+ * Every event keeps the instant at which its displayed value next changes in a
+ * min-heap, so a tick only touches the rows that are actually due. Each row
+ * exposes its own [StateFlow] so only the affected list items recompose, and
+ * [tick] reports when an event crosses the expiry boundary so callers know when
+ * partitioning and sorting need to be redone.
+ *
+ * Each row is re-queued at its own resolution, so a list ticking every second
+ * for one imminent event only wakes far-away rows once a minute.
+ *
+ * Not thread-safe; callers are expected to drive it from a single thread.
+ *
+ * @param resolutionFor Smallest unit shown on screen for a row with the given
+ * remaining millis, [displayResolution] by default
+ */
+class IncrementalCountdownEngine(
+    private val resolutionFor: (remainingMillis: Long) -> Long = { displayResolution(it) }
+) {
+
+    /**
+     * Uses the same [resolutionMillis] for every row, however far away
+     */
+    constructor(resolutionMillis: Long) : this({ resolutionMillis })
+
+    private class Row(
+        val targetMillis: Long,
+        val state: MutableStateFlow<CountdownTime>,
+        var nextChangeAt: Long = NEVER
+    )
+
+    private val rows = HashMap<Long, Row>()
+    private val dueQueue = PriorityQueue<Row>(compareBy { it.nextChangeAt })
+    private var lastTickMillis = Long.MIN_VALUE
+
+    /**
+     * Replaces the tracked events. Rows for events that are still present and
+     * keep the same target reuse their existing [StateFlow].
+     */
+    fun setEvents(events: List<CountdownEvent>, nowMillis: Long) {
+        val previous = HashMap(rows)
+        rows.clear()
+        dueQueue.clear()
+
+        for (event in events) {
+            val targetMillis = event.targetEpochMillis
+            val existing = previous[event.id]
+            val row = if (existing != null && existing.targetMillis == targetMillis) {
+                existing
+            } else {
+                Row(targetMillis, existing?.state ?: MutableStateFlow(CountdownTime(isExpired = true)))
+            }
+            rows[event.id] = row
+            refresh(row, nowMillis)
+        }
+        lastTickMillis = nowMillis
+    }
+
+    /**
+     * Gets the live countdown for a tracked event.
+     */
+    fun countdownFor(eventId: Long): StateFlow<CountdownTime>? {
+        return rows[eventId]?.state
+    }
+
+    /**
+     * Gets the instant at which the next displayed value changes, or null if
+     * every row has expired. Rows change on boundaries of their own target,
+     * not of the wall clock.
+     */
+    fun nextChangeAt(): Long? {
+        return dueQueue.peek()?.nextChangeAt
+    }
+
+    /**
+     * Updates only the rows whose displayed value changes at [nowMillis].
+     * @return true if at least one event expired, or the clock moved backwards,
+     * so list partitioning and ordering must be recomputed
+     */
+    fun tick(nowMillis: Long): Boolean {
+        if (nowMillis < lastTickMillis) {
+            // Wall clock was set back; every cached instant is stale
+            resync(nowMillis)
+            return true
+        }
+        lastTickMillis = nowMillis
+
+        var expiryCrossed = false
+        while (true) {
+            val row = dueQueue.peek() ?: break
+            if (row.nextChangeAt > nowMillis) break
+            dueQueue.poll()
+            if (refresh(row, nowMillis)) {
+                expiryCrossed = true
+            }
+        }
+        return expiryCrossed
+    }
+
+    /**
+     * Recomputes every row, e.g. after a time or timezone change.
+     */
+    fun resync(nowMillis: Long) {
+        dueQueue.clear()
+        rows.values.forEach { refresh(it, nowMillis) }
+        lastTickMillis = nowMillis
+    }
+
+    /**
+     * Recomputes a row and re-queues it if its value will change again.
+     * @return true if the row has just become expired
+     */
+    private fun refresh(row: Row, nowMillis: Long): Boolean {
+        val wasExpired = row.state.value.isExpired
+        val remainingMillis = row.targetMillis - nowMillis
+        val packed = PackedCountdownTime.between(row.targetMillis, nowMillis)
+        if (packed.totalSeconds != row.state.value.totalSeconds || packed.isExpired != wasExpired) {
+            // Only materialise a CountdownTime when the visible value actually changed
+            row.state.value = packed.toCountdownTime()
+        }
+
+        if (packed.isExpired) {
+            row.nextChangeAt = NEVER
+        } else {
+            // The floor of remaining / resolution drops one millisecond past this boundary
+            val resolutionMillis = resolutionFor(remainingMillis)
+            val units = remainingMillis / resolutionMillis
+            row.nextChangeAt = if (units > 0) {
+                row.targetMillis - units * resolutionMillis + 1
+            } else {
+                row.targetMillis - 1000 + 1
+            }
+            dueQueue.add(row)
+        }
+        return packed.isExpired && !wasExpired
+    }
+
+    companion object {
+        private const val NEVER = Long.MAX_VALUE
+
+        /**
+         * Cards show seconds only within the last hour, so a row changes once
+         * a minute while more than an hour remains and every second after.
+         */
+        fun displayResolution(remainingMillis: Long): Long {
+            return if (remainingMillis > CountdownUpdateManager.HOUR) {
+                CountdownUpdateManager.MINUTE
+            } else {
+                CountdownUpdateManager.SECOND
+            }
+        }
+    }
+}
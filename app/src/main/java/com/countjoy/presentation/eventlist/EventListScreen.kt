@@ -5,7 +5,6 @@ import androidx.compose.foundation.background
 import androidx.compose.foundation.clickable
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material.icons.Icons
@@ -23,6 +22,9 @@ import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.layout.Layout
 import androidx.compose.ui.layout.Placeable
@@ -43,7 +45,7 @@ fun EventListScreen(
     onNavigateBack: () -> Unit,
     viewModel: EventListViewModel = hiltViewModel()
 ) {
-    val events by viewModel.filteredEvents.collectAsStateWithLifecycle()
+    val events = viewModel.pagedEvents.collectAsLazyPagingItems()
     val searchQuery by viewModel.searchQuery.collectAsStateWithLifecycle()
     val selectedCategory by viewModel.selectedCategory.collectAsStateWithLifecycle()
     val selectedPriority by viewModel.selectedPriority.collectAsStateWithLifecycle()
@@ -51,6 +53,10 @@ fun EventListScreen(
     val showPastEvents by viewModel.showPastEvents.collectAsStateWithLifecycle()
     val uiState by viewModel.uiState.collectAsStateWithLifecycle()
     
+    LaunchedEffect(events) {
+        snapshotFlow { events.loadState }.collect { viewModel.onLoadStateChanged(it) }
+    }
+    
     var showSortMenu by remember { mutableStateOf(false) }
     var showFilterDialog by remember { mutableStateOf(false) }
     
@@ -134,7 +140,14 @@ fun EventListScreen(
             )
             
             // Event list
-            if (events.isEmpty()) {
+            val isEmpty = events.itemCount == 0 && events.loadState.refresh is LoadState.NotLoading
+            if (uiState.isLoading && events.itemCount == 0) {
+                Box(modifier = Modifier.fillMaxSize()) {
+                    CircularProgressIndicator(
+                        modifier = Modifier.align(Alignment.Center)
+                    )
+                }
+            } else if (isEmpty) {
                 EmptyStateView(
                     modifier = Modifier.fillMaxSize(),
                     message = if (searchQuery.isNotBlank() || selectedCategory != null || selectedPriority != null) {
@@ -151,9 +164,10 @@ fun EventListScreen(
                     verticalArrangement = Arrangement.spacedBy(12.dp)
                 ) {
                     items(
-                        items = events,
-                        key = { event -> event.id }
-                    ) { event ->
+                        count = events.itemCount,
+                        key = events.itemKey { event -> event.id }
+                    ) { index ->
+                        val event = events[index] ?: return@items
                         EventListItem(
                             event = event,
                             onClick = { onNavigateToEventDetail(event.id) },
@@ -2,11 +2,17 @@ package com.countjoy.presentation.eventlist
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.CombinedLoadStates
+import androidx.paging.LoadState
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
 import com.countjoy.domain.model.CountdownEvent
 import com.countjoy.domain.model.EventCategory
 import com.countjoy.domain.model.EventPriority
 import com.countjoy.domain.repository.EventRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 import javax.inject.Inject
@@ -36,25 +42,26 @@ class EventListViewModel @Inject constructor(
     private val _uiState = MutableStateFlow(EventListUiState())
     val uiState: StateFlow<EventListUiState> = _uiState.asStateFlow()
     
-    // Combined flow for filtered events
-    val filteredEvents: StateFlow<List<CountdownEvent>> = 
-        eventRepository.getAllActiveEvents().combine(_searchQuery) { events, query ->
-            Pair(events, query)
-        }.combine(_selectedCategory) { (events, query), category ->
-            Triple(events, query, category)
-        }.combine(_selectedPriority) { (events, query, category), priority ->
-            Pair(Pair(events, query), Pair(category, priority))
-        }.combine(_sortBy) { (eventsQuery, categoryPriority), sortOption ->
-            Triple(eventsQuery, categoryPriority, sortOption)
-        }.combine(_showPastEvents) { (eventsQuery, categoryPriority, sortOption), showPast ->
-            val (events, query) = eventsQuery
-            val (category, priority) = categoryPriority
-            filterAndSortEvents(events, query, category, priority, sortOption, showPast)
-        }.stateIn(
-            scope = viewModelScope,
-            started = SharingStarted.WhileSubscribed(5000),
-            initialValue = emptyList()
+    // Paged events; search, filters and sorting are pushed down into SQL.
+    // The query is debounced so typing does not hit the FTS index per keystroke.
+    @OptIn(ExperimentalCoroutinesApi::class, FlowPreview::class)
+    val pagedEvents: Flow<PagingData<CountdownEvent>> = combine(
+        _searchQuery.debounce { query -> if (query.isBlank()) 0L else SEARCH_DEBOUNCE_MILLIS },
+        _selectedCategory,
+        _selectedPriority,
+        _sortBy,
+        _showPastEvents
+    ) { query, category, priority, sortOption, showPast ->
+        EventListQuery(query, category, priority, sortOption, showPast)
+    }.flatMapLatest { query ->
+        eventRepository.getPagedEvents(
+            searchQuery = query.searchQuery.takeIf { it.isNotBlank() },
+            category = query.category?.displayName,
+            priority = query.priority?.value,
+            showPast = query.showPast,
+            sortBy = query.sortOption.queryKey
         )
+    }.cachedIn(viewModelScope)
     
     // Categories from database
     val availableCategories: StateFlow<List<String>> = eventRepository.getAllCategories()
@@ -64,24 +71,17 @@ class EventListViewModel @Inject constructor(
             initialValue = emptyList()
         )
     
-    init {
-        loadEvents()
-    }
-    
-    private fun loadEvents() {
-        viewModelScope.launch {
-            _uiState.update { it.copy(isLoading = true) }
-            try {
-                // Events are loaded through the filteredEvents flow
-                _uiState.update { it.copy(isLoading = false) }
-            } catch (e: Exception) {
-                _uiState.update { 
-                    it.copy(
-                        isLoading = false,
-                        error = e.message ?: "Failed to load events"
-                    )
-                }
-            }
+    /**
+     * Mirrors the load state of [pagedEvents], so paging loads and failures
+     * surface through [uiState] like every other operation on the list
+     */
+    fun onLoadStateChanged(loadStates: CombinedLoadStates) {
+        val failure = (loadStates.refresh as? LoadState.Error) ?: (loadStates.append as? LoadState.Error)
+        _uiState.update {
+            it.copy(
+                isLoading = loadStates.refresh is LoadState.Loading,
+                error = failure?.let { state -> state.error.message ?: "Failed to load events" } ?: it.error
+            )
         }
     }
     
@@ -130,8 +130,8 @@ class EventListViewModel @Inject constructor(
                 val duplicatedEvent = event.copy(
                     id = 0,
                     title = "${event.title} (Copy)",
-                    createdAt = java.time.LocalDateTime.now(),
-                    updatedAt = java.time.LocalDateTime.now()
+                    createdAtEpochMillis = System.currentTimeMillis(),
+                    updatedAtEpochMillis = System.currentTimeMillis()
                 )
                 eventRepository.createEvent(duplicatedEvent)
                 _uiState.update { 
@@ -152,8 +152,8 @@ class EventListViewModel @Inject constructor(
     fun updateEventPriority(event: CountdownEvent, priority: EventPriority) {
         viewModelScope.launch {
             try {
-                val updatedEvent = event.copy(priority = priority.value)
-                eventRepository.updateEvent(updatedEvent)
+                // Listed events carry their current occurrence, so only the priority is written
+                eventRepository.updateEventPriority(event.id, priority.value)
             } catch (e: Exception) {
                 _uiState.update { 
                     it.copy(
@@ -173,58 +173,29 @@ class EventListViewModel @Inject constructor(
         }
     }
     
-    private fun filterAndSortEvents(
-        events: List<CountdownEvent>,
-        query: String,
-        category: EventCategory?,
-        priority: EventPriority?,
-        sortOption: SortOption,
-        showPast: Boolean
-    ): List<CountdownEvent> {
-        var filteredList = events
-        
-        // Filter by search query
-        if (query.isNotBlank()) {
-            filteredList = filteredList.filter { event ->
-                event.title.contains(query, ignoreCase = true) ||
-                event.description?.contains(query, ignoreCase = true) == true
-            }
-        }
-        
-        // Filter by category
-        if (category != null) {
-            filteredList = filteredList.filter { it.category == category.displayName }
-        }
-        
-        // Filter by priority
-        if (priority != null) {
-            filteredList = filteredList.filter { it.priority == priority.value }
-        }
-        
-        // Filter past events
-        if (!showPast) {
-            filteredList = filteredList.filter { !it.hasExpired() }
-        }
-        
-        // Sort events
-        return when (sortOption) {
-            SortOption.DATE -> filteredList.sortedBy { it.targetDateTime }
-            SortOption.NAME -> filteredList.sortedBy { it.title.lowercase() }
-            SortOption.PRIORITY -> filteredList.sortedByDescending { it.priority }
-            SortOption.CATEGORY -> filteredList.sortedBy { it.category }
-        }
+    companion object {
+        private const val SEARCH_DEBOUNCE_MILLIS = 300L
     }
 }
 
+private data class EventListQuery(
+    val searchQuery: String,
+    val category: EventCategory?,
+    val priority: EventPriority?,
+    val sortOption: SortOption,
+    val showPast: Boolean
+)
+
 data class EventListUiState(
     val isLoading: Boolean = false,
     val error: String? = null,
     val successMessage: String? = null
 )
 
-enum class SortOption(val displayName: String) {
-    DATE("Date"),
-    NAME("Name"),
-    PRIORITY("Priority"),
-    CATEGORY("Category")
+enum class SortOption(val displayName: String, val queryKey: String) {
+    DATE("Date", "date"),
+    NAME("Name", "name"),
+    PRIORITY("Priority", "priority"),
+    CATEGORY("Category", "category"),
+    RELEVANCE("Relevance", "relevance")
 }
\ No newline at end of file
@@ -181,7 +181,7 @@ private fun AchievementStatisticsCard(achievements: List<Milestone>) {
                 )
                 
                 StatisticItem(
-                    value = achievements.count { it.type == MilestoneType.TIME_BASED }.toString(),
+                    value = achievements.count { it.type == MilestoneType.TIME_BASED || it.type == MilestoneType.HOUR_BASED }.toString(),
                     label = "Time",
                     icon = Icons.Default.DateRange
                 )
@@ -265,7 +265,7 @@ private fun AchievementCard(
                     shape = RoundedCornerShape(12.dp),
                     color = when (milestone.type) {
                         MilestoneType.PERCENTAGE_BASED -> MaterialTheme.colorScheme.primaryContainer
-                        MilestoneType.TIME_BASED -> MaterialTheme.colorScheme.secondaryContainer
+                        MilestoneType.TIME_BASED, MilestoneType.HOUR_BASED -> MaterialTheme.colorScheme.secondaryContainer
                         MilestoneType.CUSTOM -> MaterialTheme.colorScheme.tertiaryContainer
                     },
                     modifier = Modifier.size(56.dp)
@@ -277,7 +277,7 @@ private fun AchievementCard(
                         Icon(
                             imageVector = when (milestone.type) {
                                 MilestoneType.PERCENTAGE_BASED -> Icons.Default.Check
-                                MilestoneType.TIME_BASED -> Icons.Default.DateRange
+                                MilestoneType.TIME_BASED, MilestoneType.HOUR_BASED -> Icons.Default.DateRange
                                 MilestoneType.CUSTOM -> Icons.Default.Star
                             },
                             contentDescription = null,
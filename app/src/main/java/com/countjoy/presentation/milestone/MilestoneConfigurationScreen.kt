@@ -40,6 +40,7 @@ fun MilestoneConfigurationScreen(
 ) {
     var showPercentageTemplates by remember { mutableStateOf(true) }
     var showTimeTemplates by remember { mutableStateOf(false) }
+    var showHourTemplates by remember { mutableStateOf(false) }
     var selectedMilestones by remember { mutableStateOf<Set<MilestoneTemplate>>(emptySet()) }
     var showCustomMilestoneDialog by remember { mutableStateOf(false) }
     var customMilestones by remember { mutableStateOf<List<Milestone>>(emptyList()) }
@@ -60,6 +61,7 @@ fun MilestoneConfigurationScreen(
                                 eventId = eventId,
                                 usePercentageTemplates = showPercentageTemplates && selectedMilestones.any { it.type == MilestoneType.PERCENTAGE_BASED },
                                 useTimeTemplates = showTimeTemplates && selectedMilestones.any { it.type == MilestoneType.TIME_BASED },
+                                useHourTemplates = showHourTemplates && selectedMilestones.any { it.type == MilestoneType.HOUR_BASED },
                                 customMilestones = customMilestones
                             )
                             onNavigateBack()
@@ -125,6 +127,15 @@ fun MilestoneConfigurationScreen(
                                     { Icon(Icons.Default.Check, contentDescription = null, modifier = Modifier.size(16.dp)) }
                                 } else null
                             )
+                            
+                            FilterChip(
+                                selected = showHourTemplates,
+                                onClick = { showHourTemplates = !showHourTemplates },
+                                label = { Text("Hour-based") },
+                                leadingIcon = if (showHourTemplates) {
+                                    { Icon(Icons.Default.Check, contentDescription = null, modifier = Modifier.size(16.dp)) }
+                                } else null
+                            )
                         }
                     }
                 }
@@ -178,6 +189,30 @@ fun MilestoneConfigurationScreen(
                 }
             }
             
+            // Hour Templates
+            if (showHourTemplates) {
+                item {
+                    MilestoneCategoryHeader(
+                        title = "Hour-based Milestones",
+                        icon = Icons.Default.DateRange
+                    )
+                }
+                
+                items(MilestoneTemplates.hourTemplates) { template ->
+                    MilestoneTemplateCard(
+                        template = template,
+                        isSelected = selectedMilestones.contains(template),
+                        onClick = {
+                            selectedMilestones = if (selectedMilestones.contains(template)) {
+                                selectedMilestones - template
+                            } else {
+                                selectedMilestones + template
+                            }
+                        }
+                    )
+                }
+            }
+            
             // Custom Milestones
             if (customMilestones.isNotEmpty()) {
                 item {
@@ -293,6 +328,7 @@ private fun MilestoneTemplateCard(
                         text = when (template.type) {
                             MilestoneType.PERCENTAGE_BASED -> "${template.value.toInt()}%"
                             MilestoneType.TIME_BASED -> "${template.value.toInt()} days"
+                            MilestoneType.HOUR_BASED -> "${template.value.toInt()} hours"
                             else -> ""
                         },
                         modifier = Modifier.padding(horizontal = 8.dp, vertical = 4.dp),
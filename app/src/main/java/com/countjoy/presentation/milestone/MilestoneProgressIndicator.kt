@@ -289,7 +289,7 @@ private fun UpcomingMilestoneCard(
         colors = CardDefaults.cardColors(
             containerColor = when (milestone.type) {
                 MilestoneType.PERCENTAGE_BASED -> MaterialTheme.colorScheme.primaryContainer
-                MilestoneType.TIME_BASED -> MaterialTheme.colorScheme.secondaryContainer
+                MilestoneType.TIME_BASED, MilestoneType.HOUR_BASED -> MaterialTheme.colorScheme.secondaryContainer
                 MilestoneType.CUSTOM -> MaterialTheme.colorScheme.tertiaryContainer
             }
         )
@@ -303,7 +303,7 @@ private fun UpcomingMilestoneCard(
             Icon(
                 imageVector = when (milestone.type) {
                     MilestoneType.PERCENTAGE_BASED -> Icons.Default.CheckCircle
-                    MilestoneType.TIME_BASED -> Icons.Default.DateRange
+                    MilestoneType.TIME_BASED, MilestoneType.HOUR_BASED -> Icons.Default.DateRange
                     MilestoneType.CUSTOM -> Icons.Default.Star
                 },
                 contentDescription = null,
@@ -436,6 +436,11 @@ private fun calculateTimeUntilMilestone(milestone: Milestone, event: CountdownEv
             val duration = Duration.between(now, targetTime)
             formatDuration(duration)
         }
+        MilestoneType.HOUR_BASED -> {
+            val targetTime = event.targetDateTime.minus(Duration.ofMinutes((milestone.value * 60).toLong()))
+            val duration = Duration.between(now, targetTime)
+            formatDuration(duration)
+        }
         MilestoneType.CUSTOM -> "Custom"
     }
 }
@@ -53,7 +53,7 @@ object MilestoneShareHelper {
     private fun buildShareText(milestone: Milestone, eventTitle: String): String {
         val emoji = when (milestone.type) {
             MilestoneType.PERCENTAGE_BASED -> "📊"
-            MilestoneType.TIME_BASED -> "⏰"
+            MilestoneType.TIME_BASED, MilestoneType.HOUR_BASED -> "⏰"
             MilestoneType.CUSTOM -> "⭐"
         }
         
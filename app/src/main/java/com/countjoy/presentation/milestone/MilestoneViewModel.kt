@@ -36,6 +36,7 @@ class MilestoneViewModel @Inject constructor(
         eventId: String,
         usePercentageTemplates: Boolean = true,
         useTimeTemplates: Boolean = false,
+        useHourTemplates: Boolean = false,
         customMilestones: List<Milestone> = emptyList()
     ) {
         viewModelScope.launch {
@@ -43,6 +44,7 @@ class MilestoneViewModel @Inject constructor(
                 eventId = eventId,
                 usePercentageTemplates = usePercentageTemplates,
                 useTimeTemplates = useTimeTemplates,
+                useHourTemplates = useHourTemplates,
                 customMilestones = customMilestones
             )
         }
@@ -1,5 +1,6 @@
 package com.countjoy.presentation.settings
 
+import android.content.pm.ApplicationInfo
 import androidx.compose.animation.AnimatedVisibility
 import androidx.compose.animation.animateColorAsState
 import androidx.compose.animation.core.tween
@@ -19,6 +20,7 @@ import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.vector.ImageVector
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.semantics.Role
 import androidx.compose.ui.text.font.FontWeight
@@ -200,6 +202,61 @@ fun SettingsScreen(
                 )
             }
             
+            // Debug Section, only in debuggable builds
+            val context = LocalContext.current
+            if (context.applicationInfo.flags and ApplicationInfo.FLAG_DEBUGGABLE != 0) {
+                LaunchedEffect(Unit) { viewModel.refreshDebugInfo() }
+                
+                Divider(modifier = Modifier.padding(vertical = 8.dp))
+                
+                SettingsSection(
+                    title = stringResource(id = R.string.debug),
+                    icon = Icons.Default.Build
+                ) {
+                    ClickableSettingItem(
+                        title = stringResource(id = R.string.pending_work),
+                        subtitle = stringResource(id = R.string.pending_work_description),
+                        onClick = viewModel::refreshDebugInfo
+                    )
+                    
+                    uiState.pendingWork.forEach { summary ->
+                        ClickableSettingItem(
+                            title = summary.purpose.key,
+                            subtitle = stringResource(
+                                id = R.string.pending_work_summary,
+                                summary.jobs,
+                                summary.events
+                            ),
+                            onClick = viewModel::refreshDebugInfo
+                        )
+                    }
+                    
+                    ClickableSettingItem(
+                        title = stringResource(id = R.string.notification_posts),
+                        subtitle = stringResource(
+                            id = R.string.notification_posts_summary,
+                            uiState.notificationPostsLastHour
+                        ),
+                        onClick = viewModel::refreshDebugInfo
+                    )
+                    
+                    uiState.eventCache?.let { cache ->
+                        ClickableSettingItem(
+                            title = stringResource(id = R.string.event_cache),
+                            subtitle = stringResource(
+                                id = R.string.event_cache_summary,
+                                cache.hits,
+                                cache.revalidations,
+                                cache.misses,
+                                cache.size,
+                                cache.maxSize
+                            ),
+                            onClick = viewModel::refreshDebugInfo
+                        )
+                    }
+                }
+            }
+            
             Spacer(modifier = Modifier.height(16.dp))
         }
     }
@@ -4,6 +4,9 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.countjoy.core.locale.LocaleManager
 import com.countjoy.data.local.preferences.SharedPreferencesManager
+import com.countjoy.domain.repository.EventCacheMetrics
+import com.countjoy.service.NotificationPostMeter
+import com.countjoy.worker.EventWorkScheduler
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
@@ -21,13 +24,19 @@ data class SettingsUiState(
     val dateFormat: String = SharedPreferencesManager.DATE_FORMAT_DEFAULT,
     val autoDeleteExpired: Boolean = false,
     val countdownUpdateInterval: Long = 1000L,
-    val currentLanguageCode: String = LocaleManager.DEFAULT_LANGUAGE
+    val currentLanguageCode: String = LocaleManager.DEFAULT_LANGUAGE,
+    val pendingWork: List<EventWorkScheduler.PendingWorkSummary> = emptyList(),
+    val notificationPostsLastHour: Int = 0,
+    val eventCache: EventCacheMetrics.Snapshot? = null
 )
 
 @HiltViewModel
 class SettingsViewModel @Inject constructor(
     private val preferencesManager: SharedPreferencesManager,
-    private val localeManager: LocaleManager
+    private val localeManager: LocaleManager,
+    private val eventWorkScheduler: EventWorkScheduler,
+    private val notificationPostMeter: NotificationPostMeter,
+    private val eventCacheMetrics: EventCacheMetrics
 ) : ViewModel() {
 
     private val _uiState = MutableStateFlow(SettingsUiState())
@@ -120,4 +129,17 @@ class SettingsViewModel @Inject constructor(
             _uiState.update { it.copy(countdownUpdateInterval = interval) }
         }
     }
+
+    fun refreshDebugInfo() {
+        viewModelScope.launch {
+            val pendingWork = eventWorkScheduler.pendingWork()
+            _uiState.update {
+                it.copy(
+                    pendingWork = pendingWork,
+                    notificationPostsLastHour = notificationPostMeter.postsInLastHour(),
+                    eventCache = eventCacheMetrics.snapshot()
+                )
+            }
+        }
+    }
 }
\ No newline at end of file
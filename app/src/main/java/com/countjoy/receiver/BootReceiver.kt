@@ -6,18 +6,46 @@ import android.content.Intent
 import android.os.Build
 import com.countjoy.data.local.preferences.SharedPreferencesManager
 import com.countjoy.service.CountdownService
+import com.countjoy.service.ExpiryAlarmScheduler
+import com.countjoy.service.MilestoneAlarmScheduler
+import dagger.hilt.android.AndroidEntryPoint
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import javax.inject.Inject
 
 /**
- * BroadcastReceiver to handle device boot completion and restart countdown service
+ * BroadcastReceiver to handle device boot completion: re-arms the expiry and
+ * milestone alarms, which do not survive a reboot, and restarts the countdown service
  */
+@AndroidEntryPoint
 class BootReceiver : BroadcastReceiver() {
     
+    @Inject
+    lateinit var preferencesManager: SharedPreferencesManager
+    
+    @Inject
+    lateinit var expiryAlarmScheduler: ExpiryAlarmScheduler
+    
+    @Inject
+    lateinit var milestoneAlarmScheduler: MilestoneAlarmScheduler
+    
     override fun onReceive(context: Context, intent: Intent) {
         if (intent.action == Intent.ACTION_BOOT_COMPLETED ||
             intent.action == Intent.ACTION_LOCKED_BOOT_COMPLETED) {
             
-            // Create preferences manager directly (cannot use Hilt injection in BroadcastReceiver)
-            val preferencesManager = SharedPreferencesManager(context)
+            // Keep the process alive until the next expiry and milestone are armed again
+            val pendingResult = goAsync()
+            CoroutineScope(Dispatchers.IO).launch {
+                try {
+                    expiryAlarmScheduler.rearm()
+                    milestoneAlarmScheduler.rearm()
+                } catch (e: Exception) {
+                    e.printStackTrace()
+                } finally {
+                    pendingResult.finish()
+                }
+            }
             
             // Check if service should be restarted based on user preferences
             if (preferencesManager.isNotificationEnabled()) {
@@ -37,4 +65,4 @@ class BootReceiver : BroadcastReceiver() {
             context.startService(serviceIntent)
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.countjoy.receiver
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import com.countjoy.domain.repository.ExpiryRepository
+import com.countjoy.service.ExpiryAlarmScheduler
+import com.countjoy.service.RecurrenceGeneratorService
+import com.countjoy.service.SmartNotificationService
+import dagger.hilt.android.AndroidEntryPoint
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.ZoneId
+import javax.inject.Inject
+
+/**
+ * Delivers the expiry notification of an event when its alarm goes off,
+ * moves a recurring event on to its next occurrence, then moves the alarm
+ * on to the next pending expiry. The delivery is recorded in the database
+ * first, so an expiry is notified at most once even if its alarm fires again.
+ */
+@AndroidEntryPoint
+class ExpiryAlarmReceiver : BroadcastReceiver() {
+    
+    companion object {
+        // Expiries older than this, e.g. of events reactivated long after
+        // their target, are recorded without a notification
+        private const val STALE_AFTER_MILLIS = 86_400_000L
+    }
+    
+    @Inject
+    lateinit var expiryRepository: ExpiryRepository
+    
+    @Inject
+    lateinit var expiryAlarmScheduler: ExpiryAlarmScheduler
+    
+    @Inject
+    lateinit var smartNotificationService: SmartNotificationService
+    
+    @Inject
+    lateinit var recurrenceGeneratorService: RecurrenceGeneratorService
+    
+    override fun onReceive(context: Context, intent: Intent) {
+        if (intent.action != ExpiryAlarmScheduler.ACTION_EXPIRY) return
+        
+        val eventId = intent.getLongExtra(ExpiryAlarmScheduler.EXTRA_EVENT_ID, -1)
+        val targetEpochMillis = intent.getLongExtra(ExpiryAlarmScheduler.EXTRA_TARGET_MILLIS, -1)
+        if (eventId == -1L || targetEpochMillis == -1L) return
+        
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                deliver(eventId, targetEpochMillis)
+                advanceSeries(eventId, targetEpochMillis)
+                expiryAlarmScheduler.rearm()
+            } catch (e: Exception) {
+                e.printStackTrace()
+            } finally {
+                pendingResult.finish()
+            }
+        }
+    }
+    
+    private suspend fun deliver(eventId: Long, targetEpochMillis: Long) {
+        // Skip events deactivated, deleted, moved or already notified since arming
+        val pending = expiryRepository.getPendingExpiry(eventId) ?: return
+        if (pending.targetEpochMillis != targetEpochMillis) return
+        
+        val now = System.currentTimeMillis()
+        if (targetEpochMillis > now) {
+            // Fired early, e.g. after the clock was set back; re-armed at its target
+            return
+        }
+        
+        if (expiryRepository.markExpiryDelivered(eventId, targetEpochMillis) &&
+            now - targetEpochMillis < STALE_AFTER_MILLIS) {
+            smartNotificationService.showExpiredNotification(pending.event)
+        }
+    }
+    
+    /**
+     * Moves a recurring event past the occurrence that just expired. Also runs
+     * when that expiry was delivered before, so a series whose advance was
+     * interrupted still moves on; an event that does not recur is left as is.
+     */
+    private suspend fun advanceSeries(eventId: Long, targetEpochMillis: Long) {
+        val now = System.currentTimeMillis()
+        if (targetEpochMillis > now) return
+        
+        // Strictly after the expired occurrence, which would otherwise be current again
+        val after = maxOf(now, targetEpochMillis + 1)
+        recurrenceGeneratorService.syncNextOccurrence(
+            eventId = eventId.toString(),
+            now = LocalDateTime.ofInstant(Instant.ofEpochMilli(after), ZoneId.systemDefault())
+        )
+    }
+}
@@ -0,0 +1,62 @@
+package com.countjoy.receiver
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import com.countjoy.domain.usecase.milestone.CheckMilestonesUseCase
+import com.countjoy.service.MilestoneAlarmScheduler
+import com.countjoy.service.MilestoneNotificationService
+import dagger.hilt.android.AndroidEntryPoint
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+
+/**
+ * Delivers the milestones reached when the milestone alarm goes off, then
+ * moves the alarm on to the next trigger. Achievements are recorded only
+ * after their notifications are shown, so a delivery cut short is retried
+ * when the alarm is next armed rather than lost.
+ */
+@AndroidEntryPoint
+class MilestoneAlarmReceiver : BroadcastReceiver() {
+    
+    @Inject
+    lateinit var checkMilestonesUseCase: CheckMilestonesUseCase
+    
+    @Inject
+    lateinit var milestoneAlarmScheduler: MilestoneAlarmScheduler
+    
+    @Inject
+    lateinit var notificationService: MilestoneNotificationService
+    
+    override fun onReceive(context: Context, intent: Intent) {
+        if (intent.action != MilestoneAlarmScheduler.ACTION_MILESTONE) return
+        
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                deliver()
+                // Also re-arms a trigger that fired early, e.g. after the clock was set back
+                milestoneAlarmScheduler.rearm()
+            } catch (e: Exception) {
+                e.printStackTrace()
+            } finally {
+                pendingResult.finish()
+            }
+        }
+    }
+    
+    private suspend fun deliver() {
+        val reached = checkMilestonesUseCase.findReached()
+        
+        reached.forEach { achievement ->
+            notificationService.showMilestoneNotification(
+                milestone = achievement.milestone,
+                event = achievement.event
+            )
+        }
+        
+        checkMilestonesUseCase.markAchieved(reached)
+    }
+}
@@ -6,13 +6,10 @@ import android.content.Intent
 import android.widget.Toast
 import androidx.core.app.NotificationManagerCompat
 import androidx.core.app.ShareCompat
-import androidx.work.OneTimeWorkRequestBuilder
-import androidx.work.WorkManager
-import androidx.work.workDataOf
 import com.countjoy.MainActivity
 import com.countjoy.domain.repository.EventRepository
 import com.countjoy.service.SmartNotificationService
-import com.countjoy.worker.SnoozeReminderWorker
+import com.countjoy.worker.EventWorkScheduler
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -29,6 +26,9 @@ class NotificationActionReceiver : BroadcastReceiver() {
     @Inject
     lateinit var eventRepository: EventRepository
     
+    @Inject
+    lateinit var eventWorkScheduler: EventWorkScheduler
+    
     override fun onReceive(context: Context, intent: Intent) {
         val action = intent.action ?: return
         val eventId = intent.getLongExtra(SmartNotificationService.EXTRA_EVENT_ID, -1)
@@ -61,18 +61,18 @@ class NotificationActionReceiver : BroadcastReceiver() {
         // Cancel current notification
         NotificationManagerCompat.from(context).cancel(eventId.toInt())
         
-        // Schedule snooze reminder
-        val workRequest = OneTimeWorkRequestBuilder<SnoozeReminderWorker>()
-            .setInitialDelay(snoozeMinutes.toLong(), TimeUnit.MINUTES)
-            .setInputData(
-                workDataOf(
-                    "event_id" to eventId,
-                    "snooze_minutes" to snoozeMinutes
-                )
-            )
-            .build()
-        
-        WorkManager.getInstance(context).enqueue(workRequest)
+        // Schedule snooze reminder, replacing any earlier snooze of this event
+        val triggerAtMillis = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(snoozeMinutes.toLong())
+        val pendingResult = goAsync()
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                eventWorkScheduler.schedule(EventWorkScheduler.Purpose.SNOOZE, eventId, triggerAtMillis)
+            } catch (e: Exception) {
+                e.printStackTrace()
+            } finally {
+                pendingResult.finish()
+            }
+        }
         
         // Show confirmation
         val hours = if (snoozeMinutes >= 60) {
@@ -90,7 +90,7 @@ class NotificationActionReceiver : BroadcastReceiver() {
     private fun handleShare(context: Context, eventId: Long) {
         CoroutineScope(Dispatchers.IO).launch {
             try {
-                val event = eventRepository.getEventById(eventId.toString())
+                val event = eventRepository.getEventById(eventId)
                 event?.let {
                     val daysRemaining = it.getDaysRemaining()
                     val shareText = buildString {
@@ -125,7 +125,7 @@ class NotificationActionReceiver : BroadcastReceiver() {
     private fun handleQuickView(context: Context, eventId: Long) {
         CoroutineScope(Dispatchers.IO).launch {
             try {
-                val event = eventRepository.getEventById(eventId.toString())
+                val event = eventRepository.getEventById(eventId)
                 event?.let {
                     val daysRemaining = it.getDaysRemaining()
                     val hoursRemaining = ChronoUnit.HOURS.between(
@@ -3,22 +3,25 @@ package com.countjoy.receiver
 import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
-import com.countjoy.service.CountdownService
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.SupervisorJob
-import kotlinx.coroutines.launch
+import com.countjoy.worker.AnalyticsRollupWorker
 
 /**
- * BroadcastReceiver to handle timezone changes and recalculate countdowns
+ * BroadcastReceiver to handle timezone changes.
+ *
+ * Countdowns are computed from UTC epoch millis, so they stay correct across
+ * timezone and DST changes without restarting the countdown service; only UI
+ * that displays local wall-clock times needs to refresh, and the analytics
+ * rollup, whose days are local, needs rebuilding.
  */
 class TimezoneChangeReceiver : BroadcastReceiver() {
     
-    private val receiverScope = CoroutineScope(SupervisorJob() + Dispatchers.Main)
-    
     override fun onReceive(context: Context, intent: Intent) {
         when (intent.action) {
-            Intent.ACTION_TIMEZONE_CHANGED,
+            Intent.ACTION_TIMEZONE_CHANGED -> {
+                handleTimezoneChange(context)
+                // The worker rebuilds only if the zone really differs from the rollup's
+                AnalyticsRollupWorker.enqueue(context)
+            }
             Intent.ACTION_TIME_CHANGED -> {
                 handleTimezoneChange(context)
             }
@@ -26,27 +29,8 @@ class TimezoneChangeReceiver : BroadcastReceiver() {
     }
     
     private fun handleTimezoneChange(context: Context) {
-        receiverScope.launch {
-            // Restart the countdown service to recalculate with new timezone
-            restartCountdownService(context)
-            
-            // Notify any active UI components about the timezone change
-            sendTimezoneChangeBroadcast(context)
-        }
-    }
-    
-    private fun restartCountdownService(context: Context) {
-        // Stop the existing service
-        val stopIntent = Intent(context, CountdownService::class.java).apply {
-            action = CountdownService.ACTION_STOP
-        }
-        context.stopService(stopIntent)
-        
-        // Start the service again with updated timezone
-        val startIntent = Intent(context, CountdownService::class.java).apply {
-            action = CountdownService.ACTION_START
-        }
-        context.startService(startIntent)
+        // Notify any active UI components so local date labels are re-rendered
+        sendTimezoneChangeBroadcast(context)
     }
     
     private fun sendTimezoneChangeBroadcast(context: Context) {
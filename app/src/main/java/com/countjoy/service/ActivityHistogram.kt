@@ -0,0 +1,100 @@
+package com.countjoy.service
+
+import com.countjoy.domain.model.HeatmapCell
+import com.countjoy.domain.model.HistogramBin
+import java.time.DayOfWeek
+
+/**
+ * Primitive counters behind the activity heatmap and the duration histogram.
+ *
+ * Activity is counted in one flat array of 7 × 24 cells, indexed by day of
+ * week (Monday first) and hour. Durations fall into log-scaled bins whose
+ * width doubles from one to the next, so a bin is found with a bit count
+ * rather than a search. Recording allocates nothing, whatever the number of
+ * events.
+ */
+internal class ActivityHistogram {
+
+    companion object {
+        const val HOURS = 24
+        const val CELLS = 7 * HOURS
+
+        /**
+         * Under a day, then [2^(k-1), 2^k) days for bin k, the last one open
+         * ended from 256 days on. CountdownEventDao.getDurationBinCounts
+         * mirrors these edges in SQL.
+         */
+        const val DURATION_BINS = 10
+
+        private const val MILLIS_PER_DAY = 86_400_000L
+
+        /**
+         * Gets the duration bin of [durationMillis]; negative durations count
+         * as under a day.
+         */
+        fun durationBin(durationMillis: Long): Int {
+            val days = durationMillis / MILLIS_PER_DAY
+            if (days <= 0) return 0
+            // Bit length of the day count is floor(log2(days)) + 1
+            return minOf(Long.SIZE_BITS - days.countLeadingZeroBits(), DURATION_BINS - 1)
+        }
+
+        fun durationBinLabel(bin: Int): String {
+            return when (bin) {
+                0 -> "< 1 day"
+                DURATION_BINS - 1 -> "≥ ${1L shl (bin - 1)} days"
+                else -> "${1L shl (bin - 1)}-${1L shl bin} days"
+            }
+        }
+    }
+
+    private val activity = IntArray(CELLS)
+    private val durations = IntArray(DURATION_BINS)
+
+    fun recordActivity(dayOfWeek: DayOfWeek, hour: Int, count: Int = 1) {
+        activity[dayOfWeek.ordinal * HOURS + hour] += count
+    }
+
+    fun recordDuration(durationMillis: Long) {
+        durations[durationBin(durationMillis)]++
+    }
+
+    fun addDurationBin(bin: Int, count: Int) {
+        durations[bin.coerceIn(0, DURATION_BINS - 1)] += count
+    }
+
+    fun activityByDayOfWeek(): IntArray {
+        val byDay = IntArray(7)
+        for (cell in 0 until CELLS) {
+            byDay[cell / HOURS] += activity[cell]
+        }
+        return byDay
+    }
+
+    fun activityByHour(): IntArray {
+        val byHour = IntArray(HOURS)
+        for (cell in 0 until CELLS) {
+            byHour[cell % HOURS] += activity[cell]
+        }
+        return byHour
+    }
+
+    /**
+     * Gets every cell, Monday 0:00 first, with its count relative to the
+     * busiest cell; all zero when nothing was recorded.
+     */
+    fun heatmap(): List<HeatmapCell> {
+        val max = activity.max()
+        return List(CELLS) { cell ->
+            HeatmapCell(
+                day = cell / HOURS,
+                hour = cell % HOURS,
+                intensity = if (max > 0) activity[cell].toFloat() / max else 0f
+            )
+        }
+    }
+
+    fun durationHistogram(): List<HistogramBin> {
+        return List(DURATION_BINS) { bin -> HistogramBin(durationBinLabel(bin), durations[bin]) }
+    }
+}
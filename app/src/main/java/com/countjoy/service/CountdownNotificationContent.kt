@@ -0,0 +1,43 @@
+package com.countjoy.service
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.PackedCountdownTime
+
+/**
+ * What the ongoing countdown notification shows for an event at a given time.
+ *
+ * The text is only as precise as the user can usefully read: hours for events
+ * a day or more away, minutes within the last day. Within the last hour the
+ * system chronometer counts down on its own and the text stays fixed, so two
+ * instants that map to equal contents never need a new notification post.
+ *
+ * @property eventId Id of the event shown
+ * @property title Notification title
+ * @property text Countdown text, or null while the chronometer is running
+ * @property chronometerTargetMillis Instant the chronometer counts down to, if running
+ */
+internal data class CountdownNotificationContent(
+    val eventId: Long,
+    val title: String,
+    val text: String?,
+    val chronometerTargetMillis: Long?
+) {
+    companion object {
+        private const val CHRONOMETER_THRESHOLD_SECONDS = 3_600L
+
+        fun of(event: CountdownEvent, nowEpochMillis: Long): CountdownNotificationContent {
+            val countdown = PackedCountdownTime.between(event.targetEpochMillis, nowEpochMillis)
+
+            if (countdown.totalSeconds < CHRONOMETER_THRESHOLD_SECONDS) {
+                return CountdownNotificationContent(event.id, event.title, null, event.targetEpochMillis)
+            }
+
+            val text = if (countdown.days > 0) {
+                "${countdown.days}d ${countdown.hours}h"
+            } else {
+                countdown.formatTo(StringBuilder(), includeSeconds = false).toString()
+            }
+            return CountdownNotificationContent(event.id, event.title, text, null)
+        }
+    }
+}
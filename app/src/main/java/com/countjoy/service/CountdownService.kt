@@ -13,6 +13,7 @@ import com.countjoy.R
 import com.countjoy.domain.model.CountdownEvent
 import com.countjoy.domain.usecase.CalculateCountdownUseCase
 import com.countjoy.domain.usecase.GetEventUseCase
+import com.countjoy.presentation.countdown.CountdownUpdateManager
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.collectLatest
@@ -39,9 +40,42 @@ class CountdownService : Service() {
     @Inject
     lateinit var calculateCountdownUseCase: CalculateCountdownUseCase
     
+    @Inject
+    lateinit var countdownUpdateManager: CountdownUpdateManager
+    
+    @Inject
+    lateinit var notificationPostMeter: NotificationPostMeter
+    
     private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
     private var countdownJob: Job? = null
     
+    // Reused for every update; only the countdown fields change between posts
+    private val contentIntent by lazy {
+        val intent = Intent(this, MainActivity::class.java).apply {
+            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
+        }
+        PendingIntent.getActivity(
+            this,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+    }
+    
+    private val notificationBuilder by lazy {
+        NotificationCompat.Builder(this, CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.ic_menu_recent_history)
+            .setContentIntent(contentIntent)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setSilent(true)
+    }
+    
+    // Touched only from the countdown job, which runs one loop at a time
+    private var postedContent: CountdownNotificationContent? = null
+    private var isForeground = false
+    
     override fun onCreate() {
         super.onCreate()
         createNotificationChannel()
@@ -88,20 +122,20 @@ class CountdownService : Service() {
     }
     
     private suspend fun updateCountdownLoop(events: List<CountdownEvent>) {
-        while (currentCoroutineContext().isActive) {
-            val nextEvent = calculateCountdownUseCase.getNextUpcoming(events)
-            if (nextEvent != null) {
-                val countdown = calculateCountdownUseCase(nextEvent)
-                updateNotification(nextEvent, countdown.toFormattedString())
-                
-                // Check for expired events
-                if (countdown.isExpired) {
-                    sendExpiredNotification(nextEvent)
-                }
-            }
-            
-            // Update every second
-            delay(1000)
+        publishCountdown(events)
+        
+        // The notification text has minute precision at most and the last hour
+        // is counted down by the system chronometer, so minute ticks suffice
+        countdownUpdateManager.ticks(CountdownUpdateManager.MINUTE).collect {
+            publishCountdown(events)
+        }
+    }
+    
+    private fun publishCountdown(events: List<CountdownEvent>) {
+        val nextEvent = calculateCountdownUseCase.getNextUpcoming(events)
+        if (nextEvent != null) {
+            // Expiry notifications are delivered by ExpiryAlarmScheduler's alarms
+            updateNotification(CountdownNotificationContent.of(nextEvent, System.currentTimeMillis()))
         }
     }
     
@@ -127,54 +161,30 @@ class CountdownService : Service() {
         }
     }
     
-    private fun updateNotification(event: CountdownEvent, countdownText: String) {
-        val intent = Intent(this, MainActivity::class.java).apply {
-            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
-        }
-        
-        val pendingIntent = PendingIntent.getActivity(
-            this,
-            0,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
-        )
+    /**
+     * Posts [content] unless it is what the notification already shows.
+     */
+    private fun updateNotification(content: CountdownNotificationContent) {
+        if (content == postedContent) return
         
-        val notification = NotificationCompat.Builder(this, CHANNEL_ID)
-            .setContentTitle(event.title)
-            .setContentText(countdownText)
-            .setSmallIcon(android.R.drawable.ic_menu_recent_history)
-            .setContentIntent(pendingIntent)
-            .setOngoing(true)
-            .setPriority(NotificationCompat.PRIORITY_LOW)
-            .setSilent(true)
+        val chronometerTarget = content.chronometerTargetMillis
+        val notification = notificationBuilder
+            .setContentTitle(content.title)
+            .setContentText(content.text ?: getString(R.string.countdown_final_hour))
+            .setUsesChronometer(chronometerTarget != null)
+            .setChronometerCountDown(chronometerTarget != null)
+            .setShowWhen(chronometerTarget != null)
+            .setWhen(chronometerTarget ?: 0L)
             .build()
         
-        startForeground(NOTIFICATION_ID, notification)
-    }
-    
-    private fun sendExpiredNotification(event: CountdownEvent) {
-        val intent = Intent(this, MainActivity::class.java).apply {
-            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
+        if (isForeground) {
+            getSystemService(NotificationManager::class.java).notify(NOTIFICATION_ID, notification)
+        } else {
+            startForeground(NOTIFICATION_ID, notification)
+            isForeground = true
         }
-        
-        val pendingIntent = PendingIntent.getActivity(
-            this,
-            0,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
-        )
-        
-        val notification = NotificationCompat.Builder(this, CHANNEL_ID)
-            .setContentTitle(getString(R.string.expired))
-            .setContentText(getString(R.string.event_reached_target, event.title))
-            .setSmallIcon(android.R.drawable.ic_dialog_info)
-            .setContentIntent(pendingIntent)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setAutoCancel(true)
-            .build()
-        
-        val notificationManager = getSystemService(NotificationManager::class.java)
-        notificationManager.notify(event.id.toInt(), notification)
+        postedContent = content
+        notificationPostMeter.recordPost()
     }
     
     override fun onBind(intent: Intent?): IBinder? = null
@@ -0,0 +1,232 @@
+package com.countjoy.service
+
+import com.countjoy.domain.model.CategoryDistribution
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.DateCount
+import com.countjoy.domain.model.EventAggregates
+import com.countjoy.domain.model.EventStatistics
+import com.countjoy.domain.model.HeatmapCell
+import com.countjoy.domain.model.HistogramBin
+import com.countjoy.domain.model.ProductivityInsights
+import java.time.DayOfWeek
+import java.time.Duration
+import java.time.LocalDate
+import java.util.PriorityQueue
+
+/**
+ * Builds every event-based part of an analytics report in a single pass.
+ *
+ * Events are fed one at a time with [add], so a caller can stream them from
+ * the database in chunks. Only counters are kept per event: memory is bounded
+ * by the number of categories, priorities and distinct days, plus the
+ * [topCount] events of each top list, never by the number of events.
+ *
+ * Counts the database has already grouped into buckets can be merged in
+ * with [addAggregates] instead; only those carry milestone achievements.
+ */
+internal class EventAnalyticsAggregator(
+    private val nowMillis: Long,
+    private val today: LocalDate = LocalDate.now(),
+    private val topCount: Int = 5
+) {
+
+    companion object {
+        private const val MILLIS_PER_WEEK = 7 * 86_400_000L
+
+        fun categoryColor(category: String): Int {
+            // Generate a color based on category name hash
+            return category.hashCode() or 0xFF000000.toInt()
+        }
+    }
+
+    /** A mutable count, so incrementing a map entry does not box. */
+    private class Counter(var value: Int = 0)
+
+    private var total = 0
+    private var completed = 0
+    private var completedDurationMillis = 0L
+    private var earliestCreatedMillis = Long.MAX_VALUE
+
+    // Insertion ordered, so ties keep the order events were read in
+    private val categoryCounts = LinkedHashMap<String, Counter>()
+    private val priorityCounts = LinkedHashMap<Int, Counter>()
+    private val createdByDay = HashMap<Long, Counter>()
+    private val completedByDay = HashMap<Long, Counter>()
+    private val achievedByDay = HashMap<Long, Counter>()
+    private val activity = ActivityHistogram()
+
+    // Heaps ordered worst-first, so the head is the one to drop
+    private val upcoming = PriorityQueue<CountdownEvent>(topCount + 1, compareByDescending { it.targetEpochMillis })
+    private val recentlyCompleted = PriorityQueue<CountdownEvent>(topCount + 1, compareBy { it.targetEpochMillis })
+
+    /**
+     * Number of events currently held for the top lists, at most twice [topCount].
+     */
+    val retainedEvents: Int get() = upcoming.size + recentlyCompleted.size
+
+    /**
+     * Number of day buckets of the trends.
+     */
+    val dayBuckets: Int get() = createdByDay.size + completedByDay.size + achievedByDay.size
+
+    fun add(event: CountdownEvent) {
+        total++
+        categoryCounts.getOrPut(event.category) { Counter() }.value++
+        priorityCounts.getOrPut(event.priority) { Counter() }.value++
+
+        val createdAt = event.createdAt
+        createdByDay.getOrPut(createdAt.toLocalDate().toEpochDay()) { Counter() }.value++
+        activity.recordActivity(createdAt.dayOfWeek, createdAt.hour)
+        activity.recordDuration(event.targetEpochMillis - event.createdAtEpochMillis)
+        earliestCreatedMillis = minOf(earliestCreatedMillis, event.createdAtEpochMillis)
+
+        if (event.isActive) {
+            if (event.targetEpochMillis > nowMillis) {
+                offer(upcoming, event)
+            }
+        } else {
+            completed++
+            completedDurationMillis += event.targetEpochMillis - event.createdAtEpochMillis
+            completedByDay.getOrPut(event.targetDateTime.toLocalDate().toEpochDay()) { Counter() }.value++
+            offer(recentlyCompleted, event)
+        }
+    }
+
+    fun addAggregates(aggregates: EventAggregates) {
+        total += aggregates.totalEvents
+        completed += aggregates.completedEvents
+        completedDurationMillis += aggregates.completedDurationMillis
+        aggregates.earliestCreatedMillis?.let { earliestCreatedMillis = minOf(earliestCreatedMillis, it) }
+
+        aggregates.eventsByCategory.forEach { (category, count) ->
+            categoryCounts.getOrPut(category) { Counter() }.value += count
+        }
+        aggregates.eventsByPriority.forEach { (priority, count) ->
+            priorityCounts.getOrPut(priority) { Counter() }.value += count
+        }
+        aggregates.creationTrend.forEach { createdByDay.getOrPut(it.date.toEpochDay()) { Counter() }.value += it.count }
+        aggregates.completionTrend.forEach { completedByDay.getOrPut(it.date.toEpochDay()) { Counter() }.value += it.count }
+        aggregates.achievementTrend.forEach { achievedByDay.getOrPut(it.date.toEpochDay()) { Counter() }.value += it.count }
+        aggregates.creationByWeekdayHour.forEach { activity.recordActivity(it.dayOfWeek, it.hour, it.count) }
+        aggregates.durationBins.forEach { (bin, count) -> activity.addDurationBin(bin, count) }
+        aggregates.upcomingEvents.forEach { offer(upcoming, it) }
+        aggregates.recentlyCompleted.forEach { offer(recentlyCompleted, it) }
+    }
+
+    fun statistics(): EventStatistics {
+        return EventStatistics(
+            totalEvents = total,
+            activeEvents = total - completed,
+            completedEvents = completed,
+            averageDuration = averageCompletionDuration(),
+            successRate = if (total > 0) (completed.toFloat() / total.toFloat()) * 100 else 0f,
+            eventsByCategory = categoryCounts.mapValues { it.value.value },
+            eventsByPriority = priorityCounts.mapValues { it.value.value },
+            creationTrend = trend(createdByDay),
+            completionTrend = trend(completedByDay),
+            upcomingEvents = upcoming.sortedBy { it.targetEpochMillis },
+            recentlyCompleted = recentlyCompleted.sortedByDescending { it.targetEpochMillis },
+            achievementTrend = trend(achievedByDay)
+        )
+    }
+
+    fun categoryDistribution(): List<CategoryDistribution> {
+        return categoryCounts.map { (category, count) ->
+            CategoryDistribution(
+                category = category,
+                count = count.value,
+                percentage = if (total > 0) (count.value.toFloat() / total.toFloat()) * 100 else 0f,
+                color = categoryColor(category)
+            )
+        }.sortedByDescending { it.count }
+    }
+
+    fun productivityInsights(): ProductivityInsights {
+        val mostProductiveDay = if (total > 0) {
+            DayOfWeek.values()[indexOfMax(activity.activityByDayOfWeek())].name
+        } else {
+            "N/A"
+        }
+        val mostProductiveHour = if (total > 0) indexOfMax(activity.activityByHour()) else 0
+
+        val earliestCreated = if (total > 0) earliestCreatedMillis else nowMillis
+        val weeks = ((nowMillis - earliestCreated) / MILLIS_PER_WEEK).coerceAtLeast(1)
+
+        return ProductivityInsights(
+            mostProductiveDay = mostProductiveDay,
+            mostProductiveHour = mostProductiveHour,
+            averageEventsPerWeek = total.toFloat() / weeks,
+            averageCompletionTime = averageCompletionDuration(),
+            streakDays = streakDays(),
+            suggestions = suggestions(mostProductiveDay, mostProductiveHour)
+        )
+    }
+
+    /**
+     * Gets events created per day of week and hour, relative to the busiest.
+     */
+    fun activityHeatmap(): List<HeatmapCell> = activity.heatmap()
+
+    /**
+     * Gets events per countdown length, from creation to target, in
+     * log-scaled bins.
+     */
+    fun durationHistogram(): List<HistogramBin> = activity.durationHistogram()
+
+    private fun offer(heap: PriorityQueue<CountdownEvent>, event: CountdownEvent) {
+        heap.add(event)
+        if (heap.size > topCount) {
+            heap.poll()
+        }
+    }
+
+    private fun averageCompletionDuration(): Duration {
+        return if (completed > 0) Duration.ofMillis(completedDurationMillis / completed) else Duration.ZERO
+    }
+
+    private fun trend(countsByDay: Map<Long, Counter>): List<DateCount> {
+        return countsByDay.entries
+            .sortedBy { it.key }
+            .map { (epochDay, count) -> DateCount(LocalDate.ofEpochDay(epochDay), count.value) }
+    }
+
+    private fun indexOfMax(counts: IntArray): Int {
+        var best = 0
+        for (index in 1 until counts.size) {
+            if (counts[index] > counts[best]) best = index
+        }
+        return best
+    }
+
+    private fun streakDays(): Int {
+        var streak = 0
+        var day = today.toEpochDay()
+        while (createdByDay.containsKey(day)) {
+            streak++
+            day--
+        }
+        return streak
+    }
+
+    private fun suggestions(mostProductiveDay: String, mostProductiveHour: Int): List<String> {
+        val suggestions = mutableListOf<String>()
+
+        if (total == 0) {
+            suggestions.add("Start creating countdown events to track your goals!")
+        } else {
+            suggestions.add("You're most productive on ${mostProductiveDay}s - schedule important events then!")
+            suggestions.add("Your peak productivity hour is ${mostProductiveHour}:00 - use this time wisely!")
+
+            val completionRate = completed.toFloat() / total
+            if (completionRate < 0.5f) {
+                suggestions.add("Try breaking down large goals into smaller milestones")
+            }
+
+            if (total < 5) {
+                suggestions.add("Add more events to better track your progress")
+            }
+        }
+
+        return suggestions
+    }
+}
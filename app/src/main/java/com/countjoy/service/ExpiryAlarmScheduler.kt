@@ -0,0 +1,114 @@
+package com.countjoy.service
+
+import android.app.AlarmManager
+import android.app.PendingIntent
+import android.content.Context
+import android.content.Intent
+import android.net.Uri
+import android.os.Build
+import com.countjoy.domain.repository.ExpiryRepository
+import com.countjoy.receiver.ExpiryAlarmReceiver
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps a single alarm armed, at the soonest pending expiry.
+ *
+ * The next pending expiry (the active event whose expiry at its current
+ * target is the soonest not delivered) is observed through Room and the one
+ * alarm is moved to it, or cancelled when nothing is pending. Arming one
+ * alarm however many events are active keeps the app far below the system's
+ * cap on concurrent alarms. [ExpiryAlarmReceiver] re-arms the next expiry
+ * after each delivery, and the boot receiver calls [rearm], as alarms do not
+ * survive a reboot.
+ */
+@Singleton
+class ExpiryAlarmScheduler @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val expiryRepository: ExpiryRepository
+) {
+    
+    companion object {
+        const val ACTION_EXPIRY = "com.countjoy.action.EXPIRY"
+        const val EXTRA_EVENT_ID = "event_id"
+        const val EXTRA_TARGET_MILLIS = "target_millis"
+    }
+    
+    private val alarmManager: AlarmManager
+        get() = context.getSystemService(AlarmManager::class.java)
+    
+    private val coroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private var observeJob: Job? = null
+    
+    /**
+     * Starts keeping the alarm at the next pending expiry. Safe to call repeatedly.
+     */
+    fun start() {
+        if (observeJob?.isActive == true) return
+        
+        observeJob = coroutineScope.launch {
+            expiryRepository.observeNextPendingExpiry()
+                .map { next -> next?.let { it.event.id to it.targetEpochMillis } }
+                .distinctUntilChanged()
+                .collect { next -> arm(next) }
+        }
+    }
+    
+    /**
+     * Arms the alarm at the next pending expiry, e.g. after the device
+     * rebooted or an expiry was delivered.
+     */
+    suspend fun rearm() {
+        arm(expiryRepository.getNextPendingExpiry()?.let { it.event.id to it.targetEpochMillis })
+    }
+    
+    /**
+     * Moves the alarm to the expiry of [next], an event id and target, or
+     * cancels it if null.
+     */
+    private fun arm(next: Pair<Long, Long>?) {
+        if (next == null) {
+            cancel()
+            return
+        }
+        val (eventId, targetEpochMillis) = next
+        val pendingIntent = alarmIntent(eventId, targetEpochMillis, PendingIntent.FLAG_UPDATE_CURRENT)
+            ?: return
+        
+        // Without the exact alarm permission the expiry may be delivered a few minutes late
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, targetEpochMillis, pendingIntent)
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, targetEpochMillis, pendingIntent)
+        }
+    }
+    
+    private fun cancel() {
+        val pendingIntent = alarmIntent(0L, 0L, PendingIntent.FLAG_NO_CREATE) ?: return
+        alarmManager.cancel(pendingIntent)
+        pendingIntent.cancel()
+    }
+    
+    /**
+     * The one PendingIntent: its intent data is fixed, so arming again
+     * updates the alarm and its extras instead of adding another.
+     */
+    private fun alarmIntent(eventId: Long, targetEpochMillis: Long, flags: Int): PendingIntent? {
+        val intent = Intent(context, ExpiryAlarmReceiver::class.java).apply {
+            action = ACTION_EXPIRY
+            data = Uri.parse("countjoy://expiry/next")
+            putExtra(EXTRA_EVENT_ID, eventId)
+            putExtra(EXTRA_TARGET_MILLIS, targetEpochMillis)
+        }
+        
+        return PendingIntent.getBroadcast(context, 0, intent, flags or PendingIntent.FLAG_IMMUTABLE)
+    }
+}
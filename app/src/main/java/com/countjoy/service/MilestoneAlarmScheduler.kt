@@ -0,0 +1,114 @@
+package com.countjoy.service
+
+import android.app.AlarmManager
+import android.app.PendingIntent
+import android.content.Context
+import android.content.Intent
+import android.net.Uri
+import android.os.Build
+import androidx.work.WorkManager
+import com.countjoy.domain.repository.MilestoneRepository
+import com.countjoy.domain.usecase.milestone.MilestoneTriggers
+import com.countjoy.receiver.MilestoneAlarmReceiver
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps a single exact alarm armed, at the next milestone trigger.
+ *
+ * Every milestone's trigger instant is computed up front from its type and
+ * the event's created and target times. Pending milestones are observed
+ * through Room and the one alarm is moved to the earliest trigger, or
+ * cancelled when nothing is pending, so creating, editing or deleting events
+ * and milestones re-arms it without polling. [MilestoneAlarmReceiver]
+ * re-arms the next trigger after each delivery, and the boot receiver calls
+ * [rearm], as alarms do not survive a reboot.
+ */
+@Singleton
+class MilestoneAlarmScheduler @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val milestoneRepository: MilestoneRepository
+) {
+    
+    companion object {
+        const val ACTION_MILESTONE = "com.countjoy.action.MILESTONE"
+        
+        // Work request that armed the next trigger before the alarm replaced it
+        private const val LEGACY_WORK_NAME = "milestone_trigger_work"
+    }
+    
+    private val alarmManager: AlarmManager
+        get() = context.getSystemService(AlarmManager::class.java)
+    
+    private val coroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private var observeJob: Job? = null
+    
+    /**
+     * Starts keeping the alarm at the next milestone trigger. Safe to call repeatedly.
+     */
+    fun start() {
+        if (observeJob?.isActive == true) return
+        WorkManager.getInstance(context).cancelUniqueWork(LEGACY_WORK_NAME)
+        
+        observeJob = coroutineScope.launch {
+            milestoneRepository.observePendingMilestones()
+                .map { pending -> MilestoneTriggers.nextTriggerMillis(pending, System.currentTimeMillis()) }
+                .distinctUntilChanged()
+                .collect { triggerAtMillis -> arm(triggerAtMillis) }
+        }
+    }
+    
+    /**
+     * Arms the alarm at the next milestone trigger, e.g. after the device
+     * rebooted or milestones were delivered.
+     */
+    suspend fun rearm() {
+        val pending = milestoneRepository.getPendingMilestones()
+        arm(MilestoneTriggers.nextTriggerMillis(pending, System.currentTimeMillis()))
+    }
+    
+    /**
+     * Moves the alarm to [triggerAtMillis], or cancels it if null.
+     */
+    private fun arm(triggerAtMillis: Long?) {
+        if (triggerAtMillis == null) {
+            cancel()
+            return
+        }
+        val pendingIntent = alarmIntent(PendingIntent.FLAG_UPDATE_CURRENT) ?: return
+        
+        // Without the exact alarm permission the milestone may be delivered a few minutes late
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent)
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent)
+        }
+    }
+    
+    private fun cancel() {
+        val pendingIntent = alarmIntent(PendingIntent.FLAG_NO_CREATE) ?: return
+        alarmManager.cancel(pendingIntent)
+        pendingIntent.cancel()
+    }
+    
+    /**
+     * The one PendingIntent: its intent data is fixed, so arming again
+     * moves the alarm instead of adding another.
+     */
+    private fun alarmIntent(flags: Int): PendingIntent? {
+        val intent = Intent(context, MilestoneAlarmReceiver::class.java).apply {
+            action = ACTION_MILESTONE
+            data = Uri.parse("countjoy://milestone/next")
+        }
+        
+        return PendingIntent.getBroadcast(context, 0, intent, flags or PendingIntent.FLAG_IMMUTABLE)
+    }
+}
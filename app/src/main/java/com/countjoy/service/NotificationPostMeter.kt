@@ -0,0 +1,55 @@
+package com.countjoy.service
+
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Counts countdown notification posts so their rate can be checked on device.
+ *
+ * Every post is an IPC to system_server, so the ongoing notification should
+ * be posted a handful of times per hour, not once per second.
+ */
+@Singleton
+class NotificationPostMeter internal constructor(
+    private val clock: () -> Long
+) {
+
+    @Inject
+    constructor() : this({ System.currentTimeMillis() })
+
+    companion object {
+        private const val HOUR = 3_600_000L
+    }
+
+    private val recentPosts = ArrayDeque<Long>()
+
+    /**
+     * Number of posts since the process started.
+     */
+    @Volatile
+    var totalPosts: Long = 0
+        private set
+
+    @Synchronized
+    fun recordPost() {
+        val now = clock()
+        totalPosts++
+        recentPosts.addLast(now)
+        pruneOlderThanAnHour(now)
+    }
+
+    /**
+     * Number of posts within the last hour.
+     */
+    @Synchronized
+    fun postsInLastHour(): Int {
+        pruneOlderThanAnHour(clock())
+        return recentPosts.size
+    }
+
+    private fun pruneOlderThanAnHour(now: Long) {
+        while (recentPosts.isNotEmpty() && recentPosts.first() <= now - HOUR) {
+            recentPosts.removeFirst()
+        }
+    }
+}
@@ -1,14 +1,28 @@
 package com.countjoy.service
 
+import com.countjoy.di.DefaultDispatcher
 import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.EventOccurrence
 import com.countjoy.domain.model.RecurrenceCalculator
+import com.countjoy.domain.model.RecurrenceCatchUpReport
+import com.countjoy.domain.model.RecurrenceEndType
+import com.countjoy.domain.model.RecurrenceException
 import com.countjoy.domain.model.RecurrenceRule
+import com.countjoy.domain.model.RecurringSeries
+import com.countjoy.domain.model.SeriesAdvance
+import com.countjoy.domain.model.toEpochMillis
 import com.countjoy.domain.repository.EventRepository
 import com.countjoy.domain.repository.RecurrenceRuleRepository
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.withContext
 import java.time.LocalDate
 import java.time.LocalDateTime
-import java.time.ZoneId
-import java.util.UUID
 import javax.inject.Inject
 import javax.inject.Singleton
 
@@ -16,63 +30,86 @@ import javax.inject.Singleton
 class RecurrenceGeneratorService @Inject constructor(
     private val eventRepository: EventRepository,
     private val recurrenceRuleRepository: RecurrenceRuleRepository,
-    private val recurrenceCalculator: RecurrenceCalculator
+    private val recurrenceCalculator: RecurrenceCalculator,
+    @DefaultDispatcher private val defaultDispatcher: CoroutineDispatcher
 ) {
     
     /**
-     * Generate the next occurrence of a recurring event
+     * Advance a recurring event to its next occurrence. Occurrences are
+     * computed from the master event and its rule, so nothing is stored but
+     * the dates the rule is next due on and the occurrence the master event
+     * counts down to.
      */
-    suspend fun generateNextOccurrence(
-        originalEvent: CountdownEvent,
-        recurrenceRule: RecurrenceRule
-    ): CountdownEvent? {
-        val nextOccurrences = recurrenceCalculator.calculateNextOccurrences(
-            rule = recurrenceRule,
-            startDate = originalEvent.targetDateTime,
-            count = 1
-        )
-        
-        if (nextOccurrences.isEmpty()) {
-            return null
-        }
-        
-        val nextDateTime = nextOccurrences.first()
-        val nextInstant = nextDateTime.atZone(ZoneId.systemDefault()).toInstant()
-        
-        // Create new event based on the original
-        val newEvent = originalEvent.copy(
-            id = System.currentTimeMillis(),
-            targetDateTime = nextDateTime,
-            createdAt = LocalDateTime.now(),
-            updatedAt = LocalDateTime.now()
-        )
-        
-        // Save the new event
-        eventRepository.createEvent(newEvent)
-        
-        // Update the recurrence rule with the last and next occurrence dates
-        recurrenceRuleRepository.updateOccurrenceDates(
-            ruleId = recurrenceRule.id,
-            lastDate = LocalDate.now(),
-            nextDate = nextDateTime.toLocalDate()
-        )
-        
-        return newEvent
+    suspend fun advanceToNextOccurrence(
+        masterEvent: CountdownEvent,
+        recurrenceRule: RecurrenceRule,
+        now: LocalDateTime = LocalDateTime.now()
+    ): EventOccurrence? {
+        val next = recurrenceCalculator.currentInstance(RecurringSeries(masterEvent, recurrenceRule), now)
+        recurrenceRuleRepository.advanceSeries(listOf(seriesAdvance(masterEvent, recurrenceRule, now, next)))
+        return next
+    }
+    
+    /**
+     * Move a recurring event to the occurrence it is at by [now], after its
+     * rule or one of its occurrences changed or an occurrence passed. Does
+     * nothing for an event that does not recur.
+     */
+    suspend fun syncNextOccurrence(eventId: String, now: LocalDateTime = LocalDateTime.now()) {
+        val masterEvent = eventRepository.getEvent(eventId) ?: return
+        val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(eventId) ?: return
+        advanceToNextOccurrence(masterEvent, rule, now)
     }
     
     /**
-     * Check all recurring events and generate new occurrences if needed
+     * Catch up on every recurring event that fell due, however long ago.
+     * Each series jumps straight to its next occurrence and the ones it
+     * passed are counted, not walked, so a run costs the same after a day
+     * or a month offline: linear in the due rules. The new dates are
+     * written a batch of series per transaction.
      */
-    suspend fun checkAndGenerateRecurringEvents() {
-        val today = LocalDate.now()
-        val dueRules = recurrenceRuleRepository.getRecurrenceRulesDueBy(today)
+    suspend fun checkAndGenerateRecurringEvents(now: LocalDateTime = LocalDateTime.now()): RecurrenceCatchUpReport {
+        val dueRules = recurrenceRuleRepository.getRecurrenceRulesDueBy(now.toLocalDate())
+        if (dueRules.isEmpty()) {
+            return RecurrenceCatchUpReport()
+        }
+        // One read for every master instead of one per rule
+        val masterEvents = eventRepository.getActiveEvents().first().associateBy { it.id.toString() }
         
-        for (rule in dueRules) {
-            val originalEvent = eventRepository.getEvent(rule.eventId)
-            if (originalEvent != null && originalEvent.isActive) {
-                generateNextOccurrence(originalEvent, rule)
+        val advances = ArrayList<SeriesAdvance>(dueRules.size)
+        val skippedOccurrences = HashMap<String, Long>()
+        val skippedRules = ArrayList<String>()
+        var ended = 0
+        withContext(defaultDispatcher) {
+            for (rule in dueRules) {
+                val masterEvent = masterEvents[rule.eventId]
+                if (masterEvent == null) {
+                    skippedRules += rule.id
+                    continue
+                }
+                val series = RecurringSeries(masterEvent, rule)
+                val dueFrom = rule.nextOccurrenceDate?.atStartOfDay() ?: masterEvent.targetDateTime
+                val passed = recurrenceCalculator.countBetween(series, dueFrom, now)
+                if (passed > 0) {
+                    skippedOccurrences[rule.id] = passed
+                }
+                val next = recurrenceCalculator.currentInstance(series, now)
+                if (next == null) {
+                    ended++
+                }
+                advances += seriesAdvance(masterEvent, rule, now, next)
             }
         }
+        
+        advances.chunked(CATCH_UP_BATCH_SIZE).forEach { batch ->
+            recurrenceRuleRepository.advanceSeries(batch)
+        }
+        return RecurrenceCatchUpReport(
+            advanced = advances.size - ended,
+            ended = ended,
+            skippedOccurrences = skippedOccurrences,
+            skippedRules = skippedRules
+        )
     }
     
     /**
@@ -91,36 +128,162 @@ class RecurrenceGeneratorService @Inject constructor(
     }
     
     /**
-     * Delete all future occurrences of a recurring event
+     * Lazily list the occurrences of a recurring event from [from] on, the
+     * event's own target being the first
+     */
+    fun occurrences(
+        event: CountdownEvent,
+        rule: RecurrenceRule,
+        from: LocalDateTime = event.targetDateTime
+    ): Sequence<LocalDateTime> {
+        return recurrenceCalculator.occurrences(rule, event.targetDateTime, from)
+    }
+    
+    /**
+     * Lazily list the occurrences of all [series] from [from] up to, not
+     * including, [to], in date order. Only the occurrences the caller takes
+     * are computed.
+     */
+    fun expandWindow(
+        series: Collection<RecurringSeries>,
+        from: LocalDateTime,
+        to: LocalDateTime
+    ): Sequence<EventOccurrence> {
+        return recurrenceCalculator.expandWindow(series, from, to)
+    }
+    
+    /**
+     * Emit the occurrences of every active recurring event from [from] up to,
+     * not including, [to], in date order. The series are loaded when the
+     * flow is collected; occurrences are computed as they are emitted, so a
+     * collector that stops early, e.g. with take, stops the expansion too.
+     */
+    fun occurrencesBetween(from: LocalDateTime, to: LocalDateTime): Flow<EventOccurrence> = flow {
+        emitAll(expandWindow(getActiveSeries(), from, to).asFlow())
+    }.flowOn(defaultDispatcher)
+    
+    /**
+     * Get every active event that has a recurrence rule, with its rule
      */
-    suspend fun deleteFutureOccurrences(eventId: String) {
-        // This would need to track parent-child relationships
-        // For now, just delete the recurrence rule
-        recurrenceRuleRepository.deleteRecurrenceRuleByEventId(eventId)
+    suspend fun getActiveSeries(): List<RecurringSeries> {
+        val rules = recurrenceRuleRepository.getAllRecurrenceRules()
+        if (rules.isEmpty()) {
+            return emptyList()
+        }
+        val events = eventRepository.getActiveEvents().first().associateBy { it.id.toString() }
+        return rules.mapNotNull { rule ->
+            events[rule.eventId]?.let { event -> RecurringSeries(event, rule) }
+        }
     }
     
     /**
-     * Update a single occurrence vs all occurrences
+     * End a recurring event before [from], dropping its occurrences from
+     * then on along with any changes made to them. Ending it before its
+     * first occurrence removes the recurrence altogether.
+     */
+    suspend fun deleteFutureOccurrences(eventId: String, from: LocalDate = LocalDate.now()) {
+        val masterEvent = eventRepository.getEvent(eventId) ?: return
+        val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(eventId) ?: return
+        
+        if (from <= masterEvent.targetDateTime.toLocalDate()) {
+            recurrenceRuleRepository.deleteRecurrenceRule(rule)
+            return
+        }
+        val endDate = from.minusDays(1)
+        if (rule.endType == RecurrenceEndType.BY_DATE && rule.endDate != null && rule.endDate <= endDate) {
+            return
+        }
+        recurrenceRuleRepository.updateRecurrenceRule(
+            rule.copy(endType = RecurrenceEndType.BY_DATE, endDate = endDate, occurrenceCount = null)
+        )
+        recurrenceRuleRepository.deleteOccurrenceExceptionsFrom(rule.id, from)
+        syncNextOccurrence(eventId)
+    }
+    
+    /**
+     * Cancel a single occurrence of a recurring event
+     */
+    suspend fun cancelOccurrence(occurrence: EventOccurrence) {
+        val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(occurrence.event.id.toString()) ?: return
+        recurrenceRuleRepository.saveOccurrenceException(
+            ruleId = rule.id,
+            exception = RecurrenceException(originalDate = occurrence.originalDate, isCancelled = true)
+        )
+        syncNextOccurrence(rule.eventId)
+    }
+    
+    /**
+     * Undo the cancellation or changes of a single occurrence, so it follows
+     * its series again
+     */
+    suspend fun restoreOccurrence(occurrence: EventOccurrence) {
+        val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(occurrence.event.id.toString()) ?: return
+        recurrenceRuleRepository.deleteOccurrenceException(rule.id, occurrence.originalDate)
+        syncNextOccurrence(rule.eventId)
+    }
+    
+    /**
+     * Update a single occurrence vs all occurrences.
+     *
+     * Updating all of them changes the master event's details; its schedule
+     * is the rule's and stays as it is. Updating one stores only what differs
+     * from its series: a new date and time, title or description.
      */
     suspend fun updateOccurrence(
-        event: CountdownEvent,
+        occurrence: EventOccurrence,
+        updated: CountdownEvent,
         updateAll: Boolean
     ) {
+        val masterEvent = eventRepository.getEvent(occurrence.event.id.toString()) ?: return
         if (updateAll) {
-            // Update the master event and regenerate future occurrences
-            eventRepository.updateEvent(event)
-            // Would need to update all future occurrences
-        } else {
-            // Just update this single occurrence
-            eventRepository.updateEvent(event)
-            // Mark it as an exception in the recurrence rule
-            val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(event.id.toString())
-            if (rule != null) {
-                val updatedRule = rule.copy(
-                    exceptions = rule.exceptions + LocalDate.now()
+            eventRepository.updateEvent(
+                updated.copy(
+                    id = masterEvent.id,
+                    targetEpochMillis = masterEvent.targetEpochMillis,
+                    createdAtEpochMillis = masterEvent.createdAtEpochMillis,
+                    updatedAtEpochMillis = System.currentTimeMillis()
                 )
-                recurrenceRuleRepository.updateRecurrenceRule(updatedRule)
-            }
+            )
+            return
+        }
+        
+        val rule = recurrenceRuleRepository.getRecurrenceRuleByEventId(masterEvent.id.toString()) ?: return
+        val ruleDateTime = occurrence.originalDate.atTime(masterEvent.targetDateTime.toLocalTime())
+        val exception = RecurrenceException(
+            originalDate = occurrence.originalDate,
+            targetDateTime = updated.targetDateTime.takeIf { it != ruleDateTime },
+            title = updated.title.takeIf { it != masterEvent.title },
+            description = updated.description.takeIf { it != masterEvent.description }
+        )
+        if (exception == RecurrenceException(occurrence.originalDate)) {
+            recurrenceRuleRepository.deleteOccurrenceException(rule.id, occurrence.originalDate)
+        } else {
+            recurrenceRuleRepository.saveOccurrenceException(rule.id, exception)
         }
+        syncNextOccurrence(rule.eventId)
+    }
+    
+    /**
+     * What advancing [rule] at [now] stores; a series that has ended is no
+     * longer due and its event counts down to its own target again
+     */
+    private fun seriesAdvance(
+        masterEvent: CountdownEvent,
+        rule: RecurrenceRule,
+        now: LocalDateTime,
+        next: EventOccurrence?
+    ): SeriesAdvance {
+        return SeriesAdvance(
+            ruleId = rule.id,
+            eventId = masterEvent.id,
+            lastDate = now.toLocalDate(),
+            nextDate = next?.dateTime?.toLocalDate(),
+            nextOccurrenceEpochMillis = next?.dateTime?.toEpochMillis() ?: masterEvent.targetEpochMillis
+        )
+    }
+    
+    companion object {
+        /** Series whose new dates are written per transaction. */
+        private const val CATCH_UP_BATCH_SIZE = 500
     }
-}
\ No newline at end of file
+}
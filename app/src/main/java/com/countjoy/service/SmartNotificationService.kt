@@ -166,6 +166,24 @@ class SmartNotificationService @Inject constructor(
         }
     }
     
+    /**
+     * Shows that an event has reached its target time
+     */
+    fun showExpiredNotification(event: CountdownEvent) {
+        val notification = NotificationCompat.Builder(context, CHANNEL_MILESTONES)
+            .setContentTitle(context.getString(R.string.expired))
+            .setContentText(context.getString(R.string.event_reached_target, event.title))
+            .setSmallIcon(android.R.drawable.ic_dialog_info)
+            .setContentIntent(createContentIntent(event))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setAutoCancel(true)
+            .build()
+        
+        with(NotificationManagerCompat.from(context)) {
+            notify(event.id.toInt(), notification)
+        }
+    }
+    
     /**
      * Shows bundled notifications for multiple events
      */
@@ -0,0 +1,49 @@
+package com.countjoy.worker
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.countjoy.domain.repository.AnalyticsRepository
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+
+/**
+ * Backfills the analytics daily rollup from the existing events and
+ * milestones: after the upgrade that adds it, and after a timezone change
+ * moves the local day boundaries. Triggers keep it current from then on.
+ */
+@HiltWorker
+class AnalyticsRollupWorker @AssistedInject constructor(
+    @Assisted context: Context,
+    @Assisted params: WorkerParameters,
+    private val analyticsRepository: AnalyticsRepository
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        const val WORK_NAME = "analytics_rollup_backfill"
+
+        /**
+         * Enqueues a rebuild unless one is already pending. A rebuild that
+         * finds the rollup current does nothing.
+         */
+        fun enqueue(context: Context) {
+            val workRequest = OneTimeWorkRequestBuilder<AnalyticsRollupWorker>().build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, workRequest)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            analyticsRepository.rebuildRollupIfStale()
+            Result.success()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            Result.retry()
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.countjoy.worker
+
+import android.content.Context
+import androidx.work.ExistingWorkPolicy
+import androidx.work.ListenableWorker
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
+import androidx.work.await
+import androidx.work.workDataOf
+import com.countjoy.domain.repository.EventRepository
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Schedules per-event background work without piling up duplicate jobs.
+ *
+ * Each event has at most one pending trigger per [Purpose]. Triggers that
+ * fall into the same coalescing window share one batched unique job, named
+ * after the purpose and window, which the worker reads its event ids from.
+ * Rescheduling an event moves it between batches (REPLACE), and events that
+ * are deleted or deactivated are dropped from every batch. A batch that is
+ * already running is never replaced; triggers falling into its window go to
+ * the next window instead.
+ */
+@Singleton
+class EventWorkScheduler @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val eventRepository: EventRepository
+) {
+
+    /**
+     * Kinds of per-event work, each with its own coalescing window.
+     */
+    enum class Purpose(
+        val key: String,
+        val windowMillis: Long,
+        val workerClass: Class<out ListenableWorker>
+    ) {
+        ADAPTIVE_CHECK("adaptive_check", TimeUnit.MINUTES.toMillis(15), EnhancedMilestoneCheckWorker::class.java),
+        SUGGESTED_REMINDER("suggested_reminder", TimeUnit.MINUTES.toMillis(5), SnoozeReminderWorker::class.java),
+        SNOOZE("snooze", TimeUnit.MINUTES.toMillis(1), SnoozeReminderWorker::class.java);
+
+        internal val tag: String get() = "purpose:$key"
+
+        /**
+         * Start of the window [atMillis] is coalesced into. Rounds up, so
+         * work never runs before it was asked to.
+         */
+        internal fun windowFor(atMillis: Long): Long {
+            return Math.floorDiv(atMillis + windowMillis - 1, windowMillis) * windowMillis
+        }
+
+        /**
+         * Like [windowFor], skipping ahead past windows whose job is running,
+         * since re-enqueueing a running unique job would cancel it.
+         */
+        internal fun windowFor(atMillis: Long, runningWindows: Set<Long>): Long {
+            var window = windowFor(atMillis)
+            while (window in runningWindows) window += windowMillis
+            return window
+        }
+    }
+
+    /**
+     * Pending work for one purpose, for the debug view.
+     */
+    data class PendingWorkSummary(
+        val purpose: Purpose,
+        val jobs: Int,
+        val events: Int
+    )
+
+    companion object {
+        const val KEY_PURPOSE = "purpose"
+        private const val EVENT_TAG_PREFIX = "event:"
+        private const val WINDOW_TAG_PREFIX = "window:"
+
+        /**
+         * Gets the ids of the events a batched job was scheduled for.
+         */
+        fun eventIds(tags: Set<String>): List<Long> {
+            return tags.mapNotNull { tag ->
+                tag.takeIf { it.startsWith(EVENT_TAG_PREFIX) }?.removePrefix(EVENT_TAG_PREFIX)?.toLongOrNull()
+            }
+        }
+
+        private fun windowOf(tags: Set<String>): Long? {
+            return tags.firstNotNullOfOrNull { tag ->
+                tag.takeIf { it.startsWith(WINDOW_TAG_PREFIX) }?.removePrefix(WINDOW_TAG_PREFIX)?.toLongOrNull()
+            }
+        }
+
+        private fun uniqueName(purpose: Purpose, window: Long) = "${purpose.key}_$window"
+    }
+
+    private val workManager: WorkManager
+        get() = WorkManager.getInstance(context)
+
+    private val mutex = Mutex()
+    private val coroutineScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+    private var observeJob: Job? = null
+
+    /**
+     * Starts dropping work for events that are deleted or deactivated.
+     * Safe to call repeatedly.
+     */
+    fun start() {
+        if (observeJob?.isActive == true) return
+
+        observeJob = coroutineScope.launch {
+            eventRepository.getActiveEvents()
+                .map { events -> events.mapTo(HashSet()) { it.id } }
+                .distinctUntilChanged()
+                .collect { activeIds -> retainEvents(activeIds) }
+        }
+    }
+
+    /**
+     * Sets the next trigger of [purpose] for each event in [triggers], given
+     * as event id to epoch millis. Any earlier trigger of the same purpose for
+     * those events is replaced.
+     */
+    suspend fun schedule(purpose: Purpose, triggers: Map<Long, Long>) {
+        if (triggers.isEmpty()) return
+
+        mutex.withLock {
+            val windows = workWindows(purpose)
+            val before = windows.pending
+            val after = before.mapValuesTo(HashMap()) { it.value.toMutableSet() }
+            for ((eventId, atMillis) in triggers) {
+                after.values.forEach { it.remove(eventId) }
+                after.getOrPut(purpose.windowFor(atMillis, windows.running)) { mutableSetOf() }.add(eventId)
+            }
+            applyWindows(purpose, before, after)
+        }
+    }
+
+    /**
+     * Sets the next trigger of [purpose] for a single event.
+     */
+    suspend fun schedule(purpose: Purpose, eventId: Long, atMillis: Long) {
+        schedule(purpose, mapOf(eventId to atMillis))
+    }
+
+    /**
+     * Drops all pending work for the given events.
+     */
+    suspend fun cancelForEvents(eventIds: Set<Long>) {
+        if (eventIds.isEmpty()) return
+        updateAll { windows -> windows.values.forEach { it.removeAll(eventIds) } }
+    }
+
+    /**
+     * Counts pending batched jobs and the events they cover, per purpose.
+     */
+    suspend fun pendingWork(): List<PendingWorkSummary> {
+        return Purpose.values().map { purpose ->
+            val windows = workWindows(purpose).pending
+            PendingWorkSummary(
+                purpose = purpose,
+                jobs = windows.size,
+                events = windows.values.sumOf { it.size }
+            )
+        }
+    }
+
+    private suspend fun retainEvents(activeIds: Set<Long>) {
+        updateAll { windows -> windows.values.forEach { it.retainAll(activeIds) } }
+    }
+
+    private suspend fun updateAll(change: (MutableMap<Long, MutableSet<Long>>) -> Unit) {
+        mutex.withLock {
+            for (purpose in Purpose.values()) {
+                val before = workWindows(purpose).pending
+                val after = before.mapValuesTo(HashMap()) { it.value.toMutableSet() }
+                change(after)
+                applyWindows(purpose, before, after)
+            }
+        }
+    }
+
+    /**
+     * Jobs of one purpose by window: the events of each not-yet-running job,
+     * and the windows whose job is running.
+     */
+    private class WorkWindows(val pending: Map<Long, Set<Long>>, val running: Set<Long>)
+
+    /**
+     * Reads the jobs of [purpose]. Running jobs are only reported, never
+     * changed, so they are not cancelled halfway.
+     */
+    private suspend fun workWindows(purpose: Purpose): WorkWindows {
+        val infos = workManager.getWorkInfosByTag(purpose.tag).await()
+        return WorkWindows(
+            pending = infos
+                .filter { it.state == WorkInfo.State.ENQUEUED || it.state == WorkInfo.State.BLOCKED }
+                .mapNotNull { info -> windowOf(info.tags)?.let { it to eventIds(info.tags).toSet() } }
+                .toMap(),
+            running = infos
+                .filter { it.state == WorkInfo.State.RUNNING }
+                .mapNotNullTo(HashSet()) { windowOf(it.tags) }
+        )
+    }
+
+    private fun applyWindows(purpose: Purpose, before: Map<Long, Set<Long>>, after: Map<Long, Set<Long>>) {
+        for (window in before.keys + after.keys) {
+            val events = after[window].orEmpty()
+            if (events == before[window].orEmpty()) continue
+
+            if (events.isEmpty()) {
+                workManager.cancelUniqueWork(uniqueName(purpose, window))
+            } else {
+                enqueue(purpose, window, events)
+            }
+        }
+    }
+
+    private fun enqueue(purpose: Purpose, window: Long, eventIds: Set<Long>) {
+        val delayMillis = (window - System.currentTimeMillis()).coerceAtLeast(0L)
+        val request = OneTimeWorkRequest.Builder(purpose.workerClass)
+            .setInitialDelay(delayMillis, TimeUnit.MILLISECONDS)
+            .setInputData(workDataOf(KEY_PURPOSE to purpose.key))
+            .addTag(purpose.tag)
+            .addTag(WINDOW_TAG_PREFIX + window)
+            .apply { eventIds.forEach { addTag(EVENT_TAG_PREFIX + it) } }
+            .build()
+
+        workManager.enqueueUniqueWork(uniqueName(purpose, window), ExistingWorkPolicy.REPLACE, request)
+    }
+}
@@ -0,0 +1,50 @@
+package com.countjoy.worker
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.countjoy.service.RecurrenceGeneratorService
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+
+/**
+ * Moves every recurring event whose occurrence passed while the app was not
+ * running on to its current occurrence: after the upgrade that stores it,
+ * and after the device was off when an expiry alarm was due. The expiry
+ * alarm keeps the series current from then on.
+ */
+@HiltWorker
+class RecurrenceCatchUpWorker @AssistedInject constructor(
+    @Assisted context: Context,
+    @Assisted params: WorkerParameters,
+    private val recurrenceGeneratorService: RecurrenceGeneratorService
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        const val WORK_NAME = "recurrence_catch_up"
+
+        /**
+         * Enqueues a catch-up unless one is already pending. A catch-up that
+         * finds no series due does nothing.
+         */
+        fun enqueue(context: Context) {
+            val workRequest = OneTimeWorkRequestBuilder<RecurrenceCatchUpWorker>().build()
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, workRequest)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        return try {
+            recurrenceGeneratorService.checkAndGenerateRecurringEvents()
+            Result.success()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            Result.retry()
+        }
+    }
+}
@@ -15,7 +15,8 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 
 /**
- * Worker to handle snoozed reminder notifications
+ * Worker to handle snoozed and suggested reminder notifications.
+ * One run covers every event coalesced into its batch by [EventWorkScheduler].
  */
 @HiltWorker
 class SnoozeReminderWorker @AssistedInject constructor(
@@ -27,31 +28,35 @@ class SnoozeReminderWorker @AssistedInject constructor(
     
     override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
         try {
-            val eventId = inputData.getLong("event_id", -1)
-            val snoozeMinutes = inputData.getInt("snooze_minutes", 60)
+            // Batched jobs carry their events as tags, older requests as input data
+            val eventIds = EventWorkScheduler.eventIds(tags)
+                .ifEmpty { listOf(inputData.getLong("event_id", -1)).filter { it != -1L } }
             
-            if (eventId == -1L) {
+            if (eventIds.isEmpty()) {
                 return@withContext Result.failure()
             }
             
-            // Get the event
-            val event = eventRepository.getEventById(eventId.toString())
-                ?: return@withContext Result.failure()
-            
-            // Create notification config for snoozed reminder
-            val config = NotificationConfig(
-                eventId = eventId,
-                channelType = NotificationChannelType.REMINDERS,
-                enableQuickActions = true,
-                snoozeOptions = listOf(60, 180, 1440) // 1h, 3h, 1 day
-            )
-            
-            // Show the snoozed reminder notification
-            smartNotificationService.showSmartNotification(
-                event = event,
-                config = config,
-                notificationType = NotificationType.REMINDER
-            )
+            eventIds.forEach { eventId ->
+                // Skip events deleted or deactivated since the reminder was set
+                val event = eventRepository.getEventById(eventId)
+                    ?.takeIf { it.isActive }
+                    ?: return@forEach
+                
+                // Create notification config for snoozed reminder
+                val config = NotificationConfig(
+                    eventId = eventId,
+                    channelType = NotificationChannelType.REMINDERS,
+                    enableQuickActions = true,
+                    snoozeOptions = listOf(60, 180, 1440) // 1h, 3h, 1 day
+                )
+                
+                // Show the snoozed reminder notification
+                smartNotificationService.showSmartNotification(
+                    event = event,
+                    config = config,
+                    notificationType = NotificationType.REMINDER
+                )
+            }
             
             Result.success()
         } catch (e: Exception) {
@@ -59,4 +64,4 @@ class SnoozeReminderWorker @AssistedInject constructor(
             Result.failure()
         }
     }
-}
\ No newline at end of file
+}
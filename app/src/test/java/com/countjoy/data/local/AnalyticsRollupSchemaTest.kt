@@ -0,0 +1,211 @@
+package com.countjoy.data.local
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.sql.Connection
+import java.sql.DriverManager
+import kotlin.random.Random
+
+/**
+ * Checks that the rollup the triggers maintain row by row always equals the
+ * one AnalyticsRollupDao.insertRollup computes from scratch, across random
+ * event and milestone writes, cascades and replacing inserts.
+ */
+class AnalyticsRollupSchemaTest {
+
+    private lateinit var connection: Connection
+    private val random = Random(19)
+    private var nextMilestoneId = 0
+
+    @Before
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        connection.createStatement().use { statement ->
+            statement.execute("PRAGMA foreign_keys = ON")
+            TestSchema.statements.forEach { statement.execute(it) }
+            DatabaseTuning.PRAGMA_STATEMENTS.forEach { statement.execute(it) }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        connection.close()
+    }
+
+    @Test
+    fun `triggers keep the rollup equal to a rebuild across random writes`() {
+        repeat(WRITES) { randomWrite() }
+
+        val incremental = rollup()
+        rebuild()
+
+        assertTrue(incremental.isNotEmpty())
+        assertEquals(rollup(), incremental)
+    }
+
+    @Test
+    fun `deleting an event retracts its counts and its achieved milestones`() {
+        insertEvent(id = 1, category = "Work", isActive = false)
+        insertMilestone(eventId = 1, achievedAt = BASE_MILLIS + DAY_MILLIS)
+        insertEvent(id = 2, category = "Work", isActive = true)
+
+        execute("DELETE FROM countdown_events WHERE id = 1")
+
+        assertEquals(1L, sum("created_count"))
+        assertEquals(0L, sum("completed_count"))
+        assertEquals(0L, sum("completed_on_count"))
+        assertEquals(0L, sum("achieved_count"))
+    }
+
+    @Test
+    fun `replacing an event retracts the replaced row`() {
+        insertEvent(id = 1, category = "Work", isActive = false)
+        insertMilestone(eventId = 1, achievedAt = BASE_MILLIS + DAY_MILLIS)
+
+        execute(
+            "INSERT OR REPLACE INTO countdown_events (id, title, category, target_date_time, created_at, updated_at, is_active, priority) " +
+                "VALUES (1, 'Restored', 'Home', ${BASE_MILLIS + 3 * DAY_MILLIS}, $BASE_MILLIS, $BASE_MILLIS, 1, 0)"
+        )
+
+        val incremental = rollup()
+        rebuild()
+        assertEquals(rollup(), incremental)
+        assertEquals(1L, sum("created_count"))
+        assertEquals(0L, sum("achieved_count"))
+    }
+
+    @Test
+    fun `moving an event to another category moves its achieved milestones`() {
+        insertEvent(id = 1, category = "Work", isActive = true)
+        insertMilestone(eventId = 1, achievedAt = BASE_MILLIS + DAY_MILLIS)
+
+        execute("UPDATE countdown_events SET category = 'Home' WHERE id = 1")
+
+        assertEquals(0L, sum("achieved_count", "category = 'Work'"))
+        assertEquals(1L, sum("achieved_count", "category = 'Home'"))
+    }
+
+    private fun randomWrite() {
+        val eventIds = ids("SELECT id FROM countdown_events").map { it.toLong() }
+        val milestoneIds = ids("SELECT id FROM milestones")
+        when (random.nextInt(8)) {
+            0, 1 -> insertEvent(
+                id = null,
+                category = CATEGORIES.random(random),
+                isActive = random.nextBoolean()
+            )
+            2 -> if (eventIds.isNotEmpty()) {
+                val column = listOf("category", "priority", "is_active", "target_date_time", "created_at", "title")
+                    .random(random)
+                val value = when (column) {
+                    "category" -> "'${CATEGORIES.random(random)}'"
+                    "priority" -> random.nextInt(3).toString()
+                    "is_active" -> random.nextInt(2).toString()
+                    "title" -> "'Renamed'"
+                    else -> randomMillis().toString()
+                }
+                execute("UPDATE countdown_events SET $column = $value WHERE id = ${eventIds.random(random)}")
+            }
+            3 -> if (eventIds.isNotEmpty()) {
+                execute("DELETE FROM countdown_events WHERE id = ${eventIds.random(random)}")
+            }
+            4 -> if (eventIds.isNotEmpty()) {
+                insertMilestone(eventIds.random(random), randomMillis().takeIf { random.nextBoolean() })
+            }
+            5 -> if (milestoneIds.isNotEmpty()) {
+                val achievedAt = randomMillis().takeIf { random.nextBoolean() }
+                execute(
+                    "UPDATE milestones SET isAchieved = ${if (achievedAt != null) 1 else 0}, achievedAt = $achievedAt " +
+                        "WHERE id = '${milestoneIds.random(random)}'"
+                )
+            }
+            6 -> if (milestoneIds.isNotEmpty()) {
+                execute("DELETE FROM milestones WHERE id = '${milestoneIds.random(random)}'")
+            }
+            else -> execute(
+                "UPDATE countdown_events SET is_active = 0, category = '${CATEGORIES.random(random)}' " +
+                    "WHERE category = '${CATEGORIES.random(random)}'"
+            )
+        }
+    }
+
+    private fun insertEvent(id: Long?, category: String, isActive: Boolean) {
+        val createdAt = randomMillis()
+        execute(
+            "INSERT INTO countdown_events (id, title, category, target_date_time, created_at, updated_at, is_active, priority) " +
+                "VALUES ($id, 'Event', '$category', ${createdAt + random.nextLong(30 * DAY_MILLIS)}, $createdAt, $createdAt, " +
+                "${if (isActive) 1 else 0}, ${random.nextInt(3)})"
+        )
+    }
+
+    private fun insertMilestone(eventId: Long, achievedAt: Long?) {
+        execute(
+            "INSERT INTO milestones (id, eventId, type, value, title, message, isNotificationEnabled, isAchieved, achievedAt, celebrationEffect) " +
+                "VALUES ('${++nextMilestoneId}', '$eventId', 'PERCENTAGE_BASED', 50, 'Halfway', '', 1, " +
+                "${if (achievedAt != null) 1 else 0}, $achievedAt, 'CONFETTI')"
+        )
+    }
+
+    private fun randomMillis(): Long = BASE_MILLIS + random.nextLong(60 * DAY_MILLIS)
+
+    /** Non-empty rollup rows; retractions may leave rows of zeros behind. */
+    private fun rollup(): List<List<Any?>> {
+        return connection.createStatement().use { statement ->
+            statement.executeQuery(
+                "SELECT day, category, priority, created_count, completed_count, completed_duration_millis, " +
+                    "completed_on_count, achieved_count FROM analytics_daily_rollup " +
+                    "WHERE created_count != 0 OR completed_count != 0 OR completed_on_count != 0 OR achieved_count != 0 " +
+                    "ORDER BY day, category, priority"
+            ).use { result ->
+                buildList {
+                    while (result.next()) {
+                        add((1..8).map { result.getObject(it) })
+                    }
+                }
+            }
+        }
+    }
+
+    private fun rebuild() {
+        execute("DELETE FROM analytics_daily_rollup")
+        execute(REBUILD_QUERY)
+    }
+
+    private fun sum(column: String, where: String = "1"): Long {
+        return connection.createStatement().use { statement ->
+            statement.executeQuery("SELECT COALESCE(SUM($column), 0) FROM analytics_daily_rollup WHERE $where")
+                .use { result -> result.next(); result.getLong(1) }
+        }
+    }
+
+    private fun ids(sql: String): List<String> {
+        return connection.createStatement().use { statement ->
+            statement.executeQuery(sql).use { result ->
+                buildList { while (result.next()) add(result.getString(1)) }
+            }
+        }
+    }
+
+    private fun execute(sql: String) {
+        connection.createStatement().use { it.execute(sql) }
+    }
+
+    private companion object {
+        const val WRITES = 4_000
+        const val DAY_MILLIS = 86_400_000L
+        const val BASE_MILLIS = 1_900_000_000_000L
+        val CATEGORIES = listOf("Work", "Home", "Travel")
+
+        /** The rebuild as Room runs it, read from the DAO source. */
+        val REBUILD_QUERY: String = Regex(
+            "@Query\\(\\s*\"\"\"(.*?)\"\"\"\\s*\\)\\s*suspend\\s+fun\\s+(\\w+)",
+            RegexOption.DOT_MATCHES_ALL
+        ).findAll(File("src/main/java/com/countjoy/data/local/dao/AnalyticsRollupDao.kt").readText())
+            .single { it.groupValues[2] == "insertRollup" }
+            .groupValues[1]
+    }
+}
@@ -0,0 +1,170 @@
+package com.countjoy.data.local
+
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.sql.Connection
+import java.sql.DriverManager
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Measures list-screen reads running against a worker that keeps marking
+ * milestones as achieved, once with SQLite's rollback-journal defaults and
+ * once with the WAL configuration from [DatabaseTuning].
+ */
+class DatabaseConcurrencyBenchmarkTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private class Throughput(val reads: Long, val writes: Long)
+
+    @Test
+    fun `wal lets reads proceed while a worker writes`() {
+        val rollback = measure(tuned = false)
+        val wal = measure(tuned = true)
+
+        assertTrue(rollback.writes > 0 && wal.writes > 0)
+        assertTrue(wal.reads > rollback.reads)
+    }
+
+    private fun measure(tuned: Boolean): Throughput {
+        val url = "jdbc:sqlite:" + folder.newFile().absolutePath
+        open(url, tuned).use { seed(it) }
+
+        val reads = AtomicLong()
+        val writes = AtomicLong()
+        val threads = DatabaseTuning.QUERY_THREADS + 1
+        val ready = CountDownLatch(threads)
+        val start = CountDownLatch(1)
+        val executor = Executors.newFixedThreadPool(threads)
+        val deadline = AtomicLong()
+
+        repeat(DatabaseTuning.QUERY_THREADS) {
+            executor.execute {
+                open(url, tuned).use { connection ->
+                    ready.countDown()
+                    start.await()
+                    while (System.nanoTime() < deadline.get()) {
+                        readActiveEvents(connection)
+                        reads.incrementAndGet()
+                    }
+                }
+            }
+        }
+        executor.execute {
+            open(url, tuned).use { connection ->
+                ready.countDown()
+                start.await()
+                var batch = 0
+                while (System.nanoTime() < deadline.get()) {
+                    markMilestones(connection, batch++)
+                    writes.incrementAndGet()
+                }
+            }
+        }
+
+        // Start the clock only once every connection is open
+        ready.await()
+        deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS))
+        start.countDown()
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(DURATION_MILLIS * 10, TimeUnit.MILLISECONDS))
+        return Throughput(reads.get(), writes.get())
+    }
+
+    private fun open(url: String, tuned: Boolean): Connection {
+        val connection = DriverManager.getConnection(url)
+        connection.createStatement().use { statement ->
+            statement.execute("PRAGMA busy_timeout = 5000")
+            if (tuned) {
+                statement.execute("PRAGMA journal_mode = WAL")
+                DatabaseTuning.PRAGMA_STATEMENTS.forEach { statement.execute(it) }
+            } else {
+                statement.execute("PRAGMA journal_mode = DELETE")
+                statement.execute("PRAGMA synchronous = FULL")
+            }
+        }
+        return connection
+    }
+
+    private fun seed(connection: Connection) {
+        connection.createStatement().use { statement ->
+            TestSchema.statements.forEach { statement.execute(it) }
+        }
+        connection.autoCommit = false
+        val now = System.currentTimeMillis()
+        connection.prepareStatement(
+            "INSERT INTO countdown_events (id, title, target_date_time, created_at, updated_at) VALUES (?, ?, ?, ?, ?)"
+        ).use { insert ->
+            for (id in 1..EVENTS) {
+                insert.setLong(1, id.toLong())
+                insert.setString(2, "Event $id")
+                insert.setLong(3, now + id * 60_000L)
+                insert.setLong(4, now)
+                insert.setLong(5, now)
+                insert.addBatch()
+            }
+            insert.executeBatch()
+        }
+        connection.prepareStatement(
+            """
+            INSERT INTO milestones (id, eventId, type, value, title, message, isNotificationEnabled, isAchieved, celebrationEffect)
+            VALUES (?, ?, 'PERCENTAGE_BASED', 50, 'Halfway', '', 1, 0, 'CONFETTI')
+            """.trimIndent()
+        ).use { insert ->
+            for (id in 1..EVENTS) {
+                repeat(MILESTONES_PER_EVENT) { index ->
+                    insert.setString(1, milestoneId(id, index))
+                    insert.setString(2, id.toString())
+                    insert.addBatch()
+                }
+            }
+            insert.executeBatch()
+        }
+        connection.commit()
+        connection.autoCommit = true
+    }
+
+    private fun readActiveEvents(connection: Connection) {
+        connection.createStatement().use { statement ->
+            statement.executeQuery(
+                "SELECT * FROM countdown_events WHERE is_active = 1 ORDER BY target_date_time ASC"
+            ).use { result ->
+                while (result.next()) {
+                    result.getString("title")
+                }
+            }
+        }
+    }
+
+    private fun markMilestones(connection: Connection, batch: Int) {
+        connection.autoCommit = false
+        connection.prepareStatement(
+            "UPDATE milestones SET isAchieved = 1, achievedAt = ? WHERE id = ?"
+        ).use { update ->
+            repeat(MILESTONES_PER_WRITE) { index ->
+                val event = (batch * MILESTONES_PER_WRITE + index) % EVENTS + 1
+                update.setLong(1, System.currentTimeMillis())
+                update.setString(2, milestoneId(event, index % MILESTONES_PER_EVENT))
+                update.addBatch()
+            }
+            update.executeBatch()
+        }
+        connection.commit()
+        connection.autoCommit = true
+    }
+
+    private fun milestoneId(eventId: Int, index: Int) = "$eventId-$index"
+
+    private companion object {
+        const val EVENTS = 2_000
+        const val MILESTONES_PER_EVENT = 5
+        const val MILESTONES_PER_WRITE = 20
+        const val DURATION_MILLIS = 1_000L
+    }
+}
@@ -0,0 +1,112 @@
+package com.countjoy.data.local
+
+import com.countjoy.data.local.migration.DatabaseMigrations
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.sql.Connection
+import java.sql.DriverManager
+import java.time.LocalDate
+
+/**
+ * Checks that migrating to version 11 turns the comma-joined weekdays of
+ * each recurrence rule into a bitmask and its exception dates into
+ * cancelled rows of recurrence_exceptions.
+ */
+class RecurrenceRuleMigrationTest {
+
+    private lateinit var connection: Connection
+
+    @Before
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        // Room runs migrations with foreign keys off and checks them afterwards
+        TestSchema.version10Statements.forEach { execute(it) }
+        execute(
+            "INSERT INTO countdown_events (id, title, target_date_time, created_at, updated_at) VALUES (1, 'Club', 0, 0, 0)"
+        )
+    }
+
+    @After
+    fun tearDown() {
+        connection.close()
+    }
+
+    @Test
+    fun `weekdays become a bitmask`() {
+        insertRule("weekly", daysOfWeek = "'MONDAY,FRIDAY'")
+        insertRule("spaced", daysOfWeek = "'SUNDAY, TUESDAY'")
+        insertRule("daily", daysOfWeek = "NULL")
+
+        migrate()
+
+        assertEquals(
+            mapOf("daily" to 0L, "spaced" to 0b1000010L, "weekly" to 0b10001L),
+            query("SELECT id, daysOfWeekMask FROM recurrence_rules ORDER BY id").toMap()
+        )
+    }
+
+    @Test
+    fun `exception dates become cancelled occurrences`() {
+        insertRule("weekly", exceptions = "'2026-03-16,2026-03-23, 2026-03-30,not a date,2026-03-16'")
+        insertRule("daily", exceptions = "NULL")
+        // A changed occurrence on a cancelled date was already left out of the series
+        execute(
+            "INSERT INTO recurrence_exceptions (rule_id, epoch_day, is_cancelled, title) " +
+                "VALUES ('weekly', ${LocalDate.of(2026, 3, 23).toEpochDay()}, 0, 'Moved')"
+        )
+
+        migrate()
+
+        val cancelled = query(
+            "SELECT rule_id, epoch_day FROM recurrence_exceptions WHERE is_cancelled = 1 ORDER BY rule_id, epoch_day"
+        )
+        assertEquals(
+            listOf(LocalDate.of(2026, 3, 16), LocalDate.of(2026, 3, 23), LocalDate.of(2026, 3, 30))
+                .map { "weekly" to it.toEpochDay() },
+            cancelled
+        )
+        assertEquals(3, query("SELECT rule_id, epoch_day FROM recurrence_exceptions").size)
+        assertTrue(query("PRAGMA foreign_key_check").isEmpty())
+    }
+
+    @Test
+    fun `exceptions follow their rule after the rebuild`() {
+        insertRule("weekly", exceptions = "'2026-03-16'")
+        migrate()
+        execute("PRAGMA foreign_keys = ON")
+
+        execute("DELETE FROM recurrence_rules WHERE id = 'weekly'")
+
+        assertTrue(query("SELECT rule_id, epoch_day FROM recurrence_exceptions").isEmpty())
+    }
+
+    private fun migrate() {
+        DatabaseMigrations.RECURRENCE_RULE_COMPACT_STATEMENTS.forEach { execute(it) }
+    }
+
+    private fun insertRule(id: String, daysOfWeek: String = "NULL", exceptions: String = "NULL") {
+        execute(
+            "INSERT INTO recurrence_rules (id, eventId, pattern, intervalValue, daysOfWeek, endType, exceptions, skipWeekends, skipHolidays) " +
+                "VALUES ('$id', '1', 'WEEKLY', 1, $daysOfWeek, 'NEVER', $exceptions, 0, 0)"
+        )
+    }
+
+    private fun execute(sql: String) {
+        connection.createStatement().use { it.execute(sql) }
+    }
+
+    private fun query(sql: String): List<Pair<String, Long>> {
+        connection.createStatement().use { statement ->
+            statement.executeQuery(sql).use { rows ->
+                val result = mutableListOf<Pair<String, Long>>()
+                while (rows.next()) {
+                    result += rows.getString(1) to rows.getLong(2)
+                }
+                return result
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.countjoy.data.local
+
+import com.countjoy.data.local.migration.DatabaseMigrations
+
+/**
+ * Current database schema as plain SQL, for tests running on a JVM SQLite
+ * driver. Tables come from the early migrations; the FTS index, query
+ * indices and analytics rollup reuse the statements of the later migrations.
+ */
+internal object TestSchema {
+
+    /** Tables as created by the migrations up to version 4. */
+    private val TABLE_STATEMENTS = listOf(
+        """
+        CREATE TABLE countdown_events (
+            id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,
+            title TEXT NOT NULL,
+            description TEXT,
+            category TEXT NOT NULL DEFAULT 'General',
+            target_date_time INTEGER NOT NULL,
+            reminder_enabled INTEGER NOT NULL DEFAULT 0,
+            reminder_time INTEGER,
+            color INTEGER,
+            icon TEXT,
+            created_at INTEGER NOT NULL,
+            updated_at INTEGER NOT NULL,
+            is_active INTEGER NOT NULL DEFAULT 1,
+            priority INTEGER NOT NULL DEFAULT 0
+        )
+        """.trimIndent(),
+        "CREATE INDEX index_countdown_events_category ON countdown_events (category)",
+        "CREATE INDEX index_countdown_events_target_date_time ON countdown_events (target_date_time)",
+        "CREATE INDEX index_countdown_events_is_active ON countdown_events (is_active)",
+        """
+        CREATE TABLE milestones (
+            id TEXT PRIMARY KEY NOT NULL,
+            eventId TEXT NOT NULL,
+            type TEXT NOT NULL,
+            value REAL NOT NULL,
+            title TEXT NOT NULL,
+            message TEXT NOT NULL,
+            isNotificationEnabled INTEGER NOT NULL,
+            isAchieved INTEGER NOT NULL,
+            achievedAt INTEGER,
+            celebrationEffect TEXT NOT NULL,
+            FOREIGN KEY(eventId) REFERENCES countdown_events(id) ON DELETE CASCADE
+        )
+        """.trimIndent(),
+        "CREATE INDEX index_milestones_eventId ON milestones (eventId)",
+        """
+        CREATE TABLE recurrence_rules (
+            id TEXT PRIMARY KEY NOT NULL,
+            eventId TEXT NOT NULL,
+            pattern TEXT NOT NULL,
+            intervalValue INTEGER NOT NULL,
+            daysOfWeek TEXT,
+            dayOfMonth INTEGER,
+            weekOfMonth INTEGER,
+            monthOfYear INTEGER,
+            endType TEXT NOT NULL,
+            endDate INTEGER,
+            occurrenceCount INTEGER,
+            exceptions TEXT,
+            skipWeekends INTEGER NOT NULL,
+            skipHolidays INTEGER NOT NULL,
+            lastOccurrenceDate INTEGER,
+            nextOccurrenceDate INTEGER,
+            FOREIGN KEY(eventId) REFERENCES countdown_events(id) ON DELETE CASCADE
+        )
+        """.trimIndent(),
+        "CREATE INDEX index_recurrence_rules_eventId ON recurrence_rules (eventId)"
+    )
+
+    /** Schema at version 10, recurrence rules still holding comma-joined weekdays and exceptions. */
+    val version10Statements: List<String> =
+        TABLE_STATEMENTS + DatabaseMigrations.EVENT_FTS_STATEMENTS + DatabaseMigrations.QUERY_INDEX_STATEMENTS +
+            DatabaseMigrations.DELIVERED_EXPIRY_STATEMENTS + DatabaseMigrations.ANALYTICS_INDEX_STATEMENTS +
+            DatabaseMigrations.ANALYTICS_ROLLUP_STATEMENTS + DatabaseMigrations.RECURRENCE_EXCEPTION_STATEMENTS
+
+    /** Schema at version 11, before the event list orders had indices of their own. */
+    val version11Statements: List<String> = version10Statements + DatabaseMigrations.RECURRENCE_RULE_COMPACT_STATEMENTS
+
+    /** Schema at version 12, before events stored the occurrence they are at. */
+    val version12Statements: List<String> = version11Statements + DatabaseMigrations.EVENT_SORT_INDEX_STATEMENTS
+
+    val statements: List<String> = version12Statements + DatabaseMigrations.NEXT_OCCURRENCE_STATEMENTS
+}
@@ -0,0 +1,178 @@
+package com.countjoy.data.local.dao
+
+import com.countjoy.data.local.TestSchema
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.sql.Connection
+import java.sql.DriverManager
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every @Query in the DAOs against the current
+ * schema on a plain SQLite driver and fails when a query falls back to a full
+ * table scan or a temporary B-tree sort.
+ *
+ * Queries are read from the DAO sources because Room's annotations are not
+ * retained at runtime, so a newly added query is checked without touching
+ * this test.
+ */
+class DaoQueryPlanTest {
+
+    private lateinit var connection: Connection
+
+    @Before
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        connection.createStatement().use { statement ->
+            TestSchema.statements.forEach { statement.execute(it) }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        connection.close()
+    }
+
+    @Test
+    fun `every dao query is found`() {
+        val queries = DAO_FILES.flatMap { daoQueries(it) }
+        val annotations = DAO_FILES.sumOf { "@Query(".toRegex(RegexOption.LITERAL).findAll(it.readText()).count() }
+
+        assertEquals(annotations, queries.size)
+        assertTrue(queries.any { it.method == "getAllActiveEvents" })
+        assertTrue(queries.any { it.method == "getAchievementHistory" })
+        assertTrue(queries.any { it.method == "getRecurrenceRulesDueBy" })
+        assertTrue(queries.any { it.method == "insertRollup" })
+    }
+
+    @Test
+    fun `no dao query scans a table or sorts in a temp b-tree`() {
+        val failures = mutableListOf<String>()
+
+        for (file in DAO_FILES) {
+            for (query in daoQueries(file)) {
+                val plan = explain(query.sql)
+                val fullScans = plan.filter { FULL_SCAN.matches(it) }
+                val tempSorts = plan.filter { it.startsWith("USE TEMP B-TREE") }
+                    .filterNot { it == GROUP_BY_TREE && (query.method in BUCKET_AGGREGATES || query.method in WHOLE_TABLE_READS) }
+
+                if (fullScans.isNotEmpty() && query.method !in WHOLE_TABLE_READS) {
+                    failures += "${query.method}: $fullScans"
+                }
+                if (tempSorts.isNotEmpty() && query.method !in RANKED_SEARCH_QUERIES) {
+                    failures += "${query.method}: $tempSorts"
+                }
+            }
+        }
+
+        if (failures.isNotEmpty()) {
+            fail("Queries without a usable index:\n" + failures.joinToString("\n"))
+        }
+    }
+
+    @Test
+    fun `bucket aggregates only read an index range`() {
+        val queries = DAO_FILES.flatMap { daoQueries(it) }.filter { it.method in BUCKET_AGGREGATES }
+
+        assertEquals(BUCKET_AGGREGATES.size, queries.size)
+        for (query in queries) {
+            val plan = explain(query.sql)
+            assertTrue(
+                "${query.method}: $plan",
+                plan.any {
+                    it.startsWith("SEARCH countdown_events USING COVERING INDEX") ||
+                        it.startsWith("SEARCH analytics_daily_rollup USING INDEX")
+                }
+            )
+        }
+    }
+
+    @Test
+    fun `ranked search only sorts full-text matches`() {
+        val queries = DAO_FILES.flatMap { daoQueries(it) }.filter { it.method in RANKED_SEARCH_QUERIES }
+
+        assertEquals(RANKED_SEARCH_QUERIES.size, queries.size)
+        for (query in queries) {
+            val plan = explain(query.sql)
+            assertTrue("${query.method}: $plan", plan.none { FULL_SCAN.matches(it) })
+            assertTrue("${query.method}: $plan", query.sql.contains("WHERE id IN (SELECT docid FROM countdown_events_fts"))
+        }
+    }
+
+    @Test
+    fun `every list order is read from an index`() {
+        val queries = DAO_FILES.flatMap { daoQueries(it) }
+            .filter { it.method.startsWith("searchEventsBy") || it.method.startsWith("pagingSearchEventsBy") }
+            .filterNot { it.method in RANKED_SEARCH_QUERIES }
+
+        assertEquals(7, queries.size)
+        for (query in queries) {
+            val plan = explain(query.sql)
+            assertTrue("${query.method}: $plan", plan.first().startsWith("SEARCH countdown_events USING INDEX"))
+            assertTrue("${query.method}: $plan", plan.none { it.startsWith("USE TEMP B-TREE") })
+        }
+    }
+
+    private data class DaoQuery(val method: String, val sql: String)
+
+    private fun daoQueries(file: File): List<DaoQuery> {
+        return QUERY_ANNOTATION.findAll(file.readText()).map { match ->
+            val sql = match.groupValues[1].ifEmpty { match.groupValues[2] }
+            DaoQuery(method = match.groupValues[3], sql = sql.trim())
+        }.toList()
+    }
+
+    private fun explain(sql: String): List<String> {
+        // Bind parameters are left unset; the plan does not depend on their values
+        val statement = "EXPLAIN QUERY PLAN " + sql.replace(BIND_PARAMETER, "?")
+        return connection.prepareStatement(statement).use { prepared ->
+            prepared.executeQuery().use { result ->
+                buildList {
+                    while (result.next()) add(result.getString("detail"))
+                }
+            }
+        }
+    }
+
+    private companion object {
+        val DAO_FILES = listOf(
+            "CountdownEventDao.kt", "MilestoneDao.kt", "RecurrenceRuleDao.kt", "ExpiryDao.kt", "AnalyticsRollupDao.kt"
+        )
+            .map { File("src/main/java/com/countjoy/data/local/dao", it) }
+
+        val QUERY_ANNOTATION = Regex(
+            "@Query\\(\\s*(?:\"\"\"(.*?)\"\"\"|\"((?:[^\"\\\\]|\\\\.)*)\")\\s*\\)\\s*(?:suspend\\s+)?fun\\s+(\\w+)",
+            RegexOption.DOT_MATCHES_ALL
+        )
+        val BIND_PARAMETER = Regex(":\\w+")
+
+        // "SCAN table" without an index; FTS lookups show up as "SCAN ... VIRTUAL TABLE"
+        val FULL_SCAN = Regex("SCAN (countdown_events|milestones|recurrence_rules|delivered_expiries|analytics_daily_rollup|recurrence_exceptions)")
+
+        /** Queries that read every row by design; the rollup rebuild groups them into one row per bucket. */
+        val WHOLE_TABLE_READS = setOf("getAllRecurrenceRules", "observeAllRecurrenceRules", "clearRollup", "insertRollup")
+
+        const val GROUP_BY_TREE = "USE TEMP B-TREE FOR GROUP BY"
+
+        /**
+         * Aggregates grouping by a column or a local-time bucket that no index
+         * orders by; their temp B-tree holds one row per bucket, not per event.
+         */
+        val BUCKET_AGGREGATES = setOf(
+            "getCategoryCounts",
+            "getPriorityCounts",
+            "getCreationCountsByWeekdayHour",
+            "getDurationBinCounts"
+        )
+
+        /**
+         * Queries ranking full-text hits by a second match; only the rows
+         * matching the search reach their sort.
+         */
+        val RANKED_SEARCH_QUERIES = setOf("pagingSearchEventsByRelevance")
+    }
+}
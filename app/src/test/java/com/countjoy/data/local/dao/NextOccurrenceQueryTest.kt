@@ -0,0 +1,172 @@
+package com.countjoy.data.local.dao
+
+import com.countjoy.data.local.TestSchema
+import com.countjoy.data.local.migration.DatabaseMigrations
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.sql.Connection
+import java.sql.DriverManager
+import java.sql.PreparedStatement
+
+/**
+ * Runs the event list, expiry and milestone queries of the DAOs against rows
+ * holding a recurring event whose first date has passed, and checks that each
+ * follows the event to the occurrence it is at.
+ *
+ * Queries are read from the DAO sources, as in DaoQueryPlanTest, so the test
+ * runs exactly the SQL Room is given.
+ */
+class NextOccurrenceQueryTest {
+
+    private lateinit var connection: Connection
+
+    @Before
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        TestSchema.statements.forEach { execute(it) }
+        // A weekly series that started before NOW and is at its occurrence after LATER
+        insertEvent(1, "Club", target = STARTED, nextOccurrence = NEXT_WEEK)
+        insertEvent(2, "Dentist", target = LATER, nextOccurrence = LATER)
+        insertEvent(3, "Party", target = STARTED, nextOccurrence = STARTED)
+    }
+
+    @After
+    fun tearDown() {
+        connection.close()
+    }
+
+    @Test
+    fun `paged list shows a recurring event at its occurrence`() {
+        val ids = queryIds(
+            "CountdownEventDao.kt", "pagingSearchEventsByDate",
+            "matchQuery" to null, "category" to null, "priority" to null, "showPast" to 0, "currentTime" to NOW
+        )
+
+        assertEquals(listOf(2L, 1L), ids)
+    }
+
+    @Test
+    fun `next pending expiry is the soonest occurrence`() {
+        // The one-off event has expired already
+        execute("INSERT INTO delivered_expiries (event_id, target_date_time, delivered_at) VALUES (3, $STARTED, 0)")
+        execute("UPDATE countdown_events SET next_occurrence = ${LATER - 1} WHERE id = 1")
+
+        assertEquals(listOf(1L), queryIds("ExpiryDao.kt", "getNextPendingExpiry"))
+
+        // Delivering the occurrence leaves the event out until it moves on
+        execute("INSERT INTO delivered_expiries (event_id, target_date_time, delivered_at) VALUES (1, ${LATER - 1}, 0)")
+        assertEquals(listOf(2L), queryIds("ExpiryDao.kt", "getNextPendingExpiry"))
+        assertEquals(emptyList<Long>(), queryIds("ExpiryDao.kt", "getPendingExpiry", "eventId" to 1L))
+
+        execute("UPDATE countdown_events SET next_occurrence = $NEXT_WEEK WHERE id = 1")
+        assertEquals(listOf(1L), queryIds("ExpiryDao.kt", "getPendingExpiry", "eventId" to 1L))
+    }
+
+    @Test
+    fun `pending milestones count down to the occurrence`() {
+        execute(
+            "INSERT INTO milestones (id, eventId, type, value, title, message, isNotificationEnabled, isAchieved, " +
+                "celebrationEffect) VALUES ('half', '1', 'PERCENTAGE', 50.0, 'Halfway', '', 1, 0, 'CONFETTI')"
+        )
+
+        val sql = daoQuery("MilestoneDao.kt", "getPendingMilestones")
+        val rows = prepare(sql, "eventId" to null, "minPriority" to 0).use { statement ->
+            statement.executeQuery().use { result ->
+                buildList {
+                    while (result.next()) {
+                        add(Triple(result.getString("id"), result.getLong("event_target_date_time"), result.getLong("event_next_occurrence")))
+                    }
+                }
+            }
+        }
+
+        assertEquals(listOf(Triple("half", STARTED, NEXT_WEEK)), rows)
+    }
+
+    @Test
+    fun `migration starts every event at its target and every rule at its first occurrence`() {
+        connection.close()
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        TestSchema.version12Statements.forEach { execute(it) }
+        execute(
+            "INSERT INTO countdown_events (id, title, target_date_time, created_at, updated_at) " +
+                "VALUES (1, 'Club', $STARTED, 0, 0)"
+        )
+        execute(
+            "INSERT INTO recurrence_rules (id, eventId, pattern, intervalValue, daysOfWeekMask, endType, " +
+                "skipWeekends, skipHolidays, nextOccurrenceDate) VALUES ('weekly', '1', 'WEEKLY', 1, 0, 'NEVER', 0, 0, 99999)"
+        )
+
+        DatabaseMigrations.NEXT_OCCURRENCE_STATEMENTS.forEach { execute(it) }
+
+        assertEquals(listOf(STARTED), longs("SELECT next_occurrence FROM countdown_events"))
+        // Due again at its first date, so the next catch-up moves the event to its current occurrence
+        val firstDay = longs("SELECT CAST(julianday($STARTED / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)")
+        assertEquals(firstDay, longs("SELECT nextOccurrenceDate FROM recurrence_rules"))
+    }
+
+    private fun insertEvent(id: Long, title: String, target: Long, nextOccurrence: Long) {
+        execute(
+            "INSERT INTO countdown_events (id, title, target_date_time, next_occurrence, created_at, updated_at) " +
+                "VALUES ($id, '$title', $target, $nextOccurrence, 0, 0)"
+        )
+    }
+
+    private fun queryIds(file: String, method: String, vararg arguments: Pair<String, Any?>): List<Long> {
+        return prepare(daoQuery(file, method), *arguments).use { statement ->
+            statement.executeQuery().use { result ->
+                buildList {
+                    while (result.next()) add(result.getLong("id"))
+                }
+            }
+        }
+    }
+
+    private fun prepare(sql: String, vararg arguments: Pair<String, Any?>): PreparedStatement {
+        val values = arguments.toMap()
+        val names = BIND_PARAMETER.findAll(sql).map { it.groupValues[1] }.toList()
+        val statement = connection.prepareStatement(sql.replace(BIND_PARAMETER, "?"))
+        names.forEachIndexed { index, name -> statement.setObject(index + 1, values.getValue(name)) }
+        return statement
+    }
+
+    private fun daoQuery(file: String, method: String): String {
+        val source = File(DAO_DIRECTORY, file).readText()
+        return QUERY_ANNOTATION.findAll(source).first { it.groupValues[3] == method }
+            .let { it.groupValues[1].ifEmpty { it.groupValues[2] } }
+            .trim()
+    }
+
+    private fun longs(sql: String): List<Long> {
+        connection.createStatement().use { statement ->
+            statement.executeQuery(sql).use { rows ->
+                return buildList {
+                    while (rows.next()) add(rows.getLong(1))
+                }
+            }
+        }
+    }
+
+    private fun execute(sql: String) {
+        connection.createStatement().use { it.execute(sql) }
+    }
+
+    private companion object {
+        const val DAY = 86_400_000L
+        const val NOW = 1_800_000_000_000L
+        const val STARTED = NOW - 30 * DAY
+        const val LATER = NOW + DAY
+        const val NEXT_WEEK = NOW + 5 * DAY
+
+        const val DAO_DIRECTORY = "src/main/java/com/countjoy/data/local/dao"
+
+        val QUERY_ANNOTATION = Regex(
+            "@Query\\(\\s*(?:\"\"\"(.*?)\"\"\"|\"((?:[^\"\\\\]|\\\\.)*)\")\\s*\\)\\s*(?:suspend\\s+)?fun\\s+(\\w+)",
+            RegexOption.DOT_MATCHES_ALL
+        )
+        val BIND_PARAMETER = Regex(":(\\w+)")
+    }
+}
@@ -0,0 +1,146 @@
+package com.countjoy.data.local.search
+
+import com.countjoy.data.local.migration.DatabaseMigrations
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.sql.Connection
+import java.sql.DriverManager
+import kotlin.random.Random
+
+/**
+ * Compares LIKE scans with the FTS4 index on a plain SQLite driver, using the
+ * same DDL and sync triggers as the Room migration.
+ */
+class EventSearchBenchmarkTest {
+    
+    private lateinit var connection: Connection
+    
+    @Before
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:")
+        connection.createStatement().use { statement ->
+            statement.execute(
+                """
+                CREATE TABLE countdown_events (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,
+                    title TEXT NOT NULL,
+                    description TEXT,
+                    is_active INTEGER NOT NULL DEFAULT 1
+                )
+                """.trimIndent()
+            )
+            DatabaseMigrations.EVENT_FTS_STATEMENTS.forEach { statement.execute(it) }
+        }
+    }
+    
+    @After
+    fun tearDown() {
+        connection.close()
+    }
+    
+    @Test
+    fun `match query turns tokens into prefix terms`() {
+        assertEquals("bir* par*", EventSearchQuery.match("Bir par"))
+        assertEquals("title:bir* title:par*", EventSearchQuery.titleMatch("bir, par"))
+        assertEquals("or* near*", EventSearchQuery.match("\"OR\" NEAR*"))
+        assertNull(EventSearchQuery.match("   "))
+        assertNull(EventSearchQuery.match("-*\""))
+    }
+    
+    @Test
+    fun `triggers keep the index in sync with writes`() {
+        insertEvents(listOf("Birthday party" to null, "Dentist" to "Bring insurance card"))
+        assertEquals(1, countFts("bir*"))
+        assertEquals(1, countFts("insur*"))
+        
+        connection.createStatement().use {
+            it.executeUpdate("UPDATE countdown_events SET title = 'Wedding' WHERE id = 1")
+            it.executeUpdate("DELETE FROM countdown_events WHERE id = 2")
+        }
+        
+        assertEquals(0, countFts("bir*"))
+        assertEquals(1, countFts("wed*"))
+        assertEquals(0, countFts("insur*"))
+    }
+    
+    @Test
+    fun `fts matches like results and is faster at 10k and 100k rows`() {
+        val random = Random(42)
+        var inserted = 0
+        for (rows in listOf(10_000, 100_000)) {
+            insertEvents(
+                (inserted until rows).map {
+                    "word${random.nextInt(VOCABULARY)} word${random.nextInt(VOCABULARY)}" to
+                        "word${random.nextInt(VOCABULARY)}"
+                }
+            )
+            inserted = rows
+            
+            val likeCount = countLike("word4217")
+            val ftsCount = countFts(EventSearchQuery.match("word4217")!!)
+            assertEquals(likeCount, ftsCount)
+            
+            val likeNanos = timeNanos { countLike("word4217") }
+            val ftsNanos = timeNanos { countFts(EventSearchQuery.match("word4217")!!) }
+            if (rows == 100_000) {
+                assertTrue(ftsNanos < likeNanos)
+            }
+        }
+    }
+    
+    private fun insertEvents(events: List<Pair<String, String?>>) {
+        connection.autoCommit = false
+        connection.prepareStatement("INSERT INTO countdown_events (title, description) VALUES (?, ?)").use { statement ->
+            for ((title, description) in events) {
+                statement.setString(1, title)
+                statement.setString(2, description)
+                statement.addBatch()
+            }
+            statement.executeBatch()
+        }
+        connection.commit()
+        connection.autoCommit = true
+    }
+    
+    private fun countLike(query: String): Int {
+        val sql = """
+            SELECT COUNT(*) FROM countdown_events
+            WHERE is_active = 1
+            AND (title LIKE '%' || ? || '%' OR description LIKE '%' || ? || '%')
+        """.trimIndent()
+        return connection.prepareStatement(sql).use { statement ->
+            statement.setString(1, query)
+            statement.setString(2, query)
+            statement.executeQuery().use { it.next(); it.getInt(1) }
+        }
+    }
+    
+    private fun countFts(matchQuery: String): Int {
+        val sql = """
+            SELECT COUNT(*) FROM countdown_events
+            WHERE is_active = 1
+            AND id IN (SELECT docid FROM countdown_events_fts WHERE countdown_events_fts MATCH ?)
+        """.trimIndent()
+        return connection.prepareStatement(sql).use { statement ->
+            statement.setString(1, matchQuery)
+            statement.executeQuery().use { it.next(); it.getInt(1) }
+        }
+    }
+    
+    private fun timeNanos(block: () -> Unit): Long {
+        repeat(WARMUP_RUNS) { block() }
+        val start = System.nanoTime()
+        repeat(MEASURED_RUNS) { block() }
+        return (System.nanoTime() - start) / MEASURED_RUNS
+    }
+    
+    private companion object {
+        const val VOCABULARY = 20_000
+        const val WARMUP_RUNS = 3
+        const val MEASURED_RUNS = 10
+    }
+}
@@ -0,0 +1,67 @@
+package com.countjoy.data.repository
+
+import com.countjoy.data.local.entity.CountdownEventEntity
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+import java.util.TimeZone
+
+class EventMappingCacheTest {
+
+    private val defaultZone = TimeZone.getDefault()
+    private val cache = EventMappingCache()
+
+    @After
+    fun tearDown() {
+        TimeZone.setDefault(defaultZone)
+    }
+
+    private fun entity(id: Long, updatedAt: Long = 1_000L, title: String = "Event $id") = CountdownEventEntity(
+        id = id,
+        title = title,
+        targetDateTime = 1_900_000_000_000L,
+        createdAt = 1_000L,
+        updatedAt = updatedAt
+    )
+
+    @Test
+    fun `unchanged rows map to the same instances`() {
+        val first = cache.map(listOf(entity(1), entity(2)))
+        val second = cache.map(listOf(entity(1), entity(2)))
+
+        assertSame(first[0], second[0])
+        assertSame(first[1], second[1])
+    }
+
+    @Test
+    fun `a newer version of a row is mapped again`() {
+        val before = cache.map(entity(1))
+        val after = cache.map(entity(1, updatedAt = 2_000L, title = "Renamed"))
+
+        assertNotSame(before, after)
+        assertEquals("Renamed", after.title)
+        assertSame(after, cache.map(entity(1, updatedAt = 2_000L, title = "Renamed")))
+    }
+
+    @Test
+    fun `evicted rows are mapped again`() {
+        val before = cache.map(entity(1))
+        cache.evict(1)
+
+        assertNotSame(before, cache.map(entity(1)))
+    }
+
+    @Test
+    fun `a timezone change drops every mapped row`() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"))
+        val utc = cache.map(entity(1))
+
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"))
+        val tokyo = cache.map(entity(1))
+
+        assertNotSame(utc, tokyo)
+        assertEquals(utc.targetDateTime.plusHours(9), tokyo.targetDateTime)
+    }
+}
@@ -17,6 +17,7 @@ import org.junit.runner.RunWith
 import org.mockito.Mock
 import org.mockito.junit.MockitoJUnitRunner
 import org.mockito.kotlin.any
+import org.mockito.kotlin.eq
 import org.mockito.kotlin.verify
 import org.mockito.kotlin.whenever
 import java.time.LocalDateTime
@@ -31,7 +32,7 @@ class EventRepositoryImplTest {
     
     @Before
     fun setUp() {
-        repository = EventRepositoryImpl(eventDao)
+        repository = EventRepositoryImpl(eventDao, EventSnapshotCache())
     }
     
     @Test
@@ -59,7 +60,7 @@ class EventRepositoryImplTest {
             createTestEntity(1, "Active Event", isActive = true),
             createTestEntity(2, "Inactive Event", isActive = false)
         )
-        whenever(eventDao.getAllActiveEvents()).thenReturn(flowOf(entities.filter { it.isActive }))
+        whenever(eventDao.getAllEvents()).thenReturn(flowOf(entities))
         
         // When
         val result = repository.getActiveEvents().first()
@@ -118,7 +119,24 @@ class EventRepositoryImplTest {
         repository.updateEvent(event)
         
         // Then
-        verify(eventDao).updateEvent(any())
+        verify(eventDao).updateEventKeepingOccurrence(any())
+    }
+    
+    @Test
+    fun `upcoming events count down to the occurrence a recurring event is at`() = runTest {
+        // Given
+        val started = createTestEntity(1, "Club")
+        val recurring = started.copy(nextOccurrence = started.targetDateTime + 7 * 86400000L)
+        whenever(eventDao.getUpcomingEvents(any(), any())).thenReturn(flowOf(listOf(recurring)))
+        whenever(eventDao.getAllEvents()).thenReturn(flowOf(listOf(recurring)))
+        
+        // When
+        val upcoming = repository.getUpcomingEvents(0, 10).first()
+        val all = repository.getAllEvents().first()
+        
+        // Then
+        assertEquals(recurring.nextOccurrence, upcoming.single().targetEpochMillis)
+        assertEquals(recurring.targetDateTime, all.single().targetEpochMillis)
     }
     
     @Test
@@ -136,7 +154,7 @@ class EventRepositoryImplTest {
         repository.updateEventActiveStatus(1, false)
         
         // Then
-        verify(eventDao).updateEventActiveStatus(1, false)
+        verify(eventDao).updateEventActiveStatus(eq(1L), eq(false), any())
     }
     
     // Helper functions
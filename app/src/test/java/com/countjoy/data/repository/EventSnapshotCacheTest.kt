@@ -0,0 +1,123 @@
+package com.countjoy.data.repository
+
+import com.countjoy.data.local.entity.CountdownEventEntity
+import com.countjoy.data.mapper.toDomain
+import com.countjoy.domain.model.CountdownEvent
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class EventSnapshotCacheTest {
+
+    /**
+     * Stands in for the events table, counting reads.
+     */
+    private class FakeTable {
+        val rows = mutableMapOf<Long, CountdownEventEntity>()
+        var loads = 0
+        var versionReads = 0
+
+        suspend fun get(cache: EventSnapshotCache, id: Long): CountdownEvent? {
+            return cache.getOrLoad(
+                id = id,
+                loadVersion = { versionReads++; rows[id]?.updatedAt },
+                load = { loads++; rows[id] },
+                map = { it.toDomain() }
+            )
+        }
+    }
+
+    private val table = FakeTable()
+    private val cache = EventSnapshotCache(maxSize = 3)
+
+    private fun entity(id: Long, updatedAt: Long = 1_000L, title: String = "Event $id") = CountdownEventEntity(
+        id = id,
+        title = title,
+        targetDateTime = 1_900_000_000_000L,
+        createdAt = 1_000L,
+        updatedAt = updatedAt
+    )
+
+    @Test
+    fun `repeated lookups are served from memory`() = runTest {
+        table.rows[1] = entity(1)
+
+        val first = table.get(cache, 1)
+        repeat(10) { assertSame(first, table.get(cache, 1)) }
+
+        assertEquals(1, table.loads)
+        assertEquals(0, table.versionReads)
+        with(cache.snapshot()) {
+            assertEquals(10L, hits)
+            assertEquals(1L, misses)
+        }
+    }
+
+    @Test
+    fun `written events are served without loading`() = runTest {
+        val written = entity(1, title = "Written")
+        table.rows[1] = written
+        cache.put(written.toDomain(), written.updatedAt)
+
+        assertEquals("Written", table.get(cache, 1)?.title)
+        assertEquals(0, table.loads)
+    }
+
+    @Test
+    fun `unchanged events are kept after an invalidation`() = runTest {
+        table.rows[1] = entity(1)
+        val cached = table.get(cache, 1)
+
+        cache.invalidate()
+
+        assertSame(cached, table.get(cache, 1))
+        assertSame(cached, table.get(cache, 1))
+        assertEquals(1, table.loads)
+        // Confirmed once, then served from memory again
+        assertEquals(1, table.versionReads)
+        assertEquals(1L, cache.snapshot().revalidations)
+    }
+
+    @Test
+    fun `changed events are reloaded after an invalidation`() = runTest {
+        table.rows[1] = entity(1)
+        table.get(cache, 1)
+
+        table.rows[1] = entity(1, updatedAt = 2_000L, title = "Renamed")
+        cache.invalidate()
+
+        assertEquals("Renamed", table.get(cache, 1)?.title)
+        assertEquals(2, table.loads)
+    }
+
+    @Test
+    fun `deleted events are dropped after an invalidation`() = runTest {
+        table.rows[1] = entity(1)
+        table.get(cache, 1)
+
+        table.rows.remove(1)
+        cache.invalidate()
+
+        assertNull(table.get(cache, 1))
+        assertEquals(0, cache.snapshot().size)
+    }
+
+    @Test
+    fun `least recently used events are evicted beyond the size bound`() = runTest {
+        (1L..4L).forEach { table.rows[it] = entity(it) }
+        table.get(cache, 1)
+        table.get(cache, 2)
+        table.get(cache, 3)
+        table.get(cache, 1)
+        table.get(cache, 4)
+
+        assertEquals(3, cache.snapshot().size)
+        table.loads = 0
+        table.get(cache, 1)
+        table.get(cache, 2)
+        // 2 was the least recently used when 4 came in
+        assertEquals(1, table.loads)
+    }
+}
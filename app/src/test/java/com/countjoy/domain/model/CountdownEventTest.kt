@@ -3,7 +3,10 @@ package com.countjoy.domain.model
 import org.junit.Test
 import org.junit.Assert.*
 import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
 import java.time.temporal.ChronoUnit
+import java.util.TimeZone
 
 class CountdownEventTest {
     
@@ -241,4 +244,79 @@ class CountdownEventTest {
         assertEquals(event1.hashCode(), event2.hashCode())
         assertNotEquals(event1, event3)
     }
-}
\ No newline at end of file
+    
+    @Test
+    fun `test epoch millis match the zoned view`() {
+        val target = LocalDateTime.of(2030, 3, 31, 2, 30)
+        val created = LocalDateTime.of(2029, 12, 1, 8, 0)
+        val event = CountdownEvent(
+            title = "Event",
+            targetDateTime = target,
+            createdAt = created
+        )
+        
+        assertEquals(target.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), event.targetEpochMillis)
+        assertEquals(created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), event.createdAtEpochMillis)
+    }
+    
+    @Test
+    fun `test copy moves the local view with the instant`() {
+        val event = CountdownEvent(
+            title = "Event",
+            targetDateTime = LocalDateTime.of(2030, 7, 1, 12, 0)
+        )
+        // Resolve the view first so a stale one would be carried into the copy
+        event.targetDateTime
+        
+        val moved = event.copy(targetEpochMillis = event.targetDateTime.plusHours(2).toEpochMillis())
+        
+        assertEquals(event.targetEpochMillis + 2 * 3_600_000L, moved.targetEpochMillis)
+        assertEquals(LocalDateTime.of(2030, 7, 1, 14, 0), moved.targetDateTime)
+    }
+    
+    @Test
+    fun `test instants in a DST overlap survive the local view`() {
+        val defaultZone = TimeZone.getDefault()
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"))
+            // 01:30 happens twice on 3 Nov 2030; this is the second, standard-time one
+            val secondPass = ZonedDateTime.of(2030, 11, 3, 1, 30, 0, 0, ZoneId.of("America/New_York"))
+                .withLaterOffsetAtOverlap()
+                .toInstant()
+                .toEpochMilli()
+            val event = CountdownEvent(title = "Event", targetEpochMillis = secondPass)
+            
+            assertEquals(LocalDateTime.of(2030, 11, 3, 1, 30), event.targetDateTime)
+            assertEquals(secondPass, event.copy(title = "Renamed").targetEpochMillis)
+        } finally {
+            TimeZone.setDefault(defaultZone)
+        }
+    }
+    
+    @Test
+    fun `test local views follow a timezone change on the same instance`() {
+        val defaultZone = TimeZone.getDefault()
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Lisbon"))
+            val event = CountdownEvent(title = "Event", targetDateTime = LocalDateTime.of(2030, 6, 1, 12, 0))
+            assertEquals(LocalDateTime.of(2030, 6, 1, 12, 0), event.targetDateTime)
+            
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"))
+            
+            assertEquals(LocalDateTime.of(2030, 6, 1, 20, 0), event.targetDateTime)
+        } finally {
+            TimeZone.setDefault(defaultZone)
+        }
+    }
+    
+    @Test
+    fun `test hasExpired with explicit clock`() {
+        val event = CountdownEvent(
+            title = "Event",
+            targetDateTime = LocalDateTime.now().plusHours(1)
+        )
+        
+        assertFalse(event.hasExpired(event.targetEpochMillis))
+        assertTrue(event.hasExpired(event.targetEpochMillis + 1))
+    }
+}
@@ -0,0 +1,180 @@
+package com.countjoy.domain.model
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+class RecurrenceCalculatorTest {
+
+    private val calculator = RecurrenceCalculator()
+    private val start = LocalDateTime.of(2026, 3, 10, 18, 0) // The 2nd Tuesday of March
+
+    private fun rule(pattern: RecurrencePattern) = RecurrenceRule(eventId = "1", pattern = pattern)
+
+    @Test
+    fun `monthly by day keeps the weekday of the month`() {
+        val occurrences = calculator.calculateNextOccurrences(rule(RecurrencePattern.MONTHLY_BY_DAY), start, count = 3)
+
+        assertEquals(
+            listOf(LocalDate.of(2026, 4, 14), LocalDate.of(2026, 5, 12), LocalDate.of(2026, 6, 9)),
+            occurrences.map { it.toLocalDate() }
+        )
+        assertEquals(listOf(18, 18, 18), occurrences.map { it.hour })
+    }
+
+    @Test
+    fun `weekly days and skipped weekends become BYDAY`() {
+        val weekly = rule(RecurrencePattern.WEEKLY).copy(
+            daysOfWeek = setOf(DayOfWeek.SATURDAY, DayOfWeek.MONDAY, DayOfWeek.THURSDAY),
+            skipWeekends = true
+        )
+        assertEquals("FREQ=WEEKLY;BYDAY=MO,TH", weekly.toRRule(start.toLocalDate()).toString())
+
+        val monthly = rule(RecurrencePattern.MONTHLY_BY_DATE).copy(dayOfMonth = 31, skipWeekends = true)
+        assertEquals("FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYMONTHDAY=31", monthly.toRRule(start.toLocalDate()).toString())
+        // Months without a weekday 31st are skipped
+        assertEquals(
+            listOf(LocalDate.of(2026, 3, 31), LocalDate.of(2026, 7, 31), LocalDate.of(2026, 8, 31)),
+            calculator.calculateNextOccurrences(monthly, start, count = 3).map { it.toLocalDate() }
+        )
+    }
+
+    @Test
+    fun `occurrence count includes the start and exceptions`() {
+        val daily = rule(RecurrencePattern.DAILY).copy(
+            endType = RecurrenceEndType.AFTER_OCCURRENCES,
+            occurrenceCount = 4,
+            exceptions = listOf(LocalDate.of(2026, 3, 12))
+        )
+
+        assertEquals(
+            listOf(LocalDate.of(2026, 3, 11), LocalDate.of(2026, 3, 13)),
+            calculator.calculateNextOccurrences(daily, start).map { it.toLocalDate() }
+        )
+    }
+
+    @Test
+    fun `next occurrence after a late instant skips straight to it`() {
+        val yearly = rule(RecurrencePattern.YEARLY).copy(endType = RecurrenceEndType.BY_DATE, endDate = LocalDate.of(2500, 1, 1))
+
+        assertEquals(
+            LocalDateTime.of(2400, 3, 10, 18, 0),
+            calculator.nextOccurrenceAfter(yearly, start, after = LocalDateTime.of(2399, 3, 10, 18, 0))
+        )
+        assertNull(calculator.nextOccurrenceAfter(yearly, start, after = LocalDateTime.of(2499, 3, 10, 18, 0)))
+    }
+    
+    @Test
+    fun `window expansion merges series in date order`() {
+        val series = listOf(
+            RecurringSeries(CountdownEvent(id = 1, title = "Standup", targetDateTime = start), rule(RecurrencePattern.DAILY)),
+            RecurringSeries(
+                CountdownEvent(id = 2, title = "Review", targetDateTime = start.minusHours(9)),
+                rule(RecurrencePattern.WEEKLY).copy(daysOfWeek = setOf(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+            ),
+            RecurringSeries(CountdownEvent(id = 3, title = "Rent", targetDateTime = start), rule(RecurrencePattern.MONTHLY_BY_DATE))
+        )
+        val from = LocalDateTime.of(2026, 4, 1, 0, 0)
+        val to = LocalDateTime.of(2026, 7, 1, 0, 0)
+
+        val merged = calculator.expandWindow(series, from, to).toList()
+
+        val expected = series.flatMap { recurring ->
+            calculator.occurrences(recurring.rule, recurring.event.targetDateTime, from)
+                .takeWhile { it < to }
+                .map { EventOccurrence(recurring.event, it) }
+                .toList()
+        }.sortedWith(compareBy<EventOccurrence>({ it.dateTime }, { it.event.id }))
+        assertEquals(expected, merged)
+        assertEquals(91 + 26 + 3, merged.size)
+        assertEquals(LocalDateTime.of(2026, 4, 1, 18, 0), merged.first().dateTime)
+    }
+    
+    @Test
+    fun `window expansion computes only what is taken`() {
+        val series = (1..1_000L).map { id ->
+            RecurringSeries(
+                CountdownEvent(id = id, title = "Event $id", targetDateTime = start.plusMinutes(id)),
+                rule(RecurrencePattern.DAILY)
+            )
+        }
+        // A thousand endless series over ten thousand years
+        val firstDay = calculator.expandWindow(series, start, start.plusYears(10_000)).take(1_000).toList()
+
+        assertEquals(series.map { it.event }, firstDay.map { it.event })
+        assertEquals(start.plusMinutes(1_000), firstDay.last().dateTime)
+    }
+    
+    @Test
+    fun `cancelled and changed occurrences replace the computed ones`() {
+        val weekly = rule(RecurrencePattern.WEEKLY).copy(
+            occurrenceExceptions = listOf(
+                RecurrenceException(LocalDate.of(2026, 3, 17), isCancelled = true),
+                // Moved past the next occurrence, so it comes out of order of its original date
+                RecurrenceException(
+                    LocalDate.of(2026, 3, 24),
+                    targetDateTime = LocalDateTime.of(2026, 4, 1, 9, 0),
+                    title = "Moved"
+                ),
+                // The rule never falls on a Wednesday
+                RecurrenceException(LocalDate.of(2026, 3, 25), title = "Orphan")
+            )
+        )
+        val master = CountdownEvent(id = 1, title = "Club", targetDateTime = start)
+
+        val occurrences = calculator.expandWindow(
+            listOf(RecurringSeries(master, weekly)),
+            start.plusMinutes(1),
+            LocalDateTime.of(2026, 4, 8, 0, 0)
+        ).toList()
+
+        assertEquals(
+            listOf(
+                LocalDateTime.of(2026, 3, 31, 18, 0),
+                LocalDateTime.of(2026, 4, 1, 9, 0),
+                LocalDateTime.of(2026, 4, 7, 18, 0)
+            ),
+            occurrences.map { it.dateTime }
+        )
+        assertEquals(listOf("Club", "Moved", "Club"), occurrences.map { it.event.title })
+        assertEquals(LocalDate.of(2026, 3, 24), occurrences[1].originalDate)
+        assertEquals(listOf(false, true, false), occurrences.map { it.isModified })
+        assertEquals(1L, occurrences[1].toEvent().id)
+    }
+    
+    @Test
+    fun `current instance is the first occurrence not yet passed`() {
+        val series = RecurringSeries(
+            CountdownEvent(id = 1, title = "Rent", targetDateTime = start),
+            rule(RecurrencePattern.MONTHLY_BY_DATE).copy(endType = RecurrenceEndType.AFTER_OCCURRENCES, occurrenceCount = 3)
+        )
+
+        assertEquals(start, calculator.currentInstance(series, start)?.dateTime)
+        assertEquals(LocalDateTime.of(2026, 4, 10, 18, 0), calculator.currentInstance(series, start.plusSeconds(1))?.dateTime)
+        assertNull(calculator.currentInstance(series, LocalDateTime.of(2026, 5, 10, 18, 1)))
+    }
+    
+    @Test
+    fun `counting a missed stretch matches listing it`() {
+        val daily = rule(RecurrencePattern.DAILY).copy(
+            exceptions = listOf(LocalDate.of(2026, 3, 20)),
+            occurrenceExceptions = listOf(
+                RecurrenceException(LocalDate.of(2026, 3, 25), targetDateTime = LocalDateTime.of(2026, 4, 2, 8, 0))
+            )
+        )
+        val series = RecurringSeries(CountdownEvent(id = 1, title = "Pills", targetDateTime = start), daily)
+        val from = LocalDateTime.of(2026, 3, 15, 0, 0)
+
+        // 18 days, less the cancelled one and the one moved past the stretch
+        assertEquals(16L, calculator.countBetween(series, from, LocalDateTime.of(2026, 4, 2, 7, 0)))
+        for (to in listOf(LocalDateTime.of(2026, 4, 2, 9, 0), LocalDateTime.of(2036, 1, 1, 0, 0))) {
+            assertEquals(
+                calculator.expandWindow(listOf(series), from, to).count().toLong(),
+                calculator.countBetween(series, from, to)
+            )
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.countjoy.domain.model
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.temporal.ChronoUnit
+import kotlin.random.Random
+
+/**
+ * Checks [RecurrenceSet] against a reference that walks the calendar one day at
+ * a time and tests every day against the RRULE definitions, over random rules,
+ * and times lookups far from the series start.
+ */
+class RecurrenceSetTest {
+
+    /**
+     * The reference: the days from [start] on, in order, that the rule
+     * generates, less exceptions, up to [limit] of them or [horizonDays] days.
+     * Nothing here shares code with the engine.
+     */
+    private class NaiveRecurrence(
+        val start: LocalDate,
+        val rule: RRule,
+        val exceptions: Set<LocalDate>
+    ) {
+        private val byDay = rule.byDay.ifEmpty {
+            if (rule.frequency == RRule.Frequency.WEEKLY) listOf(RRule.WeekdayNum(0, start.dayOfWeek)) else emptyList()
+        }
+        private val byMonthDay = rule.byMonthDay.ifEmpty {
+            val monthlyOrYearly = rule.frequency == RRule.Frequency.MONTHLY || rule.frequency == RRule.Frequency.YEARLY
+            if (monthlyOrYearly && rule.byDay.isEmpty()) listOf(start.dayOfMonth) else emptyList()
+        }
+        private val byMonth = rule.byMonth.ifEmpty {
+            val yearlyDefault = rule.frequency == RRule.Frequency.YEARLY && rule.byDay.isEmpty() && rule.byMonthDay.isEmpty()
+            if (yearlyDefault) listOf(start.monthValue) else emptyList()
+        }
+        private val ordinalsInYear = rule.frequency == RRule.Frequency.YEARLY && byMonth.isEmpty() && byMonthDay.isEmpty()
+
+        /** Whether the walk stopped at COUNT or UNTIL rather than a limit. */
+        var ended = false
+            private set
+
+        private fun period(date: LocalDate): Long = when (rule.frequency) {
+            RRule.Frequency.DAILY -> date.toEpochDay()
+            RRule.Frequency.WEEKLY -> ChronoUnit.WEEKS.between(MONDAY, date.with(DayOfWeek.MONDAY))
+            RRule.Frequency.MONTHLY -> date.year * 12L + date.monthValue
+            RRule.Frequency.YEARLY -> date.year.toLong()
+        }
+
+        private fun matches(date: LocalDate): Boolean {
+            if ((period(date) - period(start)) % rule.interval != 0L) return false
+            if (byMonth.isNotEmpty() && date.monthValue !in byMonth) return false
+            if (byMonthDay.isNotEmpty() && byMonthDay.none { it == date.dayOfMonth || it == date.dayOfMonth - date.lengthOfMonth() - 1 }) {
+                return false
+            }
+            return byDay.isEmpty() || byDay.any { day ->
+                day.dayOfWeek == date.dayOfWeek && when {
+                    day.nth == 0 -> true
+                    ordinalsInYear && day.nth > 0 -> (date.dayOfYear - 1) / 7 + 1 == day.nth
+                    ordinalsInYear -> -((date.lengthOfYear() - date.dayOfYear) / 7 + 1) == day.nth
+                    day.nth > 0 -> (date.dayOfMonth - 1) / 7 + 1 == day.nth
+                    else -> -((date.lengthOfMonth() - date.dayOfMonth) / 7 + 1) == day.nth
+                }
+            }
+        }
+
+        fun occurrences(limit: Int, horizonDays: Int): List<LocalDate> {
+            val occurrences = mutableListOf<LocalDate>()
+            var generated = 0
+            var date = start
+            ended = false
+            repeat(horizonDays) {
+                if (rule.until?.let { date > it } == true || rule.count?.let { generated >= it } == true) {
+                    ended = true
+                    return occurrences
+                }
+                if (matches(date)) {
+                    generated++
+                    if (date !in exceptions) {
+                        occurrences.add(date)
+                        if (occurrences.size >= limit) return occurrences
+                    }
+                }
+                date = date.plusDays(1)
+            }
+            return occurrences
+        }
+
+        fun matchesIgnoringEnd(date: LocalDate): Boolean = date >= start && date !in exceptions && matches(date)
+    }
+
+    private fun randomRule(random: Random, start: LocalDate): RRule {
+        val frequency = RRule.Frequency.values().random(random)
+        val ordinals = frequency == RRule.Frequency.MONTHLY || frequency == RRule.Frequency.YEARLY
+        val byDay = if (random.nextBoolean()) {
+            List(random.nextInt(1, 4)) {
+                val nth = if (ordinals && random.nextInt(5) < 3) {
+                    listOf(1, 2, 3, 4, 5, -1, -2, 10, 20, -10, 53).random(random)
+                        .takeIf { frequency == RRule.Frequency.YEARLY || it in -5..5 } ?: 1
+                } else {
+                    0
+                }
+                RRule.WeekdayNum(nth, DayOfWeek.values().random(random))
+            }.distinct()
+        } else {
+            emptyList()
+        }
+        val byMonthDay = if (frequency != RRule.Frequency.WEEKLY && random.nextInt(5) < 2) {
+            List(random.nextInt(1, 3)) { listOf(1, 13, 15, 28, 29, 30, 31, -1, -2, -31).random(random) }
+        } else {
+            emptyList()
+        }
+        val byMonth = if (random.nextInt(3) == 0) (1..12).shuffled(random).take(random.nextInt(1, 4)) else emptyList()
+        val end = random.nextInt(10)
+        return RRule(
+            frequency = frequency,
+            interval = listOf(1, 1, 1, 2, 3, 5, 7, 12).random(random),
+            byDay = byDay,
+            byMonthDay = byMonthDay,
+            byMonth = byMonth,
+            count = if (end < 3) random.nextInt(0, 60) else null,
+            until = if (end in 3..4) start.plusDays(random.nextLong(3_000)) else null
+        )
+    }
+
+    @Test
+    fun `random rules match the day by day reference`() {
+        val random = Random(21)
+        repeat(RANDOM_RULES) {
+            val start = LocalDate.of(2000, 1, 1).plusDays(random.nextLong(30 * 365L))
+            val rule = randomRule(random, start)
+            val all = NaiveRecurrence(start, rule, emptySet()).occurrences(LIMIT, HORIZON_DAYS)
+            val exceptions = all.shuffled(random).take(random.nextInt(0, 6)).toSet()
+            val naive = NaiveRecurrence(start, rule, exceptions)
+            val expected = naive.occurrences(LIMIT, HORIZON_DAYS).map { it.atTime(TIME) }
+            val recurrenceSet = RecurrenceSet(start.atTime(TIME), rule, exceptions)
+
+            val actual = mutableListOf<LocalDateTime>()
+            var previous = start.minusDays(random.nextLong(1, 40)).atTime(TIME)
+            while (actual.size < expected.size) {
+                previous = recurrenceSet.firstAfter(previous) ?: break
+                actual.add(previous)
+            }
+            assertEquals("$rule from $start", expected, actual)
+            if (naive.ended) {
+                assertNull("$rule from $start ends", recurrenceSet.firstAfter(expected.lastOrNull() ?: start.minusDays(1).atTime(TIME)))
+            }
+
+            repeat(5) {
+                if (expected.isEmpty()) return@repeat
+                val target = expected.random(random).minusHours(random.nextLong(0, 48))
+                assertEquals(
+                    "$rule from $start at $target",
+                    expected.first { it >= target },
+                    recurrenceSet.firstAtOrAfter(target)
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `counts match the day by day reference without listing`() {
+        val random = Random(25)
+        repeat(RANDOM_RULES) {
+            val start = LocalDate.of(2000, 1, 1).plusDays(random.nextLong(30 * 365L))
+            val rule = randomRule(random, start)
+            val all = NaiveRecurrence(start, rule, emptySet()).occurrences(LIMIT, HORIZON_DAYS)
+            // Exceptions on days the rule skips must not be subtracted
+            val exceptions = (all.shuffled(random).take(random.nextInt(0, 6)) + start.plusDays(random.nextLong(400))).toSet()
+            val naive = NaiveRecurrence(start, rule, exceptions)
+            val expected = naive.occurrences(LIMIT, HORIZON_DAYS).map { it.atTime(TIME) }
+            val recurrenceSet = RecurrenceSet(start.atTime(TIME), rule, exceptions)
+            // The reference lists every occurrence before its last one, or before its horizon once it ended
+            val bound = if (expected.size < LIMIT) start.plusDays(HORIZON_DAYS.toLong()) else expected.last().toLocalDate().plusDays(1)
+            val days = ChronoUnit.DAYS.between(start, bound)
+
+            repeat(8) {
+                val from = start.minusDays(30).plusDays(random.nextLong(days + 30)).atTime(random.nextInt(24), 0)
+                val to = minOf(from.plusDays(random.nextLong(days + 1)), bound.atStartOfDay())
+                assertEquals(
+                    "$rule from $start in [$from, $to)",
+                    expected.count { it >= from && it < to }.toLong(),
+                    recurrenceSet.countBetween(from, to)
+                )
+            }
+        }
+    }
+
+    @Test
+    fun `far future lookups land on the next matching day`() {
+        val random = Random(2021)
+        repeat(RANDOM_RULES) {
+            val start = LocalDate.of(2000, 1, 1).plusDays(random.nextLong(30 * 365L))
+            val rule = randomRule(random, start).copy(count = null, until = null)
+            val naive = NaiveRecurrence(start, rule, emptySet())
+            val recurrenceSet = RecurrenceSet(start.atTime(TIME), rule)
+
+            val target = start.plusDays(random.nextLong(2_000 * 365L))
+            val next = recurrenceSet.firstAtOrAfter(target.atStartOfDay()) ?: return@repeat
+            assertTrue("$rule from $start at $target", naive.matchesIgnoringEnd(next.toLocalDate()))
+            // Nothing matches in between, within a bounded look back
+            var day = next.toLocalDate().minusDays(1)
+            while (day >= target && day > next.toLocalDate().minusDays(800)) {
+                assertTrue("$rule from $start skipped $day", !naive.matchesIgnoringEnd(day))
+                day = day.minusDays(1)
+            }
+        }
+    }
+
+    @Test
+    fun `count ends the series without walking it`() {
+        // Every Friday the 13th, the 1000th of which is centuries away
+        val start = LocalDate.of(2026, 2, 13).atTime(TIME)
+        val recurrenceSet = RecurrenceSet(start, RRule.parse("FREQ=DAILY;BYDAY=FR;BYMONTHDAY=13;COUNT=1000"))
+
+        assertNull(recurrenceSet.firstAtOrAfter(start.plusYears(5_000)))
+
+        val occurrences = generateSequence(start) { recurrenceSet.firstAfter(it) }.toList()
+        assertEquals(1000, occurrences.size)
+        assertTrue(occurrences.all { it.dayOfMonth == 13 && it.dayOfWeek == DayOfWeek.FRIDAY })
+        assertEquals(occurrences.last(), recurrenceSet.firstAtOrAfter(occurrences.last().minusDays(1)))
+    }
+
+    @Test
+    fun `rules parse and format as RRULE values`() {
+        val thanksgiving = RRule.parse("RRULE:FREQ=YEARLY;BYMONTH=11;BYDAY=4TH")
+        assertEquals(listOf(RRule.WeekdayNum(4, DayOfWeek.THURSDAY)), thanksgiving.byDay)
+        assertEquals("FREQ=YEARLY;BYDAY=4TH;BYMONTH=11", thanksgiving.toString())
+        assertEquals(
+            LocalDate.of(2027, 11, 25).atTime(TIME),
+            RecurrenceSet(LocalDate.of(2026, 11, 26).atTime(TIME), thanksgiving).firstAfter(LocalDate.of(2026, 11, 26).atTime(TIME))
+        )
+
+        val text = "FREQ=MONTHLY;INTERVAL=2;BYDAY=-1FR,2TU;BYMONTHDAY=-1;UNTIL=20301231"
+        assertEquals(text, RRule.parse(text).toString())
+        assertEquals(LocalDate.of(2030, 12, 31), RRule.parse("FREQ=DAILY;UNTIL=20301231T235959Z").until)
+
+        listOf("INTERVAL=2", "FREQ=HOURLY", "FREQ=WEEKLY;BYDAY=2MO", "FREQ=DAILY;BYSETPOS=1", "FREQ=DAILY;COUNT=2;UNTIL=20300101")
+            .forEach { invalid ->
+                val failure = runCatching { RRule.parse(invalid) }.exceptionOrNull()
+                assertTrue(invalid, failure is IllegalArgumentException)
+            }
+    }
+
+    @Test
+    fun `far future lookups take constant time`() {
+        val rules = listOf(
+            "FREQ=DAILY",
+            "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE,FR",
+            "FREQ=MONTHLY;BYDAY=-1FR",
+            "FREQ=MONTHLY;BYMONTHDAY=31",
+            "FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=29",
+            "FREQ=DAILY;INTERVAL=3;COUNT=5000000"
+        ).map { RecurrenceSet(LocalDate.of(2000, 1, 3).atTime(TIME), RRule.parse(it)) }
+        val random = Random(5)
+        val targets = List(LOOKUPS) { LocalDate.of(2000, 1, 1).plusDays(random.nextLong(8_000 * 365L)).atStartOfDay() }
+        var sink = 0L
+        repeat(WARMUP_RUNS) { rules.forEach { sink += it.firstAtOrAfter(targets[0])?.dayOfMonth ?: 0 } }
+
+        val startNanos = System.nanoTime()
+        for (recurrenceSet in rules) {
+            for (target in targets) {
+                sink += recurrenceSet.firstAtOrAfter(target)?.dayOfMonth ?: 0
+            }
+        }
+        val elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000
+
+        // The checksum keeps the lookups from being optimised away
+        assertTrue("took ${elapsedMillis}ms (checksum $sink)", elapsedMillis < BUDGET_MILLIS)
+    }
+
+    private companion object {
+        const val RANDOM_RULES = 600
+        const val LIMIT = 60
+        const val HORIZON_DAYS = 40 * 365
+        const val LOOKUPS = 20_000
+        const val WARMUP_RUNS = 1_000
+        const val BUDGET_MILLIS = 2_000L
+        val TIME: LocalTime = LocalTime.of(9, 30)
+        val MONDAY: LocalDate = LocalDate.of(1969, 12, 29)
+    }
+}
@@ -0,0 +1,97 @@
+package com.countjoy.domain.usecase
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.PackedCountdownTime
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.temporal.ChronoUnit
+
+/**
+ * Measures bytes allocated per countdown tick for 1,000 events, comparing the
+ * LocalDateTime/CountdownTime/String.format path with the packed path.
+ */
+class CountdownAllocationBenchmarkTest {
+    
+    private val useCase = CalculateCountdownUseCase()
+    private val zone = ZoneId.systemDefault()
+    private val events = (1..EVENT_COUNT).map { index ->
+        CountdownEvent(
+            id = index.toLong(),
+            title = "Event $index",
+            targetDateTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).plusSeconds(index * 3_607L)
+        )
+    }
+    private val targets = LongArray(EVENT_COUNT) { index ->
+        events[index].targetDateTime.atZone(zone).toInstant().toEpochMilli()
+    }
+    private val text = StringBuilder(32)
+    
+    // Consumed results, so the JIT cannot drop the work being measured
+    private var sink = 0L
+    
+    private fun objectTick() {
+        val now = LocalDateTime.now()
+        for (event in events) {
+            sink += useCase(event, now).toFormattedString().length
+        }
+    }
+    
+    private fun packedTick() {
+        // Same per-row work as IncrementalCountdownEngine on a tick
+        val nowMillis = System.currentTimeMillis()
+        for (target in targets) {
+            text.setLength(0)
+            PackedCountdownTime.between(target, nowMillis).formatTo(text)
+            sink += text.length
+        }
+    }
+    
+    @Test
+    fun `packed tick path allocates far less than the object path`() {
+        val threadBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported)
+        threadBean!!.isThreadAllocatedMemoryEnabled = true
+        val threadId = Thread.currentThread().id
+        
+        repeat(WARMUP_TICKS) {
+            objectTick()
+            packedTick()
+        }
+        
+        var start = threadBean.getThreadAllocatedBytes(threadId)
+        repeat(MEASURED_TICKS) { objectTick() }
+        val objectBytesPerTick = (threadBean.getThreadAllocatedBytes(threadId) - start) / MEASURED_TICKS
+        
+        start = threadBean.getThreadAllocatedBytes(threadId)
+        repeat(MEASURED_TICKS) { packedTick() }
+        val packedBytesPerTick = (threadBean.getThreadAllocatedBytes(threadId) - start) / MEASURED_TICKS
+        
+        assertTrue(packedBytesPerTick < EVENT_COUNT)
+        assertTrue(packedBytesPerTick * 10 < objectBytesPerTick)
+    }
+    
+    @Test
+    fun `packed path formats the same text as CountdownTime`() {
+        val now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)
+        val nowMillis = now.atZone(zone).toInstant().toEpochMilli()
+        
+        for (index in events.indices) {
+            text.setLength(0)
+            assertEquals(
+                useCase(events[index], now).toFormattedString(),
+                PackedCountdownTime.between(targets[index], nowMillis).formatTo(text).toString()
+            )
+        }
+    }
+    
+    private companion object {
+        const val EVENT_COUNT = 1_000
+        const val WARMUP_TICKS = 200
+        const val MEASURED_TICKS = 100
+    }
+}
@@ -0,0 +1,133 @@
+package com.countjoy.domain.usecase.milestone
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.Milestone
+import com.countjoy.domain.model.MilestoneType
+import com.countjoy.domain.model.PendingMilestone
+import com.countjoy.domain.repository.MilestoneRepository
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.LocalDateTime
+
+class CheckMilestonesUseCaseTest {
+
+    private class FakeMilestoneRepository(
+        private val pending: List<PendingMilestone>
+    ) : MilestoneRepository {
+        var pendingQueries = 0
+        val bulkUpdates = mutableListOf<List<String>>()
+        var singleUpdates = 0
+
+        override suspend fun getPendingMilestones(eventId: String?, minPriority: Int): List<PendingMilestone> {
+            pendingQueries++
+            return pending.filter {
+                it.event.priority >= minPriority && (eventId == null || it.milestone.eventId == eventId)
+            }
+        }
+
+        override suspend fun markMilestonesAsAchieved(milestoneIds: List<String>, achievedAt: Long) {
+            bulkUpdates += milestoneIds
+        }
+
+        override suspend fun markMilestoneAsAchieved(milestoneId: String, achievedAt: Long) {
+            singleUpdates++
+        }
+
+        override fun observePendingMilestones(): Flow<List<PendingMilestone>> = emptyFlow()
+        override fun getMilestonesByEventId(eventId: String): Flow<List<Milestone>> = emptyFlow()
+        override suspend fun getUnachievedMilestones(eventId: String): List<Milestone> = emptyList()
+        override suspend fun getMilestoneById(milestoneId: String): Milestone? = null
+        override suspend fun insertMilestone(milestone: Milestone) = Unit
+        override suspend fun insertMilestones(milestones: List<Milestone>) = Unit
+        override suspend fun updateMilestone(milestone: Milestone) = Unit
+        override suspend fun deleteMilestone(milestone: Milestone) = Unit
+        override suspend fun deleteMilestonesByEventId(eventId: String) = Unit
+        override fun getAchievementHistory(): Flow<List<Milestone>> = emptyFlow()
+    }
+
+    private val now = LocalDateTime.now()
+
+    private fun event(id: Long, priority: Int = 0) = CountdownEvent(
+        id = id,
+        title = "Event $id",
+        targetDateTime = now.plusDays(10),
+        createdAt = now.minusDays(10),
+        priority = priority
+    )
+
+    private fun pending(event: CountdownEvent, type: MilestoneType, value: Float) = PendingMilestone(
+        milestone = Milestone(
+            id = "${event.id}-$type-$value",
+            eventId = event.id.toString(),
+            type = type,
+            value = value,
+            title = "Milestone",
+            message = ""
+        ),
+        event = event
+    )
+
+    @Test
+    fun `findReached evaluates every event with one read and markAchieved with one bulk update`() = runTest {
+        val events = (1L..500L).map { event(it) }
+        val repository = FakeMilestoneRepository(
+            events.flatMap { event ->
+                listOf(
+                    pending(event, MilestoneType.PERCENTAGE_BASED, 25f),
+                    pending(event, MilestoneType.PERCENTAGE_BASED, 75f),
+                    pending(event, MilestoneType.TIME_BASED, 30f),
+                    pending(event, MilestoneType.TIME_BASED, 1f)
+                )
+            }
+        )
+
+        val useCase = CheckMilestonesUseCase(repository)
+        val achieved = useCase.findReached()
+
+        // Halfway through: 25% and 30-days-left are reached, 75% and 1-day-left are not
+        assertEquals(1_000, achieved.size)
+        assertEquals(1, repository.pendingQueries)
+        // Nothing is recorded until the achievements have been delivered
+        assertTrue(repository.bulkUpdates.isEmpty())
+
+        useCase.markAchieved(achieved)
+
+        assertEquals(1, repository.bulkUpdates.size)
+        assertEquals(achieved.map { it.milestone.id }, repository.bulkUpdates.single())
+        assertEquals(0, repository.singleUpdates)
+        assertTrue(achieved.all { it.milestone.isAchieved && it.milestone.achievedAt != null })
+    }
+
+    @Test
+    fun `findReached skips events below the requested priority`() = runTest {
+        val repository = FakeMilestoneRepository(
+            listOf(
+                pending(event(1, priority = 0), MilestoneType.PERCENTAGE_BASED, 10f),
+                pending(event(2, priority = 2), MilestoneType.PERCENTAGE_BASED, 10f)
+            )
+        )
+
+        val achieved = CheckMilestonesUseCase(repository).findReached(minPriority = 2)
+
+        assertEquals(listOf(2L), achieved.map { it.event.id })
+    }
+
+    @Test
+    fun `invoke only checks the given event`() = runTest {
+        val repository = FakeMilestoneRepository(
+            listOf(
+                pending(event(1), MilestoneType.PERCENTAGE_BASED, 10f),
+                pending(event(2), MilestoneType.PERCENTAGE_BASED, 10f)
+            )
+        )
+
+        val achieved = CheckMilestonesUseCase(repository)("2")
+
+        assertEquals(listOf(2L), achieved.map { it.event.id })
+        assertEquals(listOf(achieved.single().milestone.id), repository.bulkUpdates.single())
+    }
+}
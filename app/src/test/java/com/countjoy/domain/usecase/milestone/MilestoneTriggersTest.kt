@@ -0,0 +1,112 @@
+package com.countjoy.domain.usecase.milestone
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.Milestone
+import com.countjoy.domain.model.MilestoneType
+import com.countjoy.domain.model.PendingMilestone
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.LocalDateTime
+
+class MilestoneTriggersTest {
+
+    private val createdAt = LocalDateTime.of(2030, 1, 1, 0, 0)
+    private val event = CountdownEvent(
+        id = 1,
+        title = "Launch",
+        targetDateTime = createdAt.plusDays(100),
+        createdAt = createdAt
+    )
+    // Not always 100 whole days if the span crosses a DST change
+    private val totalMillis = event.targetEpochMillis - event.createdAtEpochMillis
+
+    private fun milestone(type: MilestoneType, value: Float) = Milestone(
+        id = "$type-$value",
+        eventId = "1",
+        type = type,
+        value = value,
+        title = "Milestone",
+        message = ""
+    )
+
+    @Test
+    fun `percentage milestone triggers at its share of the countdown`() {
+        val triggerAt = MilestoneTriggers.triggerAtMillis(milestone(MilestoneType.PERCENTAGE_BASED, 25f), event)
+
+        assertEquals(event.createdAtEpochMillis + totalMillis / 4, triggerAt)
+    }
+
+    @Test
+    fun `time milestone triggers when whole days remaining drop to its value`() {
+        val milestone = milestone(MilestoneType.TIME_BASED, 7f)
+        val triggerAt = MilestoneTriggers.triggerAtMillis(milestone, event)!!
+
+        // Just under 8 days left counts as 7 whole days
+        assertEquals(event.targetEpochMillis - 8 * DAY + 1, triggerAt)
+        assertFalse(MilestoneTriggers.isReached(milestone, event, triggerAt - 1))
+        assertTrue(MilestoneTriggers.isReached(milestone, event, triggerAt))
+    }
+
+    @Test
+    fun `time milestone lapses a day after the target`() {
+        val milestone = milestone(MilestoneType.TIME_BASED, 7f)
+
+        assertTrue(MilestoneTriggers.isReached(milestone, event, event.targetEpochMillis + DAY - 1))
+        assertFalse(MilestoneTriggers.isReached(milestone, event, event.targetEpochMillis + DAY))
+    }
+
+    @Test
+    fun `hour milestone triggers its hours before the target and lapses at it`() {
+        val milestone = milestone(MilestoneType.HOUR_BASED, 12f)
+        val triggerAt = MilestoneTriggers.triggerAtMillis(milestone, event)!!
+
+        assertEquals(event.targetEpochMillis - DAY / 2, triggerAt)
+        assertFalse(MilestoneTriggers.isReached(milestone, event, triggerAt - 1))
+        assertTrue(MilestoneTriggers.isReached(milestone, event, event.targetEpochMillis - 1))
+        assertFalse(MilestoneTriggers.isReached(milestone, event, event.targetEpochMillis))
+    }
+
+    @Test
+    fun `custom milestones never trigger`() {
+        assertNull(MilestoneTriggers.triggerAtMillis(milestone(MilestoneType.CUSTOM, 0f), event))
+    }
+
+    @Test
+    fun `trigger instants agree with reached checks`() {
+        val milestones = listOf(10f, 33.3f, 50f, 90f).map { milestone(MilestoneType.PERCENTAGE_BASED, it) } +
+            listOf(1f, 30f, 99f).map { milestone(MilestoneType.TIME_BASED, it) }
+
+        for (milestone in milestones) {
+            val triggerAt = MilestoneTriggers.triggerAtMillis(milestone, event)!!
+            assertFalse(milestone.id, MilestoneTriggers.isReached(milestone, event, triggerAt - 1))
+            assertTrue(milestone.id, MilestoneTriggers.isReached(milestone, event, triggerAt))
+        }
+    }
+
+    @Test
+    fun `next trigger is the earliest reachable one`() {
+        val pending = listOf(
+            PendingMilestone(milestone(MilestoneType.PERCENTAGE_BASED, 50f), event),
+            PendingMilestone(milestone(MilestoneType.TIME_BASED, 90f), event),
+            PendingMilestone(milestone(MilestoneType.CUSTOM, 0f), event)
+        )
+
+        // 90 days left happens on day 10, before the halfway point on day 50
+        assertEquals(
+            event.targetEpochMillis - 91 * DAY + 1,
+            MilestoneTriggers.nextTriggerMillis(pending, event.createdAtEpochMillis)
+        )
+        // Once the time milestone has lapsed only the percentage one is left
+        assertEquals(
+            event.createdAtEpochMillis + totalMillis / 2,
+            MilestoneTriggers.nextTriggerMillis(pending, event.targetEpochMillis + DAY)
+        )
+    }
+
+    private companion object {
+        const val DAY = 86_400_000L
+    }
+}
@@ -1,6 +1,7 @@
 package com.countjoy.domain.validation
 
 import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.toEpochMillis
 import org.junit.Test
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
@@ -92,7 +93,7 @@ class EventValidatorTest {
     @Test
     fun `validate returns error for date too far in past`() {
         // Given
-        val event = createValidEvent().copy(targetDateTime = LocalDateTime.now().minusYears(11))
+        val event = createValidEvent().copy(targetEpochMillis = LocalDateTime.now().minusYears(11).toEpochMillis())
         
         // When
         val result = EventValidator.validate(event)
@@ -105,7 +106,7 @@ class EventValidatorTest {
     @Test
     fun `validate returns error for date too far in future`() {
         // Given
-        val event = createValidEvent().copy(targetDateTime = LocalDateTime.now().plusYears(101))
+        val event = createValidEvent().copy(targetEpochMillis = LocalDateTime.now().plusYears(101).toEpochMillis())
         
         // When
         val result = EventValidator.validate(event)
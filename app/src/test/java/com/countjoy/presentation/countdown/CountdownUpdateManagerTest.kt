@@ -0,0 +1,151 @@
+package com.countjoy.presentation.countdown
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.Duration
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class CountdownUpdateManagerTest {
+
+    private fun TestScope.createManager(): CountdownUpdateManager {
+        // Virtual clock backed by the test scheduler, so delays cost no real time
+        return CountdownUpdateManager(
+            clock = TickClock { testScheduler.currentTime },
+            coroutineScope = backgroundScope
+        )
+    }
+
+    private fun TestScope.advanceBy(millis: Long) {
+        advanceTimeBy(millis)
+        runCurrent()
+    }
+
+    @Test
+    fun `single subscriber wakes once per second boundary`() = runTest {
+        val manager = createManager()
+        val received = mutableListOf<Long>()
+
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { received.add(it) }
+        }
+        runCurrent()
+        advanceBy(10_000)
+
+        assertEquals(10L, manager.wakeupCount)
+        assertEquals((1..10).map { it * 1_000L }, received)
+    }
+
+    @Test
+    fun `wakeup count stays the same as subscribers are added`() = runTest {
+        val manager = createManager()
+        val counts = IntArray(5)
+
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { counts[0]++ }
+        }
+        runCurrent()
+        advanceBy(10_000)
+        val wakeupsWithOneSubscriber = manager.wakeupCount
+
+        for (index in 1 until counts.size) {
+            backgroundScope.launch {
+                manager.ticks(CountdownUpdateManager.SECOND).collect { counts[index]++ }
+            }
+        }
+        runCurrent()
+        advanceBy(10_000)
+
+        assertEquals(10L, wakeupsWithOneSubscriber)
+        assertEquals(20L, manager.wakeupCount)
+        assertEquals(20, counts[0])
+        for (index in 1 until counts.size) {
+            assertEquals(10, counts[index])
+        }
+    }
+
+    @Test
+    fun `coarse subscribers share the fine-grained wakeups`() = runTest {
+        val manager = createManager()
+        val minuteTicks = mutableListOf<Long>()
+
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { }
+        }
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.MINUTE).collect { minuteTicks.add(it) }
+        }
+        runCurrent()
+        advanceBy(120_000)
+
+        assertEquals(120L, manager.wakeupCount)
+        assertEquals(listOf(60_000L, 120_000L), minuteTicks)
+    }
+
+    @Test
+    fun `ticks are aligned to wall clock boundaries`() = runTest {
+        advanceBy(1_250)
+        val manager = createManager()
+        val received = mutableListOf<Long>()
+
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { received.add(it) }
+        }
+        runCurrent()
+        advanceBy(3_000)
+
+        assertEquals(listOf(2_000L, 3_000L, 4_000L), received)
+        assertTrue(received.all { it % CountdownUpdateManager.SECOND == 0L })
+    }
+
+    @Test
+    fun `tickAt wakes once at the given instant and shares the wakeup`() = runTest {
+        val manager = createManager()
+        val ticks = mutableListOf<Long>()
+        val once = mutableListOf<Long>()
+
+        backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { ticks.add(it) }
+        }
+        backgroundScope.launch {
+            manager.tickAt(2_500).collect { once.add(it) }
+        }
+        runCurrent()
+        advanceBy(5_000)
+
+        assertEquals(listOf(2_500L), once)
+        assertEquals((1..5).map { it * 1_000L }, ticks)
+        assertEquals(6L, manager.wakeupCount)
+    }
+
+    @Test
+    fun `engine stops waking once every subscriber is gone`() = runTest {
+        val manager = createManager()
+
+        val job = backgroundScope.launch {
+            manager.ticks(CountdownUpdateManager.SECOND).collect { }
+        }
+        runCurrent()
+        advanceBy(5_000)
+        job.cancel()
+        runCurrent()
+        advanceBy(60_000)
+
+        assertEquals(5L, manager.wakeupCount)
+    }
+
+    @Test
+    fun `calculateUpdateInterval picks granularity from time remaining`() {
+        assertEquals(CountdownUpdateManager.SECOND, CountdownUpdateManager.calculateUpdateInterval(Duration.ofMinutes(30)))
+        assertEquals(CountdownUpdateManager.MINUTE, CountdownUpdateManager.calculateUpdateInterval(Duration.ofHours(5)))
+        assertEquals(CountdownUpdateManager.FIVE_MINUTES, CountdownUpdateManager.calculateUpdateInterval(Duration.ofDays(3)))
+        assertEquals(CountdownUpdateManager.HOUR, CountdownUpdateManager.calculateUpdateInterval(Duration.ofDays(10)))
+        assertEquals(CountdownUpdateManager.SIX_HOURS, CountdownUpdateManager.calculateUpdateInterval(Duration.ofDays(90)))
+    }
+}
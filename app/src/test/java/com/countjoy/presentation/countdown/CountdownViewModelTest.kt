@@ -0,0 +1,36 @@
+package com.countjoy.presentation.countdown
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class CountdownViewModelTest {
+
+    private val now = 1_900_000_000_000L
+
+    @Test
+    fun `ticks every second within the last hour`() {
+        assertEquals(
+            CountdownUpdateManager.SECOND,
+            CountdownViewModel.tickGranularity(now + 59 * CountdownUpdateManager.MINUTE, now)
+        )
+    }
+
+    @Test
+    fun `ticks every minute for anything further away`() {
+        for (remaining in listOf(CountdownUpdateManager.HOUR, 3 * DAY, 90 * DAY)) {
+            assertEquals(
+                CountdownUpdateManager.MINUTE,
+                CountdownViewModel.tickGranularity(now + remaining, now)
+            )
+        }
+    }
+
+    @Test
+    fun `a countdown that just ended ticks every second`() {
+        assertEquals(CountdownUpdateManager.SECOND, CountdownViewModel.tickGranularity(now - 1, now))
+    }
+
+    private companion object {
+        const val DAY = 86_400_000L
+    }
+}
@@ -0,0 +1,119 @@
+package com.countjoy.presentation.countdown
+
+import com.countjoy.domain.model.CountdownEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.ZoneId
+
+class IncrementalCountdownEngineTest {
+
+    private val start = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli()
+
+    private fun eventAt(id: Long, epochMillis: Long) = CountdownEvent(
+        id = id,
+        title = "Event $id",
+        targetDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+    )
+
+    @Test
+    fun `tick updates remaining time of due rows`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(listOf(eventAt(1, start + 90_000)), start)
+
+        val countdown = engine.countdownFor(1)
+        assertNotNull(countdown)
+        assertEquals(90L, countdown!!.value.totalSeconds)
+
+        engine.tick(start + 1_000)
+        assertEquals(89L, countdown.value.totalSeconds)
+    }
+
+    @Test
+    fun `rows whose displayed value is unchanged are not touched`() {
+        val engine = IncrementalCountdownEngine(resolutionMillis = CountdownUpdateManager.MINUTE)
+        engine.setEvents(listOf(eventAt(1, start + 10 * 60_000 + 30_000)), start)
+        val countdown = engine.countdownFor(1)!!
+        val initial = countdown.value
+
+        engine.tick(start + 30_000)
+        assertSame(initial, countdown.value)
+
+        engine.tick(start + 30_001)
+        assertEquals(9L, countdown.value.totalSeconds / 60)
+    }
+
+    @Test
+    fun `tick reports expiry crossing only once`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(listOf(eventAt(1, start + 2_000), eventAt(2, start + 60_000)), start)
+
+        assertFalse(engine.tick(start + 1_000))
+        assertTrue(engine.tick(start + 2_000))
+        assertFalse(engine.tick(start + 3_000))
+        assertTrue(engine.countdownFor(1)!!.value.isExpired)
+        assertFalse(engine.countdownFor(2)!!.value.isExpired)
+    }
+
+    @Test
+    fun `setEvents keeps row flow identity for unchanged events`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(listOf(eventAt(1, start + 60_000)), start)
+        val before = engine.countdownFor(1)
+
+        engine.setEvents(listOf(eventAt(1, start + 60_000), eventAt(2, start + 120_000)), start + 1_000)
+
+        assertSame(before, engine.countdownFor(1))
+        assertEquals(59L, before!!.value.totalSeconds)
+    }
+
+    @Test
+    fun `clock moving backwards resyncs every row`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(listOf(eventAt(1, start + 60_000)), start + 30_000)
+
+        assertTrue(engine.tick(start))
+        assertEquals(60L, engine.countdownFor(1)!!.value.totalSeconds)
+    }
+
+    @Test
+    fun `rows more than an hour away change once a minute, then every second`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(listOf(eventAt(1, start + 2 * CountdownUpdateManager.HOUR + 30_000)), start)
+        val countdown = engine.countdownFor(1)!!
+        val initial = countdown.value
+
+        engine.tick(start + 1_000)
+        assertSame(initial, countdown.value)
+
+        engine.tick(start + 30_001)
+        assertEquals(2 * 3600L - 1, countdown.value.totalSeconds)
+
+        engine.tick(start + CountdownUpdateManager.HOUR + 30_001)
+        assertEquals(3599L, countdown.value.totalSeconds)
+
+        engine.tick(start + CountdownUpdateManager.HOUR + 31_001)
+        assertEquals(3598L, countdown.value.totalSeconds)
+    }
+
+    @Test
+    fun `next change follows each row's own target, not the wall-clock minute`() {
+        val engine = IncrementalCountdownEngine()
+        engine.setEvents(
+            listOf(eventAt(1, start + 2 * CountdownUpdateManager.HOUR + 37_000), eventAt(2, start + 3 * CountdownUpdateManager.HOUR + 12_000)),
+            start
+        )
+
+        assertEquals(start + 12_001, engine.nextChangeAt())
+        engine.tick(start + 12_001)
+        assertEquals(start + 37_001, engine.nextChangeAt())
+
+        engine.setEvents(emptyList(), start + 40_000)
+        assertEquals(null, engine.nextChangeAt())
+    }
+}
@@ -0,0 +1,147 @@
+package com.countjoy.service
+
+import com.countjoy.data.local.TestSchema
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.sql.DriverManager
+import java.time.DayOfWeek
+import kotlin.random.Random
+
+/**
+ * Checks the heatmap and duration bins against plain counting on a synthetic
+ * 1M event dataset, within a time budget, and that the SQL bins of
+ * CountdownEventDao agree with [ActivityHistogram.durationBin].
+ */
+class ActivityHistogramTest {
+
+    /** Synthetic events as primitive columns, so generating them is not timed. */
+    private class Dataset(size: Int, seed: Int) {
+        val dayOfWeek = IntArray(size)
+        val hour = IntArray(size)
+        val durationMillis = LongArray(size)
+
+        init {
+            val random = Random(seed)
+            for (index in 0 until size) {
+                // Skewed towards weekday evenings, as real activity is
+                dayOfWeek[index] = if (random.nextInt(3) == 0) random.nextInt(7) else random.nextInt(5)
+                hour[index] = if (random.nextBoolean()) 18 + random.nextInt(4) else random.nextInt(24)
+                // Log-uniform lengths from an hour to a few years
+                durationMillis[index] = Math.pow(10.0, random.nextDouble(6.5, 11.0)).toLong()
+            }
+        }
+    }
+
+    private fun record(dataset: Dataset): ActivityHistogram {
+        val days = DayOfWeek.values()
+        return ActivityHistogram().apply {
+            for (index in dataset.hour.indices) {
+                recordActivity(days[dataset.dayOfWeek[index]], dataset.hour[index])
+                recordDuration(dataset.durationMillis[index])
+            }
+        }
+    }
+
+    @Test
+    fun `duration bins double in width`() {
+        assertEquals(0, ActivityHistogram.durationBin(-1L))
+        assertEquals(0, ActivityHistogram.durationBin(DAY_MILLIS - 1))
+        assertEquals(1, ActivityHistogram.durationBin(DAY_MILLIS))
+        assertEquals(1, ActivityHistogram.durationBin(2 * DAY_MILLIS - 1))
+        assertEquals(2, ActivityHistogram.durationBin(2 * DAY_MILLIS))
+        assertEquals(8, ActivityHistogram.durationBin(256 * DAY_MILLIS - 1))
+        assertEquals(9, ActivityHistogram.durationBin(256 * DAY_MILLIS))
+        assertEquals(9, ActivityHistogram.durationBin(Long.MAX_VALUE))
+
+        assertEquals("< 1 day", ActivityHistogram.durationBinLabel(0))
+        assertEquals("4-8 days", ActivityHistogram.durationBinLabel(3))
+        assertEquals("≥ 256 days", ActivityHistogram.durationBinLabel(9))
+    }
+
+    @Test
+    fun `counts over 1M events match plain counting within budget`() {
+        val dataset = Dataset(EVENT_COUNT, seed = 20)
+        repeat(WARMUP_RUNS) { record(Dataset(WARMUP_SIZE, seed = it)).heatmap() }
+
+        val start = System.nanoTime()
+        val histogram = record(dataset)
+        val heatmap = histogram.heatmap()
+        val durations = histogram.durationHistogram()
+        val elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        assertTrue("took ${elapsedMillis}ms", elapsedMillis < BUDGET_MILLIS)
+
+        val expectedCells = IntArray(ActivityHistogram.CELLS)
+        val expectedBins = IntArray(ActivityHistogram.DURATION_BINS)
+        for (index in 0 until EVENT_COUNT) {
+            expectedCells[dataset.dayOfWeek[index] * 24 + dataset.hour[index]]++
+            val days = dataset.durationMillis[index] / DAY_MILLIS
+            // Linear search over the bin edges, as a reference for the bit count
+            val bin = (1 until ActivityHistogram.DURATION_BINS).lastOrNull { days >= 1L shl (it - 1) } ?: 0
+            expectedBins[bin]++
+        }
+
+        val busiest = expectedCells.max()
+        heatmap.forEach { cell ->
+            assertEquals(expectedCells[cell.day * 24 + cell.hour].toFloat() / busiest, cell.intensity, 1e-6f)
+        }
+        assertArrayEquals(expectedBins, durations.map { it.count }.toIntArray())
+        assertEquals(EVENT_COUNT, histogram.activityByDayOfWeek().sum())
+        assertEquals(EVENT_COUNT, histogram.activityByHour().sum())
+        // Weekday evenings dominate the synthetic data
+        assertTrue(histogram.activityByHour().withIndex().maxBy { it.value }.index in 18..21)
+    }
+
+    @Test
+    fun `empty histogram has zero intensity everywhere`() {
+        val histogram = ActivityHistogram()
+
+        assertEquals(ActivityHistogram.CELLS, histogram.heatmap().size)
+        assertTrue(histogram.heatmap().all { it.intensity == 0f })
+        assertTrue(histogram.durationHistogram().all { it.count == 0 })
+    }
+
+    @Test
+    fun `sql duration bins match durationBin`() {
+        val query = Regex(
+            "@Query\\(\\s*\"\"\"(.*?)\"\"\"\\s*\\)\\s*suspend\\s+fun\\s+(\\w+)",
+            RegexOption.DOT_MATCHES_ALL
+        ).findAll(File("src/main/java/com/countjoy/data/local/dao/CountdownEventDao.kt").readText())
+            .single { it.groupValues[2] == "getDurationBinCounts" }
+            .groupValues[1]
+            .replace(":createdAfter", "-1")
+
+        val random = Random(7)
+        val durations = listOf(-1L, 0L, DAY_MILLIS - 1, DAY_MILLIS, 256 * DAY_MILLIS - 1, 256 * DAY_MILLIS) +
+            List(500) { random.nextLong(-DAY_MILLIS, 400 * DAY_MILLIS) } +
+            (0..9).map { (1L shl it) * DAY_MILLIS }
+
+        DriverManager.getConnection("jdbc:sqlite::memory:").use { connection ->
+            connection.createStatement().use { statement ->
+                TestSchema.statements.forEach { statement.execute(it) }
+                durations.forEachIndexed { index, duration ->
+                    statement.execute(
+                        "INSERT INTO countdown_events (id, title, target_date_time, created_at, updated_at) " +
+                            "VALUES (${index + 1}, 'Event', ${BASE_MILLIS + duration}, $BASE_MILLIS, $BASE_MILLIS)"
+                    )
+                }
+                val sqlBins = statement.executeQuery(query).use { result ->
+                    buildMap<Int, Int> { while (result.next()) put(result.getInt("bin"), result.getInt("count")) }
+                }
+                assertEquals(durations.groupingBy { ActivityHistogram.durationBin(it) }.eachCount(), sqlBins)
+            }
+        }
+    }
+
+    private companion object {
+        const val EVENT_COUNT = 1_000_000
+        const val WARMUP_SIZE = 100_000
+        const val WARMUP_RUNS = 3
+        const val BUDGET_MILLIS = 500L
+        const val DAY_MILLIS = 86_400_000L
+        const val BASE_MILLIS = 1_900_000_000_000L
+    }
+}
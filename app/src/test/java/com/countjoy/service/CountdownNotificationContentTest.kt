@@ -0,0 +1,76 @@
+package com.countjoy.service
+
+import com.countjoy.domain.model.CountdownEvent
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.time.LocalDateTime
+
+class CountdownNotificationContentTest {
+
+    private val event = CountdownEvent(
+        id = 1,
+        title = "Launch",
+        targetDateTime = LocalDateTime.of(2030, 6, 1, 12, 0)
+    )
+
+    /**
+     * Counts the posts a minute-tick loop makes over [fromMillis, toMillis)
+     * when it only posts changed content.
+     */
+    private fun postsBetween(fromMillis: Long, toMillis: Long): Int {
+        var posted: CountdownNotificationContent? = null
+        var posts = 0
+        var now = fromMillis
+        while (now < toMillis) {
+            val content = CountdownNotificationContent.of(event, now)
+            if (content != posted) {
+                posted = content
+                posts++
+            }
+            now += MINUTE
+        }
+        return posts
+    }
+
+    @Test
+    fun `distant events show hours and change once an hour`() {
+        val now = event.targetEpochMillis - 10 * DAY - 30 * MINUTE
+
+        assertEquals("9d 23h", CountdownNotificationContent.of(event, now).text)
+        // The first post plus one per hour boundary crossed
+        assertEquals(25, postsBetween(now, now + DAY))
+    }
+
+    @Test
+    fun `last day shows minutes and changes once a minute`() {
+        val now = event.targetEpochMillis - 5 * HOUR
+
+        assertEquals("05h 00m", CountdownNotificationContent.of(event, now).text)
+        assertEquals(60, postsBetween(now, now + HOUR))
+    }
+
+    @Test
+    fun `last hour is posted once and counted down by the chronometer`() {
+        val start = event.targetEpochMillis - HOUR + 1
+        val content = CountdownNotificationContent.of(event, start)
+
+        assertNull(content.text)
+        assertEquals(event.targetEpochMillis, content.chronometerTargetMillis)
+        assertEquals(1, postsBetween(start, event.targetEpochMillis))
+    }
+
+    @Test
+    fun `a full day of minute ticks stays far below one post per second`() {
+        val start = event.targetEpochMillis - DAY
+
+        // "1d 0h", then minute text down to "01h 00m", then a single chronometer post
+        assertEquals(1 + 23 * 60 + 1, postsBetween(start, event.targetEpochMillis))
+    }
+
+    private companion object {
+        const val MINUTE = 60_000L
+        const val HOUR = 3_600_000L
+        const val DAY = 86_400_000L
+    }
+}
@@ -0,0 +1,204 @@
+package com.countjoy.service
+
+import com.countjoy.domain.model.CountdownEvent
+import com.countjoy.domain.model.DateCount
+import com.countjoy.domain.model.EventAggregates
+import com.countjoy.domain.model.WeekdayHourCount
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.time.DayOfWeek
+import java.time.Duration
+import java.time.LocalDate
+import java.time.LocalDateTime
+import kotlin.random.Random
+
+/**
+ * Checks the single-pass aggregator against straightforward multi-pass
+ * computations, and that a 100k event report stays within a time budget
+ * while holding only a bounded amount of state.
+ */
+class EventAnalyticsAggregatorTest {
+
+    private val now = LocalDateTime.of(2030, 6, 15, 12, 0)
+    private val nowMillis = CountdownEvent(title = "", targetDateTime = now).targetEpochMillis
+    private val categories = listOf("Work", "Personal", "Travel", "Health", "General")
+
+    private fun event(index: Int, random: Random): CountdownEvent {
+        val createdAt = now.minusMinutes(random.nextLong(SPAN_DAYS * 24 * 60))
+        return CountdownEvent(
+            id = index.toLong(),
+            title = "Event $index",
+            category = categories[random.nextInt(categories.size)],
+            targetDateTime = createdAt.plusMinutes(random.nextLong(1, 120L * 24 * 60)),
+            createdAt = createdAt,
+            updatedAt = createdAt,
+            isActive = random.nextInt(3) != 0,
+            priority = random.nextInt(3)
+        )
+    }
+
+    private fun events(count: Int, seed: Int = 42): Sequence<CountdownEvent> {
+        val random = Random(seed)
+        return (1..count).asSequence().map { event(it, random) }
+    }
+
+    private fun aggregate(events: Sequence<CountdownEvent>): EventAnalyticsAggregator {
+        return EventAnalyticsAggregator(nowMillis, now.toLocalDate()).apply { events.forEach(::add) }
+    }
+
+    @Test
+    fun `statistics match separate passes over the events`() {
+        val events = events(2_000).toList()
+        val statistics = aggregate(events.asSequence()).statistics()
+        val completed = events.filter { !it.isActive }
+
+        assertEquals(events.size, statistics.totalEvents)
+        assertEquals(events.count { it.isActive }, statistics.activeEvents)
+        assertEquals(completed.size, statistics.completedEvents)
+        assertEquals(
+            Duration.ofMillis(completed.sumOf { it.targetEpochMillis - it.createdAtEpochMillis } / completed.size),
+            statistics.averageDuration
+        )
+        assertEquals(events.groupingBy { it.category }.eachCount(), statistics.eventsByCategory)
+        assertEquals(events.groupingBy { it.priority }.eachCount(), statistics.eventsByPriority)
+        assertEquals(trend(events) { it.createdAt.toLocalDate() }, statistics.creationTrend)
+        assertEquals(trend(completed) { it.targetDateTime.toLocalDate() }, statistics.completionTrend)
+        assertEquals(
+            events.filter { it.isActive && it.targetEpochMillis > nowMillis }
+                .sortedBy { it.targetEpochMillis }
+                .take(5)
+                .map { it.targetEpochMillis },
+            statistics.upcomingEvents.map { it.targetEpochMillis }
+        )
+        assertEquals(
+            completed.sortedByDescending { it.targetEpochMillis }.take(5).map { it.targetEpochMillis },
+            statistics.recentlyCompleted.map { it.targetEpochMillis }
+        )
+    }
+
+    @Test
+    fun `category distribution and insights match separate passes`() {
+        val events = events(2_000).toList()
+        val aggregator = aggregate(events.asSequence())
+
+        val distribution = aggregator.categoryDistribution()
+        assertEquals(
+            events.groupingBy { it.category }.eachCount().entries.sortedByDescending { it.value }.map { it.value },
+            distribution.map { it.count }
+        )
+        assertEquals(100f, distribution.sumOf { it.percentage.toDouble() }.toFloat(), 0.01f)
+
+        val insights = aggregator.productivityInsights()
+        val byDay = events.groupingBy { it.createdAt.dayOfWeek }.eachCount()
+        val byHour = events.groupingBy { it.createdAt.hour }.eachCount()
+        assertEquals(byDay.values.max(), byDay.getValue(DayOfWeek.valueOf(insights.mostProductiveDay)))
+        assertEquals(byHour.values.max(), byHour.getValue(insights.mostProductiveHour))
+
+        val createdDays = events.map { it.createdAt.toLocalDate() }.toSet()
+        val expectedStreak = generateSequence(now.toLocalDate()) { it.minusDays(1) }
+            .takeWhile { it in createdDays }
+            .count()
+        assertEquals(expectedStreak, insights.streakDays)
+    }
+
+    @Test
+    fun `database buckets give the same report as single events`() {
+        val events = events(2_000).toList()
+        val completed = events.filter { !it.isActive }
+        // What the aggregate queries return for the same events
+        val aggregates = EventAggregates(
+            totalEvents = events.size,
+            completedEvents = completed.size,
+            completedDurationMillis = completed.sumOf { it.targetEpochMillis - it.createdAtEpochMillis },
+            earliestCreatedMillis = events.minOf { it.createdAtEpochMillis },
+            eventsByCategory = events.groupingBy { it.category }.eachCount(),
+            eventsByPriority = events.groupingBy { it.priority }.eachCount(),
+            creationTrend = trend(events) { it.createdAt.toLocalDate() },
+            completionTrend = trend(completed) { it.targetDateTime.toLocalDate() },
+            creationByWeekdayHour = events.groupingBy { it.createdAt.dayOfWeek to it.createdAt.hour }.eachCount()
+                .map { (bucket, count) -> WeekdayHourCount(bucket.first, bucket.second, count) },
+            durationBins = events.groupingBy {
+                ActivityHistogram.durationBin(it.targetEpochMillis - it.createdAtEpochMillis)
+            }.eachCount(),
+            upcomingEvents = events.filter { it.isActive && it.targetEpochMillis > nowMillis }
+                .sortedBy { it.targetEpochMillis }
+                .take(5),
+            recentlyCompleted = completed.sortedByDescending { it.targetEpochMillis }.take(5)
+        )
+
+        val fromEvents = aggregate(events.asSequence())
+        val fromBuckets = EventAnalyticsAggregator(nowMillis, now.toLocalDate()).apply { addAggregates(aggregates) }
+
+        assertEquals(fromEvents.statistics(), fromBuckets.statistics())
+        assertEquals(
+            fromEvents.categoryDistribution().map { it.count },
+            fromBuckets.categoryDistribution().map { it.count }
+        )
+        assertEquals(fromEvents.productivityInsights(), fromBuckets.productivityInsights())
+        assertEquals(fromEvents.activityHeatmap(), fromBuckets.activityHeatmap())
+        assertEquals(fromEvents.durationHistogram(), fromBuckets.durationHistogram())
+    }
+    
+    @Test
+    fun `heatmap and duration histogram count every event once`() {
+        val events = events(2_000).toList()
+        val aggregator = aggregate(events.asSequence())
+
+        val heatmap = aggregator.activityHeatmap()
+        val byCell = events.groupingBy { it.createdAt.dayOfWeek.ordinal to it.createdAt.hour }.eachCount()
+        val busiest = byCell.values.max()
+        assertEquals(7 * 24, heatmap.size)
+        heatmap.forEach { cell ->
+            assertEquals((byCell[cell.day to cell.hour] ?: 0).toFloat() / busiest, cell.intensity, 1e-6f)
+        }
+        assertEquals(events.size, aggregator.durationHistogram().sumOf { it.count })
+    }
+
+    @Test
+    fun `no events gives an empty report`() {
+        val aggregator = aggregate(emptySequence())
+
+        assertEquals(0, aggregator.statistics().totalEvents)
+        assertEquals(0f, aggregator.statistics().successRate)
+        assertTrue(aggregator.categoryDistribution().isEmpty())
+        assertEquals("N/A", aggregator.productivityInsights().mostProductiveDay)
+        assertEquals(1, aggregator.productivityInsights().suggestions.size)
+    }
+
+    @Test
+    fun `report over 100k events stays within budget and bounded state`() {
+        // Events are produced lazily, as the repository streams them in chunks
+        repeat(WARMUP_RUNS) { report(aggregate(events(EVENT_COUNT, seed = it))) }
+
+        val start = System.nanoTime()
+        val aggregator = aggregate(events(EVENT_COUNT))
+        val report = report(aggregator)
+        val elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        assertEquals(EVENT_COUNT, report)
+        assertTrue("took ${elapsedMillis}ms", elapsedMillis < BUDGET_MILLIS)
+        assertTrue(aggregator.retainedEvents <= 10)
+        // One bucket per calendar day touched, however many events there are
+        assertTrue(aggregator.dayBuckets <= 2 * (SPAN_DAYS + 120 + 2))
+    }
+
+    private fun report(aggregator: EventAnalyticsAggregator): Int {
+        aggregator.categoryDistribution()
+        aggregator.productivityInsights()
+        return aggregator.statistics().totalEvents
+    }
+
+    private fun trend(events: List<CountdownEvent>, date: (CountdownEvent) -> LocalDate): List<DateCount> {
+        return events.groupingBy(date).eachCount()
+            .map { (day, count) -> DateCount(day, count) }
+            .sortedBy { it.date }
+    }
+
+    private companion object {
+        const val SPAN_DAYS = 365L
+        const val EVENT_COUNT = 100_000
+        const val WARMUP_RUNS = 2
+        const val BUDGET_MILLIS = 2_000L
+    }
+}
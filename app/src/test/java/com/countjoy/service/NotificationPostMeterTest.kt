@@ -0,0 +1,29 @@
+package com.countjoy.service
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class NotificationPostMeterTest {
+
+    private var now = 0L
+    private val meter = NotificationPostMeter { now }
+
+    @Test
+    fun `counts only posts within the last hour`() {
+        repeat(3) {
+            meter.recordPost()
+            now += 20 * MINUTE
+        }
+        // Posts at 0, 20 and 40 minutes; the first has just aged out
+        assertEquals(2, meter.postsInLastHour())
+        assertEquals(3, meter.totalPosts)
+
+        now += HOUR
+        assertEquals(0, meter.postsInLastHour())
+    }
+
+    private companion object {
+        const val MINUTE = 60_000L
+        const val HOUR = 3_600_000L
+    }
+}
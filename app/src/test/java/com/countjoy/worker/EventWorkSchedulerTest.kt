@@ -0,0 +1,47 @@
+package com.countjoy.worker
+
+import com.countjoy.worker.EventWorkScheduler.Purpose
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class EventWorkSchedulerTest {
+
+    @Test
+    fun `triggers within one window share a batch`() {
+        val purpose = Purpose.ADAPTIVE_CHECK
+        val start = 1_000 * purpose.windowMillis
+
+        val windows = (1L..purpose.windowMillis).map { purpose.windowFor(start + it) }.toSet()
+
+        assertEquals(setOf(start + purpose.windowMillis), windows)
+    }
+
+    @Test
+    fun `windows never start before their triggers`() {
+        for (purpose in Purpose.values()) {
+            for (atMillis in listOf(0L, 1L, purpose.windowMillis - 1, purpose.windowMillis, 1_700_000_123_456L)) {
+                val window = purpose.windowFor(atMillis)
+                assertTrue(window >= atMillis)
+                assertTrue(window - atMillis < purpose.windowMillis)
+            }
+        }
+    }
+
+    @Test
+    fun `event ids are read from event tags only`() {
+        val tags = setOf("purpose:snooze", "window:1700000100000", "event:7", "event:42", "com.countjoy.worker.SnoozeReminderWorker")
+
+        assertEquals(setOf(7L, 42L), EventWorkScheduler.eventIds(tags).toSet())
+    }
+
+    @Test
+    fun `triggers skip past windows whose job is running`() {
+        val purpose = Purpose.SNOOZE
+        val window = purpose.windowFor(1_700_000_123_456L)
+        val running = setOf(window, window + purpose.windowMillis)
+
+        assertEquals(window + 2 * purpose.windowMillis, purpose.windowFor(1_700_000_123_456L, running))
+        assertEquals(window, purpose.windowFor(1_700_000_123_456L, emptySet()))
+    }
+}